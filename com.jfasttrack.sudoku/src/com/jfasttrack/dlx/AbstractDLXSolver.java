@@ -22,19 +22,19 @@
 package com.jfasttrack.dlx;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Stack;
+import java.util.Random;
 
 
 /**
  * This class implements a solver for an exact cover problem using Donald Knuth's Algorithm X
- * (dancing links).
+ * (dancing links). The matrix is a graph of <code>Node</code> objects, exactly as Knuth describes
+ * it. <code>ArrayDLXSolver</code> implements the same algorithm over packed arrays.
  *
  * @author   Pete Boton
  * @version  2009/05
  */
-public abstract class AbstractDLXSolver {
+public abstract class AbstractDLXSolver extends AbstractExactCoverSolver {
 
     /** The collection of <code>ColumnHeader</code>s. */
     private final List columnHeaders = new ArrayList();
@@ -45,30 +45,105 @@ public abstract class AbstractDLXSolver {
     /** The root <code>Node</code> (master header) for the entire dancing links matrix. */
     private final ColumnHeader rootNode = new ColumnHeader();
 
-    /** The steps that have been taken toward the solution of an exact cover problem. */
-    private final Stack solutionNodes = new Stack();
+    /**
+     * The heads of the lists of columns by length, one for each length, starting at 0. Only used
+     * with <code>ColumnHeuristic.SHORTEST_BUCKETED</code>.
+     */
+    private ColumnHeader[] bucketHeads = new ColumnHeader[0];
+
+    /** The length of the shortest column cannot be less than this. */
+    private int lowestBucket;
+
+    /** Tells whether the lists of columns by length are being kept up to date. */
+    private boolean bucketed;
+
+    /** The row chosen at each level of a paused search, or <code>null</code>. */
+    private Node[] pausedChoices;
+
+    /** The level at which the search paused. */
+    private int pausedLevel;
+
+    /** The stack of shuffled rows of a paused search, or <code>null</code>. */
+    private Node[] pausedPending;
 
-    /** The listeners to be notified whenever a solution is found. */
-    private final List solutionListeners = new ArrayList();
+    /** The position of the next shuffled row of each level of a paused search. */
+    private int[] pausedNext;
 
-    /** Tells whether the solver is finished generating solutions. */
-    private boolean done;
+    /** The end of the shuffled rows of each level of a paused search. */
+    private int[] pausedEnd;
 
     /**
      * Creates the <code>ColumnHeader</code>s for an empty sparse matrix that will be used to solve
-     * an exact cover problem.
+     * an exact cover problem. The header of a secondary column is left out of the list of headers;
+     * its left and right links point to itself, so covering it changes nothing there.
      *
-     * @param numberOfColumns  The number of columns in the matrix.
+     * @param numberOfPrimaryColumns    The number of primary columns to be created.
+     * @param numberOfSecondaryColumns  The number of secondary columns to be created.
      */
-    protected void createColumnHeaders(final int numberOfColumns) {
-        for (int i = 0; i < numberOfColumns; i++) {
+    public void createColumnHeaders(
+            final int numberOfPrimaryColumns, final int numberOfSecondaryColumns) {
+        for (int i = 0; i < numberOfPrimaryColumns; i++) {
             ColumnHeader columnHeader = new ColumnHeader();
+            columnHeader.columnIndex = columnHeaders.size();
             columnHeader.left = rootNode.left;
             columnHeader.right = rootNode;
             rootNode.left.right = columnHeader;
             rootNode.left = columnHeader;
             columnHeaders.add(columnHeader);
         }
+        for (int i = 0; i < numberOfSecondaryColumns; i++) {
+            ColumnHeader columnHeader = new ColumnHeader();
+            columnHeader.columnIndex = columnHeaders.size();
+            columnHeader.secondary = true;
+            columnHeaders.add(columnHeader);
+        }
+    }
+
+    /**
+     * Gets the number of columns in the dancing links matrix.
+     *
+     * @return  The number of columns in the dancing links matrix.
+     */
+    public int getNumberOfColumns() {
+        return columnHeaders.size();
+    }
+
+    /**
+     * Adds a row to the dancing links matrix. The row header is appended to the specified column.
+     *
+     * @param applicationData  The number that describes the move represented by this row.
+     * @param columnIndex      The index of the column that holds the row header.
+     * @return                 The index of the new row.
+     */
+    public int addRow(final int applicationData, final int columnIndex) {
+        Node rowHeader = new Node();
+        rowHeader.applicationData = applicationData;
+        rowHeader.rowIndex = rowHeaders.size();
+        addRowHeader(rowHeader);
+        getColumnHeader(columnIndex).append(rowHeader);
+        return rowHeader.rowIndex;
+    }
+
+    /**
+     * Creates a <code>Node</code> and links it to the end of an existing row and column.
+     *
+     * @param rowIndex     The index of a row in the dancing links matrix.
+     * @param columnIndex  The index of the column that will hold the new <code>Node</code>.
+     */
+    public void addNodeToRow(final int rowIndex, final int columnIndex) {
+        Node rowHeader = getRowHeader(rowIndex);
+        Node node = new Node();
+        node.applicationData = rowHeader.applicationData;
+        node.rowIndex = rowIndex;
+
+        // Connect it to its row.
+        node.left = rowHeader.left;
+        node.right = rowHeader;
+        rowHeader.left.right = node;
+        rowHeader.left = node;
+
+        // Connect it to its column.
+        getColumnHeader(columnIndex).append(node);
     }
 
     /**
@@ -99,6 +174,17 @@ public abstract class AbstractDLXSolver {
         return (Node) rowHeaders.get(rowIndex);
     }
 
+    /**
+     * Gets a node of the specified row. This is the node reported to
+     * <code>SolutionListener</code>s for that row.
+     *
+     * @param rowIndex  The index of a row in the dancing links matrix.
+     * @return          The first <code>Node</code> in the specified row.
+     */
+    protected Node getRowNode(final int rowIndex) {
+        return getRowHeader(rowIndex);
+    }
+
     /**
      * Adds a column header to the dancing links matrix.
      *
@@ -124,31 +210,64 @@ public abstract class AbstractDLXSolver {
      *
      * @param rowIndex  The index of the row to be added.
      */
-    protected void addRowToSolution(final int rowIndex) {
+    public void addRowToSolution(final int rowIndex) {
         Node node = (Node) rowHeaders.get(rowIndex);
         do {
             coverColumn(node.columnHeader);
             node = node.right;
         } while (node != rowHeaders.get(rowIndex));
-        solutionNodes.push(node);
+        pushSolutionRow(rowIndex);
     }
 
     /**
      * Removes every row from the solution of an exact cover problem. (This is usually done when
      * preparing the matrix to solve another problem.)
      */
-    protected void removeAllRowsFromSolution() {
-        while (!solutionNodes.isEmpty()) {
-            int rowIndex = ((Node) solutionNodes.pop()).applicationData;
-            Node node = ((Node) rowHeaders.get(rowIndex)).left;
+    public void removeAllRowsFromSolution() {
+        while (getSolutionDepth() > 0) {
+            Node rowHeader = getRowHeader(popSolutionRow());
+            Node node = rowHeader;
             do {
-                uncoverColumn(node.columnHeader);
                 node = node.left;
-            } while (node != rowHeaders.get(rowIndex));
-            uncoverColumn(node.columnHeader);
+                uncoverColumn(node.columnHeader);
+            } while (node != rowHeader);
         }
     }
 
+    /**
+     * Takes a row out of the matrix without adding it to the solution, by unlinking each of its
+     * nodes from its column.
+     *
+     * @param rowIndex  The index of the row to be hidden.
+     */
+    public void hideRow(final int rowIndex) {
+        Node rowHeader = getRowHeader(rowIndex);
+        Node node = rowHeader;
+        do {
+            node.up.down = node.down;
+            node.down.up = node.up;
+            node.columnHeader.columnLength--;
+            node = node.right;
+        } while (node != rowHeader);
+    }
+
+    /**
+     * Puts back a row taken out of the matrix by <code>hideRow</code>, relinking its nodes in the
+     * reverse order.
+     *
+     * @param rowIndex  The index of the row most recently hidden.
+     */
+    public void unhideRow(final int rowIndex) {
+        Node rowHeader = getRowHeader(rowIndex);
+        Node node = rowHeader;
+        do {
+            node = node.left;
+            node.columnHeader.columnLength++;
+            node.up.down = node;
+            node.down.up = node;
+        } while (node != rowHeader);
+    }
+
     /**
      * Gets the header of the column that contains the fewest nodes. This is the column that will
      * be covered next.
@@ -183,6 +302,147 @@ public abstract class AbstractDLXSolver {
         return headerOfShortest;
     }
 
+    /**
+     * Chooses the column to be covered next. There must be at least one column left.
+     *
+     * @param heuristic   How the column is to be chosen.
+     * @param tieBreaker  Chooses among equally short columns, or <code>null</code>.
+     * @return            The header of the chosen column.
+     */
+    private ColumnHeader chooseColumn(final ColumnHeuristic heuristic, final Random tieBreaker) {
+        if (heuristic == ColumnHeuristic.FIRST) {
+            return (ColumnHeader) rootNode.right;
+        }
+        if (bucketed) {
+            return getHeaderOfShortestBucketedColumn(tieBreaker);
+        }
+        if (tieBreaker != null) {
+            return getHeaderOfRandomShortestColumn(tieBreaker);
+        }
+        return getHeaderOfShortestColumn();
+    }
+
+    /**
+     * Gets the header of a column that contains the fewest nodes, chosen at random when several
+     * columns are equally short. Each of them is equally likely to be chosen.
+     *
+     * @param tieBreaker  The source of random numbers.
+     * @return            The header of a column that has the fewest nodes.
+     */
+    private ColumnHeader getHeaderOfRandomShortestColumn(final Random tieBreaker) {
+        int lengthOfShortest = Integer.MAX_VALUE;
+        ColumnHeader headerOfShortest = null;
+        int ties = 0;
+
+        for (ColumnHeader header = (ColumnHeader) rootNode.right;
+                header != rootNode;
+                header = (ColumnHeader) header.right) {
+            if (header.columnLength < lengthOfShortest) {
+                lengthOfShortest = header.columnLength;
+                headerOfShortest = header;
+                ties = 1;
+            } else if (header.columnLength == lengthOfShortest && tieBreaker.nextInt(++ties) == 0) {
+                headerOfShortest = header;
+            }
+        }
+
+        return headerOfShortest;
+    }
+
+    /**
+     * Gets the header of a column that contains the fewest nodes from the lists of columns by
+     * length. Only the lists shorter than the shortest column are skipped, and only the columns
+     * of the shortest length are compared.
+     *
+     * @param tieBreaker  Chooses among equally short columns, or <code>null</code> to choose the
+     *                    leftmost.
+     * @return            The header of a column that has the fewest nodes.
+     */
+    private ColumnHeader getHeaderOfShortestBucketedColumn(final Random tieBreaker) {
+        ColumnHeader head = bucketHeads[lowestBucket];
+        while (head.bucketNext == head) {
+            head = bucketHeads[++lowestBucket];
+        }
+
+        ColumnHeader headerOfShortest = head.bucketNext;
+        if (tieBreaker == null) {
+            for (ColumnHeader header = headerOfShortest.bucketNext;
+                    header != head;
+                    header = header.bucketNext) {
+                if (header.columnIndex < headerOfShortest.columnIndex) {
+                    headerOfShortest = header;
+                }
+            }
+        } else {
+            int ties = 1;
+            for (ColumnHeader header = headerOfShortest.bucketNext;
+                    header != head;
+                    header = header.bucketNext) {
+                if (tieBreaker.nextInt(++ties) == 0) {
+                    headerOfShortest = header;
+                }
+            }
+        }
+        return headerOfShortest;
+    }
+
+    /**
+     * Puts every remaining column into the list for its length. The lists are kept up to date
+     * from here until the end of the search.
+     */
+    private void fillBuckets() {
+        int maxLength = 1;
+        for (ColumnHeader header = (ColumnHeader) rootNode.right;
+                header != rootNode;
+                header = (ColumnHeader) header.right) {
+            maxLength = Math.max(maxLength, header.columnLength);
+        }
+
+        if (bucketHeads.length <= maxLength) {
+            bucketHeads = new ColumnHeader[maxLength + 1];
+            for (int length = 0; length <= maxLength; length++) {
+                bucketHeads[length] = new ColumnHeader();
+            }
+        }
+        for (int length = 0; length < bucketHeads.length; length++) {
+            bucketHeads[length].bucketNext = bucketHeads[length];
+            bucketHeads[length].bucketPrev = bucketHeads[length];
+        }
+
+        for (ColumnHeader header = (ColumnHeader) rootNode.right;
+                header != rootNode;
+                header = (ColumnHeader) header.right) {
+            addToBucket(header);
+        }
+        lowestBucket = 0;
+    }
+
+    /**
+     * Removes a column from the list of columns of its length.
+     *
+     * @param header  The header of the column.
+     */
+    private static void removeFromBucket(final ColumnHeader header) {
+        header.bucketPrev.bucketNext = header.bucketNext;
+        header.bucketNext.bucketPrev = header.bucketPrev;
+    }
+
+    /**
+     * Adds a column to the back of the list of columns of its length.
+     *
+     * @param header  The header of the column.
+     */
+    private void addToBucket(final ColumnHeader header) {
+        ColumnHeader head = bucketHeads[header.columnLength];
+        header.bucketNext = head;
+        header.bucketPrev = head.bucketPrev;
+        head.bucketPrev.bucketNext = header;
+        head.bucketPrev = header;
+        if (header.columnLength < lowestBucket) {
+            lowestBucket = header.columnLength;
+        }
+    }
+
     /**
      * Removes a column and one or more rows from the matrix.
      * <p>
@@ -191,7 +451,11 @@ public abstract class AbstractDLXSolver {
      *
      * @param header  The header of the column to be removed.
      */
-    private static void coverColumn(final ColumnHeader header) {
+    private void coverColumn(final ColumnHeader header) {
+        if (bucketed) {
+            coverBucketedColumn(header);
+            return;
+        }
 
         /*
          * Pseudocode (copied from Knuth):
@@ -214,12 +478,33 @@ public abstract class AbstractDLXSolver {
         }
     }
 
+    /**
+     * Counts the updates that <code>coverColumn</code> would make: one for each node it would
+     * unlink from its column.
+     *
+     * @param header  The header of a column that is about to be covered.
+     * @return        The number of updates covering the column would make.
+     */
+    private static int countUpdates(final ColumnHeader header) {
+        int updates = 0;
+        for (Node i = header.down; i != header; i = i.down) {
+            for (Node j = i.right; j != i; j = j.right) {
+                updates++;
+            }
+        }
+        return updates;
+    }
+
     /**
      * Undoes a <code>coverColumn</code> operation by restoring a column and its associated row(s).
      *
      * @param header  The header of the column to be restored.
      */
-    private static void uncoverColumn(final ColumnHeader header) {
+    private void uncoverColumn(final ColumnHeader header) {
+        if (bucketed) {
+            uncoverBucketedColumn(header);
+            return;
+        }
 
         /*
          * Uncovering is done in exactly the reverse order of covering.
@@ -244,12 +529,137 @@ public abstract class AbstractDLXSolver {
         header.left.right = header;
     }
 
-    /** Solves an exact cover problem using Algorithm X (dancing links). */
-    public void solve() {
+    /**
+     * Covers a column as <code>coverColumn</code> does, moving each column that gets shorter to the
+     * list for its new length.
+     *
+     * @param header  The header of the column to be removed.
+     */
+    private void coverBucketedColumn(final ColumnHeader header) {
+        header.right.left = header.left;
+        header.left.right = header.right;
+        removeFromBucket(header);
+
+        for (Node i = header.down; i != header; i = i.down) {
+            for (Node j = i.right; j != i; j = j.right) {
+                j.down.up = j.up;
+                j.up.down = j.down;
+                ColumnHeader column = j.columnHeader;
+                if (column.secondary) {
+                    column.columnLength--;
+                } else {
+                    removeFromBucket(column);
+                    column.columnLength--;
+                    addToBucket(column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Uncovers a column as <code>uncoverColumn</code> does, moving each column that gets longer to
+     * the list for its new length.
+     *
+     * @param header  The header of the column to be restored.
+     */
+    private void uncoverBucketedColumn(final ColumnHeader header) {
+        for (Node i = header.up; i != header; i = i.up) {
+            for (Node j = i.left; j != i; j = j.left) {
+                ColumnHeader column = j.columnHeader;
+                if (column.secondary) {
+                    column.columnLength++;
+                } else {
+                    removeFromBucket(column);
+                    column.columnLength++;
+                    addToBucket(column);
+                }
+                j.down.up = j;
+                j.up.down = j;
+            }
+        }
+
+        header.right.left = header;
+        header.left.right = header;
+        if (!header.secondary) {
+            addToBucket(header);
+        }
+    }
+
+    /**
+     * Adds every forced row to the solution, one after another: while no column is empty, the row
+     * of a column that has only one row left is chosen, as if the search had chosen that column.
+     * Each forced row takes a level of its own, with no other row to try, so backing up through
+     * it undoes it and goes on backing up. Forced rows are not nodes of the search tree; they are
+     * neither counted nor recorded in the statistics. As soon as a column is empty, the node is a
+     * dead end: the search checks for an empty column before choosing one, whatever the
+     * heuristic, and backs up at once.
+     *
+     * @param choices  The row chosen at each level.
+     * @param level    The level of the node.
+     * @param next     The position of the next shuffled row of each level, or <code>null</code>.
+     * @param end      The end of the shuffled rows of each level, or <code>null</code>.
+     * @return         The level after the forced rows.
+     */
+    private int coverForcedColumns(
+            final Node[] choices, final int level, final int[] next, final int[] end) {
+        ColumnHeader empty = bucketHeads[0];
+        ColumnHeader single = bucketHeads[1];
+        int k = level;
+        while (empty.bucketNext == empty && single.bucketNext != single) {
+            ColumnHeader header = single.bucketNext;
+            Node r = header.down;
+            coverColumn(header);
+            if (next != null) {
+                int start = k == 0 ? 0 : end[k - 1];
+                next[k] = start;
+                end[k] = start;
+            }
+            choices[k++] = r;
+            pushSolutionRow(r.rowIndex);
+            for (Node j = r.right; j != r; j = j.right) {
+                coverColumn(j.columnHeader);
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Tells whether this engine can pause its search at a solution and carry on later. It can.
+     *
+     * @return  <code>true</code>.
+     */
+    protected boolean isPausable() {
+        return true;
+    }
+
+    /**
+     * Searches an exact cover problem using Algorithm X (dancing links).
+     * <p>
+     * The search does not recurse. The row chosen at each level is kept in an explicit stack, so
+     * the depth of the search is limited only by the number of columns, not by the size of the
+     * thread's stack.
+     * <p>
+     * When statistics are being kept, each node records its depth and the length of the column it
+     * chose, and the updates of each cover are counted before it is made. None of this is done
+     * otherwise.
+     * <p>
+     * When the rows are to be shuffled, the rows of each chosen column are copied onto a stack of
+     * pending rows and shuffled there, and the search takes them from the stack instead of
+     * following the down links. A covered column keeps its rows, so the copy stays valid until
+     * the column is uncovered.
+     * <p>
+     * When the search pauses at a solution, the stacks and the level are kept in fields until it
+     * resumes. The matrix itself is left exactly as it was.
+     * <p>
+     * When forced moves are propagated, the lists of columns by length are kept even if the
+     * heuristic does not need them, and each node first covers every column that has only one
+     * row left (see <code>coverForcedColumns</code>).
+     */
+    protected void search() {
 
         /*
-         * Knuth includes the search depth as a parameter called k. That
-         * parameter is omitted here because we have no use for it.
+         * Knuth includes the search depth as a parameter called k. Here, k is
+         * the variable level, and O[k] is choices[level].
          *
          * Pseudocode (copied from Knuth):
          *   If R[h] = h, print the current solution and return.
@@ -261,57 +671,144 @@ public abstract class AbstractDLXSolver {
          *       search(k + 1);
          *       set r <- O[k] and c <- C[r];
          *       for each j <- L[r], L[L[r]], ..., while j != r,
+         *           uncover column j.
+         *   Uncover column c and return.
+         *
+         * A call to search(k + 1) becomes a jump to the top of the loop with
+         * level incremented. A return becomes the inner loop, which backs up
+         * to the most recent level that still has a row to try.
          */
 
-        if (rootNode.right == rootNode) {
-            reportSolution();
-            return;
-        }
-
-        ColumnHeader header = getHeaderOfShortestColumn();
-        coverColumn(header);
-
-        Node r = header.down;
-        while (r != header) {
-            solutionNodes.push(r);
-            for (Node j = r.right; j != r; j = j.right) {
-                coverColumn(j.columnHeader);
-            }
-            if (!done) {
-                solve();
+        final SearchStats stats = getSearchStats();
+        final ColumnHeuristic heuristic = getColumnHeuristic();
+        final Random tieBreaker = getTieBreaker();
+        final Random rowShuffler = getRowShuffler();
+        final boolean propagating = isPropagatingForcedMoves();
+        Node[] choices;
+        int level;
+
+        // The shuffled rows of each level are pending[end[level - 1]] to pending[end[level] - 1].
+        Node[] pending = null;
+        int[] next = null;
+        int[] end = null;
+
+        boolean resuming = isResuming();
+        if (resuming) {
+            choices = pausedChoices;
+            level = pausedLevel;
+            pending = pausedPending;
+            next = pausedNext;
+            end = pausedEnd;
+            pausedChoices = null;
+            pausedPending = null;
+            pausedNext = null;
+            pausedEnd = null;
+        } else {
+            choices = new Node[columnHeaders.size() + 1];
+            level = 0;
+            if (rowShuffler != null) {
+                pending = new Node[columnHeaders.size() + 1];
+                next = new int[columnHeaders.size() + 1];
+                end = new int[columnHeaders.size() + 1];
             }
 
-            /*r = (Node)*/ solutionNodes.pop();
-            header = r.columnHeader;
-            for (Node j = r.left; j != r; j = j.left) {
-                uncoverColumn(j.columnHeader);
+            bucketed = heuristic == ColumnHeuristic.SHORTEST_BUCKETED || propagating;
+            if (bucketed) {
+                fillBuckets();
             }
-            r = r.down;
         }
 
-        uncoverColumn(header);
-    }
+        while (true) {
+            ColumnHeader header = null;
+            Node r = null;
+            if (resuming) {
+                resuming = false;
+            } else {
+                countNode();
+                if (propagating) {
+                    level = coverForcedColumns(choices, level, next, end);
+                }
+                if (rootNode.right == rootNode) {
+                    reportSolution();
+                    if (isPaused()) {
+                        pausedChoices = choices;
+                        pausedLevel = level;
+                        pausedPending = pending;
+                        pausedNext = next;
+                        pausedEnd = end;
+                        return;
+                    }
+                } else if (propagating && bucketHeads[0].bucketNext != bucketHeads[0]) {
+
+                    // A forced row has left a column empty, so there is nothing to try here.
+                    header = bucketHeads[0].bucketNext;
+                    coverColumn(header);
+                    r = header;
+                } else {
+                    header = chooseColumn(heuristic, tieBreaker);
+                    if (stats != null) {
+                        stats.recordChoice(level, header.columnLength, countUpdates(header));
+                    }
+                    coverColumn(header);
+                    if (rowShuffler == null) {
+                        r = header.down;
+                    } else {
+                        int start = level == 0 ? 0 : end[level - 1];
+                        int length = header.columnLength;
+                        if (start + length > pending.length) {
+                            Node[] grown =
+                                    new Node[Math.max(2 * pending.length, start + length)];
+                            System.arraycopy(pending, 0, grown, 0, start);
+                            pending = grown;
+                        }
+                        int k = start;
+                        for (Node i = header.down; i != header; i = i.down) {
+                            int j = start + rowShuffler.nextInt(k - start + 1);
+                            pending[k++] = pending[j];
+                            pending[j] = i;
+                        }
+                        next[level] = start;
+                        end[level] = k;
+                        r = next[level] < end[level] ? pending[next[level]++] : header;
+                    }
+                }
+            }
 
-    /**
-     * Adds a listener to the collection of registered listeners. Each listener will be notified
-     * whenever a solution to an exact cover problem is found.
-     *
-     * @param listener  The listener to be added.
-     */
-    public void addSolutionListener(final SolutionListener listener) {
-        solutionListeners.add(listener);
-    }
+            while (r == header || isDone()) {
+                if (header != null) {
+                    uncoverColumn(header);
+                }
+                if (level == 0) {
+                    bucketed = false;
+                    return;
+                }
+                r = choices[--level];
+                popSolutionRow();
+                for (Node j = r.left; j != r; j = j.left) {
+                    uncoverColumn(j.columnHeader);
+                }
+                header = r.columnHeader;
+                if (rowShuffler == null) {
+                    r = r.down;
+                } else {
+                    r = next[level] < end[level] ? pending[next[level]++] : header;
+                }
+            }
 
-    /**
-     * Notifies each registered listener that a solution has been found. Based on the return value
-     * from each notification, sets an instance variable that tells the solver whether to continue
-     * generating solutions.
-     */
-    private void reportSolution() {
-        Iterator iterator = solutionListeners.iterator();
-        while (iterator.hasNext()) {
-            SolutionListener listener = (SolutionListener) iterator.next();
-            done |= listener.solutionFound(solutionNodes);
+            choices[level++] = r;
+            pushSolutionRow(r.rowIndex);
+            if (stats == null) {
+                for (Node j = r.right; j != r; j = j.right) {
+                    coverColumn(j.columnHeader);
+                }
+            } else {
+                int updates = 0;
+                for (Node j = r.right; j != r; j = j.right) {
+                    updates += countUpdates(j.columnHeader);
+                    coverColumn(j.columnHeader);
+                }
+                stats.recordUpdates(level - 1, updates);
+            }
         }
     }
 }
@@ -0,0 +1,842 @@
+/*
+  AbstractExactCoverSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * This class is the common base of every exact cover engine. Problem-specific solvers (sudoku,
+ * pentominoes) build their matrix through the methods declared here, one column and one row at a
+ * time, so that they can run on any engine.
+ * <p>
+ * Columns are identified by the order in which they were created, starting at 0. Rows are
+ * identified by the index returned from <code>addRow</code>. The rows of the current (partial)
+ * solution are kept here, in an array of row indexes, so that a solution can be reported to a
+ * <code>RowSolutionListener</code> without allocating anything.
+ * <p>
+ * Each engine implements <code>search</code>, calling <code>countNode</code> once for each node of
+ * the search tree it visits and checking <code>isDone</code> before it goes deeper. This class
+ * takes care of everything around the search: resetting the solver, enforcing the
+ * <code>SearchBudget</code>, deciding the <code>SearchOutcome</code>, and, when asked to, keeping
+ * <code>SearchStats</code>. A solver can be used for any number of searches, however the previous
+ * one ended.
+ * <p>
+ * An engine that can pause its search also hands out its solutions through a
+ * <code>SolutionIterator</code>, one at a time, so that the caller pulls them instead of having
+ * them pushed to listeners. Such an engine returns from <code>search</code> as soon as
+ * <code>isPaused</code> tells it that the solution it just reported has paused the search,
+ * leaving the matrix as it is. When the next solution is asked for, <code>search</code> is called
+ * again with <code>isResuming</code> returning <code>true</code>, and it carries on as if
+ * <code>reportSolution</code> had just returned.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public abstract class AbstractExactCoverSolver {
+
+    /** The number of nodes visited between checks of the search budget. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** The initial capacity of the array of solution rows. */
+    private static final int INITIAL_DEPTH = 16;
+
+    /** The listeners to be notified with a list of nodes whenever a solution is found. */
+    private final List solutionListeners = new ArrayList();
+
+    /** The listeners to be notified with an array of row indexes whenever a solution is found. */
+    private final List rowSolutionListeners = new ArrayList();
+
+    /** The indexes of the rows that make up the current (partial) solution. */
+    private int[] solutionRows = new int[INITIAL_DEPTH];
+
+    /** The number of rows in the current (partial) solution. */
+    private int solutionDepth;
+
+    /**
+     * The nodes reported to <code>SolutionListener</code>s. The same list is refilled for each
+     * solution.
+     */
+    private final List solutionNodes = new ArrayList();
+
+    /** Tells whether the solver is finished generating solutions. */
+    private boolean done;
+
+    /** The number of solutions reported since counting started. */
+    private int numberOfSolutions;
+
+    /** The number of solutions after which the search stops, or 0 if there is no limit. */
+    private int solutionLimit;
+
+    /** The limits on each search. */
+    private SearchBudget searchBudget = SearchBudget.UNLIMITED;
+
+    /** How the most recent search ended, or <code>null</code> while a search is running. */
+    private SearchOutcome outcome;
+
+    /** The time, from <code>System.currentTimeMillis</code>, when the search must stop, or 0. */
+    private long deadline;
+
+    /** The thread whose interrupt stops the search. */
+    private Thread searchThread;
+
+    /** The number of nodes visited, up to the most recent check of the budget. */
+    private long numberOfNodes;
+
+    /** The number of nodes between the most recent check of the budget and the next one. */
+    private int checkInterval;
+
+    /** The number of nodes that remain to be visited before the budget is checked again. */
+    private int nodesUntilCheck;
+
+    /**
+     * A count of nodes shared with other solvers working on the same search, or <code>null</code>
+     * if this solver searches alone.
+     */
+    private AtomicLong sharedNodeCount;
+
+    /** Tells whether this solver is taking part in a search started by another solver. */
+    private boolean sharingSearch;
+
+    /** Tells whether statistics are kept for each search. */
+    private boolean collectingStats;
+
+    /** The statistics of the most recent search, or <code>null</code> if none were kept. */
+    private SearchStats searchStats;
+
+    /** The number of rows that were in the solution when the most recent search started. */
+    private int startingDepth;
+
+    /** How the column to be covered is chosen at each node of the search tree. */
+    private ColumnHeuristic columnHeuristic = ColumnHeuristic.SHORTEST;
+
+    /** Chooses among equally short columns, or <code>null</code> to choose the leftmost. */
+    private Random tieBreaker;
+
+    /** Shuffles the rows of each chosen column, or <code>null</code> to try them top to bottom. */
+    private Random rowShuffler;
+
+    /** Tells whether forced moves are made in a batch at each node of the search tree. */
+    private boolean propagatingForcedMoves;
+
+    /** The iterator that runs the current search, or <code>null</code> if listeners run it. */
+    private SolutionIterator solutionIterator;
+
+    /** The rows of the solution at which the search is paused, or <code>null</code>. */
+    private int[] pausedSolution;
+
+    /** Tells whether the next call of <code>search</code> continues a paused search. */
+    private boolean resuming;
+
+    /** The time spent in the current search, not counting pauses, in nanoseconds. */
+    private long elapsedNanos;
+
+    /**
+     * Creates primary columns at the end of the matrix. Each of them must be covered exactly once.
+     *
+     * @param numberOfColumns  The number of columns to be created.
+     */
+    public void createColumnHeaders(final int numberOfColumns) {
+        createColumnHeaders(numberOfColumns, 0);
+    }
+
+    /**
+     * Creates columns at the end of the matrix: first the primary columns, then the secondary
+     * columns.
+     * <p>
+     * A primary column must be covered exactly once. A secondary column may be covered at most
+     * once: no two rows of a solution share it, but no row of a solution need cover it. The search
+     * only chooses among the primary columns, and a solution is complete once all of them are
+     * covered. (This is Knuth's generalized exact cover problem.)
+     *
+     * @param numberOfPrimaryColumns    The number of primary columns to be created.
+     * @param numberOfSecondaryColumns  The number of secondary columns to be created.
+     */
+    public abstract void createColumnHeaders(
+            int numberOfPrimaryColumns, int numberOfSecondaryColumns);
+
+    /**
+     * Gets the number of columns in the matrix.
+     *
+     * @return  The number of columns in the matrix.
+     */
+    public abstract int getNumberOfColumns();
+
+    /**
+     * Adds a row to the matrix. The new row starts out with a single node.
+     *
+     * @param applicationData  The number that describes the move represented by this row.
+     * @param columnIndex      The index of the column that holds the first node of this row.
+     * @return                 The index of the new row.
+     */
+    public abstract int addRow(int applicationData, int columnIndex);
+
+    /**
+     * Adds a node to the end of an existing row.
+     *
+     * @param rowIndex     The index of a row returned by <code>addRow</code>.
+     * @param columnIndex  The index of the column that will hold the new node.
+     */
+    public abstract void addNodeToRow(int rowIndex, int columnIndex);
+
+    /**
+     * Adds the specified row to the solution. Removes all affected columns from further
+     * consideration.
+     *
+     * @param rowIndex  The index of the row to be added.
+     */
+    public abstract void addRowToSolution(int rowIndex);
+
+    /**
+     * Gets a node of the specified row. This is the node reported to
+     * <code>SolutionListener</code>s for that row.
+     *
+     * @param rowIndex  The index of a row returned by <code>addRow</code>.
+     * @return          A node that holds the row's application data.
+     */
+    protected abstract Node getRowNode(int rowIndex);
+
+    /**
+     * Gets the application data of a row.
+     *
+     * @param rowIndex  The index of a row returned by <code>addRow</code>.
+     * @return          The number that describes the move represented by the row.
+     */
+    public int getApplicationData(final int rowIndex) {
+        return getRowNode(rowIndex).applicationData;
+    }
+
+    /**
+     * Removes every row from the solution of an exact cover problem. (This is usually done when
+     * preparing the matrix to solve another problem.)
+     */
+    public abstract void removeAllRowsFromSolution();
+
+    /**
+     * Takes a row out of the matrix without adding it to the solution, so that no solution found
+     * afterwards contains it. The row must still be in the matrix: it must not have been hidden
+     * already, and none of its columns may be covered by the rows of the solution. Hidden rows
+     * are put back by <code>unhideRow</code> in the reverse of the order in which they were
+     * hidden, before any row added to the solution after them is removed. Rows must not be hidden
+     * or put back while a search is paused.
+     *
+     * @param rowIndex  The index of the row to be hidden.
+     */
+    public abstract void hideRow(int rowIndex);
+
+    /**
+     * Puts back a row taken out of the matrix by <code>hideRow</code>.
+     *
+     * @param rowIndex  The index of the row most recently hidden.
+     */
+    public abstract void unhideRow(int rowIndex);
+
+    /**
+     * Searches for every exact cover of the columns that remain in the matrix, reporting each
+     * solution through <code>reportSolution</code>. Implementations call <code>countNode</code>
+     * for each node of the search tree and stop as soon as <code>isDone</code> returns
+     * <code>true</code>.
+     */
+    protected abstract void search();
+
+    /**
+     * Tells whether this engine can pause its search at a solution and carry on later. Engines
+     * that can override this method to return <code>true</code>.
+     *
+     * @return  <code>true</code> if this engine can hand out its solutions through a
+     *          <code>SolutionIterator</code>.
+     */
+    protected boolean isPausable() {
+        return false;
+    }
+
+    /**
+     * Solves the exact cover problem, reporting each solution to the registered listeners. The
+     * search runs until every solution has been found, until a listener asks it to stop, or until
+     * its budget runs out. If an iterator's search is paused, it is closed first.
+     *
+     * @return  How the search ended.
+     */
+    public SearchOutcome solve() {
+        closeSolutions();
+        startSearch();
+        return runSearch();
+    }
+
+    /**
+     * Gets an iterator over the solutions of the exact cover problem. Nothing is searched until
+     * the first solution is asked for; after that, the search runs only as far as the next
+     * solution, and waits there until that one is asked for in turn. The caller can therefore
+     * page through any number of solutions in constant memory, and stop whenever it likes.
+     * <p>
+     * Each solution is an <code>int[]</code> holding the indexes of its rows, including the rows
+     * added to the solution before the search. The registered listeners are not notified of these
+     * solutions, but the search budget applies as usual; when the iterator runs out,
+     * <code>getOutcome</code> tells why.
+     * <p>
+     * The matrix must not be changed while the iterator is open. It is closed when it runs out,
+     * when <code>close</code> is called on it, or when another search is started.
+     *
+     * @return  An iterator over the solutions.
+     * @throws UnsupportedOperationException  If this engine cannot pause its search.
+     */
+    public SolutionIterator solutions() {
+        if (!isPausable()) {
+            throw new UnsupportedOperationException(
+                    getClass().getName() + " cannot pause its search");
+        }
+        closeSolutions();
+        solutionIterator = new SolutionIterator(this);
+        return solutionIterator;
+    }
+
+    /**
+     * Runs an iterator's search as far as its next solution. The first call starts the search;
+     * each later one resumes it.
+     *
+     * @param iterator  The iterator that wants a solution.
+     * @return          The rows of the next solution, or <code>null</code> if there are no more
+     *                  or the iterator has been closed.
+     */
+    int[] nextSolution(final SolutionIterator iterator) {
+        if (iterator != solutionIterator) {
+            return null;
+        }
+        if (pausedSolution == null) {
+            startSearch();
+        } else {
+            pausedSolution = null;
+            resuming = true;
+        }
+        runSearch();
+        if (pausedSolution == null) {
+            solutionIterator = null;
+        }
+        return pausedSolution;
+    }
+
+    /**
+     * Closes an iterator, if it is still open.
+     *
+     * @param iterator  The iterator to be closed.
+     */
+    void closeSolutions(final SolutionIterator iterator) {
+        if (iterator == solutionIterator) {
+            closeSolutions();
+        }
+    }
+
+    /**
+     * Closes the open iterator, if there is one. If its search is paused, the search is stopped,
+     * which backs it up to where it started.
+     */
+    private void closeSolutions() {
+        solutionIterator = null;
+        if (pausedSolution != null) {
+            pausedSolution = null;
+            resuming = true;
+            stopSearch(SearchOutcome.STOPPED);
+            runSearch();
+        }
+    }
+
+    /**
+     * Resets the solver for a new search.
+     */
+    private void startSearch() {
+        done = false;
+        outcome = null;
+        if (!sharingSearch) {
+            long timeLimit = searchBudget.getTimeLimit();
+            deadline = timeLimit == 0 ? 0 : System.currentTimeMillis() + timeLimit;
+            searchThread = Thread.currentThread();
+        }
+        numberOfNodes = 0;
+        checkInterval = getCheckInterval(0);
+        nodesUntilCheck = checkInterval;
+        searchStats = collectingStats ? new SearchStats() : null;
+        startingDepth = solutionDepth;
+        elapsedNanos = 0;
+    }
+
+    /**
+     * Runs the search, either until it ends or until it pauses at a solution.
+     *
+     * @return  How the search ended, or <code>null</code> if it has paused.
+     */
+    private SearchOutcome runSearch() {
+        long startTime = collectingStats ? System.nanoTime() : 0;
+
+        search();
+        resuming = false;
+
+        if (searchStats != null) {
+            elapsedNanos += System.nanoTime() - startTime;
+            searchStats.setElapsedNanos(elapsedNanos);
+        }
+        if (pausedSolution != null) {
+            return null;
+        }
+
+        int counted = checkInterval - nodesUntilCheck;
+        numberOfNodes += counted;
+        nodesUntilCheck = checkInterval;
+        if (sharedNodeCount != null) {
+            sharedNodeCount.addAndGet(counted);
+        }
+        if (outcome == null) {
+            outcome = done ? SearchOutcome.STOPPED : SearchOutcome.COMPLETED;
+        }
+        return outcome;
+    }
+
+    /**
+     * Sets the limits on each search. The budget takes effect with the next search.
+     *
+     * @param searchBudget  The limits on each search.
+     */
+    public void setSearchBudget(final SearchBudget searchBudget) {
+        this.searchBudget = searchBudget;
+    }
+
+    /**
+     * Gets the limits on each search.
+     *
+     * @return  The limits on each search.
+     */
+    public SearchBudget getSearchBudget() {
+        return searchBudget;
+    }
+
+    /**
+     * Gets how the most recent search ended.
+     *
+     * @return  How the most recent search ended, or <code>null</code> if no search has finished.
+     */
+    public SearchOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the number of nodes of the search tree visited by the most recent search.
+     *
+     * @return  The number of nodes visited.
+     */
+    public long getNumberOfNodes() {
+        if (sharedNodeCount != null) {
+            return sharedNodeCount.get();
+        }
+        return numberOfNodes + checkInterval - nodesUntilCheck;
+    }
+
+    /**
+     * Sets how the column to be covered is chosen at each node of the search tree. The heuristic
+     * takes effect with the next search.
+     *
+     * @param columnHeuristic  How columns are to be chosen.
+     */
+    public void setColumnHeuristic(final ColumnHeuristic columnHeuristic) {
+        this.columnHeuristic = columnHeuristic;
+    }
+
+    /**
+     * Gets how the column to be covered is chosen at each node of the search tree.
+     *
+     * @return  How columns are chosen.
+     */
+    public ColumnHeuristic getColumnHeuristic() {
+        return columnHeuristic;
+    }
+
+    /**
+     * Sets a source of random numbers used to choose among equally short columns. With a seeded
+     * <code>Random</code>, the search is still repeatable. The tie breaker takes effect with the
+     * next search.
+     *
+     * @param tieBreaker  The source of random numbers, or <code>null</code> to choose the leftmost
+     *                    of equally short columns.
+     */
+    public void setTieBreaker(final Random tieBreaker) {
+        this.tieBreaker = tieBreaker;
+    }
+
+    /**
+     * Gets the source of random numbers used to choose among equally short columns.
+     *
+     * @return  The source of random numbers, or <code>null</code> if the leftmost of equally short
+     *          columns is chosen.
+     */
+    public Random getTieBreaker() {
+        return tieBreaker;
+    }
+
+    /**
+     * Sets a source of random numbers used to shuffle the rows of each column the search chooses,
+     * so that they are tried in random order. The search still finds every solution, but in a
+     * random order; the first solution found is a random one. With a seeded <code>Random</code>,
+     * the order is repeatable. The shuffler takes effect with the next search.
+     *
+     * @param rowShuffler  The source of random numbers, or <code>null</code> to try the rows of
+     *                     each column from top to bottom.
+     */
+    public void setRowShuffler(final Random rowShuffler) {
+        this.rowShuffler = rowShuffler;
+    }
+
+    /**
+     * Gets the source of random numbers used to shuffle the rows of each column the search
+     * chooses.
+     *
+     * @return  The source of random numbers, or <code>null</code> if the rows of each column are
+     *          tried from top to bottom.
+     */
+    public Random getRowShuffler() {
+        return rowShuffler;
+    }
+
+    /**
+     * Sets whether forced moves are propagated. A column with only one row left forces that row
+     * into the solution; when this is set, each node of the search tree first adds every forced
+     * row, one after another, and stops as soon as a column is left empty. The forced rows are
+     * not nodes of the search tree, so fewer nodes are counted, and no column is chosen for them.
+     * This pays off on large problems in which most moves are forced, such as big sudokus. The
+     * solutions found are the same. Engines that cannot propagate (<code>DancingCellsSolver</code>)
+     * ignore the setting. It takes effect with the next search.
+     *
+     * @param propagatingForcedMoves  <code>true</code> if forced moves are to be propagated.
+     */
+    public void setPropagatingForcedMoves(final boolean propagatingForcedMoves) {
+        this.propagatingForcedMoves = propagatingForcedMoves;
+    }
+
+    /**
+     * Gets whether forced moves are propagated.
+     *
+     * @return  <code>true</code> if forced moves are propagated.
+     */
+    public boolean isPropagatingForcedMoves() {
+        return propagatingForcedMoves;
+    }
+
+    /**
+     * Sets whether statistics are kept for each search. Keeping them slows the search down; not
+     * keeping them costs nothing. The setting takes effect with the next search.
+     *
+     * @param collectingStats  <code>true</code> if statistics are to be kept.
+     */
+    public void setCollectingStats(final boolean collectingStats) {
+        this.collectingStats = collectingStats;
+    }
+
+    /**
+     * Gets the statistics of the most recent search. While a search is running, these are the
+     * statistics so far.
+     *
+     * @return  The statistics of the most recent search, or <code>null</code> if statistics are
+     *          not being kept.
+     */
+    public SearchStats getSearchStats() {
+        return searchStats;
+    }
+
+    /**
+     * Counts the solutions of the exact cover problem, stopping as soon as a given number of them
+     * have been found. Registered listeners are notified of each solution found, as usual.
+     *
+     * @param limit  The number of solutions after which the search stops.
+     * @return       The number of solutions found. This is never more than <code>limit</code>.
+     */
+    public int countSolutions(final int limit) {
+        numberOfSolutions = 0;
+        solutionLimit = limit;
+        try {
+            solve();
+        } finally {
+            solutionLimit = 0;
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Tells whether the exact cover problem has no solution, exactly one solution, or more. The
+     * search stops as soon as a second solution is found.
+     *
+     * @return  The uniqueness of the solution.
+     */
+    public Uniqueness checkUniqueness() {
+        return Uniqueness.valueOf(countSolutions(2));
+    }
+
+    /**
+     * Adds a listener to the collection of registered listeners. Each listener will be notified
+     * whenever a solution to an exact cover problem is found.
+     *
+     * @param listener  The listener to be added.
+     */
+    public void addSolutionListener(final SolutionListener listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Adds a listener to be notified with the row indexes of each solution found.
+     *
+     * @param listener  The listener to be added.
+     */
+    public void addRowSolutionListener(final RowSolutionListener listener) {
+        rowSolutionListeners.add(listener);
+    }
+
+    /**
+     * Removes every registered listener of either kind.
+     */
+    public void removeAllListeners() {
+        solutionListeners.clear();
+        rowSolutionListeners.clear();
+    }
+
+    /**
+     * Adds a row to the current (partial) solution.
+     *
+     * @param rowIndex  The index of the row.
+     */
+    protected final void pushSolutionRow(final int rowIndex) {
+        if (solutionDepth == solutionRows.length) {
+            int[] rows = new int[solutionRows.length * 2];
+            System.arraycopy(solutionRows, 0, rows, 0, solutionDepth);
+            solutionRows = rows;
+        }
+        solutionRows[solutionDepth++] = rowIndex;
+    }
+
+    /**
+     * Removes the most recently added row from the current (partial) solution.
+     *
+     * @return  The index of the row that was removed.
+     */
+    protected final int popSolutionRow() {
+        return solutionRows[--solutionDepth];
+    }
+
+    /**
+     * Gets the number of rows in the current (partial) solution.
+     *
+     * @return  The number of rows in the current solution.
+     */
+    protected final int getSolutionDepth() {
+        return solutionDepth;
+    }
+
+    /**
+     * Gets the number of rows that were in the solution when the most recent search started. The
+     * depth of a node of the search tree is measured from here.
+     *
+     * @return  The number of rows in the solution when the search started.
+     */
+    protected final int getStartingDepth() {
+        return startingDepth;
+    }
+
+    /**
+     * Copies the current (partial) solution of another solver into this one.
+     *
+     * @param other  The solver whose solution is to be copied.
+     */
+    void copySolutionRows(final AbstractExactCoverSolver other) {
+        solutionRows = (int[]) other.solutionRows.clone();
+        solutionDepth = other.solutionDepth;
+    }
+
+    /**
+     * Gets whether the solver should stop generating solutions, either because a listener asked it
+     * to or because the search budget has run out.
+     *
+     * @return  <code>true</code> if the solver is finished generating solutions.
+     */
+    protected boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Gets whether the solution just reported has paused the search. An engine that can pause
+     * must then return from <code>search</code> at once, without changing the matrix.
+     *
+     * @return  <code>true</code> if the search is paused.
+     */
+    protected final boolean isPaused() {
+        return pausedSolution != null;
+    }
+
+    /**
+     * Gets whether this call of <code>search</code> is to continue a paused search, from just
+     * after the solution at which it paused.
+     *
+     * @return  <code>true</code> if the search is resuming.
+     */
+    protected final boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * Counts one node of the search tree. Every so often, checks whether the search budget has run
+     * out. This is cheap enough to be called for every node.
+     */
+    protected final void countNode() {
+        if (--nodesUntilCheck <= 0) {
+            checkBudget();
+        }
+    }
+
+    /**
+     * Checks whether the search budget has run out. If it has, stops the search. Otherwise,
+     * decides when to check again.
+     */
+    private void checkBudget() {
+        int counted = checkInterval - nodesUntilCheck;
+        numberOfNodes += counted;
+        long total = numberOfNodes;
+        if (sharedNodeCount != null) {
+            total = sharedNodeCount.addAndGet(counted);
+        }
+
+        long maxNodes = searchBudget.getMaxNodes();
+        if (maxNodes > 0 && total >= maxNodes) {
+            stopSearch(SearchOutcome.NODE_LIMIT);
+        } else if (deadline > 0 && System.currentTimeMillis() >= deadline) {
+            stopSearch(SearchOutcome.TIME_LIMIT);
+        } else if (searchBudget.isInterruptible() && searchThread.isInterrupted()) {
+            stopSearch(SearchOutcome.INTERRUPTED);
+        }
+
+        checkInterval = getCheckInterval(total);
+        nodesUntilCheck = checkInterval;
+    }
+
+    /**
+     * Gets the number of nodes to be visited before the budget is checked again. When there is a
+     * node limit, the check falls exactly on it.
+     *
+     * @param total  The number of nodes visited so far.
+     * @return       The number of nodes before the next check.
+     */
+    private int getCheckInterval(final long total) {
+        long maxNodes = searchBudget.getMaxNodes();
+        if (maxNodes > 0 && maxNodes - total < CHECK_INTERVAL) {
+            return (int) Math.max(1, maxNodes - total);
+        }
+        return CHECK_INTERVAL;
+    }
+
+    /**
+     * Stops the search before it has finished.
+     *
+     * @param reason  The reason the search is stopping.
+     */
+    void stopSearch(final SearchOutcome reason) {
+        done = true;
+        if (outcome == null) {
+            outcome = reason;
+        }
+    }
+
+    /**
+     * Makes this solver take part in a search started by another solver. The budget, the deadline,
+     * the thread whose interrupt stops the search, and the count of nodes visited all become those
+     * of the other solver. This solver also keeps statistics if the other one does, and chooses
+     * columns, orders rows, and propagates forced moves the same way. This is used to search
+     * several copies of a matrix at once.
+     *
+     * @param owner  The solver that started the search.
+     */
+    void shareSearch(final AbstractExactCoverSolver owner) {
+        searchBudget = owner.searchBudget;
+        deadline = owner.deadline;
+        searchThread = owner.searchThread;
+        sharedNodeCount = owner.sharedNodeCount;
+        sharingSearch = true;
+        collectingStats = owner.collectingStats;
+        columnHeuristic = owner.columnHeuristic;
+        tieBreaker = owner.tieBreaker;
+        rowShuffler = owner.rowShuffler;
+        propagatingForcedMoves = owner.propagatingForcedMoves;
+    }
+
+    /**
+     * Starts a count of nodes that will be shared with other solvers. This solver does not visit
+     * any nodes itself; it only reports the total.
+     */
+    void startSharedNodeCount() {
+        sharedNodeCount = new AtomicLong();
+    }
+
+    /**
+     * Notifies each registered listener that the current solution is complete.
+     */
+    protected final void reportSolution() {
+        if (searchStats != null) {
+            searchStats.recordSolution(solutionDepth - startingDepth);
+        }
+        reportSolution(solutionRows, solutionDepth);
+    }
+
+    /**
+     * Notifies each registered listener that a solution has been found. Based on the return value
+     * from each notification, and on the number of solutions that were asked for, sets an instance
+     * variable that tells the solver whether to continue generating solutions.
+     * <p>
+     * <code>SolutionListener</code>s are notified first, with a list of nodes that is only built if
+     * there are any. <code>RowSolutionListener</code>s are notified next, with the row indexes.
+     * <p>
+     * If a <code>SolutionIterator</code> is running the search, no listener is notified. A copy
+     * of the rows is kept for the iterator instead, and the search pauses.
+     *
+     * @param rows   The indexes of the rows that make up this solution.
+     * @param depth  The number of rows in this solution.
+     */
+    protected void reportSolution(final int[] rows, final int depth) {
+        if (solutionIterator != null) {
+            pausedSolution = new int[depth];
+            System.arraycopy(rows, 0, pausedSolution, 0, depth);
+            return;
+        }
+        if (!solutionListeners.isEmpty()) {
+            solutionNodes.clear();
+            for (int i = 0; i < depth; i++) {
+                solutionNodes.add(getRowNode(rows[i]));
+            }
+            for (int i = 0; i < solutionListeners.size(); i++) {
+                SolutionListener listener = (SolutionListener) solutionListeners.get(i);
+                done |= listener.solutionFound(solutionNodes);
+            }
+        }
+        for (int i = 0; i < rowSolutionListeners.size(); i++) {
+            RowSolutionListener listener = (RowSolutionListener) rowSolutionListeners.get(i);
+            done |= listener.solutionFound(rows, depth);
+        }
+        numberOfSolutions++;
+        if (solutionLimit > 0 && numberOfSolutions >= solutionLimit) {
+            done = true;
+        }
+    }
+}
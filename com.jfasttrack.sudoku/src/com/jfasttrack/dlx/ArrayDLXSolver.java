@@ -0,0 +1,1119 @@
+/*
+  ArrayDLXSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * This class solves an exact cover problem using Knuth's Algorithm X (dancing links), with the
+ * matrix stored in packed arrays of integers instead of a graph of <code>Node</code> objects.
+ * <p>
+ * The layout is the one Knuth uses in his DLX1 program. Every node is identified by an integer,
+ * and its column, up link, down link, and row are stored next to each other in a single array.
+ * The nodes of each row are stored contiguously, with a spacer node between consecutive rows, so
+ * the nodes of a row are visited by incrementing an index instead of following left and right
+ * links. A spacer's up link points to the first node of the row before it and its down link to the
+ * last node of the row after it, which lets a traversal wrap around to the other end of its row.
+ * The column headers keep their own left and right links, and the length of each column is stored
+ * in the column field of its header. Only the primary columns are linked into the list of headers;
+ * the left and right links of a secondary column point to itself. No casts are needed anywhere in
+ * the search.
+ * <p>
+ * The matrix is built through the methods of <code>AbstractExactCoverSolver</code>. Because
+ * columns and rows may be created in any order, the nodes are only recorded while the matrix is
+ * being built. The packed arrays are laid out when the matrix is first used. Nodes are linked into
+ * their columns in the order in which they were created, and each row keeps the order of its
+ * nodes, so the matrix is identical to the one <code>AbstractDLXSolver</code> would build and both
+ * engines report the same solutions in the same order.
+ * <p>
+ * With <code>ColumnHeuristic.SHORTEST_BUCKETED</code>, the remaining columns are also kept in
+ * doubly linked lists, one for each column length, for as long as a search runs. Each time a
+ * column gets shorter or longer, it moves to the back of another list. The first list that is not
+ * empty holds the shortest columns, and the leftmost of them (the one with the lowest header) is
+ * found by scanning that list, so the search tree is the same as with
+ * <code>ColumnHeuristic.SHORTEST</code>.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class ArrayDLXSolver extends AbstractExactCoverSolver {
+
+    /**
+     * The offset of the column field within the fields of a node. For a column header, this field
+     * holds the length of the column instead. For a spacer, it is never positive.
+     */
+    private static final int TOP = 0;
+
+    /** The offset of the up link within the fields of a node. */
+    private static final int UP = 1;
+
+    /** The offset of the down link within the fields of a node. */
+    private static final int DOWN = 2;
+
+    /** The offset of the row index within the fields of a node. */
+    private static final int ROW = 3;
+
+    /** Each node has 4 fields, so the fields of a node start at <code>node << 2</code>. */
+    private static final int SHIFT = 2;
+
+    /** The index of the root node (master header). */
+    private static final int ROOT = 0;
+
+    /** The initial capacity of the arrays that record the matrix while it is being built. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The number of columns in the matrix. */
+    private int numberOfColumns;
+
+    /** The number of rows in the matrix. */
+    private int numberOfRows;
+
+    /** The number of nodes (not counting headers and spacers) in the matrix. */
+    private int numberOfNodes;
+
+    /** The row of each node, in the order in which the nodes were created. */
+    private int[] nodeRow = new int[INITIAL_CAPACITY];
+
+    /** The column of each node, in the order in which the nodes were created. */
+    private int[] nodeColumn = new int[INITIAL_CAPACITY];
+
+    /** The application data of each row. */
+    private int[] rowApplicationData = new int[INITIAL_CAPACITY];
+
+    /** The index of each secondary column, in the order in which they were created. */
+    private int[] secondaryColumns = new int[INITIAL_CAPACITY];
+
+    /** The number of secondary columns in the matrix. */
+    private int numberOfSecondary;
+
+    /** Tells whether the packed arrays have been laid out. */
+    private boolean compiled;
+
+    /** The column, up link, down link, and row of each node, packed 4 to a node. */
+    private int[] nodes;
+
+    /** The left neighbor of each column header. */
+    private int[] left;
+
+    /** The right neighbor of each column header. */
+    private int[] right;
+
+    /** Tells, for each column header, whether its column is secondary. */
+    private boolean[] secondary;
+
+    /** The first node of each row. */
+    private int[] rowFirst;
+
+    /**
+     * A <code>Node</code> for each row, holding the row's application data. These are the objects
+     * reported to the <code>SolutionListener</code>s.
+     */
+    private Node[] rowNodes;
+
+    /** A flag shared by several copies of the matrix. Once it is set, they all stop searching. */
+    private AtomicBoolean stopSignal;
+
+    /**
+     * The next column in the list of columns of the same length. The entries after the last column
+     * are the heads of the lists, one for each length, starting at 0.
+     */
+    private int[] bucketNext;
+
+    /** The previous column in the list of columns of the same length. */
+    private int[] bucketPrev;
+
+    /** The length of the shortest column cannot be less than this. */
+    private int lowestBucket;
+
+    /** Tells whether the lists of columns by length are being kept up to date. */
+    private boolean bucketed;
+
+    /** The node chosen at each level of a paused search, or <code>null</code>. */
+    private int[] pausedChoices;
+
+    /** The level at which the search paused. */
+    private int pausedLevel;
+
+    /** The stack of shuffled nodes of a paused search, or <code>null</code>. */
+    private int[] pausedPending;
+
+    /** The position of the next shuffled node of each level of a paused search. */
+    private int[] pausedNext;
+
+    /** The end of the shuffled nodes of each level of a paused search. */
+    private int[] pausedEnd;
+
+    /**
+     * Creates columns at the end of the matrix: first the primary columns, then the secondary
+     * columns.
+     *
+     * @param numberOfPrimaryColumns    The number of primary columns to be created.
+     * @param numberOfSecondaryColumns  The number of secondary columns to be created.
+     */
+    public void createColumnHeaders(
+            final int numberOfPrimaryColumns, final int numberOfSecondaryColumns) {
+        checkNotCompiled();
+        numberOfColumns += numberOfPrimaryColumns;
+        for (int i = 0; i < numberOfSecondaryColumns; i++) {
+            if (numberOfSecondary == secondaryColumns.length) {
+                secondaryColumns = grow(secondaryColumns);
+            }
+            secondaryColumns[numberOfSecondary++] = numberOfColumns++;
+        }
+    }
+
+    /**
+     * Gets the number of columns in the matrix.
+     *
+     * @return  The number of columns in the matrix.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Adds a row to the matrix. The new row starts out with a single node.
+     *
+     * @param applicationData  The number that describes the move represented by this row.
+     * @param columnIndex      The index of the column that holds the first node of this row.
+     * @return                 The index of the new row.
+     */
+    public int addRow(final int applicationData, final int columnIndex) {
+        checkNotCompiled();
+        if (numberOfRows == rowApplicationData.length) {
+            rowApplicationData = grow(rowApplicationData);
+        }
+        rowApplicationData[numberOfRows] = applicationData;
+        addNodeToRow(numberOfRows, columnIndex);
+        return numberOfRows++;
+    }
+
+    /**
+     * Adds a node to the end of an existing row.
+     *
+     * @param rowIndex     The index of a row returned by <code>addRow</code>.
+     * @param columnIndex  The index of the column that will hold the new node.
+     */
+    public void addNodeToRow(final int rowIndex, final int columnIndex) {
+        checkNotCompiled();
+        if (numberOfNodes == nodeRow.length) {
+            nodeRow = grow(nodeRow);
+            nodeColumn = grow(nodeColumn);
+        }
+        nodeRow[numberOfNodes] = rowIndex;
+        nodeColumn[numberOfNodes] = columnIndex;
+        numberOfNodes++;
+    }
+
+    /**
+     * Adds the specified row to the solution. Removes all affected columns from further
+     * consideration.
+     *
+     * @param rowIndex  The index of the row to be added.
+     */
+    public void addRowToSolution(final int rowIndex) {
+        compile();
+        int first = rowFirst[rowIndex];
+        coverColumn(nodes[(first << SHIFT) + TOP]);
+        coverOtherColumns(first);
+        pushSolutionRow(rowIndex);
+    }
+
+    /**
+     * Removes every row from the solution of an exact cover problem. (This is usually done when
+     * preparing the matrix to solve another problem.)
+     */
+    public void removeAllRowsFromSolution() {
+        while (getSolutionDepth() > 0) {
+            int first = rowFirst[popSolutionRow()];
+            uncoverOtherColumns(first);
+            uncoverColumn(nodes[(first << SHIFT) + TOP]);
+        }
+    }
+
+    /**
+     * Takes a row out of the matrix without adding it to the solution, by unlinking each of its
+     * nodes from its column. The nodes of a row are contiguous, and the spacer after the last one
+     * ends the row.
+     *
+     * @param rowIndex  The index of the row to be hidden.
+     */
+    public void hideRow(final int rowIndex) {
+        compile();
+        final int[] nodes = this.nodes;
+        for (int j = rowFirst[rowIndex]; nodes[(j << SHIFT) + TOP] > 0; j++) {
+            int jj = j << SHIFT;
+            int up = nodes[jj + UP];
+            int down = nodes[jj + DOWN];
+            nodes[(up << SHIFT) + DOWN] = down;
+            nodes[(down << SHIFT) + UP] = up;
+            nodes[(nodes[jj + TOP] << SHIFT) + TOP]--;
+        }
+    }
+
+    /**
+     * Puts back a row taken out of the matrix by <code>hideRow</code>, relinking its nodes in the
+     * reverse order.
+     *
+     * @param rowIndex  The index of the row most recently hidden.
+     */
+    public void unhideRow(final int rowIndex) {
+        compile();
+        final int[] nodes = this.nodes;
+        int first = rowFirst[rowIndex];
+        int last = first;
+        while (nodes[((last + 1) << SHIFT) + TOP] > 0) {
+            last++;
+        }
+        for (int j = last; j >= first; j--) {
+            int jj = j << SHIFT;
+            nodes[(nodes[jj + TOP] << SHIFT) + TOP]++;
+            nodes[(nodes[jj + UP] << SHIFT) + DOWN] = j;
+            nodes[(nodes[jj + DOWN] << SHIFT) + UP] = j;
+        }
+    }
+
+    /**
+     * Tells whether this engine can pause its search at a solution and carry on later. It can.
+     *
+     * @return  <code>true</code>.
+     */
+    protected boolean isPausable() {
+        return true;
+    }
+
+    /**
+     * Searches an exact cover problem using Algorithm X (dancing links). This is the same
+     * iterative algorithm as <code>AbstractDLXSolver.search</code>, with the chosen rows kept in a
+     * stack of node numbers, and the shuffled rows, if any, in a stack of pending node numbers.
+     * Those stacks are kept in fields while the search is paused. Forced moves, if they are
+     * propagated, are added as in <code>AbstractDLXSolver.search</code>.
+     */
+    protected void search() {
+        compile();
+
+        final int[] nodes = this.nodes;
+        final SearchStats stats = getSearchStats();
+        final ColumnHeuristic heuristic = getColumnHeuristic();
+        final Random tieBreaker = getTieBreaker();
+        final Random rowShuffler = getRowShuffler();
+        final boolean propagating = isPropagatingForcedMoves();
+        int[] choices;
+        int level;
+
+        // The shuffled rows of each level are pending[end[level - 1]] to pending[end[level] - 1].
+        int[] pending = null;
+        int[] next = null;
+        int[] end = null;
+
+        boolean resuming = isResuming();
+        if (resuming) {
+            choices = pausedChoices;
+            level = pausedLevel;
+            pending = pausedPending;
+            next = pausedNext;
+            end = pausedEnd;
+            pausedChoices = null;
+            pausedPending = null;
+            pausedNext = null;
+            pausedEnd = null;
+        } else {
+            choices = new int[numberOfColumns + 1];
+            level = 0;
+            if (rowShuffler != null) {
+                pending = new int[numberOfColumns + 1];
+                next = new int[numberOfColumns + 1];
+                end = new int[numberOfColumns + 1];
+            }
+
+            bucketed = heuristic == ColumnHeuristic.SHORTEST_BUCKETED || propagating;
+            if (bucketed) {
+                fillBuckets();
+            }
+        }
+
+        while (true) {
+            int header = -1;
+            int r = -1;
+            if (resuming) {
+                resuming = false;
+            } else {
+                countNode();
+                if (propagating) {
+                    level = coverForcedColumns(choices, level, next, end);
+                }
+                if (right[ROOT] == ROOT) {
+                    reportSolution();
+                    if (isPaused()) {
+                        pausedChoices = choices;
+                        pausedLevel = level;
+                        pausedPending = pending;
+                        pausedNext = next;
+                        pausedEnd = end;
+                        return;
+                    }
+                } else if (propagating && bucketNext[numberOfColumns + 1] != numberOfColumns + 1) {
+
+                    // A forced row has left a column empty, so there is nothing to try here.
+                    header = bucketNext[numberOfColumns + 1];
+                    coverColumn(header);
+                    r = header;
+                } else {
+                    header = chooseColumn(heuristic, tieBreaker);
+                    if (stats != null) {
+                        stats.recordChoice(
+                                level, nodes[(header << SHIFT) + TOP], countUpdates(header));
+                    }
+                    coverColumn(header);
+                    if (rowShuffler == null) {
+                        r = nodes[(header << SHIFT) + DOWN];
+                    } else {
+                        int start = level == 0 ? 0 : end[level - 1];
+                        int length = nodes[(header << SHIFT) + TOP];
+                        if (start + length > pending.length) {
+                            pending = grow(pending, start + length);
+                        }
+                        int k = start;
+                        for (int i = nodes[(header << SHIFT) + DOWN];
+                                i != header;
+                                i = nodes[(i << SHIFT) + DOWN]) {
+                            int j = start + rowShuffler.nextInt(k - start + 1);
+                            pending[k++] = pending[j];
+                            pending[j] = i;
+                        }
+                        next[level] = start;
+                        end[level] = k;
+                        r = next[level] < end[level] ? pending[next[level]++] : header;
+                    }
+                }
+            }
+
+            while (r == header || isDone()) {
+                if (header != -1) {
+                    uncoverColumn(header);
+                }
+                if (level == 0) {
+                    bucketed = false;
+                    return;
+                }
+                r = choices[--level];
+                popSolutionRow();
+                uncoverOtherColumns(r);
+                header = nodes[(r << SHIFT) + TOP];
+                if (rowShuffler == null) {
+                    r = nodes[(r << SHIFT) + DOWN];
+                } else {
+                    r = next[level] < end[level] ? pending[next[level]++] : header;
+                }
+            }
+
+            choices[level++] = r;
+            pushSolutionRow(nodes[(r << SHIFT) + ROW]);
+            if (stats == null) {
+                coverOtherColumns(r);
+            } else {
+                stats.recordUpdates(level - 1, countAndCoverOtherColumns(r));
+            }
+        }
+    }
+
+    /**
+     * Adds every forced row to the solution, each at a level of its own, until no column has only
+     * one row left or some column is empty. An empty column is then found by the search before it
+     * chooses a column, and it backs up at once. This is the same as
+     * <code>AbstractDLXSolver.coverForcedColumns</code>.
+     *
+     * @param choices  The node chosen at each level.
+     * @param level    The level of the node.
+     * @param next     The position of the next shuffled node of each level, or <code>null</code>.
+     * @param end      The end of the shuffled nodes of each level, or <code>null</code>.
+     * @return         The level after the forced rows.
+     */
+    private int coverForcedColumns(
+            final int[] choices, final int level, final int[] next, final int[] end) {
+        final int[] nodes = this.nodes;
+        final int[] bucketNext = this.bucketNext;
+        int empty = numberOfColumns + 1;
+        int single = numberOfColumns + 2;
+        int k = level;
+        while (bucketNext[empty] == empty && bucketNext[single] != single) {
+            int header = bucketNext[single];
+            int r = nodes[(header << SHIFT) + DOWN];
+            coverColumn(header);
+            if (next != null) {
+                int start = k == 0 ? 0 : end[k - 1];
+                next[k] = start;
+                end[k] = start;
+            }
+            choices[k++] = r;
+            pushSolutionRow(nodes[(r << SHIFT) + ROW]);
+            coverOtherColumns(r);
+        }
+        return k;
+    }
+
+    /**
+     * Gets a node of the specified row. This is the node reported to
+     * <code>SolutionListener</code>s for that row.
+     *
+     * @param rowIndex  The index of a row returned by <code>addRow</code>.
+     * @return          A node that holds the row's application data.
+     */
+    protected Node getRowNode(final int rowIndex) {
+        compile();
+        return rowNodes[rowIndex];
+    }
+
+    /**
+     * Gets whether the search should stop, either because a listener asked it to or because the
+     * stop signal shared with other copies of the matrix has been set.
+     *
+     * @return  <code>true</code> if the solver is finished generating solutions.
+     */
+    protected boolean isDone() {
+        return super.isDone() || stopSignal != null && stopSignal.get();
+    }
+
+    /**
+     * Makes a copy of the matrix in its current state, including the rows that have been added to
+     * the solution. The copy can be searched independently of this matrix. Listeners and the
+     * search budget are not copied. Copying takes a few array copies, which is much cheaper than
+     * building the matrix again, and the copy shares the parts of the matrix that never change.
+     *
+     * @return  A copy of the matrix.
+     */
+    public ArrayDLXSolver copy() {
+        compile();
+
+        ArrayDLXSolver copy = new ArrayDLXSolver();
+        copy.numberOfColumns = numberOfColumns;
+        copy.numberOfRows = numberOfRows;
+        copy.numberOfNodes = numberOfNodes;
+        copy.nodeRow = null;
+        copy.nodeColumn = null;
+        copy.rowApplicationData = null;
+        copy.secondaryColumns = null;
+        copy.numberOfSecondary = numberOfSecondary;
+        copy.compiled = true;
+        copy.nodes = (int[]) nodes.clone();
+        copy.left = (int[]) left.clone();
+        copy.right = (int[]) right.clone();
+        copy.rowFirst = rowFirst;
+        copy.rowNodes = rowNodes;
+        copy.secondary = secondary;
+        copy.copySolutionRows(this);
+        copy.stopSignal = stopSignal;
+        copy.setColumnHeuristic(getColumnHeuristic());
+        copy.setTieBreaker(getTieBreaker());
+        copy.setRowShuffler(getRowShuffler());
+        return copy;
+    }
+
+    /**
+     * Returns this matrix to the state of another matrix, which must be this matrix or a copy of
+     * it. Everything the search changes is restored with array copies, including the rows of the
+     * solution.
+     *
+     * @param original  The matrix whose state is to be restored.
+     * @throws IllegalArgumentException  If <code>original</code> is not a copy of this matrix.
+     */
+    public void copyFrom(final ArrayDLXSolver original) {
+        compile();
+        original.compile();
+        if (original.rowFirst != rowFirst) {
+            throw new IllegalArgumentException("The matrices have different shapes.");
+        }
+        System.arraycopy(original.nodes, 0, nodes, 0, nodes.length);
+        System.arraycopy(original.left, 0, left, 0, left.length);
+        System.arraycopy(original.right, 0, right, 0, right.length);
+        copySolutionRows(original);
+    }
+
+    /**
+     * Sets a flag that, once set, stops the search in this matrix and in every other matrix that
+     * shares it.
+     *
+     * @param stopSignal  The shared flag.
+     */
+    void setStopSignal(final AtomicBoolean stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    /**
+     * Gets the rows of the column that the search would cover next.
+     *
+     * @return  The indexes of the rows in the chosen column, from top to bottom, or
+     *          <code>null</code> if every column has been covered.
+     */
+    int[] getRowsOfShortestColumn() {
+        compile();
+        if (right[ROOT] == ROOT) {
+            return null;
+        }
+
+        int header = chooseColumn(getColumnHeuristic(), getTieBreaker());
+        int[] rows = new int[nodes[(header << SHIFT) + TOP]];
+        int i = 0;
+        for (int r = nodes[(header << SHIFT) + DOWN]; r != header; r = nodes[(r << SHIFT) + DOWN]) {
+            rows[i++] = nodes[(r << SHIFT) + ROW];
+        }
+        return rows;
+    }
+
+    /**
+     * Chooses the column to be covered next. There must be at least one column left.
+     *
+     * @param heuristic   How the column is to be chosen.
+     * @param tieBreaker  Chooses among equally short columns, or <code>null</code>.
+     * @return            The header of the chosen column.
+     */
+    private int chooseColumn(final ColumnHeuristic heuristic, final Random tieBreaker) {
+        if (heuristic == ColumnHeuristic.FIRST) {
+            return right[ROOT];
+        }
+        if (bucketed) {
+            return getHeaderOfShortestBucketedColumn(tieBreaker);
+        }
+        if (tieBreaker != null) {
+            return getHeaderOfRandomShortestColumn(tieBreaker);
+        }
+        return getHeaderOfShortestColumn();
+    }
+
+    /**
+     * Gets the header of the column that contains the fewest nodes.
+     *
+     * @return  The header of the column that has the fewest nodes.
+     */
+    private int getHeaderOfShortestColumn() {
+        final int[] nodes = this.nodes;
+        final int[] right = this.right;
+
+        int lengthOfShortest = Integer.MAX_VALUE;
+        int headerOfShortest = ROOT;
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            int length = nodes[(header << SHIFT) + TOP];
+            if (length < lengthOfShortest) {
+                lengthOfShortest = length;
+                headerOfShortest = header;
+            }
+        }
+
+        return headerOfShortest;
+    }
+
+    /**
+     * Gets the header of a column that contains the fewest nodes, chosen at random when several
+     * columns are equally short. Each of them is equally likely to be chosen.
+     *
+     * @param tieBreaker  The source of random numbers.
+     * @return            The header of a column that has the fewest nodes.
+     */
+    private int getHeaderOfRandomShortestColumn(final Random tieBreaker) {
+        final int[] nodes = this.nodes;
+        final int[] right = this.right;
+
+        int lengthOfShortest = Integer.MAX_VALUE;
+        int headerOfShortest = ROOT;
+        int ties = 0;
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            int length = nodes[(header << SHIFT) + TOP];
+            if (length < lengthOfShortest) {
+                lengthOfShortest = length;
+                headerOfShortest = header;
+                ties = 1;
+            } else if (length == lengthOfShortest && tieBreaker.nextInt(++ties) == 0) {
+                headerOfShortest = header;
+            }
+        }
+
+        return headerOfShortest;
+    }
+
+    /**
+     * Gets the header of a column that contains the fewest nodes from the lists of columns by
+     * length. Only the lists shorter than the shortest column are skipped, and only the columns
+     * of the shortest length are compared.
+     *
+     * @param tieBreaker  Chooses among equally short columns, or <code>null</code> to choose the
+     *                    leftmost (the one with the lowest header).
+     * @return            The header of a column that has the fewest nodes.
+     */
+    private int getHeaderOfShortestBucketedColumn(final Random tieBreaker) {
+        final int[] bucketNext = this.bucketNext;
+
+        int head = numberOfColumns + 1 + lowestBucket;
+        while (bucketNext[head] == head) {
+            head++;
+        }
+        lowestBucket = head - numberOfColumns - 1;
+
+        int headerOfShortest = bucketNext[head];
+        if (tieBreaker == null) {
+            for (int header = bucketNext[headerOfShortest];
+                    header != head;
+                    header = bucketNext[header]) {
+                if (header < headerOfShortest) {
+                    headerOfShortest = header;
+                }
+            }
+        } else {
+            int ties = 1;
+            for (int header = bucketNext[headerOfShortest];
+                    header != head;
+                    header = bucketNext[header]) {
+                if (tieBreaker.nextInt(++ties) == 0) {
+                    headerOfShortest = header;
+                }
+            }
+        }
+        return headerOfShortest;
+    }
+
+    /**
+     * Puts every remaining column into the list for its length. The lists are kept up to date
+     * from here until the end of the search.
+     */
+    private void fillBuckets() {
+        int maxLength = 1;
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            maxLength = Math.max(maxLength, nodes[(header << SHIFT) + TOP]);
+        }
+
+        int size = numberOfColumns + 1 + maxLength + 1;
+        if (bucketNext == null || bucketNext.length < size) {
+            bucketNext = new int[size];
+            bucketPrev = new int[size];
+        }
+        for (int head = numberOfColumns + 1; head < size; head++) {
+            bucketNext[head] = head;
+            bucketPrev[head] = head;
+        }
+
+        // Add each column to the back of its list, so that the leftmost comes first.
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            int head = numberOfColumns + 1 + nodes[(header << SHIFT) + TOP];
+            int last = bucketPrev[head];
+            bucketNext[last] = header;
+            bucketPrev[header] = last;
+            bucketNext[header] = head;
+            bucketPrev[head] = header;
+        }
+        lowestBucket = 0;
+    }
+
+    /**
+     * Removes a column from the list of columns of its length.
+     *
+     * @param header  The header of the column.
+     */
+    private void removeFromBucket(final int header) {
+        int prev = bucketPrev[header];
+        int next = bucketNext[header];
+        bucketNext[prev] = next;
+        bucketPrev[next] = prev;
+    }
+
+    /**
+     * Adds a column to the back of the list of columns of a given length.
+     *
+     * @param header  The header of the column.
+     * @param length  The length of the column.
+     */
+    private void addToBucket(final int header, final int length) {
+        int head = numberOfColumns + 1 + length;
+        int last = bucketPrev[head];
+        bucketPrev[head] = header;
+        bucketNext[header] = head;
+        bucketPrev[header] = last;
+        bucketNext[last] = header;
+        if (length < lowestBucket) {
+            lowestBucket = length;
+        }
+    }
+
+    /**
+     * Covers the columns of every node to the right of the specified node, wrapping around to the
+     * start of its row.
+     *
+     * @param node  A node that is being added to the solution.
+     */
+    private void coverOtherColumns(final int node) {
+        final int[] nodes = this.nodes;
+        int j = node + 1;
+        while (j != node) {
+            int top = nodes[(j << SHIFT) + TOP];
+            if (top <= 0) {
+                j = nodes[(j << SHIFT) + UP];
+            } else {
+                coverColumn(top);
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Covers the columns of every node to the right of the specified node, as
+     * <code>coverOtherColumns</code> does, counting the updates each cover makes. This is only used
+     * while statistics are being kept.
+     *
+     * @param node  A node that is being added to the solution.
+     * @return      The number of updates made.
+     */
+    private int countAndCoverOtherColumns(final int node) {
+        final int[] nodes = this.nodes;
+        int updates = 0;
+        int j = node + 1;
+        while (j != node) {
+            int top = nodes[(j << SHIFT) + TOP];
+            if (top <= 0) {
+                j = nodes[(j << SHIFT) + UP];
+            } else {
+                updates += countUpdates(top);
+                coverColumn(top);
+                j++;
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Counts the updates that <code>coverColumn</code> would make: one for each node it would
+     * unlink from its column. Rows are laid out contiguously, so the length of each row is known
+     * without walking it.
+     *
+     * @param header  The header of a column that is about to be covered.
+     * @return        The number of updates covering the column would make.
+     */
+    private int countUpdates(final int header) {
+        final int[] nodes = this.nodes;
+        int lastSpacer = (nodes.length >> SHIFT) - 1;
+        int updates = 0;
+        for (int i = nodes[(header << SHIFT) + DOWN]; i != header; i = nodes[(i << SHIFT) + DOWN]) {
+            int row = nodes[(i << SHIFT) + ROW];
+            int end = row + 1 < rowFirst.length ? rowFirst[row + 1] - 1 : lastSpacer;
+            updates += end - rowFirst[row] - 1;
+        }
+        return updates;
+    }
+
+    /**
+     * Uncovers the columns of every node to the left of the specified node, wrapping around to the
+     * end of its row. This undoes <code>coverOtherColumns</code>.
+     *
+     * @param node  A node that is being removed from the solution.
+     */
+    private void uncoverOtherColumns(final int node) {
+        final int[] nodes = this.nodes;
+        int j = node - 1;
+        while (j != node) {
+            int top = nodes[(j << SHIFT) + TOP];
+            if (top <= 0) {
+                j = nodes[(j << SHIFT) + DOWN];
+            } else {
+                uncoverColumn(top);
+                j--;
+            }
+        }
+    }
+
+    /**
+     * Removes a column from the header list and removes all rows in that column from the other
+     * columns they are in.
+     *
+     * @param header  The header of the column to be removed.
+     */
+    private void coverColumn(final int header) {
+        if (bucketed) {
+            coverBucketedColumn(header);
+            return;
+        }
+        final int[] nodes = this.nodes;
+
+        int l = left[header];
+        int r = right[header];
+        right[l] = r;
+        left[r] = l;
+
+        for (int i = nodes[(header << SHIFT) + DOWN]; i != header; i = nodes[(i << SHIFT) + DOWN]) {
+
+            // Hide row i: unlink every other node of the row from its column.
+            int j = i + 1;
+            while (j != i) {
+                int jj = j << SHIFT;
+                int top = nodes[jj + TOP];
+                int up = nodes[jj + UP];
+                if (top <= 0) {
+                    j = up;
+                } else {
+                    int down = nodes[jj + DOWN];
+                    nodes[(up << SHIFT) + DOWN] = down;
+                    nodes[(down << SHIFT) + UP] = up;
+                    nodes[(top << SHIFT) + TOP]--;
+                    j++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Undoes a <code>coverColumn</code> operation by restoring a column and its associated row(s).
+     *
+     * @param header  The header of the column to be restored.
+     */
+    private void uncoverColumn(final int header) {
+        if (bucketed) {
+            uncoverBucketedColumn(header);
+            return;
+        }
+        final int[] nodes = this.nodes;
+
+        for (int i = nodes[(header << SHIFT) + UP]; i != header; i = nodes[(i << SHIFT) + UP]) {
+
+            // Unhide row i, in exactly the reverse order.
+            int j = i - 1;
+            while (j != i) {
+                int jj = j << SHIFT;
+                int top = nodes[jj + TOP];
+                int down = nodes[jj + DOWN];
+                if (top <= 0) {
+                    j = down;
+                } else {
+                    int up = nodes[jj + UP];
+                    nodes[(up << SHIFT) + DOWN] = j;
+                    nodes[(down << SHIFT) + UP] = j;
+                    nodes[(top << SHIFT) + TOP]++;
+                    j--;
+                }
+            }
+        }
+
+        int l = left[header];
+        int r = right[header];
+        right[l] = header;
+        left[r] = header;
+    }
+
+    /**
+     * Covers a column as <code>coverColumn</code> does, moving each column that gets shorter to the
+     * list for its new length.
+     *
+     * @param header  The header of the column to be removed.
+     */
+    private void coverBucketedColumn(final int header) {
+        final int[] nodes = this.nodes;
+
+        int l = left[header];
+        int r = right[header];
+        right[l] = r;
+        left[r] = l;
+        if (!secondary[header]) {
+            removeFromBucket(header);
+        }
+
+        for (int i = nodes[(header << SHIFT) + DOWN]; i != header; i = nodes[(i << SHIFT) + DOWN]) {
+            int j = i + 1;
+            while (j != i) {
+                int jj = j << SHIFT;
+                int top = nodes[jj + TOP];
+                int up = nodes[jj + UP];
+                if (top <= 0) {
+                    j = up;
+                } else {
+                    int down = nodes[jj + DOWN];
+                    nodes[(up << SHIFT) + DOWN] = down;
+                    nodes[(down << SHIFT) + UP] = up;
+                    if (secondary[top]) {
+                        nodes[(top << SHIFT) + TOP]--;
+                    } else {
+                        removeFromBucket(top);
+                        addToBucket(top, --nodes[(top << SHIFT) + TOP]);
+                    }
+                    j++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Uncovers a column as <code>uncoverColumn</code> does, moving each column that gets longer to
+     * the list for its new length.
+     *
+     * @param header  The header of the column to be restored.
+     */
+    private void uncoverBucketedColumn(final int header) {
+        final int[] nodes = this.nodes;
+
+        for (int i = nodes[(header << SHIFT) + UP]; i != header; i = nodes[(i << SHIFT) + UP]) {
+            int j = i - 1;
+            while (j != i) {
+                int jj = j << SHIFT;
+                int top = nodes[jj + TOP];
+                int down = nodes[jj + DOWN];
+                if (top <= 0) {
+                    j = down;
+                } else {
+                    int up = nodes[jj + UP];
+                    nodes[(up << SHIFT) + DOWN] = j;
+                    nodes[(down << SHIFT) + UP] = j;
+                    if (secondary[top]) {
+                        nodes[(top << SHIFT) + TOP]++;
+                    } else {
+                        removeFromBucket(top);
+                        addToBucket(top, ++nodes[(top << SHIFT) + TOP]);
+                    }
+                    j--;
+                }
+            }
+        }
+
+        int l = left[header];
+        int r = right[header];
+        right[l] = header;
+        left[r] = header;
+        if (!secondary[header]) {
+            addToBucket(header, nodes[(header << SHIFT) + TOP]);
+        }
+    }
+
+    /**
+     * Lays out the packed arrays from the recorded columns, rows, and nodes. This is done
+     * automatically when the matrix is first used, after which the matrix cannot be changed. It
+     * may also be done early, for example before copies of the matrix are made on several threads.
+     */
+    public void compile() {
+        if (compiled) {
+            return;
+        }
+        compiled = true;
+
+        // Each row is followed by a spacer, and one more spacer precedes the first row.
+        int size = 1 + numberOfColumns + 1 + numberOfNodes + numberOfRows;
+        nodes = new int[size << SHIFT];
+        left = new int[numberOfColumns + 1];
+        right = new int[numberOfColumns + 1];
+        rowFirst = new int[numberOfRows];
+        rowNodes = new Node[numberOfRows];
+        secondary = new boolean[numberOfColumns + 1];
+        for (int k = 0; k < numberOfSecondary; k++) {
+            secondary[1 + secondaryColumns[k]] = true;
+        }
+
+        // Link the root and the primary column headers into a circular list. The left and right
+        // links of a secondary column header point to itself.
+        int previous = ROOT;
+        for (int header = 0; header <= numberOfColumns; header++) {
+            nodes[(header << SHIFT) + UP] = header;
+            nodes[(header << SHIFT) + DOWN] = header;
+            if (secondary[header]) {
+                left[header] = header;
+                right[header] = header;
+            } else if (header != ROOT) {
+                left[header] = previous;
+                right[previous] = header;
+                previous = header;
+            }
+        }
+        left[ROOT] = previous;
+        right[previous] = ROOT;
+
+        // Reserve a contiguous block of nodes for each row.
+        int[] rowLength = new int[numberOfRows];
+        for (int k = 0; k < numberOfNodes; k++) {
+            rowLength[nodeRow[k]]++;
+        }
+        int spacer = numberOfColumns + 1;
+        for (int r = 0; r < numberOfRows; r++) {
+            int first = spacer + 1;
+            int last = first + rowLength[r] - 1;
+            nodes[(spacer << SHIFT) + DOWN] = last;
+            spacer = last + 1;
+            nodes[(spacer << SHIFT) + TOP] = -r - 1;
+            nodes[(spacer << SHIFT) + UP] = first;
+            rowFirst[r] = first;
+
+            Node rowNode = new Node();
+            rowNode.applicationData = rowApplicationData[r];
+            rowNodes[r] = rowNode;
+        }
+
+        // Append each node to the end of its column, in the order in which it was created.
+        int[] rowFill = new int[numberOfRows];
+        for (int k = 0; k < numberOfNodes; k++) {
+            int r = nodeRow[k];
+            int node = rowFirst[r] + rowFill[r]++;
+            int n = node << SHIFT;
+            int header = 1 + nodeColumn[k];
+
+            int last = nodes[(header << SHIFT) + UP];
+            nodes[n + TOP] = header;
+            nodes[n + UP] = last;
+            nodes[n + DOWN] = header;
+            nodes[n + ROW] = r;
+            nodes[(last << SHIFT) + DOWN] = node;
+            nodes[(header << SHIFT) + UP] = node;
+            nodes[(header << SHIFT) + TOP]++;
+        }
+
+        // The recording arrays are no longer needed.
+        nodeRow = null;
+        nodeColumn = null;
+        rowApplicationData = null;
+        secondaryColumns = null;
+    }
+
+    /**
+     * Makes sure the matrix can still be changed.
+     *
+     * @throws IllegalStateException  If the packed arrays have already been laid out.
+     */
+    private void checkNotCompiled() {
+        if (compiled) {
+            throw new IllegalStateException("The matrix cannot be changed once it has been used.");
+        }
+    }
+
+    /**
+     * Doubles the capacity of an array.
+     *
+     * @param array  The array to be copied.
+     * @return       A copy of the array, with twice the capacity.
+     */
+    private static int[] grow(final int[] array) {
+        return grow(array, array.length * 2);
+    }
+
+    /**
+     * Copies an array into a larger one, at least doubling its capacity.
+     *
+     * @param array          The array to be copied.
+     * @param minimumLength  The smallest capacity the copy may have.
+     * @return               A copy of the array, with the larger capacity.
+     */
+    private static int[] grow(final int[] array, final int minimumLength) {
+        int[] copy = new int[Math.max(array.length * 2, minimumLength)];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -35,6 +35,21 @@ public class ColumnHeader extends Node {
     /** The number of nodes in this column. */
     public int columnLength;
 
+    /** The index of this column, in the order in which the columns were created. */
+    public int columnIndex;
+
+    /**
+     * Tells whether this is a secondary column, which may be covered at most once. A secondary
+     * column is never linked into the list of column headers, so the search never chooses it.
+     */
+    public boolean secondary;
+
+    /** The next column of the same length. Only used with <code>SHORTEST_BUCKETED</code>. */
+    public ColumnHeader bucketNext = this;
+
+    /** The previous column of the same length. Only used with <code>SHORTEST_BUCKETED</code>. */
+    public ColumnHeader bucketPrev = this;
+
     /*
      * Knuth's column header also has a field called "name" that he uses when showing the
      * solution(s). Name has been omitted here because this implementation has no use for it.
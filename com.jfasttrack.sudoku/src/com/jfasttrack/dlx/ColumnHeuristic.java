@@ -0,0 +1,85 @@
+/*
+  ColumnHeuristic.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+/**
+ * A <code>ColumnHeuristic</code> tells an exact cover engine how to choose the column to be
+ * covered at each node of the search tree.
+ * <p>
+ * Any choice gives the same solutions, but the choice decides how large the search tree is.
+ * Knuth's heuristic is to choose the column with the fewest rows, which keeps the branching factor
+ * as small as possible. Finding that column by scanning every remaining column takes time in
+ * proportion to the number of columns, which is 324 for a 9x9 sudoku and 1024 for a 16x16 one.
+ * <code>SHORTEST_BUCKETED</code> finds the shortest length in constant time, and only looks at the
+ * columns of that length, at the cost of more work each time a column gets shorter or longer.
+ * <p>
+ * When several columns are equally short, the leftmost is chosen, unless the engine has been
+ * given a tie breaker (see <code>AbstractExactCoverSolver.setTieBreaker</code>), in which case one
+ * of them is chosen at random. The choice among equally short columns matters: without the tie
+ * breaker, both <code>SHORTEST</code> and <code>SHORTEST_BUCKETED</code> choose exactly the same
+ * columns, and so build exactly the same search tree.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class ColumnHeuristic {
+
+    /** Chooses the shortest column by scanning every remaining column. This is Knuth's method. */
+    public static final ColumnHeuristic SHORTEST = new ColumnHeuristic("SHORTEST");
+
+    /**
+     * Chooses the shortest column by keeping the remaining columns in lists, one for each column
+     * length. The lists are brought up to date whenever a column is covered or uncovered, so the
+     * shortest columns are always those in the first list that is not empty, and only that list is
+     * scanned for the leftmost of them.
+     */
+    public static final ColumnHeuristic SHORTEST_BUCKETED =
+            new ColumnHeuristic("SHORTEST_BUCKETED");
+
+    /**
+     * Chooses the leftmost remaining column, whatever its length. This is Knuth's baseline for
+     * measuring the value of a heuristic; it is rarely a good choice otherwise.
+     */
+    public static final ColumnHeuristic FIRST = new ColumnHeuristic("FIRST");
+
+    /** The name of this heuristic. */
+    private final String name;
+
+    /**
+     * Constructs a <code>ColumnHeuristic</code>.
+     *
+     * @param name  The name of this heuristic.
+     */
+    private ColumnHeuristic(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of this heuristic.
+     *
+     * @return  The name of this heuristic.
+     */
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,778 @@
+/*
+  DancingCellsSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+import java.util.Random;
+
+
+/**
+ * This class solves an exact cover problem using Knuth's "dancing cells": Algorithm C, with each
+ * column kept as a sparse set instead of a doubly linked list.
+ * <p>
+ * The nodes of each row are stored contiguously. Each column owns a contiguous range of an array
+ * that holds the nodes of the column, and only the first few of them are still in the column.
+ * Removing a node swaps it with the last node still in its column and makes the column one
+ * shorter; putting it back only makes the column one longer again, provided nodes are put back in
+ * the reverse of the order in which they were removed. The primary columns that remain to be
+ * covered are kept the same way. Nothing is linked, so the search reads memory almost
+ * sequentially, which is kinder to the processor's caches than the scattered nodes of
+ * <code>LinkedDLXSolver</code>.
+ * <p>
+ * Nodes in secondary columns may have a color (see <code>addNodeToRow(int, int, int)</code>). A
+ * secondary column may then be used by any number of rows in a solution, as long as they all give
+ * it the same color. When a row with a colored node is chosen, every row that gives that column
+ * another color, or no color, is removed; this is Knuth's "purification". Nodes without a color
+ * behave exactly as they do in the other engines. Colors let a variant rule that would otherwise
+ * need a column for each combination be expressed with a single column.
+ * <p>
+ * Columns are chosen as in the other engines, so the search tree is the same. The rows of a
+ * column are tried in whatever order the sparse set holds them, so solutions may be found in
+ * another order. <code>ColumnHeuristic.SHORTEST_BUCKETED</code> is treated as
+ * <code>SHORTEST</code>, and forced moves are not propagated.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class DancingCellsSolver extends AbstractExactCoverSolver {
+
+    /** The initial capacity of the arrays that record the matrix while it is being built. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The number of columns in the matrix. */
+    private int numberOfColumns;
+
+    /** The number of rows in the matrix. */
+    private int numberOfRows;
+
+    /** The number of nodes in the matrix. */
+    private int numberOfNodes;
+
+    /** The row of each node, in the order in which the nodes were created. */
+    private int[] nodeRow = new int[INITIAL_CAPACITY];
+
+    /** The column of each node, in the order in which the nodes were created. */
+    private int[] nodeColumn = new int[INITIAL_CAPACITY];
+
+    /** The color of each node, in the order in which the nodes were created. */
+    private int[] nodeColor = new int[INITIAL_CAPACITY];
+
+    /** The application data of each row. */
+    private int[] rowApplicationData = new int[INITIAL_CAPACITY];
+
+    /** Tells, for each column, whether it is secondary. */
+    private boolean[] secondary = new boolean[INITIAL_CAPACITY];
+
+    /** Tells whether the arrays used by the search have been laid out. */
+    private boolean compiled;
+
+    /** The first node of each row, and one more entry for the end of the last row. */
+    private int[] rowFirst;
+
+    /** The column of each node. */
+    private int[] column;
+
+    /** The color of each node, or 0 if it has none. */
+    private int[] color;
+
+    /** The row of each node. */
+    private int[] row;
+
+    /** The nodes of every column. Column <code>c</code> owns a range starting at start[c]. */
+    private int[] cells;
+
+    /** The position of each node in <code>cells</code>. */
+    private int[] position;
+
+    /** The start of each column's range in <code>cells</code>. */
+    private int[] start;
+
+    /** The number of nodes still in each column. They are at the start of the column's range. */
+    private int[] length;
+
+    /** The primary columns. Those that remain to be covered come first. */
+    private int[] active;
+
+    /** The position of each primary column in <code>active</code>. */
+    private int[] activePosition;
+
+    /** The number of primary columns that remain to be covered. */
+    private int numberOfActive;
+
+    /**
+     * The color given to each secondary column by the rows chosen so far: 0 if none of them uses
+     * it, -1 if one of them uses it without a color.
+     */
+    private int[] columnColor;
+
+    /** The node that gave each secondary column its color, or -1. */
+    private int[] colorSetter;
+
+    /** The number of rows added to the solution that could not be, because of earlier rows. */
+    private int numberOfConflicts;
+
+    /**
+     * A <code>Node</code> for each row, holding the row's application data. These are the objects
+     * reported to the <code>SolutionListener</code>s.
+     */
+    private Node[] rowNodes;
+
+    /** The column chosen at each level of a paused search, or <code>null</code>. */
+    private int[] pausedColumns;
+
+    /** The position of the node chosen at each level of a paused search, or <code>null</code>. */
+    private int[] pausedPositions;
+
+    /** The level at which the search paused. */
+    private int pausedLevel;
+
+    /**
+     * Creates columns at the end of the matrix: first the primary columns, then the secondary
+     * columns.
+     *
+     * @param numberOfPrimaryColumns    The number of primary columns to be created.
+     * @param numberOfSecondaryColumns  The number of secondary columns to be created.
+     */
+    public void createColumnHeaders(
+            final int numberOfPrimaryColumns, final int numberOfSecondaryColumns) {
+        checkNotCompiled();
+        int total = numberOfColumns + numberOfPrimaryColumns + numberOfSecondaryColumns;
+        if (total > secondary.length) {
+            boolean[] copy = new boolean[Math.max(secondary.length * 2, total)];
+            System.arraycopy(secondary, 0, copy, 0, numberOfColumns);
+            secondary = copy;
+        }
+        numberOfColumns += numberOfPrimaryColumns;
+        for (int i = 0; i < numberOfSecondaryColumns; i++) {
+            secondary[numberOfColumns++] = true;
+        }
+    }
+
+    /**
+     * Gets the number of columns in the matrix.
+     *
+     * @return  The number of columns in the matrix.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Adds a row to the matrix. The new row starts out with a single node.
+     *
+     * @param applicationData  The number that describes the move represented by this row.
+     * @param columnIndex      The index of the column that holds the first node of this row.
+     * @return                 The index of the new row.
+     */
+    public int addRow(final int applicationData, final int columnIndex) {
+        checkNotCompiled();
+        if (numberOfRows == rowApplicationData.length) {
+            rowApplicationData = grow(rowApplicationData);
+        }
+        rowApplicationData[numberOfRows] = applicationData;
+        addNodeToRow(numberOfRows, columnIndex);
+        return numberOfRows++;
+    }
+
+    /**
+     * Adds a node to the end of an existing row.
+     *
+     * @param rowIndex     The index of a row returned by <code>addRow</code>.
+     * @param columnIndex  The index of the column that will hold the new node.
+     */
+    public void addNodeToRow(final int rowIndex, final int columnIndex) {
+        addNodeToRow(rowIndex, columnIndex, 0);
+    }
+
+    /**
+     * Adds a colored node to the end of an existing row. Any number of rows in a solution may
+     * have a node in the same secondary column, as long as the nodes all have the same color.
+     *
+     * @param rowIndex     The index of a row returned by <code>addRow</code>.
+     * @param columnIndex  The index of the column that will hold the new node.
+     * @param colorOfNode  The color of the node: a positive number, or 0 for no color.
+     * @throws IllegalArgumentException  If a primary column is given a color.
+     */
+    public void addNodeToRow(final int rowIndex, final int columnIndex, final int colorOfNode) {
+        checkNotCompiled();
+        if (colorOfNode != 0 && !secondary[columnIndex]) {
+            throw new IllegalArgumentException("Only nodes in secondary columns have colors.");
+        }
+        if (numberOfNodes == nodeRow.length) {
+            nodeRow = grow(nodeRow);
+            nodeColumn = grow(nodeColumn);
+            nodeColor = grow(nodeColor);
+        }
+        nodeRow[numberOfNodes] = rowIndex;
+        nodeColumn[numberOfNodes] = columnIndex;
+        nodeColor[numberOfNodes] = colorOfNode;
+        numberOfNodes++;
+    }
+
+    /**
+     * Adds the specified row to the solution. Removes all affected columns from further
+     * consideration. If an earlier row of the solution conflicts with this one, the problem has
+     * no solution until the rows are removed again.
+     *
+     * @param rowIndex  The index of the row to be added.
+     */
+    public void addRowToSolution(final int rowIndex) {
+        compile();
+        if (!isAvailable(rowIndex)) {
+            numberOfConflicts++;
+            return;
+        }
+        int first = rowFirst[rowIndex];
+        commit(first);
+        commitOtherColumns(first);
+        pushSolutionRow(rowIndex);
+    }
+
+    /**
+     * Removes every row from the solution of an exact cover problem. (This is usually done when
+     * preparing the matrix to solve another problem.)
+     */
+    public void removeAllRowsFromSolution() {
+        while (getSolutionDepth() > 0) {
+            int first = rowFirst[popSolutionRow()];
+            uncommitOtherColumns(first);
+            uncommit(first);
+        }
+        numberOfConflicts = 0;
+    }
+
+    /**
+     * Takes a row out of the matrix without adding it to the solution, by removing each of its
+     * nodes from its column.
+     *
+     * @param rowIndex  The index of the row to be hidden.
+     */
+    public void hideRow(final int rowIndex) {
+        compile();
+        for (int y = rowFirst[rowIndex]; y < rowFirst[rowIndex + 1]; y++) {
+            int c = column[y];
+            int p = position[y];
+            int last = start[c] + --length[c];
+            int z = cells[last];
+            cells[p] = z;
+            position[z] = p;
+            cells[last] = y;
+            position[y] = last;
+        }
+    }
+
+    /**
+     * Puts back a row taken out of the matrix by <code>hideRow</code>, from right to left. Each
+     * node is still just past the end of its column, so putting it back only makes the column
+     * longer.
+     *
+     * @param rowIndex  The index of the row most recently hidden.
+     */
+    public void unhideRow(final int rowIndex) {
+        compile();
+        for (int y = rowFirst[rowIndex + 1] - 1; y >= rowFirst[rowIndex]; y--) {
+            length[column[y]]++;
+        }
+    }
+
+    /**
+     * Tells whether this engine can pause its search at a solution and carry on later. It can.
+     *
+     * @return  <code>true</code>.
+     */
+    protected boolean isPausable() {
+        return true;
+    }
+
+    /**
+     * Searches an exact cover problem using Algorithm C (dancing cells). The search is iterative,
+     * like that of the other engines: the chosen column and the position of the chosen node in it
+     * are kept in a stack for each level.
+     * <p>
+     * When the rows are to be shuffled, the nodes of each chosen column are shuffled in place
+     * before it is covered. A covered column is never changed, so they stay in that order until
+     * the column is uncovered.
+     * <p>
+     * While the search is paused, its stacks are kept in fields.
+     */
+    protected void search() {
+        compile();
+        if (numberOfConflicts > 0) {
+            return;
+        }
+
+        final SearchStats stats = getSearchStats();
+        final ColumnHeuristic heuristic = getColumnHeuristic();
+        final Random tieBreaker = getTieBreaker();
+        final Random rowShuffler = getRowShuffler();
+        int[] chosenColumns;
+        int[] chosenPositions;
+        int level;
+
+        boolean resuming = isResuming();
+        if (resuming) {
+            chosenColumns = pausedColumns;
+            chosenPositions = pausedPositions;
+            level = pausedLevel;
+            pausedColumns = null;
+            pausedPositions = null;
+        } else {
+            chosenColumns = new int[numberOfColumns + 1];
+            chosenPositions = new int[numberOfColumns + 1];
+            level = 0;
+        }
+
+        while (true) {
+            int c = -1;
+            int p = 0;
+            if (resuming) {
+                resuming = false;
+            } else if (numberOfActive == 0) {
+                countNode();
+                reportSolution();
+                if (isPaused()) {
+                    pausedColumns = chosenColumns;
+                    pausedPositions = chosenPositions;
+                    pausedLevel = level;
+                    return;
+                }
+            } else {
+                countNode();
+                c = chooseColumn(heuristic, tieBreaker);
+                if (rowShuffler != null) {
+                    shuffleColumn(c, rowShuffler);
+                }
+                int updates = coverColumn(c);
+                if (stats != null) {
+                    stats.recordChoice(level, length[c], updates);
+                }
+                p = start[c];
+            }
+
+            while (c == -1 || p == start[c] + length[c] || isDone()) {
+                if (c != -1) {
+                    uncoverColumn(c);
+                }
+                if (level == 0) {
+                    return;
+                }
+                c = chosenColumns[--level];
+                p = chosenPositions[level];
+                popSolutionRow();
+                uncommitOtherColumns(cells[p]);
+                p++;
+            }
+
+            chosenColumns[level] = c;
+            chosenPositions[level++] = p;
+            pushSolutionRow(row[cells[p]]);
+            int updates = commitOtherColumns(cells[p]);
+            if (stats != null) {
+                stats.recordUpdates(level - 1, updates);
+            }
+        }
+    }
+
+    /**
+     * Gets a node of the specified row. This is the node reported to
+     * <code>SolutionListener</code>s for that row.
+     *
+     * @param rowIndex  The index of a row returned by <code>addRow</code>.
+     * @return          A node that holds the row's application data.
+     */
+    protected Node getRowNode(final int rowIndex) {
+        compile();
+        return rowNodes[rowIndex];
+    }
+
+    /**
+     * Chooses the column to be covered next.
+     *
+     * @param heuristic   How the column is to be chosen.
+     * @param tieBreaker  Chooses among equally short columns, or <code>null</code>.
+     * @return            The chosen column.
+     */
+    private int chooseColumn(final ColumnHeuristic heuristic, final Random tieBreaker) {
+        int best = active[0];
+        if (heuristic == ColumnHeuristic.FIRST) {
+            for (int i = 1; i < numberOfActive; i++) {
+                best = Math.min(best, active[i]);
+            }
+            return best;
+        }
+
+        int shortest = length[best];
+        int ties = 1;
+        for (int i = 1; i < numberOfActive; i++) {
+            int c = active[i];
+            int l = length[c];
+            if (l < shortest) {
+                shortest = l;
+                best = c;
+                ties = 1;
+            } else if (l == shortest) {
+                if (tieBreaker != null) {
+                    if (tieBreaker.nextInt(++ties) == 0) {
+                        best = c;
+                    }
+                } else if (c < best) {
+                    best = c;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Shuffles the nodes still in a column.
+     *
+     * @param c            The column.
+     * @param rowShuffler  The source of random numbers.
+     */
+    private void shuffleColumn(final int c, final Random rowShuffler) {
+        for (int k = length[c] - 1; k > 0; k--) {
+            int p = start[c] + k;
+            int q = start[c] + rowShuffler.nextInt(k + 1);
+            int x = cells[p];
+            cells[p] = cells[q];
+            position[cells[p]] = p;
+            cells[q] = x;
+            position[x] = q;
+        }
+    }
+
+    /**
+     * Tells whether a row can still be chosen: none of its columns has been covered, and none of
+     * them has been given another color.
+     *
+     * @param rowIndex  The index of a row.
+     * @return          <code>true</code> if the row can be added to the solution.
+     */
+    private boolean isAvailable(final int rowIndex) {
+        for (int x = rowFirst[rowIndex]; x < rowFirst[rowIndex + 1]; x++) {
+            int c = column[x];
+            if (position[x] >= start[c] + length[c]) {
+                return false;
+            }
+            if (secondary[c]) {
+                if (columnColor[c] != 0 && columnColor[c] != color[x]) {
+                    return false;
+                }
+            } else if (activePosition[c] >= numberOfActive) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Covers or colors the column of a node of a chosen row, unless that has been done already.
+     *
+     * @param x  A node of a chosen row.
+     * @return   The number of nodes removed from their columns.
+     */
+    private int commit(final int x) {
+        int c = column[x];
+        if (!secondary[c]) {
+            return coverColumn(c);
+        }
+        if (columnColor[c] != 0) {
+            return 0;
+        }
+        colorSetter[c] = x;
+        if (color[x] == 0) {
+            columnColor[c] = -1;
+            return hideRows(c);
+        }
+        columnColor[c] = color[x];
+        return purify(c, color[x]);
+    }
+
+    /**
+     * Undoes <code>commit</code>.
+     *
+     * @param x  A node of a chosen row.
+     */
+    private void uncommit(final int x) {
+        int c = column[x];
+        if (!secondary[c]) {
+            uncoverColumn(c);
+        } else if (colorSetter[c] == x) {
+            if (color[x] == 0) {
+                unhideRows(c);
+            } else {
+                unpurify(c, color[x]);
+            }
+            columnColor[c] = 0;
+            colorSetter[c] = -1;
+        }
+    }
+
+    /**
+     * Commits the columns of the other nodes of a chosen row, from left to right.
+     *
+     * @param x  A node of a chosen row.
+     * @return   The number of nodes removed from their columns.
+     */
+    private int commitOtherColumns(final int x) {
+        int updates = 0;
+        int r = row[x];
+        for (int y = rowFirst[r]; y < rowFirst[r + 1]; y++) {
+            if (y != x) {
+                updates += commit(y);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Undoes <code>commitOtherColumns</code>, from right to left.
+     *
+     * @param x  A node of a chosen row.
+     */
+    private void uncommitOtherColumns(final int x) {
+        int r = row[x];
+        for (int y = rowFirst[r + 1] - 1; y >= rowFirst[r]; y--) {
+            if (y != x) {
+                uncommit(y);
+            }
+        }
+    }
+
+    /**
+     * Covers a primary column: takes it off the list of columns that remain to be covered, then
+     * hides every row that has a node in it.
+     *
+     * @param c  The column to be covered.
+     * @return   The number of nodes removed from their columns.
+     */
+    private int coverColumn(final int c) {
+        int p = activePosition[c];
+        int last = active[--numberOfActive];
+        active[p] = last;
+        activePosition[last] = p;
+        active[numberOfActive] = c;
+        activePosition[c] = numberOfActive;
+        return hideRows(c);
+    }
+
+    /**
+     * Undoes <code>coverColumn</code>.
+     *
+     * @param c  The column to be uncovered.
+     */
+    private void uncoverColumn(final int c) {
+        unhideRows(c);
+        numberOfActive++;
+    }
+
+    /**
+     * Hides every row that has a node in a column, by removing its other nodes from their
+     * columns.
+     *
+     * @param c  The column.
+     * @return   The number of nodes removed from their columns.
+     */
+    private int hideRows(final int c) {
+        int updates = 0;
+        for (int p = start[c]; p < start[c] + length[c]; p++) {
+            updates += hideOtherNodes(cells[p]);
+        }
+        return updates;
+    }
+
+    /**
+     * Undoes <code>hideRows</code>.
+     *
+     * @param c  The column.
+     */
+    private void unhideRows(final int c) {
+        for (int p = start[c] + length[c] - 1; p >= start[c]; p--) {
+            unhideOtherNodes(cells[p]);
+        }
+    }
+
+    /**
+     * Hides every row that gives a secondary column a color other than the specified one.
+     *
+     * @param c          A secondary column.
+     * @param keptColor  The color that rows may still give the column.
+     * @return           The number of nodes removed from their columns.
+     */
+    private int purify(final int c, final int keptColor) {
+        int updates = 0;
+        for (int p = start[c]; p < start[c] + length[c]; p++) {
+            if (color[cells[p]] != keptColor) {
+                updates += hideOtherNodes(cells[p]);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Undoes <code>purify</code>.
+     *
+     * @param c          A secondary column.
+     * @param keptColor  The color that rows could still give the column.
+     */
+    private void unpurify(final int c, final int keptColor) {
+        for (int p = start[c] + length[c] - 1; p >= start[c]; p--) {
+            if (color[cells[p]] != keptColor) {
+                unhideOtherNodes(cells[p]);
+            }
+        }
+    }
+
+    /**
+     * Removes the other nodes of a row from their columns, from left to right.
+     *
+     * @param x  A node of the row.
+     * @return   The number of nodes removed from their columns.
+     */
+    private int hideOtherNodes(final int x) {
+        int r = row[x];
+        int first = rowFirst[r];
+        int end = rowFirst[r + 1];
+        for (int y = first; y < end; y++) {
+            if (y != x) {
+                int c = column[y];
+                int p = position[y];
+                int last = start[c] + --length[c];
+                int z = cells[last];
+                cells[p] = z;
+                position[z] = p;
+                cells[last] = y;
+                position[y] = last;
+            }
+        }
+        return end - first - 1;
+    }
+
+    /**
+     * Undoes <code>hideOtherNodes</code>, from right to left. Each node is still just past the
+     * end of its column, so putting it back only makes the column longer.
+     *
+     * @param x  A node of the row.
+     */
+    private void unhideOtherNodes(final int x) {
+        int r = row[x];
+        for (int y = rowFirst[r + 1] - 1; y >= rowFirst[r]; y--) {
+            if (y != x) {
+                length[column[y]]++;
+            }
+        }
+    }
+
+    /**
+     * Lays out the arrays used by the search from the recorded columns, rows, and nodes. This is
+     * done automatically when the matrix is first used, after which the matrix cannot be changed.
+     */
+    public void compile() {
+        if (compiled) {
+            return;
+        }
+        compiled = true;
+
+        // Reserve a contiguous block of nodes for each row, and a range of cells for each column.
+        rowFirst = new int[numberOfRows + 1];
+        start = new int[numberOfColumns + 1];
+        for (int k = 0; k < numberOfNodes; k++) {
+            rowFirst[nodeRow[k] + 1]++;
+            start[nodeColumn[k] + 1]++;
+        }
+        for (int r = 0; r < numberOfRows; r++) {
+            rowFirst[r + 1] += rowFirst[r];
+        }
+        for (int c = 0; c < numberOfColumns; c++) {
+            start[c + 1] += start[c];
+        }
+
+        // Place each node in its row, keeping the order in which the nodes of a row were created,
+        // and in its column, keeping the order in which the nodes of a column were created.
+        column = new int[numberOfNodes];
+        color = new int[numberOfNodes];
+        row = new int[numberOfNodes];
+        cells = new int[numberOfNodes];
+        position = new int[numberOfNodes];
+        length = new int[numberOfColumns];
+        int[] rowFill = new int[numberOfRows];
+        for (int k = 0; k < numberOfNodes; k++) {
+            int r = nodeRow[k];
+            int x = rowFirst[r] + rowFill[r]++;
+            int c = nodeColumn[k];
+            column[x] = c;
+            color[x] = nodeColor[k];
+            row[x] = r;
+            int p = start[c] + length[c]++;
+            cells[p] = x;
+            position[x] = p;
+        }
+
+        // Every primary column remains to be covered, and no secondary column has a color.
+        active = new int[numberOfColumns];
+        activePosition = new int[numberOfColumns];
+        columnColor = new int[numberOfColumns];
+        colorSetter = new int[numberOfColumns];
+        for (int c = 0; c < numberOfColumns; c++) {
+            colorSetter[c] = -1;
+            if (!secondary[c]) {
+                active[numberOfActive] = c;
+                activePosition[c] = numberOfActive++;
+            }
+        }
+
+        rowNodes = new Node[numberOfRows];
+        for (int r = 0; r < numberOfRows; r++) {
+            Node rowNode = new Node();
+            rowNode.applicationData = rowApplicationData[r];
+            rowNodes[r] = rowNode;
+        }
+
+        // The recording arrays are no longer needed.
+        nodeRow = null;
+        nodeColumn = null;
+        nodeColor = null;
+        rowApplicationData = null;
+    }
+
+    /**
+     * Makes sure the matrix can still be changed.
+     *
+     * @throws IllegalStateException  If the arrays used by the search have already been laid out.
+     */
+    private void checkNotCompiled() {
+        if (compiled) {
+            throw new IllegalStateException("The matrix cannot be changed once it has been used.");
+        }
+    }
+
+    /**
+     * Doubles the capacity of an array.
+     *
+     * @param array  The array to be copied.
+     * @return       A copy of the array, with twice the capacity.
+     */
+    private static int[] grow(final int[] array) {
+        int[] copy = new int[array.length * 2];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+  LinkedDLXSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+
+/**
+ * A <code>LinkedDLXSolver</code> is a dancing links engine whose matrix is a graph of
+ * <code>Node</code> objects. Its matrix is built entirely through the methods of
+ * <code>AbstractExactCoverSolver</code>, so it can be plugged under any problem-specific solver.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class LinkedDLXSolver extends AbstractDLXSolver {
+
+    /*
+     * Everything is inherited. This class exists so that the pointer-based engine can be
+     * instantiated on its own, the same way as ArrayDLXSolver.
+     */
+}
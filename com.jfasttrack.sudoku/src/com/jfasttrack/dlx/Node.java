@@ -60,4 +60,7 @@ public class Node {
      * problem being solved.
      */
     public int applicationData;
+
+    /** The index of the row in which this node appears. */
+    public int rowIndex;
 }
@@ -0,0 +1,382 @@
+/*
+  ParallelDLXSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * This class solves an exact cover problem on several threads at once.
+ * <p>
+ * The matrix is built in an <code>ArrayDLXSolver</code>. When the problem is solved, the search
+ * tree is split at its top levels: each row of the column that would be covered first becomes an
+ * independent subproblem, and so on for as many levels as requested. Each subproblem runs on its
+ * own copy of the matrix as a task in a <code>ForkJoinPool</code>, so idle threads steal the work
+ * of busy ones. Levels where only one row can be chosen are applied in place and are not counted
+ * as split levels, because they offer no work to share.
+ * <p>
+ * Solutions are found in no particular order. The listeners are notified one at a time, so they
+ * need not be thread safe themselves. As soon as a listener returns <code>true</code>, every task
+ * stops searching, and no further solutions are reported. The tasks also share one search budget:
+ * the node limit applies to the nodes visited by all of them together, and an interrupt of the
+ * thread that called <code>solve</code> stops them all.
+ * <p>
+ * When statistics are kept, each task keeps its own, and they are added together as the tasks
+ * finish. The updates made while splitting the top levels of the tree are not counted.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class ParallelDLXSolver extends AbstractExactCoverSolver {
+
+    /** The number of split levels used if none is specified. */
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+    /** The pool used by solvers that are not given one of their own. */
+    private static ForkJoinPool defaultPool;
+
+    /** The matrix that is built, then copied for each subproblem. */
+    private final ArrayDLXSolver matrix = new ArrayDLXSolver();
+
+    /** The pool that runs the subproblems. */
+    private final ForkJoinPool pool;
+
+    /** The number of levels of the search tree that are split into separate subproblems. */
+    private final int splitDepth;
+
+    /**
+     * Set when a listener asks the solver to stop, or when enough solutions have been counted.
+     * Shared by every copy of the matrix.
+     */
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    /** The number of rows that were in the solution of the matrix when the search started. */
+    private int startingDepth;
+
+    /**
+     * Constructs a solver that splits the search tree to the default depth and uses a shared
+     * pool.
+     */
+    public ParallelDLXSolver() {
+        this(getDefaultPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Constructs a solver.
+     *
+     * @param pool        The pool that will run the subproblems.
+     * @param splitDepth  The number of levels of the search tree to be split into separate
+     *                    subproblems.
+     */
+    public ParallelDLXSolver(final ForkJoinPool pool, final int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        matrix.setStopSignal(stopSignal);
+    }
+
+    /**
+     * Gets the pool used by solvers that are not given one of their own. It has one thread for
+     * each available processor.
+     *
+     * @return  The default pool.
+     */
+    private static synchronized ForkJoinPool getDefaultPool() {
+        if (defaultPool == null) {
+            defaultPool = new ForkJoinPool();
+        }
+        return defaultPool;
+    }
+
+    /**
+     * Creates columns at the end of the matrix: first the primary columns, then the secondary
+     * columns.
+     *
+     * @param numberOfPrimaryColumns    The number of primary columns to be created.
+     * @param numberOfSecondaryColumns  The number of secondary columns to be created.
+     */
+    public void createColumnHeaders(
+            final int numberOfPrimaryColumns, final int numberOfSecondaryColumns) {
+        matrix.createColumnHeaders(numberOfPrimaryColumns, numberOfSecondaryColumns);
+    }
+
+    /**
+     * Gets the number of columns in the matrix.
+     *
+     * @return  The number of columns in the matrix.
+     */
+    public int getNumberOfColumns() {
+        return matrix.getNumberOfColumns();
+    }
+
+    /**
+     * Adds a row to the matrix. The new row starts out with a single node.
+     *
+     * @param applicationData  The number that describes the move represented by this row.
+     * @param columnIndex      The index of the column that holds the first node of this row.
+     * @return                 The index of the new row.
+     */
+    public int addRow(final int applicationData, final int columnIndex) {
+        return matrix.addRow(applicationData, columnIndex);
+    }
+
+    /**
+     * Adds a node to the end of an existing row.
+     *
+     * @param rowIndex     The index of a row returned by <code>addRow</code>.
+     * @param columnIndex  The index of the column that will hold the new node.
+     */
+    public void addNodeToRow(final int rowIndex, final int columnIndex) {
+        matrix.addNodeToRow(rowIndex, columnIndex);
+    }
+
+    /**
+     * Adds the specified row to the solution. Removes all affected columns from further
+     * consideration.
+     *
+     * @param rowIndex  The index of the row to be added.
+     */
+    public void addRowToSolution(final int rowIndex) {
+        matrix.addRowToSolution(rowIndex);
+    }
+
+    /**
+     * Gets a node of the specified row. This is the node reported to
+     * <code>SolutionListener</code>s for that row.
+     *
+     * @param rowIndex  The index of a row returned by <code>addRow</code>.
+     * @return          A node that holds the row's application data.
+     */
+    protected Node getRowNode(final int rowIndex) {
+        return matrix.getRowNode(rowIndex);
+    }
+
+    /**
+     * Removes every row from the solution of an exact cover problem. (This is usually done when
+     * preparing the matrix to solve another problem.)
+     */
+    public void removeAllRowsFromSolution() {
+        matrix.removeAllRowsFromSolution();
+    }
+
+    /**
+     * Takes a row out of the matrix without adding it to the solution.
+     *
+     * @param rowIndex  The index of the row to be hidden.
+     */
+    public void hideRow(final int rowIndex) {
+        matrix.hideRow(rowIndex);
+    }
+
+    /**
+     * Puts back a row taken out of the matrix by <code>hideRow</code>.
+     *
+     * @param rowIndex  The index of the row most recently hidden.
+     */
+    public void unhideRow(final int rowIndex) {
+        matrix.unhideRow(rowIndex);
+    }
+
+    /**
+     * Searches the exact cover problem on the threads of the pool. Every task shares this solver's
+     * search budget and node count.
+     * <p>
+     * The tasks cannot see an interrupt of this thread, so this thread watches for it while it
+     * waits and stops the tasks if the budget allows interrupts. Either way, the interrupt status
+     * is restored before returning.
+     */
+    protected void search() {
+        stopSignal.set(false);
+        startSharedNodeCount();
+        startingDepth = matrix.getSolutionDepth();
+        matrix.setColumnHeuristic(getColumnHeuristic());
+        matrix.setTieBreaker(getTieBreaker());
+
+        SearchTask task = new SearchTask(matrix.copy(), 0);
+        pool.execute(task);
+        boolean interrupted = false;
+        while (!task.isDone()) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (getSearchBudget().isInterruptible()) {
+                    mergeCutOff(SearchOutcome.INTERRUPTED);
+                }
+            } catch (ExecutionException e) {
+                // The task has failed. join() rethrows the failure below.
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        task.join();
+    }
+
+    /**
+     * Gets whether the tasks have been told to stop.
+     *
+     * @return  <code>true</code> if the solver is finished generating solutions.
+     */
+    protected boolean isDone() {
+        return stopSignal.get();
+    }
+
+    /**
+     * Passes a solution found by one of the tasks on to the registered listeners. Only one solution
+     * is reported at a time.
+     *
+     * @param rows   The indexes of the rows that make up this solution.
+     * @param depth  The number of rows in this solution.
+     * @return       <code>true</code> if the search should stop.
+     */
+    private synchronized boolean mergeSolution(final int[] rows, final int depth) {
+        if (!stopSignal.get()) {
+            reportSolution(rows, depth);
+            if (super.isDone()) {
+                stopSignal.set(true);
+            }
+        }
+        return stopSignal.get();
+    }
+
+    /**
+     * Records a node near the top of the search tree, where the tasks split the search or apply a
+     * forced row.
+     *
+     * @param level         The depth of the node.
+     * @param columnLength  The number of rows in the column chosen there.
+     */
+    private synchronized void recordSplit(final int level, final int columnLength) {
+        SearchStats stats = getSearchStats();
+        if (stats != null) {
+            stats.recordChoice(level, columnLength, 0);
+        }
+    }
+
+    /**
+     * Adds the statistics of a task that has searched its subproblem to the end.
+     *
+     * @param taskStats  The statistics of the task's search.
+     * @param level      The depth of the root of the subproblem.
+     */
+    private synchronized void mergeStats(final SearchStats taskStats, final int level) {
+        SearchStats stats = getSearchStats();
+        if (stats != null && taskStats != null) {
+            stats.add(taskStats, level);
+        }
+    }
+
+    /**
+     * Stops every task because one of them ran out of the shared search budget.
+     *
+     * @param reason  The reason the search is stopping.
+     */
+    private synchronized void mergeCutOff(final SearchOutcome reason) {
+        stopSearch(reason);
+        stopSignal.set(true);
+    }
+
+    /**
+     * This class searches one subproblem. Near the top of the search tree, it splits its
+     * subproblem further, one task for each row that can be chosen. Below that, it searches its
+     * copy of the matrix to the end.
+     */
+    private final class SearchTask extends RecursiveAction {
+
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** This task's own copy of the matrix. */
+        private final ArrayDLXSolver copy;
+
+        /** The number of levels that have already been split above this task. */
+        private final int depth;
+
+        /**
+         * Constructs a task.
+         *
+         * @param copy   A copy of the matrix, with the rows of this subproblem already added to
+         *               the solution.
+         * @param depth  The number of levels that have already been split.
+         */
+        SearchTask(final ArrayDLXSolver copy, final int depth) {
+            this.copy = copy;
+            this.depth = depth;
+        }
+
+        /** Splits or searches this task's subproblem. */
+        protected void compute() {
+            int[] rows = null;
+            if (depth < splitDepth) {
+                rows = copy.getRowsOfShortestColumn();
+                while (rows != null && rows.length == 1 && !stopSignal.get()) {
+                    recordSplit(getLevel(), 1);
+                    copy.addRowToSolution(rows[0]);
+                    rows = copy.getRowsOfShortestColumn();
+                }
+            }
+
+            if (rows == null || rows.length == 1) {
+                searchCopy();
+                return;
+            }
+            recordSplit(getLevel(), rows.length);
+            if (rows.length > 1) {
+                SearchTask[] tasks = new SearchTask[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    ArrayDLXSolver child = i == rows.length - 1 ? copy : copy.copy();
+                    child.addRowToSolution(rows[i]);
+                    tasks[i] = new SearchTask(child, depth + 1);
+                }
+                invokeAll(tasks);
+            }
+        }
+
+        /** Searches this task's copy of the matrix to the end. */
+        private void searchCopy() {
+            copy.addRowSolutionListener(new RowSolutionListener() {
+                public boolean solutionFound(final int[] rows, final int depth) {
+                    return mergeSolution(rows, depth);
+                }
+            });
+            copy.shareSearch(ParallelDLXSolver.this);
+            int level = getLevel();
+            SearchOutcome outcome = copy.solve();
+            mergeStats(copy.getSearchStats(), level);
+            if (outcome.isCutOff()) {
+                mergeCutOff(outcome);
+            }
+        }
+
+        /**
+         * Gets the depth in the search tree of this task's copy of the matrix.
+         *
+         * @return  The number of rows chosen since the search started.
+         */
+        private int getLevel() {
+            return copy.getSolutionDepth() - startingDepth;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+  SearchBudget.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+/**
+ * A <code>SearchBudget</code> limits how long a search may run. A search can be limited by the
+ * number of nodes of the search tree it visits, by the time it takes, and by an interrupt of the
+ * thread that started it. A search that exceeds its budget stops early, and its outcome tells why.
+ * <p>
+ * A budget holds no state of its own, so the same budget may be given to any number of solvers.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SearchBudget {
+
+    /** A budget that never stops a search. */
+    public static final SearchBudget UNLIMITED = new SearchBudget(0, 0, false);
+
+    /** The maximum number of nodes to be visited, or 0 if there is no limit. */
+    private final long maxNodes;
+
+    /** The maximum time, in milliseconds, that a search may take, or 0 if there is no limit. */
+    private final long timeLimit;
+
+    /** Tells whether an interrupt of the searching thread stops the search. */
+    private final boolean interruptible;
+
+    /**
+     * Constructs a <code>SearchBudget</code>.
+     *
+     * @param maxNodes       The maximum number of nodes to be visited, or 0 if there is no limit.
+     * @param timeLimit      The maximum time, in milliseconds, that a search may take, or 0 if
+     *                       there is no limit. The deadline is set when each search starts.
+     * @param interruptible  <code>true</code> if an interrupt of the thread that started the
+     *                       search should stop it.
+     */
+    public SearchBudget(final long maxNodes, final long timeLimit, final boolean interruptible) {
+        if (maxNodes < 0 || timeLimit < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative.");
+        }
+        this.maxNodes = maxNodes;
+        this.timeLimit = timeLimit;
+        this.interruptible = interruptible;
+    }
+
+    /**
+     * Gets the maximum number of nodes to be visited.
+     *
+     * @return  The maximum number of nodes to be visited, or 0 if there is no limit.
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Gets the maximum time that a search may take.
+     *
+     * @return  The maximum time, in milliseconds, or 0 if there is no limit.
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Tells whether an interrupt of the searching thread stops the search.
+     *
+     * @return  <code>true</code> if the search can be interrupted.
+     */
+    public boolean isInterruptible() {
+        return interruptible;
+    }
+}
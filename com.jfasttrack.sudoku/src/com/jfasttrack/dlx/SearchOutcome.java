@@ -0,0 +1,85 @@
+/*
+  SearchOutcome.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+/**
+ * <code>SearchOutcome</code> tells how a search ended: whether it explored the whole search tree,
+ * was stopped because no more solutions were wanted, or was cut off by its
+ * <code>SearchBudget</code>.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SearchOutcome {
+
+    /** Indicates that the whole search tree was explored. Every solution has been reported. */
+    public static final SearchOutcome COMPLETED = new SearchOutcome("COMPLETED", false);
+
+    /** Indicates that a listener, or a limit on the number of solutions, stopped the search. */
+    public static final SearchOutcome STOPPED = new SearchOutcome("STOPPED", false);
+
+    /** Indicates that the search visited as many nodes as its budget allows. */
+    public static final SearchOutcome NODE_LIMIT = new SearchOutcome("NODE_LIMIT", true);
+
+    /** Indicates that the search ran past its deadline. */
+    public static final SearchOutcome TIME_LIMIT = new SearchOutcome("TIME_LIMIT", true);
+
+    /** Indicates that the thread that started the search was interrupted. */
+    public static final SearchOutcome INTERRUPTED = new SearchOutcome("INTERRUPTED", true);
+
+    /** The name of this value. */
+    private final String name;
+
+    /** Tells whether the search was cut off before it could finish. */
+    private final boolean cutOff;
+
+    /**
+     * Constructs a <code>SearchOutcome</code>.
+     *
+     * @param name    The name of this value.
+     * @param cutOff  <code>true</code> if the search was cut off before it could finish.
+     */
+    private SearchOutcome(final String name, final boolean cutOff) {
+        this.name = name;
+        this.cutOff = cutOff;
+    }
+
+    /**
+     * Tells whether the search was cut off by its budget. If so, some solutions may not have been
+     * reported, so a count of the solutions found is only a lower bound.
+     *
+     * @return  <code>true</code> if the search was cut off before it could finish.
+     */
+    public boolean isCutOff() {
+        return cutOff;
+    }
+
+    /**
+     * Gets the name of this value.
+     *
+     * @return  The name of this value.
+     */
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+  SearchStats.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+/**
+ * <code>SearchStats</code> records what an exact cover engine did during one search: the nodes of
+ * the search tree it visited at each depth, the number of rows it tried at each depth, the link
+ * updates it made, the solutions it found, and how long it took.
+ * <p>
+ * The depth of a node is the number of rows the search has chosen above it; rows added to the
+ * solution before the search started (such as the givens of a sudoku) are not counted. Knuth
+ * measures the work of dancing links in "updates": each time covering a column unlinks a node
+ * from its column counts as one update. Uncovering makes the same number of updates again, which
+ * are not counted.
+ * <p>
+ * Statistics are only collected when they are asked for, with
+ * <code>AbstractExactCoverSolver.setCollectingStats</code>. A solver that is not collecting them
+ * does no extra work for them.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SearchStats {
+
+    /** The initial number of depths for which statistics can be kept. */
+    private static final int INITIAL_DEPTH = 16;
+
+    /** The number of nodes visited at each depth. */
+    private long[] nodes = new long[INITIAL_DEPTH];
+
+    /** The number of nodes at each depth that chose a column rather than report a solution. */
+    private long[] choices = new long[INITIAL_DEPTH];
+
+    /** The number of rows in the columns chosen at each depth. */
+    private long[] rows = new long[INITIAL_DEPTH];
+
+    /** The number of updates made at each depth. */
+    private long[] updates = new long[INITIAL_DEPTH];
+
+    /** The number of depths at which at least one node has been visited. */
+    private int numberOfDepths;
+
+    /** The number of solutions found. */
+    private long solutions;
+
+    /** The wall-clock time taken by the search, in nanoseconds. */
+    private long elapsedNanos;
+
+    /**
+     * Gets the number of depths of the search tree at which nodes were visited. The root is at
+     * depth 0.
+     *
+     * @return  One more than the greatest depth reached.
+     */
+    public int getNumberOfDepths() {
+        return numberOfDepths;
+    }
+
+    /**
+     * Gets the number of nodes of the search tree that were visited.
+     *
+     * @return  The number of nodes visited at every depth.
+     */
+    public long getNodes() {
+        return sum(nodes);
+    }
+
+    /**
+     * Gets the number of nodes of the search tree that were visited at one depth.
+     *
+     * @param depth  A depth of the search tree.
+     * @return       The number of nodes visited at that depth.
+     */
+    public long getNodes(final int depth) {
+        return depth < numberOfDepths ? nodes[depth] : 0;
+    }
+
+    /**
+     * Gets the number of link updates made while covering columns.
+     *
+     * @return  The number of updates made at every depth.
+     */
+    public long getUpdates() {
+        return sum(updates);
+    }
+
+    /**
+     * Gets the number of link updates made at one depth: those made covering the column chosen at
+     * that depth, and those made covering the other columns of each row tried there.
+     *
+     * @param depth  A depth of the search tree.
+     * @return       The number of updates made at that depth.
+     */
+    public long getUpdates(final int depth) {
+        return depth < numberOfDepths ? updates[depth] : 0;
+    }
+
+    /**
+     * Gets the average number of rows that could be tried at each node of one depth that chose a
+     * column. A branching factor of 1 means the rows at that depth were forced; a branching factor
+     * below 1 means that many of the nodes there were dead ends.
+     *
+     * @param depth  A depth of the search tree.
+     * @return       The average length of the columns chosen at that depth, or 0 if no column was
+     *               chosen there.
+     */
+    public double getBranchingFactor(final int depth) {
+        if (depth >= numberOfDepths || choices[depth] == 0) {
+            return 0;
+        }
+        return (double) rows[depth] / choices[depth];
+    }
+
+    /**
+     * Gets the number of solutions found.
+     *
+     * @return  The number of solutions found.
+     */
+    public long getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Gets the wall-clock time taken by the search.
+     *
+     * @return  The time taken by the search, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Records a node of the search tree that found a solution.
+     *
+     * @param depth  The depth of the node.
+     */
+    void recordSolution(final int depth) {
+        reach(depth);
+        nodes[depth]++;
+        solutions++;
+    }
+
+    /**
+     * Records a node of the search tree that chose a column.
+     *
+     * @param depth          The depth of the node.
+     * @param columnLength   The number of rows in the chosen column.
+     * @param columnUpdates  The number of updates made covering the chosen column.
+     */
+    void recordChoice(final int depth, final int columnLength, final int columnUpdates) {
+        reach(depth);
+        nodes[depth]++;
+        choices[depth]++;
+        rows[depth] += columnLength;
+        updates[depth] += columnUpdates;
+    }
+
+    /**
+     * Records the updates made covering the other columns of a row that is being tried.
+     *
+     * @param depth       The depth of the node that tried the row.
+     * @param rowUpdates  The number of updates made.
+     */
+    void recordUpdates(final int depth, final int rowUpdates) {
+        updates[depth] += rowUpdates;
+    }
+
+    /**
+     * Records the time taken by the search.
+     *
+     * @param nanos  The time taken by the search, in nanoseconds.
+     */
+    void setElapsedNanos(final long nanos) {
+        elapsedNanos = nanos;
+    }
+
+    /**
+     * Adds the nodes, rows, updates, and solutions of a search of a subproblem. The time is not
+     * added; it is recorded by the search that started the subproblems.
+     *
+     * @param other   The statistics of the search of a subproblem.
+     * @param offset  The depth in this search of the root of the subproblem.
+     */
+    void add(final SearchStats other, final int offset) {
+        if (other.numberOfDepths > 0) {
+            reach(offset + other.numberOfDepths - 1);
+        }
+        for (int depth = 0; depth < other.numberOfDepths; depth++) {
+            nodes[offset + depth] += other.nodes[depth];
+            choices[offset + depth] += other.choices[depth];
+            rows[offset + depth] += other.rows[depth];
+            updates[offset + depth] += other.updates[depth];
+        }
+        solutions += other.solutions;
+    }
+
+    /**
+     * Makes room for statistics at a depth.
+     *
+     * @param depth  A depth of the search tree.
+     */
+    private void reach(final int depth) {
+        if (depth < numberOfDepths) {
+            return;
+        }
+        if (depth >= nodes.length) {
+            int length = Math.max(nodes.length * 2, depth + 1);
+            nodes = grow(nodes, length);
+            choices = grow(choices, length);
+            rows = grow(rows, length);
+            updates = grow(updates, length);
+        }
+        numberOfDepths = depth + 1;
+    }
+
+    /**
+     * Copies an array into a longer one.
+     *
+     * @param array   The array to be copied.
+     * @param length  The length of the new array.
+     * @return        The new array.
+     */
+    private static long[] grow(final long[] array, final int length) {
+        long[] grown = new long[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * Adds up the elements of an array.
+     *
+     * @param array  An array.
+     * @return       The sum of its elements.
+     */
+    private long sum(final long[] array) {
+        long total = 0;
+        for (int depth = 0; depth < numberOfDepths; depth++) {
+            total += array[depth];
+        }
+        return total;
+    }
+
+    /**
+     * Gets a summary of the statistics, with one line for each depth.
+     *
+     * @return  A summary of the statistics.
+     */
+    public String toString() {
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("nodes=").append(getNodes())
+                .append(" updates=").append(getUpdates())
+                .append(" solutions=").append(solutions)
+                .append(" time=").append(elapsedNanos / 1000).append("us");
+        for (int depth = 0; depth < numberOfDepths; depth++) {
+            buffer.append("\n  depth ").append(depth)
+                    .append(": nodes=").append(nodes[depth])
+                    .append(" branching=").append((float) getBranchingFactor(depth))
+                    .append(" updates=").append(updates[depth]);
+        }
+        return buffer.toString();
+    }
+}
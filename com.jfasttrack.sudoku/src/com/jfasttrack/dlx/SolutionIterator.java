@@ -0,0 +1,110 @@
+/*
+  SolutionIterator.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * This class hands out the solutions of an exact cover problem one at a time, searching for each
+ * one only when it is asked for. Between solutions, the search waits where it found the last one,
+ * holding nothing but the state of the search itself. A caller can therefore page through
+ * millions of solutions, or stop after the first few, without any of them piling up.
+ * <p>
+ * Each element is an <code>int[]</code> holding the indexes (as returned by <code>addRow</code>)
+ * of the rows of one solution. The array is the caller's to keep.
+ * <p>
+ * An iterator is obtained from <code>AbstractExactCoverSolver.solutions</code>. It should be
+ * closed if it is abandoned before it runs out, so that the matrix is restored. Starting another
+ * search on the same solver also closes it.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SolutionIterator implements Iterator {
+
+    /** The solver whose search this iterator runs. */
+    private final AbstractExactCoverSolver solver;
+
+    /** The solution to be returned next, or <code>null</code> if it has not been found yet. */
+    private int[] nextSolution;
+
+    /** Tells whether there are no more solutions to be returned. */
+    private boolean finished;
+
+    /**
+     * Constructs an iterator over the solutions found by a solver.
+     *
+     * @param solver  The solver whose search this iterator runs.
+     */
+    SolutionIterator(final AbstractExactCoverSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Tells whether there is another solution. If it has not been found yet, the search runs
+     * until it is found or until the search ends.
+     *
+     * @return  <code>true</code> if there is another solution.
+     */
+    public boolean hasNext() {
+        if (nextSolution == null && !finished) {
+            nextSolution = solver.nextSolution(this);
+            finished = nextSolution == null;
+        }
+        return nextSolution != null;
+    }
+
+    /**
+     * Gets the next solution.
+     *
+     * @return  An <code>int[]</code> holding the indexes of the rows of the next solution.
+     * @throws NoSuchElementException  If there are no more solutions.
+     */
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int[] solution = nextSolution;
+        nextSolution = null;
+        return solution;
+    }
+
+    /**
+     * Solutions cannot be removed.
+     *
+     * @throws UnsupportedOperationException  Always.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the search and restores the matrix. After this, the iterator has no more solutions.
+     */
+    public void close() {
+        finished = true;
+        nextSolution = null;
+        solver.closeSolutions(this);
+    }
+}
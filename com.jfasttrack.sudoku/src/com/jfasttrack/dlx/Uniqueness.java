@@ -0,0 +1,79 @@
+/*
+  Uniqueness.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.dlx;
+
+
+/**
+ * <code>Uniqueness</code> tells whether an exact cover problem has no solution, exactly one
+ * solution, or more than one solution.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class Uniqueness {
+
+    /** Indicates that the problem has no solution. */
+    public static final Uniqueness NONE = new Uniqueness("NONE");
+
+    /** Indicates that the problem has exactly one solution. */
+    public static final Uniqueness UNIQUE = new Uniqueness("UNIQUE");
+
+    /** Indicates that the problem has more than one solution. */
+    public static final Uniqueness MULTIPLE = new Uniqueness("MULTIPLE");
+
+    /** The name of this value. */
+    private final String name;
+
+    /**
+     * Constructs a <code>Uniqueness</code>.
+     *
+     * @param name  The name of this value.
+     */
+    private Uniqueness(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the <code>Uniqueness</code> that corresponds to a number of solutions.
+     *
+     * @param numberOfSolutions  The number of solutions found, or at least 2 if there are many.
+     * @return                   The corresponding <code>Uniqueness</code>.
+     */
+    public static Uniqueness valueOf(final int numberOfSolutions) {
+        if (numberOfSolutions == 0) {
+            return NONE;
+        }
+        if (numberOfSolutions == 1) {
+            return UNIQUE;
+        }
+        return MULTIPLE;
+    }
+
+    /**
+     * Gets the name of this value.
+     *
+     * @return  The name of this value.
+     */
+    public String toString() {
+        return name;
+    }
+}
@@ -36,6 +36,18 @@ final class Pentomino {
     /** The number of squares in a <code>Pentomino</code>. */
     static final int PENTOMINO_SIZE = 5;
 
+    /** The index in <code>ALL_PENTOMINOES</code> of the F pentomino, which has no symmetry. */
+    static final int ASYMMETRIC_PIECE = 0;
+
+    /** A symmetry (or a bit of one) that swaps rows and columns. */
+    static final int TRANSPOSE = 4;
+
+    /** A symmetry (or a bit of one) that reverses the order of the columns. */
+    static final int MIRROR_COLUMNS = 2;
+
+    /** A symmetry (or a bit of one) that reverses the order of the rows. */
+    static final int MIRROR_ROWS = 1;
+
     /**
      * A collection containing every possible <code>Pentomino</code>. This collection also contains
      * each possible rotation and inversion of each <code>Pentomino</code>.
@@ -43,15 +55,13 @@ final class Pentomino {
     static final Pentomino[][] ALL_PENTOMINOES = new Pentomino[][] {
 
         /*
-         * If every possible orientation of each pentomino is included, the program will generate
-         * every possible solution. That would include trivial solutions generated by rotating
-         * and/or inverting other solutions.
-         *
-         * To remove the trivial solutions, one piece is included with only 2 of its 8 possible
-         * orientations. The F pentomino was arbitrarily chosen for this.
+         * If every possible orientation of each pentomino is used, the program will generate
+         * every possible solution. That includes the trivial solutions generated by rotating
+         * and/or reflecting other solutions. To remove them, PentominoSolver can use only some of
+         * the orientations of the F pentomino, which has no symmetry of its own.
          */
 
-        // The F pentomino: using 2 of 8 possible orientations.
+        // The F pentomino: 8 possible orientations.
         {
             new Pentomino(new String[] {
                 " FF",
@@ -63,7 +73,6 @@ final class Pentomino {
                 "FFF",
                 "  F",
             }),
-/*
             new Pentomino(new String[] {
                 " F ",
                 " FF",
@@ -94,7 +103,6 @@ final class Pentomino {
                 "FFF",
                 "F  ",
             }),
-*/
         },
 
         // The I pentomino: 2 possible orientations.
@@ -454,4 +462,39 @@ final class Pentomino {
     public int getYOffset(final int index) {
         return yOffsets[index];
     }
+
+    /**
+     * Gets the shape of this <code>Pentomino</code> after a symmetry has been applied to it. A
+     * symmetry is made of the bits <code>TRANSPOSE</code>, <code>MIRROR_ROWS</code>, and
+     * <code>MIRROR_COLUMNS</code>, applied in that order; 0 leaves the shape as it is. Two
+     * pentominoes have the same shape if, and only if, they cover the same squares once they are
+     * moved into the top left corner.
+     *
+     * @param symmetry  The symmetry to be applied.
+     * @return          A bit mask of the squares covered, in a 5 by 5 box.
+     */
+    int getShape(final int symmetry) {
+        int[] x = new int[PENTOMINO_SIZE];
+        int[] y = new int[PENTOMINO_SIZE];
+        int minX = 0;
+        int minY = 0;
+        for (int i = 0; i < PENTOMINO_SIZE; i++) {
+            x[i] = (symmetry & TRANSPOSE) == 0 ? xOffsets[i] : yOffsets[i];
+            y[i] = (symmetry & TRANSPOSE) == 0 ? yOffsets[i] : xOffsets[i];
+            if ((symmetry & MIRROR_ROWS) != 0) {
+                y[i] = -y[i];
+            }
+            if ((symmetry & MIRROR_COLUMNS) != 0) {
+                x[i] = -x[i];
+            }
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+        }
+
+        int shape = 0;
+        for (int i = 0; i < PENTOMINO_SIZE; i++) {
+            shape |= 1 << (y[i] - minY) * PENTOMINO_SIZE + x[i] - minX;
+        }
+        return shape;
+    }
 }
@@ -29,10 +29,10 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Iterator;
-import java.util.List;
 import javax.swing.DefaultListModel;
 import javax.swing.JApplet;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -42,17 +42,26 @@ import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
 import javax.swing.UIManager;
 
-import com.jfasttrack.dlx.Node;
-import com.jfasttrack.dlx.SolutionListener;
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.dlx.SolutionIterator;
 
 
 /**
  * This is the main program to run Dancing Links Pentominoes.
+ * <p>
+ * Solutions are shown a page at a time. The solver's search pauses after each page and only
+ * resumes when more solutions are asked for, so the applet never holds more of them than have
+ * been shown.
+ * <p>
+ * The search therefore runs on one thread, with an <code>ArrayDLXSolver</code>. A
+ * <code>ParallelDLXSolver</code> would find every solution sooner, but its workers search their
+ * parts of the tree independently and cannot pause between pages, so it could only fill the list
+ * with every solution at once.
  *
  * @author   Pete Boton
  * @version  2009/05
  */
-public class PentominoApplet extends JApplet implements ActionListener, SolutionListener {
+public class PentominoApplet extends JApplet implements ActionListener {
 
     /** The serial version UID. */
     private static final long serialVersionUID = 1L;
@@ -60,6 +69,9 @@ public class PentominoApplet extends JApplet implements ActionListener, Solution
     /** The total number of squares in a pentomino grid. */
     private static final int NUMBER_OF_SQUARES = 60;
 
+    /** The number of solutions added to the list each time more are asked for. */
+    private static final int PAGE_SIZE = 100;
+
     /** The available widths for pentomino grids. */
     private static final int[] GRID_WIDTHS = {
         20, 15, 12, 10,
@@ -88,6 +100,18 @@ public class PentominoApplet extends JApplet implements ActionListener, Solution
     /** Label that displays the number of solutions found. */
     private final JLabel solutionLabel = new JLabel("");
 
+    /** Check box that tells whether the rotations and reflections of each solution are shown. */
+    private final JCheckBox symmetryCheckBox = new JCheckBox("Rotations and reflections");
+
+    /** Button that asks for the next page of solutions. */
+    private final JButton moreButton = new JButton("More");
+
+    /** The solver that finds the solutions for the selected grid size. */
+    private PentominoSolver solver;
+
+    /** The solutions that have not been shown yet. */
+    private SolutionIterator solutions;
+
     /** Initializes this applet. Creates the GUI, then runs a solver with default values. */
     public void init() {
         UIManager.put("Panel.background", new Color(212, 232, 255));
@@ -100,6 +124,8 @@ public class PentominoApplet extends JApplet implements ActionListener, Solution
         JComboBox sizeComboBox = new JComboBox(GRID_SIZES);
         sizeComboBox.addActionListener(this);
         northPanel.add(sizeComboBox);
+        symmetryCheckBox.addActionListener(this);
+        northPanel.add(symmetryCheckBox);
 
         contentPane.add(northPanel, BorderLayout.NORTH);
 
@@ -124,76 +150,78 @@ public class PentominoApplet extends JApplet implements ActionListener, Solution
         centerPanel.add(scrollPane);
         contentPane.add(centerPanel, BorderLayout.CENTER);
 
-        PentominoSolver solver = new PentominoSolver(gridWidth, gridHeight);
-        solver.addSolutionListener(this);
-        solver.solve();
-
         JPanel southPanel = new JPanel(new FlowLayout());
-        solutionLabel.setText(listModel.getSize()  + " solutions found");
         southPanel.add(solutionLabel);
+        moreButton.addActionListener(this);
+        southPanel.add(moreButton);
         contentPane.add(southPanel, BorderLayout.SOUTH);
+
+        startSolver();
     }
 
     /**
-     * Responds to events generated by the combo box used to select puzzle
-     * size. Creates and runs a new pentomino solver.
+     * Responds to events generated by the combo box used to select puzzle size, by the check box
+     * for rotations and reflections, and by the button that asks for more solutions. A new size
+     * or a new setting of the check box starts a new pentomino solver.
      *
      * @param event  Object describing the event that caused this call.
      */
     public void actionPerformed(final ActionEvent event) {
+        if (event.getSource() == moreButton) {
+            showNextPage();
+            return;
+        }
+        if (event.getSource() == symmetryCheckBox) {
+            startSolver();
+            return;
+        }
+
         JComboBox comboBox = (JComboBox) event.getSource();
         int selectedIndex = comboBox.getSelectedIndex();
 
-        listModel.removeAllElements();
-
         gridWidth = GRID_WIDTHS[selectedIndex];
         gridHeight = NUMBER_OF_SQUARES / gridWidth;
-        PentominoSolver solver =
-                new PentominoSolver(gridWidth, gridHeight);
-        solver.addSolutionListener(this);
-        solver.solve();
-        solutionLabel.setText(listModel.getSize()  + " solutions found");
+        startSolver();
+    }
+
+    /** Creates a solver for the selected grid size, and shows the first page of solutions. */
+    private void startSolver() {
+        if (solutions != null) {
+            solutions.close();
+        }
+        listModel.removeAllElements();
+        solver = new PentominoSolver(gridWidth, gridHeight, new ArrayDLXSolver());
+        solutions = solver.solutions();
+        showNextPage();
+    }
+
+    /** Finds the next page of solutions and adds them to the list. */
+    private void showNextPage() {
+        for (int i = 0; i < PAGE_SIZE && solutions.hasNext(); i++) {
+            addSolution((int[]) solutions.next());
+        }
+        boolean more = solutions.hasNext();
+        moreButton.setEnabled(more);
+        String found = more ? " solutions so far" : " solutions found";
+        solutionLabel.setText(listModel.getSize() + found);
     }
 
     /**
-     * Converts a solution from dancing links nodes into a completed pentominoes grid.
+     * Adds a solution to the list. If rotations and reflections are to be shown, each of them is
+     * added as well.
      *
-     * @param  solutionNodes  The DLX nodes that make up the solution.
-     * @return                <code>false</code> to tell the solver to continue generating
-     *                        solutions.
+     * @param  rows  The indexes of the rows that make up the solution.
      */
-    public boolean solutionFound(final List solutionNodes) {
-        int[][] solutionGrid = new int[gridHeight][gridWidth];
-
-        Iterator iterator = solutionNodes.iterator();
-        while (iterator.hasNext()) {
-            Node node = (Node) iterator.next();
-
-            // Split each move into its row, column, and piece.
-            int move = node.applicationData;
-
-            int pieceIdentifier = move / NUMBER_OF_SQUARES;
-            int pieceIndex =
-                    pieceIdentifier / Pentomino.ALL_PENTOMINOES.length;
-            int orientation =
-                    pieceIdentifier % Pentomino.ALL_PENTOMINOES.length;
-
-            int location = move % NUMBER_OF_SQUARES;
-            int row = location / gridWidth;
-            int column = location % gridWidth;
-
-            // Place the piece into its position in the pentominoes grid.
-            Pentomino piece =
-                    Pentomino.ALL_PENTOMINOES[pieceIndex][orientation];
-            for (int j = 0; j < Pentomino.PENTOMINO_SIZE; j++) {
-                solutionGrid[row    + piece.getYOffset(j)]
-                            [column + piece.getXOffset(j)]
-                    = pieceIndex;
+    private void addSolution(final int[] rows) {
+        int[][] solutionGrid = solver.toGrid(rows);
+        if (symmetryCheckBox.isSelected()) {
+            int[][][] grids = solver.expand(solutionGrid);
+            for (int i = 0; i < grids.length; i++) {
+                listModel.addElement(grids[i]);
             }
+        } else {
+            listModel.addElement(solutionGrid);
         }
-        listModel.addElement(solutionGrid);
-
-        return false;
     }
 
     /**
@@ -21,8 +21,12 @@
 
 package com.jfasttrack.pentomino;
 
-import com.jfasttrack.dlx.AbstractDLXSolver;
-import com.jfasttrack.dlx.Node;
+import java.util.Arrays;
+
+import com.jfasttrack.dlx.AbstractExactCoverSolver;
+import com.jfasttrack.dlx.LinkedDLXSolver;
+import com.jfasttrack.dlx.SolutionIterator;
+import com.jfasttrack.dlx.SolutionListener;
 
 
 /**
@@ -31,21 +35,38 @@ import com.jfasttrack.dlx.Node;
  * Each row of the matrix represents a move (i. e., the placment of a pentomino into the grid.
  * The number of rows will vary depending on the width and height of the grid.
  * <p>
- * The dancing links matrix will have 72 columns, regardless of the dimensions of the puzzle. Each
- * of the first 12 columns represents a single pentomino shape; This ensures that each pentomino is
- * placed into the grid once. The remaining 60 columns each represent one square of the puzzle grid.
+ * The dancing links matrix has one column for each pentomino shape and one for each square of the
+ * grid. Each of the first 12 columns represents a single pentomino shape; This ensures that each
+ * pentomino is placed into the grid once. The remaining columns each represent one square of the
+ * puzzle grid.
  * <p>
- * An "exact cover" will use each piece once and each square once.
+ * When the grid has exactly 60 squares, an "exact cover" will use each piece once and each square
+ * once. A larger grid cannot be filled, so its squares are secondary columns: each square is
+ * covered at most once, and the squares that no piece covers are left empty. Such a search is
+ * much slower, because the search can then only choose among the pieces, never among the
+ * squares.
  * <p>
  * Each time the matrix is completely "covered," a solution is constructed from the rows that make
  * up the cover.
+ * <p>
+ * Rotating or reflecting a tiling gives another tiling. A rectangular grid has 4 such symmetries
+ * (counting the one that changes nothing) and a square grid has 8, so every tiling comes with 3
+ * or 7 trivial copies. Unless it is asked for every tiling, the solver only searches for one of
+ * each set: the F pentomino has no symmetry of its own, so each symmetry of the grid turns it
+ * into another of its 8 orientations, and only the orientations that no symmetry turns into an
+ * earlier one are placed. This also makes the search faster (about twice as fast on a 6 by 10
+ * grid). The tilings that were left out can be rebuilt from those found, with
+ * <code>expand</code>.
+ * <p>
+ * The matrix is built on an exact cover engine, which is a <code>LinkedDLXSolver</code> unless
+ * another engine (such as <code>DancingCellsSolver</code>) is supplied.
  *
  * @author   Pete Boton
  * @version  2009/05
  */
-final class PentominoSolver extends AbstractDLXSolver {
+final class PentominoSolver {
 
-    /** The number of squares in the grid to be filled with pentominoes (60). */
+    /** The number of squares that the pentominoes fill (60). */
     private static final int NUMBER_OF_SQUARES =
             Pentomino.PENTOMINO_SIZE * Pentomino.ALL_PENTOMINOES.length;
 
@@ -55,6 +76,12 @@ final class PentominoSolver extends AbstractDLXSolver {
     /** The height of the grid to be filled. */
     private final int gridHeight;
 
+    /** The exact cover engine that holds the matrix and searches it. */
+    private final AbstractExactCoverSolver engine;
+
+    /** Tells whether only one tiling of each set of symmetric tilings is searched for. */
+    private final boolean symmetryReduced;
+
     /**
      * Constructs a <code>PentominoSolver</code>.
      *
@@ -62,21 +89,65 @@ final class PentominoSolver extends AbstractDLXSolver {
      * @param gridHeight  The height of the grid to be filled.
      */
     PentominoSolver(final int gridWidth, final int gridHeight) {
+        this(gridWidth, gridHeight, new LinkedDLXSolver());
+    }
+
+    /**
+     * Constructs a <code>PentominoSolver</code> that runs on the specified engine.
+     *
+     * @param gridWidth   The width of the grid to be filled.
+     * @param gridHeight  The height of the grid to be filled.
+     * @param engine      An empty exact cover engine.
+     */
+    PentominoSolver(
+            final int gridWidth,
+            final int gridHeight,
+            final AbstractExactCoverSolver engine) {
+        this(gridWidth, gridHeight, engine, true);
+    }
+
+    /**
+     * Constructs a <code>PentominoSolver</code> that runs on the specified engine, and that finds
+     * either every tiling or only one of each set of symmetric tilings.
+     *
+     * @param gridWidth        The width of the grid to be filled.
+     * @param gridHeight       The height of the grid to be filled.
+     * @param engine           An empty exact cover engine.
+     * @param symmetryReduced  <code>true</code> to leave out the rotations and reflections of the
+     *                         tilings found.
+     */
+    PentominoSolver(
+            final int gridWidth,
+            final int gridHeight,
+            final AbstractExactCoverSolver engine,
+            final boolean symmetryReduced) {
         this.gridWidth = gridWidth;
         this.gridHeight = gridHeight;
+        this.engine = engine;
+        this.symmetryReduced = symmetryReduced;
 
         createNodes();
     }
 
     /** Creates the dancing links nodes that will be used to solve a pentomino puzzle. */
     void createNodes() {
-        createColumnHeaders(Pentomino.ALL_PENTOMINOES.length + gridWidth * gridHeight);
+        int numberOfSquares = gridWidth * gridHeight;
+        if (numberOfSquares == NUMBER_OF_SQUARES) {
+            engine.createColumnHeaders(Pentomino.ALL_PENTOMINOES.length + numberOfSquares);
+        } else {
+            engine.createColumnHeaders(Pentomino.ALL_PENTOMINOES.length, numberOfSquares);
+        }
 
         // Load every possible piece placement into the dancing links matrix.
         for (int pieceIndex = 0; pieceIndex < Pentomino.ALL_PENTOMINOES.length; pieceIndex++) {
             for (int orientation = 0;
                     orientation < Pentomino.ALL_PENTOMINOES[pieceIndex].length;
                     orientation++) {
+                if (pieceIndex == Pentomino.ASYMMETRIC_PIECE
+                        && symmetryReduced
+                        && !isCanonical(orientation)) {
+                    continue;
+                }
                 Pentomino piece = Pentomino.ALL_PENTOMINOES[pieceIndex][orientation];
             rowLoop:
                 for (int row = 0; row < gridHeight; row++) {
@@ -100,6 +171,35 @@ final class PentominoSolver extends AbstractDLXSolver {
         }
     }
 
+    /**
+     * Gets the number of symmetries of the grid, counting the one that changes nothing.
+     *
+     * @return  8 if the grid is square, or 4 otherwise.
+     */
+    int getNumberOfSymmetries() {
+        return gridWidth == gridHeight ? 8 : 4;
+    }
+
+    /**
+     * Tells whether an orientation of the F pentomino is placed in a symmetry-reduced search. It
+     * is unless a symmetry of the grid turns it into an orientation that comes before it.
+     *
+     * @param orientation  An orientation of the F pentomino.
+     * @return             <code>true</code> if the orientation is placed.
+     */
+    private boolean isCanonical(final int orientation) {
+        Pentomino[] orientations = Pentomino.ALL_PENTOMINOES[Pentomino.ASYMMETRIC_PIECE];
+        for (int symmetry = 1; symmetry < getNumberOfSymmetries(); symmetry++) {
+            int shape = orientations[orientation].getShape(symmetry);
+            for (int other = 0; other < orientation; other++) {
+                if (orientations[other].getShape(0) == shape) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Creates one row of the dancing links matrix. Each row represents the placement of a pentomino
      * at a specific location in the puzzle grid.
@@ -120,38 +220,122 @@ final class PentominoSolver extends AbstractDLXSolver {
 
         /*
          * This is the value that will be stored with each node in the new row. Each time a solution
-         * is reported, the node values will be used to tell which moves led to that solution.
+         * is reported, the node values will be used to tell which moves led to that solution. On a
+         * grid of 60 squares, the value is pieceIdentifier * 60 + location.
          */
-        int nodeValue = pieceIdentifier * NUMBER_OF_SQUARES + location;
+        int nodeValue = pieceIdentifier * gridWidth * gridHeight + location;
 
         Pentomino piece = Pentomino.ALL_PENTOMINOES[pieceIndex][orientation];
 
-        // Create the header for the new row.
-        Node rowHeader = new Node();
-        rowHeader.applicationData = nodeValue;
-        addRowHeader(rowHeader);
-
-        // Connect the row header to its column.
-        rowHeader.columnHeader = getColumnHeader(pieceIndex);
-        rowHeader.columnHeader.append(rowHeader);
+        // Create the new row. Its header is in the column of the piece.
+        int rowIndex = engine.addRow(nodeValue, pieceIndex);
 
         // Create and connect the rest of the nodes for this row.
         for (int i = 0; i < Pentomino.PENTOMINO_SIZE; i++) {
-            Node node = new Node();
-            node.applicationData = nodeValue;
-
-            // Connect the node to its row.
-            node.left = rowHeader.left;
-            node.right = rowHeader;
-            rowHeader.left.right = node;
-            rowHeader.left = node;
-
-            // Connect the node to its column header.
             int columnIndex =
                     Pentomino.ALL_PENTOMINOES.length
                     + (row + piece.getYOffset(i)) * gridWidth
                     + column + piece.getXOffset(i);
-            getColumnHeader(columnIndex).append(node);
+            engine.addNodeToRow(rowIndex, columnIndex);
+        }
+    }
+
+    /**
+     * Adds a listener to be notified whenever a solution is found.
+     *
+     * @param listener  The listener to be added.
+     */
+    void addSolutionListener(final SolutionListener listener) {
+        engine.addSolutionListener(listener);
+    }
+
+    /** Finds every solution, reporting each one to the registered listeners. */
+    void solve() {
+        engine.solve();
+    }
+
+    /**
+     * Gets an iterator that finds the solutions one at a time, as they are asked for. Each
+     * solution is an <code>int[]</code> of row indexes; <code>getMove</code> describes each row.
+     * The engine must be one that can pause its search, such as <code>LinkedDLXSolver</code>.
+     *
+     * @return  An iterator over the solutions.
+     */
+    SolutionIterator solutions() {
+        return engine.solutions();
+    }
+
+    /**
+     * Gets the move represented by a row of the matrix.
+     *
+     * @param rowIndex  The index of a row in a solution.
+     * @return          The move: the piece and orientation, times the number of squares, plus the
+     *                  square of the piece's origin.
+     */
+    int getMove(final int rowIndex) {
+        return engine.getApplicationData(rowIndex);
+    }
+
+    /**
+     * Builds the grid of a solution.
+     *
+     * @param rows  The indexes of the rows that make up the solution.
+     * @return      The index of the piece in each square of the grid, by row and column, or -1 for
+     *              a square left empty.
+     */
+    int[][] toGrid(final int[] rows) {
+        int numberOfSquares = gridWidth * gridHeight;
+        int[][] grid = new int[gridHeight][gridWidth];
+        for (int row = 0; row < gridHeight; row++) {
+            Arrays.fill(grid[row], -1);
+        }
+        for (int i = 0; i < rows.length; i++) {
+
+            // Split each move into its piece, orientation, row, and column.
+            int move = getMove(rows[i]);
+            int pieceIdentifier = move / numberOfSquares;
+            int pieceIndex = pieceIdentifier / Pentomino.ALL_PENTOMINOES.length;
+            int orientation = pieceIdentifier % Pentomino.ALL_PENTOMINOES.length;
+            int row = move % numberOfSquares / gridWidth;
+            int column = move % numberOfSquares % gridWidth;
+
+            Pentomino piece = Pentomino.ALL_PENTOMINOES[pieceIndex][orientation];
+            for (int j = 0; j < Pentomino.PENTOMINO_SIZE; j++) {
+                grid[row + piece.getYOffset(j)][column + piece.getXOffset(j)] = pieceIndex;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Gets every tiling that a tiling found by this solver stands for. If the search was reduced
+     * by symmetry, these are the tiling and each of its rotations and reflections, all different
+     * from each other; otherwise, this is just the tiling itself.
+     *
+     * @param grid  The grid of a tiling, from <code>toGrid</code>.
+     * @return      The grids of the tilings, starting with the one given.
+     */
+    int[][][] expand(final int[][] grid) {
+        if (!symmetryReduced) {
+            return new int[][][] {grid};
+        }
+        int[][][] grids = new int[getNumberOfSymmetries()][][];
+        for (int symmetry = 0; symmetry < grids.length; symmetry++) {
+            grids[symmetry] = new int[gridHeight][gridWidth];
+            for (int row = 0; row < gridHeight; row++) {
+                for (int column = 0; column < gridWidth; column++) {
+                    int r = (symmetry & Pentomino.TRANSPOSE) == 0 ? row : column;
+                    int c = (symmetry & Pentomino.TRANSPOSE) == 0 ? column : row;
+                    if ((symmetry & Pentomino.MIRROR_ROWS) != 0) {
+                        r = gridHeight - 1 - r;
+                    }
+                    if ((symmetry & Pentomino.MIRROR_COLUMNS) != 0) {
+                        c = gridWidth - 1 - c;
+                    }
+                    grids[symmetry][r][c] = grid[row][column];
+                }
+            }
         }
+        return grids;
     }
 }
@@ -0,0 +1,299 @@
+/*
+  BatchGenerator.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Callable;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+/**
+ * A <code>BatchGenerator</code> generates many sudokus at once, one per job, on a fixed number of
+ * threads. All of the sudokus have the layout described by the current <code>Options</code>,
+ * which must not change while a batch is being generated.
+ * <p>
+ * Each job generates its sudoku from its own seed, which is derived from the seed of the batch
+ * and the index of the job alone. A batch therefore always generates the same sudokus in the same
+ * order, however many threads are used, and job <code>i</code> of a batch generates the same
+ * sudoku as <code>new StandardSudoku(getSeed(seed, i))</code>.
+ * <p>
+ * The sudokus are written as they are generated, in the order of their jobs, so a batch of any
+ * size needs only a little memory. The output starts with the options line (if the options are
+ * not the defaults). Each sudoku then takes one line, in the format of
+ * <code>toOriginalString</code>. The line of a jigsaw sudoku is preceded by a line giving the
+ * block of each cell.
+ * <p>
+ * If a <code>PuzzleDeduplicator</code> is set, a sudoku that it has seen before (or that differs
+ * from one it has seen only by a symmetry) is skipped, and more jobs are run in its place, so that
+ * the batch still holds the number of sudokus asked for. The keys are found by the jobs and
+ * checked in the order of the jobs, so the batch is still the same however many threads are used.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class BatchGenerator {
+
+    /** The increment between the seeds of consecutive jobs: the golden ratio times 2^64. */
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The most jobs run for each sudoku asked for when duplicates are skipped, so that a batch
+     * larger than the number of different sudokus of a size ends.
+     */
+    private static final int MAX_JOBS_PER_SUDOKU = 100;
+
+    /** The number of threads that generate sudokus. */
+    private final int numberOfThreads;
+
+    /** The deduplicator that recognizes the sudokus to skip, or <code>null</code> if none. */
+    private PuzzleDeduplicator deduplicator;
+
+    /** Constructs a <code>BatchGenerator</code> that uses one thread for each processor. */
+    public BatchGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a <code>BatchGenerator</code>.
+     *
+     * @param numberOfThreads  The number of threads that generate sudokus.
+     * @throws IllegalArgumentException  If the number of threads is less than 1.
+     */
+    public BatchGenerator(final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Sets the deduplicator that recognizes the sudokus to skip. The keys of the sudokus
+     * generated are added to it.
+     *
+     * @param deduplicator  The deduplicator, or <code>null</code> to skip no sudokus.
+     */
+    public void setDeduplicator(final PuzzleDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Gets the seed of one job of a batch. Seeds are spread over all 64 bits, in the manner of a
+     * splittable random number generator, so nearby jobs and nearby batches do not generate
+     * related sudokus.
+     *
+     * @param batchSeed  The seed of the batch.
+     * @param job        The index of the job within the batch.
+     * @return           The seed from which the job generates its sudoku.
+     */
+    public static long getSeed(final long batchSeed, final int job) {
+        long z = batchSeed + (job + 1L) * SEED_INCREMENT;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Generates a batch of sudokus and writes them. The writer is flushed but not closed. The
+     * create action of the options is <code>GENERATE</code> while the batch is generated, and is
+     * restored afterwards.
+     *
+     * @param count  The number of sudokus to generate.
+     * @param seed   The seed of the batch.
+     * @param out    The destination of the sudokus.
+     * @return       The number of sudokus written. This is less than the number asked for only if
+     *               duplicates are skipped and too few different sudokus were found.
+     * @throws IOException  If the sudokus cannot be written, or if this thread is interrupted.
+     */
+    public int generate(final int count, final long seed, final Writer out) throws IOException {
+        Options options = Options.getInstance();
+        String optionsString = options.toString();
+        if (optionsString.length() > 0) {
+            out.write(optionsString);
+            out.write('\n');
+        }
+        Canonicalizer canonicalizer = Canonicalizer.getInstance(options);
+        int maxJobs = deduplicator == null
+                ? count
+                : (int) Math.min((long) count * MAX_JOBS_PER_SUDOKU, Integer.MAX_VALUE);
+
+        Options.CreateAction createAction = options.getCreateAction();
+        options.setCreateAction(Options.CreateAction.GENERATE);
+        OrderedPipeline pipeline = new OrderedPipeline(numberOfThreads, "Generation");
+        int numberWritten = 0;
+        try {
+            int nextJob = 0;
+            while (numberWritten < count && (nextJob < maxJobs || pipeline.hasPending())) {
+                while (nextJob < maxJobs && !pipeline.isFull()
+                        && pipeline.getNumberPending() < count - numberWritten) {
+                    pipeline.submit(new Job(getSeed(seed, nextJob),
+                            deduplicator == null ? null : optionsString, canonicalizer));
+                    nextJob++;
+                }
+                Job job = (Job) pipeline.take();
+                if (job.key == null || deduplicator.add(job.key)) {
+                    out.write(job.lines);
+                    numberWritten++;
+                }
+            }
+            out.flush();
+        } finally {
+            pipeline.close();
+            options.setCreateAction(createAction);
+        }
+        return numberWritten;
+    }
+
+    /**
+     * Formats a sudoku for output: its blocks on one line if it is a jigsaw sudoku, then its
+     * givens on the next.
+     *
+     * @param sudoku  The sudoku.
+     * @return        The lines describing the sudoku, each ending with a newline.
+     */
+    static String toLines(final StandardSudoku sudoku) {
+        StringBuffer lines = new StringBuffer();
+        if (Options.getInstance().getBlockType() == Options.BlockType.JIGSAW) {
+            int size = sudoku.getGridSize();
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    lines.append(PuzzleDelegate.CHARACTERS.charAt(
+                            sudoku.getCellAt(row, column).getBlockIndex()));
+                }
+            }
+            lines.append('\n');
+        }
+        lines.append(sudoku.toOriginalString());
+        lines.append('\n');
+        return lines.toString();
+    }
+
+    /**
+     * Generates a batch of sudokus from the command line. The arguments are the number of
+     * sudokus, the name of the output file, and optionally the seed of the batch, the number of
+     * threads, and options in the format of an options line (for example,
+     * <code>size=16 rectangular:4:4</code>). They may be preceded by <code>-unique</code>, to skip
+     * sudokus that are duplicates of others in the batch.
+     *
+     * @param args  Command-line parameters.
+     * @throws IOException  If the output file cannot be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        boolean unique = args.length > 0 && args[0].equals("-unique");
+        int first = unique ? 1 : 0;
+        if (args.length < first + 2) {
+            System.err.println(
+                    "Usage: BatchGenerator [-unique] count file [seed [threads [option...]]]");
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[first]);
+        long seed = args.length > first + 2
+                ? Long.parseLong(args[first + 2])
+                : System.currentTimeMillis();
+        int numberOfThreads = args.length > first + 3
+                ? Integer.parseInt(args[first + 3])
+                : Runtime.getRuntime().availableProcessors();
+        StringBuffer optionsLine = new StringBuffer();
+        for (int i = first + 4; i < args.length; i++) {
+            optionsLine.append(args[i]).append(' ');
+        }
+        Options.getInstance().load(optionsLine.toString());
+
+        BatchGenerator batchGenerator = new BatchGenerator(numberOfThreads);
+        if (unique) {
+            batchGenerator.setDeduplicator(new PuzzleDeduplicator(numberOfThreads));
+        }
+        long start = System.currentTimeMillis();
+        int numberWritten;
+        Writer out = new BufferedWriter(new FileWriter(args[first + 1]));
+        try {
+            numberWritten = batchGenerator.generate(count, seed, out);
+        } finally {
+            out.close();
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        System.out.println("Generated " + numberWritten + " sudokus from seed " + seed + " on "
+                + numberOfThreads + " threads in " + elapsed + " ms ("
+                + numberWritten * 1000L / elapsed + " per second)");
+    }
+
+    /**
+     * A <code>Job</code> generates one sudoku, formats it for output, and finds its key if
+     * duplicates are skipped.
+     */
+    private static final class Job implements Callable {
+
+        /** The seed from which the sudoku is generated. */
+        private final long seed;
+
+        /** The options line of the batch, or <code>null</code> if no key is needed. */
+        private final String optionsLine;
+
+        /** The <code>Canonicalizer</code> for the layout, or <code>null</code> if there is none. */
+        private final Canonicalizer canonicalizer;
+
+        /** The lines describing the sudoku. */
+        private String lines;
+
+        /** The key of the sudoku, or <code>null</code> if no key is needed. */
+        private String key;
+
+        /**
+         * Constructs a <code>Job</code>.
+         *
+         * @param seed           The seed from which the sudoku is generated.
+         * @param optionsLine    The options line of the batch, or <code>null</code> if no key is
+         *                       needed.
+         * @param canonicalizer  The <code>Canonicalizer</code> for the layout, or
+         *                       <code>null</code> if there is none.
+         */
+        Job(final long seed, final String optionsLine, final Canonicalizer canonicalizer) {
+            this.seed = seed;
+            this.optionsLine = optionsLine;
+            this.canonicalizer = canonicalizer;
+        }
+
+        /**
+         * Generates the sudoku.
+         *
+         * @return  This job.
+         */
+        public Object call() {
+            StandardSudoku sudoku = new StandardSudoku(seed);
+            lines = toLines(sudoku);
+            if (optionsLine != null) {
+                String blocksLine = null;
+                if (Options.getInstance().getBlockType() == Options.BlockType.JIGSAW) {
+                    blocksLine = lines.substring(0, lines.indexOf('\n'));
+                }
+                key = PuzzleDeduplicator.getKey(
+                        optionsLine, canonicalizer, blocksLine, sudoku.getOriginalPuzzle());
+            }
+            return this;
+        }
+    }
+}
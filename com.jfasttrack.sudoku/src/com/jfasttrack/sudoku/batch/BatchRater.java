@@ -0,0 +1,320 @@
+/*
+  BatchRater.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.Callable;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+import com.jfasttrack.sudoku.solver.DifficultyRater;
+import com.jfasttrack.sudoku.solver.Rating;
+import com.jfasttrack.sudoku.solver.Solver;
+
+
+/**
+ * A <code>BatchRater</code> rates the difficulty of many sudokus at once on a fixed number of
+ * threads, without a user interface. Each sudoku is solved as far as possible with the logical
+ * solvers alone, by a <code>DifficultyRater</code>.
+ * <p>
+ * The input is in the format read by <code>BatchSolver</code>: one sudoku per line, options
+ * lines that start with <code>:</code>, and two lines for each jigsaw sudoku. For each sudoku,
+ * one line is written, in the order of the input: its <code>Rating</code>, which gives its tier
+ * (the group of the hardest solver needed, or <code>dlx</code> if the solvers could not finish
+ * it) and the number of steps taken by each solver. A sudoku that cannot be read, or that follows
+ * an options line that cannot be read, is written as <code>INVALID</code>.
+ * <p>
+ * The input is read, and the options are set, on the calling thread alone, so nothing else may
+ * use the options while a batch is being rated. For each options line, that thread takes a copy
+ * of the options, which describes the layout of the sudokus under the line. The other threads
+ * build each sudoku from its lines and that copy, without touching the shared options, and rate
+ * it with a <code>DifficultyRater</code> of their own.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class BatchRater {
+
+    /** The line written for a sudoku that cannot be read. */
+    private static final String INVALID = "INVALID";
+
+    /** The rater used by each thread. */
+    private static final ThreadLocal RATER = new ThreadLocal() {
+        protected Object initialValue() {
+            return new DifficultyRater();
+        }
+    };
+
+    /** The number of threads that rate sudokus. */
+    private final int numberOfThreads;
+
+    /** The number of sudokus read in the most recent batch, whether or not they were valid. */
+    private int numberOfPuzzles;
+
+    /** The number of sudokus in the most recent batch in each tier. */
+    private final int[] numberPerTier = new int[Solver.GROUP_NAME.length + 1];
+
+    /**
+     * Constructs a <code>BatchRater</code>.
+     *
+     * @param numberOfThreads  The number of threads that rate sudokus.
+     * @throws IllegalArgumentException  If the number of threads is less than 1.
+     */
+    public BatchRater(final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Rates a batch of sudokus and writes the ratings. The writer is flushed but not closed.
+     *
+     * @param in   The source of the sudokus.
+     * @param out  The destination of the ratings.
+     * @throws IOException  If the sudokus cannot be read or the ratings cannot be written, or if
+     *                      this thread is interrupted.
+     */
+    public void rate(final Reader in, final Writer out) throws IOException {
+        numberOfPuzzles = 0;
+        for (int tier = 0; tier < numberPerTier.length; tier++) {
+            numberPerTier[tier] = 0;
+        }
+
+        BufferedReader reader = new BufferedReader(in);
+        Options options = Options.getInstance();
+        options.setDefaults();
+        Options layout = createLayout(options);
+
+        OrderedPipeline pipeline = new OrderedPipeline(numberOfThreads, "Rating");
+        try {
+            String line = reader.readLine();
+            while (line != null || pipeline.hasPending()) {
+                while (line != null && !pipeline.isFull()) {
+                    line = line.trim();
+                    if (line.startsWith(":")) {
+                        layout = OptionsLineParser.load(line) ? createLayout(options) : null;
+                    } else if (line.length() > 0) {
+                        String blocksLine = null;
+                        if (options.getBlockType() == Options.BlockType.JIGSAW) {
+                            blocksLine = line;
+                            line = reader.readLine();
+                        }
+                        pipeline.submit(new Job(layout, blocksLine, line));
+                        numberOfPuzzles++;
+                    }
+                    line = reader.readLine();
+                }
+                if (pipeline.hasPending()) {
+                    write((Rating) pipeline.take(), out);
+                }
+            }
+            out.flush();
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Takes a copy of the options, from which the sudokus under the current options line are
+     * loaded.
+     *
+     * @param options  The options, as the options line sets them.
+     * @return         A copy of the options.
+     */
+    private static Options createLayout(final Options options) {
+        Options layout = options.copy();
+        layout.setCreateAction(Options.CreateAction.LOAD);
+        return layout;
+    }
+
+    /**
+     * Builds a sudoku from its lines.
+     *
+     * @param layout      The options that give the layout of the sudoku, or <code>null</code> if
+     *                    the options line could not be read.
+     * @param blocksLine  The line giving the block of each cell of a jigsaw sudoku, or
+     *                    <code>null</code> for a rectangular sudoku.
+     * @param givensLine  The givens of the sudoku, or <code>null</code> if the input ended.
+     * @return            The sudoku, or <code>null</code> if it cannot be read.
+     */
+    private static StandardSudoku readSudoku(
+            final Options layout, final String blocksLine, final String givensLine) {
+        if (layout == null || GivensParser.parse(givensLine, layout.getGridSize()) == null) {
+            return null;
+        }
+
+        String givens = givensLine.trim();
+        String puzzleString = blocksLine == null ? givens : blocksLine + '\n' + givens;
+        try {
+            return new StandardSudoku(layout, puzzleString);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counts the rating of a sudoku and writes it.
+     *
+     * @param rating  The rating of the sudoku, or <code>null</code> if it could not be read.
+     * @param out     The destination of the ratings.
+     * @throws IOException  If the rating cannot be written.
+     */
+    private void write(final Rating rating, final Writer out) throws IOException {
+        if (rating == null) {
+            out.write(INVALID);
+        } else {
+            numberPerTier[rating.getTier()]++;
+            out.write(rating.toString());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Gets the number of sudokus read in the most recent batch, including any that could not be
+     * read correctly.
+     *
+     * @return  The number of sudokus read.
+     */
+    public int getNumberOfPuzzles() {
+        return numberOfPuzzles;
+    }
+
+    /**
+     * Gets the number of sudokus in the most recent batch in a difficulty tier.
+     *
+     * @param tier  A difficulty tier, as returned by <code>Rating.getTier</code>.
+     * @return      The number of sudokus in the tier.
+     */
+    public int getNumberOfPuzzles(final int tier) {
+        return numberPerTier[tier];
+    }
+
+    /**
+     * Rates a batch of sudokus from the command line. The arguments are any of
+     * <code>-threads</code> followed by the number of threads (one for each processor by
+     * default), <code>-o</code> followed by the name of the output file (standard output by
+     * default), and the name of the input file (standard input by default). A summary is written
+     * to standard error.
+     *
+     * @param args  Command-line parameters.
+     * @throws IOException  If the sudokus cannot be read or the ratings cannot be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        String inputFile = null;
+        String outputFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                numberOfThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if (inputFile == null && !args[i].startsWith("-")) {
+                inputFile = args[i];
+            } else {
+                System.err.println("Usage: BatchRater [-threads n] [-o file] [file]");
+                System.exit(1);
+            }
+        }
+
+        Reader in = inputFile == null
+                ? (Reader) new InputStreamReader(System.in)
+                : new FileReader(inputFile);
+        Writer out = new BufferedWriter(outputFile == null
+                ? (Writer) new OutputStreamWriter(System.out)
+                : new FileWriter(outputFile));
+        BatchRater batchRater = new BatchRater(numberOfThreads);
+        long start = System.currentTimeMillis();
+        try {
+            batchRater.rate(in, out);
+        } finally {
+            in.close();
+            if (outputFile != null) {
+                out.close();
+            }
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+
+        int numberOfPuzzles = batchRater.getNumberOfPuzzles();
+        StringBuffer summary = new StringBuffer("Rated " + numberOfPuzzles + " sudokus (");
+        int numberRated = 0;
+        for (int tier = 0; tier <= Solver.GROUP_NAME.length; tier++) {
+            int count = batchRater.getNumberOfPuzzles(tier);
+            summary.append(count + " " + Rating.getTierName(tier) + ", ");
+            numberRated += count;
+        }
+        summary.append((numberOfPuzzles - numberRated) + " invalid) on " + numberOfThreads
+                + " threads in " + elapsed + " ms ("
+                + numberOfPuzzles * 1000L / elapsed + " per second)");
+        System.err.println(summary);
+    }
+
+    /** A <code>Job</code> builds one sudoku and rates it. */
+    private static final class Job implements Callable {
+
+        /** The options that give the layout of the sudoku, or <code>null</code> if unreadable. */
+        private final Options layout;
+
+        /** The blocks of a jigsaw sudoku, or <code>null</code> for a rectangular sudoku. */
+        private final String blocksLine;
+
+        /** The givens of the sudoku, or <code>null</code> if the input ended. */
+        private final String givensLine;
+
+        /**
+         * Constructs a <code>Job</code>.
+         *
+         * @param layout      The options that give the layout of the sudoku, or
+         *                    <code>null</code> if the options line could not be read. They must
+         *                    not change while the job runs.
+         * @param blocksLine  The blocks of a jigsaw sudoku, or <code>null</code> for a
+         *                    rectangular sudoku.
+         * @param givensLine  The givens of the sudoku, or <code>null</code> if the input ended.
+         */
+        Job(final Options layout, final String blocksLine, final String givensLine) {
+            this.layout = layout;
+            this.blocksLine = blocksLine;
+            this.givensLine = givensLine;
+        }
+
+        /**
+         * Builds the sudoku and rates it.
+         *
+         * @return  The rating of the sudoku, or <code>null</code> if it could not be read.
+         */
+        public Object call() {
+            StandardSudoku sudoku = readSudoku(layout, blocksLine, givensLine);
+            if (sudoku == null) {
+                return null;
+            }
+            return ((DifficultyRater) RATER.get()).rate(sudoku);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+  BatchSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.Callable;
+
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.dlx.SudokuMatrixTemplate;
+import com.jfasttrack.sudoku.dlx.SudokuSolver;
+import com.jfasttrack.sudoku.dlx.SudokuSolverPool;
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+/**
+ * A <code>BatchSolver</code> solves many sudokus at once on a fixed number of threads, without a
+ * user interface.
+ * <p>
+ * The input holds one sudoku per line, as a string of givens in which <code>.</code> or
+ * <code>0</code> marks an empty cell. Blank lines are skipped. A line that starts with
+ * <code>:</code> is an options line, in the format read by <code>Options.load</code>; it sets the
+ * layout of the sudokus that follow it, until the next options line. The sudokus of a jigsaw
+ * layout take two lines each: one giving the block of each cell, then the givens. This is the
+ * format written by <code>BatchGenerator</code>.
+ * <p>
+ * For each sudoku, one line is written, in the order of the input: its solution if it has exactly
+ * one, and otherwise the word <code>NONE</code> or <code>MULTIPLE</code>. A solver can be told to
+ * write only the uniqueness of each sudoku instead. A sudoku that cannot be read, or that follows
+ * an options line that cannot be read, is written as <code>INVALID</code>.
+ * <p>
+ * The input is read, and the options are set, on the calling thread alone, so nothing else may
+ * use the options while a batch is being solved. The other threads only search. The sudokus of a
+ * rectangular layout all share one matrix template, which is looked up once for each options
+ * line, and are solved with <code>SudokuSolver</code>s leased from a shared pool. Every jigsaw
+ * sudoku has a layout of its own, which no other sudoku would reuse, so its matrix is built by the
+ * thread that solves it, without going through the pool or the template cache.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class BatchSolver {
+
+    /** The line written for a sudoku that cannot be read. */
+    private static final String INVALID = "INVALID";
+
+    /** The number of threads that solve sudokus. */
+    private final int numberOfThreads;
+
+    /** Tells whether the solution of each sudoku, rather than only its uniqueness, is written. */
+    private final boolean writingSolutions;
+
+    /** The solvers used by the threads. */
+    private final SudokuSolverPool pool;
+
+    /** The number of sudokus read in the most recent batch, whether or not they were valid. */
+    private int numberOfPuzzles;
+
+    /** The number of sudokus in the most recent batch with no solution. */
+    private int numberWithNoSolution;
+
+    /** The number of sudokus in the most recent batch with exactly one solution. */
+    private int numberWithUniqueSolution;
+
+    /** The number of sudokus in the most recent batch with more than one solution. */
+    private int numberWithMultipleSolutions;
+
+    /**
+     * Constructs a <code>BatchSolver</code>.
+     *
+     * @param numberOfThreads   The number of threads that solve sudokus.
+     * @param writingSolutions  <code>true</code> to write the solution of each sudoku that has
+     *                          exactly one, or <code>false</code> to write only the uniqueness of
+     *                          each sudoku.
+     * @throws IllegalArgumentException  If the number of threads is less than 1.
+     */
+    public BatchSolver(final int numberOfThreads, final boolean writingSolutions) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+        this.writingSolutions = writingSolutions;
+        pool = new SudokuSolverPool(numberOfThreads, 16);
+    }
+
+    /**
+     * Solves a batch of sudokus and writes the results. The writer is flushed but not closed.
+     *
+     * @param in   The source of the sudokus.
+     * @param out  The destination of the results.
+     * @throws IOException  If the sudokus cannot be read or the results cannot be written, or if
+     *                      this thread is interrupted.
+     */
+    public void solve(final Reader in, final Writer out) throws IOException {
+        numberOfPuzzles = 0;
+        numberWithNoSolution = 0;
+        numberWithUniqueSolution = 0;
+        numberWithMultipleSolutions = 0;
+
+        BufferedReader reader = new BufferedReader(in);
+        Options options = Options.getInstance();
+        options.setDefaults();
+        String optionsLine = "";
+        boolean optionsValid = true;
+        AbstractPuzzleModel layout = null;
+        SudokuMatrixTemplate template = null;
+
+        OrderedPipeline pipeline = new OrderedPipeline(numberOfThreads, "Solving");
+        try {
+            String line = reader.readLine();
+            while (line != null || pipeline.hasPending()) {
+                while (line != null && !pipeline.isFull()) {
+                    line = line.trim();
+                    if (line.startsWith(":")) {
+                        optionsLine = line;
+                        optionsValid = OptionsLineParser.load(optionsLine);
+                        layout = null;
+                        template = null;
+                    } else if (line.length() > 0) {
+                        boolean jigsaw = options.getBlockType() == Options.BlockType.JIGSAW;
+                        if (!optionsValid) {
+                            if (jigsaw) {
+                                reader.readLine();
+                            }
+                            pipeline.submit(new Job(null, null, null));
+                        } else if (jigsaw) {
+                            pipeline.submit(readJigsawSudoku(optionsLine, line, reader));
+                        } else {
+                            if (layout == null) {
+                                layout = createLayout(optionsLine);
+                                template = SudokuMatrixTemplate.getInstance(layout);
+                            }
+                            pipeline.submit(readSudoku(layout, template, line));
+                        }
+                        numberOfPuzzles++;
+                    }
+                    line = reader.readLine();
+                }
+                if (pipeline.hasPending()) {
+                    write((Job) pipeline.take(), out);
+                }
+            }
+            out.flush();
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Creates an empty sudoku with the layout given by an options line. All of the rectangular
+     * sudokus that follow the options line are solved with this layout.
+     *
+     * @param optionsLine  The options line, or an empty <code>String</code> for the defaults.
+     * @return             An empty sudoku with the given layout.
+     */
+    private static AbstractPuzzleModel createLayout(final String optionsLine) {
+        int numberOfCells = Options.getInstance().getGridSize();
+        numberOfCells *= numberOfCells;
+        StringBuffer empty = new StringBuffer(optionsLine.length() + numberOfCells + 1);
+        if (optionsLine.length() > 0) {
+            empty.append(optionsLine).append('\n');
+        }
+        for (int i = 0; i < numberOfCells; i++) {
+            empty.append('.');
+        }
+        return new StandardSudoku(empty.toString());
+    }
+
+    /**
+     * Reads the givens of a rectangular sudoku.
+     *
+     * @param layout    An empty sudoku with the layout of this one.
+     * @param template  The matrix template for the layout.
+     * @param line      The givens of the sudoku.
+     * @return          The job that solves the sudoku.
+     */
+    private Job readSudoku(final AbstractPuzzleModel layout,
+            final SudokuMatrixTemplate template, final String line) {
+        int[] givens = GivensParser.parse(line, layout.getGridSize());
+        if (givens == null) {
+            return new Job(null, null, null);
+        }
+        return new Job(layout, template, givens);
+    }
+
+    /**
+     * Reads a jigsaw sudoku, whose blocks are given on one line and its givens on the next.
+     *
+     * @param optionsLine  The options line in effect.
+     * @param blocksLine   The line giving the block of each cell.
+     * @param reader       The source of the givens.
+     * @return             The job that solves the sudoku.
+     * @throws IOException  If the givens cannot be read.
+     */
+    private Job readJigsawSudoku(final String optionsLine, final String blocksLine,
+            final BufferedReader reader) throws IOException {
+        String givensLine = reader.readLine();
+        StandardSudoku sudoku = null;
+        if (givensLine != null) {
+            try {
+                sudoku = new StandardSudoku(
+                        optionsLine + '\n' + blocksLine + '\n' + givensLine.trim());
+            } catch (RuntimeException e) {
+                sudoku = null;
+            }
+            Options.getInstance().load(optionsLine);
+        }
+        if (sudoku == null) {
+            return new Job(null, null, null);
+        }
+        return new Job(sudoku, null, sudoku.getOriginalPuzzle());
+    }
+
+    /**
+     * Counts the result of a sudoku and writes it.
+     *
+     * @param job  The job that solved the sudoku.
+     * @param out  The destination of the results.
+     * @throws IOException  If the result cannot be written.
+     */
+    private void write(final Job job, final Writer out) throws IOException {
+        if (job.uniqueness == Uniqueness.NONE) {
+            numberWithNoSolution++;
+        } else if (job.uniqueness == Uniqueness.UNIQUE) {
+            numberWithUniqueSolution++;
+        } else if (job.uniqueness == Uniqueness.MULTIPLE) {
+            numberWithMultipleSolutions++;
+        }
+
+        if (job.uniqueness == null) {
+            out.write(INVALID);
+        } else if (writingSolutions && job.uniqueness == Uniqueness.UNIQUE) {
+            for (int i = 0; i < job.grid.length; i++) {
+                out.write(PuzzleDelegate.CHARACTERS.charAt(job.grid[i]));
+            }
+        } else {
+            out.write(job.uniqueness.toString());
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Gets the number of sudokus read in the most recent batch, including any that could not be
+     * read correctly.
+     *
+     * @return  The number of sudokus read.
+     */
+    public int getNumberOfPuzzles() {
+        return numberOfPuzzles;
+    }
+
+    /**
+     * Gets the number of sudokus in the most recent batch with a given uniqueness.
+     *
+     * @param uniqueness  The uniqueness of the solution.
+     * @return            The number of sudokus whose solution has that uniqueness.
+     */
+    public int getNumberOfPuzzles(final Uniqueness uniqueness) {
+        if (uniqueness == Uniqueness.NONE) {
+            return numberWithNoSolution;
+        } else if (uniqueness == Uniqueness.UNIQUE) {
+            return numberWithUniqueSolution;
+        }
+        return numberWithMultipleSolutions;
+    }
+
+    /**
+     * Solves a batch of sudokus from the command line. The arguments are any of
+     * <code>-threads</code> followed by the number of threads (one for each processor by
+     * default), <code>-uniqueness</code> to write only the uniqueness of each sudoku,
+     * <code>-o</code> followed by the name of the output file (standard output by default), and
+     * the name of the input file (standard input by default). A summary is written to standard
+     * error.
+     *
+     * @param args  Command-line parameters.
+     * @throws IOException  If the sudokus cannot be read or the results cannot be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        boolean writingSolutions = true;
+        String inputFile = null;
+        String outputFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                numberOfThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-uniqueness")) {
+                writingSolutions = false;
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if (inputFile == null && !args[i].startsWith("-")) {
+                inputFile = args[i];
+            } else {
+                System.err.println(
+                        "Usage: BatchSolver [-threads n] [-uniqueness] [-o file] [file]");
+                System.exit(1);
+            }
+        }
+
+        Reader in = inputFile == null
+                ? (Reader) new InputStreamReader(System.in)
+                : new FileReader(inputFile);
+        Writer out = new BufferedWriter(outputFile == null
+                ? (Writer) new OutputStreamWriter(System.out)
+                : new FileWriter(outputFile));
+        BatchSolver batchSolver = new BatchSolver(numberOfThreads, writingSolutions);
+        long start = System.currentTimeMillis();
+        try {
+            batchSolver.solve(in, out);
+        } finally {
+            in.close();
+            if (outputFile != null) {
+                out.close();
+            }
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+
+        int numberOfPuzzles = batchSolver.getNumberOfPuzzles();
+        int unique = batchSolver.getNumberOfPuzzles(Uniqueness.UNIQUE);
+        int multiple = batchSolver.getNumberOfPuzzles(Uniqueness.MULTIPLE);
+        int none = batchSolver.getNumberOfPuzzles(Uniqueness.NONE);
+        System.err.println("Solved " + numberOfPuzzles + " sudokus (" + unique + " unique, "
+                + multiple + " multiple, " + none + " with no solution, "
+                + (numberOfPuzzles - unique - multiple - none) + " invalid) on "
+                + numberOfThreads + " threads in " + elapsed + " ms ("
+                + numberOfPuzzles * 1000L / elapsed + " per second)");
+    }
+
+    /** A <code>Job</code> solves one sudoku, then holds the result. */
+    private final class Job implements Callable {
+
+        /** An empty sudoku with the layout of this one, or <code>null</code> if it is invalid. */
+        private final AbstractPuzzleModel layout;
+
+        /** The matrix template for the layout, or <code>null</code> for a jigsaw layout. */
+        private final SudokuMatrixTemplate template;
+
+        /** The givens, and then the first solution found. */
+        private final int[] grid;
+
+        /** The uniqueness of the solution, or <code>null</code> if the sudoku is invalid. */
+        private Uniqueness uniqueness;
+
+        /**
+         * Constructs a <code>Job</code>.
+         *
+         * @param layout    An empty sudoku with the layout of this one, or <code>null</code> if
+         *                  the sudoku could not be read.
+         * @param template  The matrix template for the layout, or <code>null</code> to build the
+         *                  matrix of a jigsaw layout for this sudoku alone.
+         * @param grid      The givens.
+         */
+        Job(final AbstractPuzzleModel layout, final SudokuMatrixTemplate template,
+                final int[] grid) {
+            this.layout = layout;
+            this.template = template;
+            this.grid = grid;
+        }
+
+        /**
+         * Solves the sudoku.
+         *
+         * @return  This job, holding the result.
+         */
+        public Object call() {
+            if (layout == null) {
+                return this;
+            }
+            final int size = layout.getGridSize();
+            SudokuSolver solver = template == null
+                    ? new SudokuSolver(layout, new ArrayDLXSolver())
+                    : pool.lease(layout, template);
+            try {
+                solver.placeGivens(grid);
+                solver.addRowSolutionListener(new RowSolutionListener() {
+                    /** Tells whether a solution has been recorded. */
+                    private boolean found;
+
+                    public boolean solutionFound(final int[] rows, final int depth) {
+                        if (!found) {
+                            for (int i = 0; i < depth; i++) {
+                                grid[rows[i] / size] = rows[i] % size + 1;
+                            }
+                            found = true;
+                        }
+                        return false;
+                    }
+                });
+                uniqueness = solver.checkUniqueness();
+            } finally {
+                if (template != null) {
+                    pool.release(solver);
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+  Canonicalizer.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.util.Arrays;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+/**
+ * A <code>Canonicalizer</code> finds the canonical form of a sudoku with square blocks, so that
+ * sudokus that differ only by a symmetry can be recognized as the same. The symmetries are the
+ * changes that turn a sudoku into another with as many solutions, solved in the same way:
+ * <ul>
+ * <li>
+ * reordering the bands (rows of blocks), and the rows within each band;
+ * </li>
+ * <li>
+ * reordering the stacks (columns of blocks), and the columns within each stack;
+ * </li>
+ * <li>
+ * transposing the grid;
+ * </li>
+ * <li>
+ * relabeling the values.
+ * </li>
+ * </ul>
+ * The canonical form is the smallest of the grids that these changes make, compared cell by cell,
+ * row by row, once the values of each grid are relabeled in the order in which they first appear.
+ * Empty cells are the smallest of all. Two sudokus have the same canonical form if and only if
+ * one can be turned into the other.
+ * <p>
+ * Every arrangement of the columns is tried, in both orientations. For each, the rows are placed
+ * one at a time, and a partial grid is abandoned as soon as a row is larger than the same row of
+ * the smallest grid found so far. With blocks of size <code>n</code>, there are
+ * <code>2 * (n!)^(n + 1)</code> arrangements of the columns: 2592 for a 9x9 sudoku, but nearly
+ * 16 million for a 16x16 sudoku. Blocks larger than <code>MAX_BLOCK_SIZE</code> are therefore not
+ * handled.
+ * <p>
+ * A <code>Canonicalizer</code> keeps no state between calls, so it may be shared by any number of
+ * threads.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class Canonicalizer {
+
+    /** The largest block size handled. */
+    public static final int MAX_BLOCK_SIZE = 3;
+
+    /** A shared <code>Canonicalizer</code> for each block size, indexed by the size. */
+    private static final Canonicalizer[] INSTANCES = new Canonicalizer[MAX_BLOCK_SIZE + 1];
+
+    static {
+        for (int blockSize = 1; blockSize <= MAX_BLOCK_SIZE; blockSize++) {
+            INSTANCES[blockSize] = new Canonicalizer(blockSize);
+        }
+    }
+
+    /** The number of rows in each band, and of columns in each stack. */
+    private final int blockSize;
+
+    /** The number of rows and of columns in the grid. */
+    private final int gridSize;
+
+    /**
+     * Each arrangement of the lines (rows or columns) of a grid that keeps the lines of each band
+     * together. Line <code>i</code> of an arranged grid is line <code>arrangements[k][i]</code> of
+     * the original.
+     */
+    private final int[][] arrangements;
+
+    /**
+     * Constructs a <code>Canonicalizer</code>.
+     *
+     * @param blockSize  The number of rows and of columns in each block.
+     * @throws IllegalArgumentException  If the block size is not from 1 to
+     *                                   <code>MAX_BLOCK_SIZE</code>.
+     */
+    public Canonicalizer(final int blockSize) {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        gridSize = blockSize * blockSize;
+
+        // An arrangement is an order of the bands, and an order of the lines within each band.
+        int[][] orders = getPermutations(blockSize);
+        int numberOfArrangements = orders.length;
+        for (int band = 0; band < blockSize; band++) {
+            numberOfArrangements *= orders.length;
+        }
+        arrangements = new int[numberOfArrangements][gridSize];
+        for (int k = 0; k < numberOfArrangements; k++) {
+            int rest = k / orders.length;
+            int[] bandOrder = orders[k % orders.length];
+            for (int band = 0; band < blockSize; band++) {
+                int[] lineOrder = orders[rest % orders.length];
+                rest /= orders.length;
+                for (int line = 0; line < blockSize; line++) {
+                    arrangements[k][band * blockSize + line] =
+                            bandOrder[band] * blockSize + lineOrder[line];
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a shared <code>Canonicalizer</code> for the sudokus described by some options.
+     *
+     * @param options  The options.
+     * @return         The <code>Canonicalizer</code>, or <code>null</code> if the sudokus do not
+     *                 have square rectangular blocks no larger than <code>MAX_BLOCK_SIZE</code>,
+     *                 or if they have diagonals (which not every symmetry preserves).
+     */
+    public static Canonicalizer getInstance(final Options options) {
+        int blockSize = options.getBlockHeight();
+        if (options.getBlockType() != Options.BlockType.RECTANGULAR
+                || options.isUsingDiagonals()
+                || options.getBlockWidth() != blockSize
+                || blockSize * blockSize != options.getGridSize()
+                || blockSize > MAX_BLOCK_SIZE) {
+            return null;
+        }
+        return INSTANCES[blockSize];
+    }
+
+    /**
+     * Gets every order of the numbers from 0 to <code>n - 1</code>.
+     *
+     * @param n  The number of numbers.
+     * @return   The <code>n!</code> orders.
+     */
+    private static int[][] getPermutations(final int n) {
+        int count = 1;
+        for (int i = 2; i <= n; i++) {
+            count *= i;
+        }
+        int[][] permutations = new int[count][];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        addPermutations(order, 0, permutations, 0);
+        return permutations;
+    }
+
+    /**
+     * Adds every order that keeps the start of an order and rearranges the rest.
+     *
+     * @param order         The order. It is rearranged, but restored before returning.
+     * @param fixed         The number of numbers at the start of the order that are kept.
+     * @param permutations  The orders found.
+     * @param index         The index in <code>permutations</code> of the next order.
+     * @return              The index of the order after the last one added.
+     */
+    private static int addPermutations(
+            final int[] order, final int fixed, final int[][] permutations, final int index) {
+        if (fixed == order.length) {
+            permutations[index] = (int[]) order.clone();
+            return index + 1;
+        }
+        int next = index;
+        for (int i = fixed; i < order.length; i++) {
+            swap(order, fixed, i);
+            next = addPermutations(order, fixed + 1, permutations, next);
+            swap(order, fixed, i);
+        }
+        return next;
+    }
+
+    /**
+     * Swaps two elements of an array.
+     *
+     * @param array  The array.
+     * @param i      The index of one element.
+     * @param j      The index of the other element.
+     */
+    private static void swap(final int[] array, final int i, final int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+
+    /**
+     * Finds the canonical form of a sudoku.
+     *
+     * @param grid  The value of each cell, row by row, or 0 for an empty cell.
+     * @return      The canonical form, in the same format.
+     */
+    public int[] canonicalize(final int[] grid) {
+        int numberOfCells = gridSize * gridSize;
+        if (grid.length < numberOfCells) {
+            throw new IllegalArgumentException("Grid length: " + grid.length);
+        }
+
+        int[] transposed = new int[numberOfCells];
+        for (int row = 0; row < gridSize; row++) {
+            for (int column = 0; column < gridSize; column++) {
+                transposed[column * gridSize + row] = grid[row * gridSize + column];
+            }
+        }
+
+        Search search = new Search();
+        for (int k = 0; k < arrangements.length; k++) {
+            search.run(grid, arrangements[k]);
+            search.run(transposed, arrangements[k]);
+        }
+        return search.best;
+    }
+
+    /**
+     * Gets a key for a sudoku that is the same for two sudokus if and only if they have the same
+     * canonical form. The key is the canonical form in the format of
+     * <code>toOriginalString</code>.
+     *
+     * @param grid  The value of each cell, row by row, or 0 for an empty cell.
+     * @return      The key.
+     */
+    public String getKey(final int[] grid) {
+        int[] canonical = canonicalize(grid);
+        StringBuffer key = new StringBuffer(canonical.length);
+        for (int i = 0; i < canonical.length; i++) {
+            key.append(PuzzleDelegate.CHARACTERS.charAt(canonical[i]));
+        }
+        return key.toString();
+    }
+
+    /**
+     * A <code>Search</code> places the rows of a grid, for one arrangement of its columns after
+     * another, and keeps the smallest grid found.
+     */
+    private final class Search {
+
+        /** The smallest grid found so far. Rows not yet found hold values larger than any. */
+        private final int[] best = new int[gridSize * gridSize];
+
+        /**
+         * The labels given to the values by the rows placed so far. When <code>depth</code> rows
+         * have been placed, value <code>v</code> is labeled <code>labels[depth][v]</code>, or 0 if
+         * it has not appeared yet.
+         */
+        private final int[][] labels = new int[gridSize + 1][gridSize + 1];
+
+        /** The number of labels given when each number of rows has been placed. */
+        private final int[] numberOfLabels = new int[gridSize + 1];
+
+        /** The row being compared, once relabeled. */
+        private final int[] line = new int[gridSize];
+
+        /** Tells which rows of the grid have been placed. */
+        private final boolean[] rowUsed = new boolean[gridSize];
+
+        /** Tells which bands of the grid have been placed. */
+        private final boolean[] bandUsed = new boolean[blockSize];
+
+        /** The grid being arranged. */
+        private int[] grid;
+
+        /** The arrangement of its columns. */
+        private int[] columns;
+
+        /** Constructs a <code>Search</code>. */
+        Search() {
+            Arrays.fill(best, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Finds the smallest grid that can be made with one arrangement of the columns.
+         *
+         * @param searchGrid   The grid being arranged.
+         * @param columnOrder  The arrangement of its columns.
+         */
+        void run(final int[] searchGrid, final int[] columnOrder) {
+            grid = searchGrid;
+            columns = columnOrder;
+            placeRow(0, 0);
+        }
+
+        /**
+         * Tries each row that can be placed next. The search goes deeper with each row that is no
+         * larger than the same row of the smallest grid.
+         *
+         * @param depth  The number of rows placed.
+         * @param band   The band of the rows placed in the current band, if it has been started.
+         */
+        private void placeRow(final int depth, final int band) {
+            if (depth == gridSize) {
+                return;
+            }
+            boolean bandStart = depth % blockSize == 0;
+            int first = bandStart ? 0 : band * blockSize;
+            int last = bandStart ? gridSize : first + blockSize;
+            for (int row = first; row < last; row++) {
+                if (rowUsed[row] || bandStart && bandUsed[row / blockSize]) {
+                    continue;
+                }
+                if (compareRow(row, depth) > 0) {
+                    continue;
+                }
+                rowUsed[row] = true;
+                if (bandStart) {
+                    bandUsed[row / blockSize] = true;
+                }
+                placeRow(depth + 1, row / blockSize);
+                if (bandStart) {
+                    bandUsed[row / blockSize] = false;
+                }
+                rowUsed[row] = false;
+            }
+        }
+
+        /**
+         * Relabels a row and compares it with the same row of the smallest grid. If it is
+         * smaller, it replaces that row, and the rows after it are forgotten.
+         *
+         * @param row    The index of the row in the grid.
+         * @param depth  The number of rows placed before it.
+         * @return       A negative number, zero, or a positive number as the row is smaller than,
+         *               the same as, or larger than the row of the smallest grid.
+         */
+        private int compareRow(final int row, final int depth) {
+            int[] previousLabels = labels[depth];
+            int[] rowLabels = labels[depth + 1];
+            System.arraycopy(previousLabels, 0, rowLabels, 0, rowLabels.length);
+            int count = numberOfLabels[depth];
+            int offset = depth * gridSize;
+            int comparison = 0;
+            for (int column = 0; column < gridSize; column++) {
+                int value = grid[row * gridSize + columns[column]];
+                if (value != 0) {
+                    if (rowLabels[value] == 0) {
+                        rowLabels[value] = ++count;
+                    }
+                    value = rowLabels[value];
+                }
+                if (comparison == 0) {
+                    if (value > best[offset + column]) {
+                        return 1;
+                    }
+                    if (value < best[offset + column]) {
+                        comparison = -1;
+                    }
+                }
+                line[column] = value;
+            }
+            numberOfLabels[depth + 1] = count;
+
+            if (comparison < 0) {
+                System.arraycopy(line, 0, best, offset, gridSize);
+                Arrays.fill(best, offset + gridSize, best.length, Integer.MAX_VALUE);
+            }
+            return comparison;
+        }
+    }
+}
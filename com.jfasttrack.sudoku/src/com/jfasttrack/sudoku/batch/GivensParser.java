@@ -0,0 +1,69 @@
+/*
+  GivensParser.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+/**
+ * A <code>GivensParser</code> reads the givens of a sudoku from a line of a batch: one character
+ * of <code>PuzzleDelegate.CHARACTERS</code> for each cell, row by row, with <code>.</code> or
+ * <code>0</code> for an empty cell.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+final class GivensParser {
+
+    /** Private constructor, to keep anyone from instantiating this class. */
+    private GivensParser() {
+    }
+
+    /**
+     * Reads the givens of a sudoku. Leading and trailing white space is ignored.
+     *
+     * @param line  The givens of the sudoku, or <code>null</code> if the input ended.
+     * @param size  The size of the grid.
+     * @return      The value of each cell, row by row, or 0 for an empty cell; or
+     *              <code>null</code> if the line does not have one value from 0 to
+     *              <code>size</code> for each cell.
+     */
+    static int[] parse(final String line, final int size) {
+        if (line == null) {
+            return null;
+        }
+        String trimmed = line.trim();
+        if (trimmed.length() != size * size) {
+            return null;
+        }
+        int[] givens = new int[trimmed.length()];
+        for (int i = 0; i < givens.length; i++) {
+            char c = trimmed.charAt(i);
+            int value = c == '0' ? 0 : PuzzleDelegate.CHARACTERS.indexOf(c);
+            if (value < 0 || value > size) {
+                return null;
+            }
+            givens[i] = value;
+        }
+        return givens;
+    }
+}
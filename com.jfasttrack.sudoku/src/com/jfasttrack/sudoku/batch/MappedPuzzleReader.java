@@ -0,0 +1,371 @@
+/*
+  MappedPuzzleReader.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.StringTokenizer;
+
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+/**
+ * A <code>MappedPuzzleReader</code> reads the givens of sudokus from a file of one sudoku per
+ * line, straight into an array that can be passed to <code>SudokuSolver.placeGivens</code>. The
+ * file is memory-mapped, and the characters are decoded from the mapped bytes, so reading a
+ * sudoku allocates nothing: no <code>String</code>, no line buffer, and no puzzle model.
+ * <p>
+ * Every sudoku read has the same size, given to the constructor. In a line, <code>.</code> or
+ * <code>0</code> marks an empty cell, and spaces, tabs, and carriage returns are ignored. Blank
+ * lines are skipped. A line that does not hold exactly one sudoku of the given size is skipped and
+ * counted as invalid.
+ * <p>
+ * An options line (which starts with <code>:</code>) is not returned as a sudoku, but it is kept,
+ * and <code>getOptionsLine</code> gives the one that the most recent sudoku was read under. Only
+ * sudokus with rectangular blocks and the given size are read. Under an options line that
+ * describes any other layout, or that cannot be read, every line is skipped and counted as
+ * invalid. In particular, a jigsaw sudoku, whose blocks line would otherwise pass for a sudoku, is
+ * never returned.
+ * <p>
+ * A reader can be limited to a range of the file, so that several threads can each read part of
+ * it. A range reads every line that starts within it, even if the line ends beyond it, so the
+ * ranges made by <code>split</code> read every line of the file exactly once, wherever their
+ * boundaries fall. The file is mapped one window at a time, so neither the file nor a range is
+ * limited to the 2 GB that a single mapping can hold. A range that starts after the beginning of
+ * the file cannot see the options line above it, so until it reads an options line of its own, it
+ * takes the sudokus to have the layout given to the constructor. A file that holds sudokus of
+ * any other layout should therefore be read by a single reader.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class MappedPuzzleReader {
+
+    /** The largest part of the file mapped at once. */
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /** The value of each character in a sudoku line, indexed by its byte. */
+    private static final byte[] VALUES = new byte[256];
+
+    /** The value of a character that is not allowed in a sudoku line. */
+    private static final byte NOT_ALLOWED = -1;
+
+    /** The value of a character that is ignored in a sudoku line. */
+    private static final byte IGNORED = -2;
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = NOT_ALLOWED;
+        }
+        for (int value = 1; value < PuzzleDelegate.CHARACTERS.length(); value++) {
+            VALUES[PuzzleDelegate.CHARACTERS.charAt(value)] = (byte) value;
+        }
+        VALUES['.'] = 0;
+        VALUES['0'] = 0;
+        VALUES[' '] = IGNORED;
+        VALUES['\t'] = IGNORED;
+        VALUES['\r'] = IGNORED;
+    }
+
+    /** The file. */
+    private final FileChannel channel;
+
+    /** The size of the file. */
+    private final long fileSize;
+
+    /** The position just past the end of the range. */
+    private final long end;
+
+    /** The size of each sudoku. */
+    private final int gridSize;
+
+    /** The largest part of the file mapped at once. */
+    private final int windowSize;
+
+    /** The part of the file that is mapped. */
+    private MappedByteBuffer window;
+
+    /** The position in the file of the first byte of the window. */
+    private long windowStart;
+
+    /** The position in the file of the next byte to be read. */
+    private long position;
+
+    /** The position in the file of the line of the most recent sudoku read. */
+    private long lineStart = -1;
+
+    /** The options line read most recently, or <code>null</code> if none has been read. */
+    private String optionsLine;
+
+    /** Tells whether the sudokus under the most recent options line can be read. */
+    private boolean readable = true;
+
+    /** The number of invalid lines skipped. */
+    private int numberOfInvalidLines;
+
+    /**
+     * Constructs a <code>MappedPuzzleReader</code> that reads a whole file.
+     *
+     * @param channel   The file. The caller remains responsible for closing it.
+     * @param gridSize  The size of each sudoku.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    public MappedPuzzleReader(final FileChannel channel, final int gridSize) throws IOException {
+        this(channel, gridSize, 0, channel.size());
+    }
+
+    /**
+     * Constructs a <code>MappedPuzzleReader</code> that reads the lines that start within a range
+     * of a file.
+     *
+     * @param channel   The file. The caller remains responsible for closing it.
+     * @param gridSize  The size of each sudoku.
+     * @param start     The position of the start of the range.
+     * @param end       The position just past the end of the range.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    public MappedPuzzleReader(
+            final FileChannel channel, final int gridSize, final long start, final long end)
+            throws IOException {
+        this(channel, gridSize, start, end, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a <code>MappedPuzzleReader</code> that maps a given amount of the file at once.
+     *
+     * @param channel     The file. The caller remains responsible for closing it.
+     * @param gridSize    The size of each sudoku.
+     * @param start       The position of the start of the range.
+     * @param end         The position just past the end of the range.
+     * @param windowSize  The largest part of the file mapped at once.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    MappedPuzzleReader(
+            final FileChannel channel, final int gridSize, final long start, final long end,
+            final int windowSize) throws IOException {
+        if (gridSize < 1 || gridSize >= PuzzleDelegate.CHARACTERS.length()) {
+            throw new IllegalArgumentException("Grid size: " + gridSize);
+        }
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.end = Math.min(end, fileSize);
+        this.gridSize = gridSize;
+        this.windowSize = windowSize;
+        if (start < 0 || start > this.end) {
+            throw new IllegalArgumentException("Range: " + start + " to " + end);
+        }
+
+        // Unless the range starts a line, its first line belongs to the range before it.
+        position = start;
+        if (start > 0 && byteAt(start - 1) != '\n') {
+            while (position < this.end && byteAt(position++) != '\n') {
+                // Skip the rest of the line.
+            }
+        }
+    }
+
+    /**
+     * Divides a file into ranges of (nearly) equal size, one for each reader.
+     *
+     * @param size            The size of the file.
+     * @param numberOfRanges  The number of ranges.
+     * @return                The boundaries of the ranges: range <code>i</code> starts at
+     *                        element <code>i</code> and ends just before element
+     *                        <code>i + 1</code>.
+     */
+    public static long[] split(final long size, final int numberOfRanges) {
+        if (numberOfRanges < 1) {
+            throw new IllegalArgumentException("Number of ranges: " + numberOfRanges);
+        }
+        long[] boundaries = new long[numberOfRanges + 1];
+        for (int i = 0; i <= numberOfRanges; i++) {
+            boundaries[i] = size / numberOfRanges * i + size % numberOfRanges * i / numberOfRanges;
+        }
+        return boundaries;
+    }
+
+    /**
+     * Reads the next sudoku. Each cell of the grid is set to its given value, or to 0 if it is
+     * empty.
+     *
+     * @param grid  The array that receives the givens, one element per cell, row by row. It is
+     *              overwritten even if no sudoku is left.
+     * @return      <code>true</code> if a sudoku was read, or <code>false</code> if the range
+     *              holds no more sudokus.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    public boolean next(final int[] grid) throws IOException {
+        int numberOfCells = gridSize * gridSize;
+        if (grid.length < numberOfCells) {
+            throw new IllegalArgumentException("Grid length: " + grid.length);
+        }
+
+        while (position < end) {
+            long start = position;
+            int cellIndex = 0;
+            boolean valid = true;
+            StringBuffer options = null;
+
+            // Decode the line from the window, mapping the next window whenever it runs out.
+            MappedByteBuffer buffer = map(position);
+            int offset = (int) (position - windowStart);
+            int limit = buffer.limit();
+            while (true) {
+                if (offset == limit) {
+                    if (windowStart + offset == fileSize) {
+                        break;
+                    }
+                    buffer = map(windowStart + offset);
+                    offset = 0;
+                    limit = buffer.limit();
+                }
+                byte b = buffer.get(offset++);
+                if (b == '\n') {
+                    break;
+                }
+                if (options != null) {
+                    options.append((char) (b & 0xFF));
+                    continue;
+                }
+                int value = VALUES[b & 0xFF];
+                if (value == IGNORED) {
+                    continue;
+                }
+                if (b == ':' && cellIndex == 0 && valid) {
+                    options = new StringBuffer(":");
+                } else if (value == NOT_ALLOWED || value > gridSize
+                        || cellIndex == numberOfCells) {
+                    valid = false;
+                } else {
+                    grid[cellIndex++] = value;
+                }
+            }
+            position = windowStart + offset;
+
+            if (options != null) {
+                optionsLine = options.toString().trim();
+                readable = hasLayout(optionsLine);
+            } else if (readable && valid && cellIndex == numberOfCells) {
+                lineStart = start;
+                return true;
+            } else if (!valid || cellIndex > 0) {
+                numberOfInvalidLines++;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the position in the file of the line of the most recent sudoku read. Together with
+     * the position of the range, this tells a reader of several ranges where each sudoku came
+     * from.
+     *
+     * @return  The position of the line, or -1 if no sudoku has been read.
+     */
+    public long getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Gets the options line that the most recent sudoku was read under. Once the range holds no
+     * more sudokus, this is the last options line in the range.
+     *
+     * @return  The options line, or <code>null</code> if the range has had none so far.
+     */
+    public String getOptionsLine() {
+        return optionsLine;
+    }
+
+    /**
+     * Gets the number of lines skipped because they did not hold exactly one sudoku that can be
+     * read.
+     *
+     * @return  The number of invalid lines.
+     */
+    public int getNumberOfInvalidLines() {
+        return numberOfInvalidLines;
+    }
+
+    /**
+     * Tells whether an options line describes sudokus with rectangular blocks and the size of
+     * the sudokus read. The line is read the way <code>Options.load</code> reads it, but the
+     * options themselves are left alone.
+     *
+     * @param line  The options line.
+     * @return      <code>true</code> if the sudokus under the line can be read.
+     */
+    private boolean hasLayout(final String line) {
+        int size = 9;
+        int blockHeight = 3;
+        int blockWidth = 3;
+        try {
+            StringTokenizer st = new StringTokenizer(line);
+            while (st.hasMoreElements()) {
+                String token = st.nextToken();
+                if (token.startsWith("size=")) {
+                    size = Integer.parseInt(token.substring("size=".length()));
+                } else if (token.startsWith("jigsaw")) {
+                    return false;
+                } else if (token.startsWith("rectangular:")) {
+                    StringTokenizer st2 = new StringTokenizer(token, ":");
+                    st2.nextToken();
+                    blockHeight = Integer.parseInt(st2.nextToken());
+                    blockWidth  = Integer.parseInt(st2.nextToken());
+                }
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+        return size == gridSize && blockHeight * blockWidth == size;
+    }
+
+    /**
+     * Gets one byte of the file.
+     *
+     * @param filePosition  The position of the byte in the file.
+     * @return              The byte.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    private byte byteAt(final long filePosition) throws IOException {
+        return map(filePosition).get((int) (filePosition - windowStart));
+    }
+
+    /**
+     * Makes sure that a position in the file is mapped. If it is not in the current window, a
+     * new window is mapped that starts there.
+     *
+     * @param filePosition  A position in the file, before its end.
+     * @return              The window that holds the position.
+     * @throws IOException  If the file cannot be mapped.
+     */
+    private MappedByteBuffer map(final long filePosition) throws IOException {
+        long offset = filePosition - windowStart;
+        if (window == null || offset < 0 || offset >= window.limit()) {
+            windowStart = filePosition;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(windowSize, fileSize - windowStart));
+        }
+        return window;
+    }
+}
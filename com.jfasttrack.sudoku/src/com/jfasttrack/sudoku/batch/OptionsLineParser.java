@@ -0,0 +1,69 @@
+/*
+  OptionsLineParser.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+/**
+ * An <code>OptionsLineParser</code> sets the options from an options line of a batch, without
+ * letting a line that cannot be read stop the batch.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+final class OptionsLineParser {
+
+    /** Private constructor, to keep anyone from instantiating this class. */
+    private OptionsLineParser() {
+    }
+
+    /**
+     * Sets the options from an options line, if it can be read and describes a layout that can be
+     * built. If it cannot, the options are set to the defaults, apart from the block type, which
+     * is still taken from the line so that the lines of each jigsaw sudoku stay paired.
+     *
+     * @param optionsLine  The options line.
+     * @return             <code>true</code> if the options line was valid.
+     */
+    static boolean load(final String optionsLine) {
+        Options options = Options.getInstance();
+        try {
+            options.load(optionsLine);
+            int size = options.getGridSize();
+            if (size > 0 && size < PuzzleDelegate.CHARACTERS.length()
+                    && (options.getBlockType() == Options.BlockType.JIGSAW
+                        || options.getBlockHeight() * options.getBlockWidth() == size)) {
+                return true;
+            }
+        } catch (RuntimeException e) {
+
+            // A malformed number or block size, such as size=x or rectangular:3.
+        }
+        options.setDefaults();
+        if (optionsLine.indexOf("jigsaw") >= 0) {
+            options.setBlockType(Options.BlockType.JIGSAW);
+        }
+        return false;
+    }
+}
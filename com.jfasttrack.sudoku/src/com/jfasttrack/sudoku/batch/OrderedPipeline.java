@@ -0,0 +1,141 @@
+/*
+  OrderedPipeline.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * An <code>OrderedPipeline</code> runs jobs on a fixed number of threads and hands back their
+ * results in the order in which the jobs were submitted. Only a few jobs are queued for each
+ * thread, so that a batch of any size needs only a little memory: the caller submits jobs until
+ * the pipeline is full, then takes the oldest result before submitting more.
+ * <p>
+ * A pipeline is used by one thread, and must be closed when the batch ends, normally or not, so
+ * that the jobs still pending are cancelled and the threads stop.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+final class OrderedPipeline {
+
+    /** The number of jobs queued for each thread, so that no thread waits for work. */
+    private static final int JOBS_PER_THREAD = 4;
+
+    /** The threads that run the jobs. */
+    private final ExecutorService executor;
+
+    /** The results of the jobs submitted but not yet taken, oldest first. */
+    private final LinkedList pending = new LinkedList();
+
+    /** The most jobs that may be pending at once. */
+    private final int capacity;
+
+    /** What the batch is doing, for the message given if it is interrupted. */
+    private final String activity;
+
+    /**
+     * Constructs an <code>OrderedPipeline</code>.
+     *
+     * @param numberOfThreads  The number of threads that run the jobs.
+     * @param activity         What the batch is doing, such as <code>Solving</code>.
+     */
+    OrderedPipeline(final int numberOfThreads, final String activity) {
+        executor = Executors.newFixedThreadPool(numberOfThreads);
+        capacity = numberOfThreads * JOBS_PER_THREAD;
+        this.activity = activity;
+    }
+
+    /**
+     * Tells whether as many jobs are pending as the pipeline holds.
+     *
+     * @return  <code>true</code> if no more jobs should be submitted before a result is taken.
+     */
+    boolean isFull() {
+        return pending.size() >= capacity;
+    }
+
+    /**
+     * Tells whether any jobs are pending.
+     *
+     * @return  <code>true</code> if a result can be taken.
+     */
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Gets the number of jobs pending.
+     *
+     * @return  The number of jobs submitted whose results have not been taken.
+     */
+    int getNumberPending() {
+        return pending.size();
+    }
+
+    /**
+     * Starts running a job.
+     *
+     * @param job  The job.
+     */
+    void submit(final Callable job) {
+        pending.add(executor.submit(job));
+    }
+
+    /**
+     * Waits for the oldest job pending to finish, and takes its result. A runtime exception or
+     * error thrown by the job is thrown again here.
+     *
+     * @return  The result of the job.
+     * @throws InterruptedIOException  If this thread is interrupted while waiting.
+     */
+    Object take() throws InterruptedIOException {
+        try {
+            return ((Future) pending.removeFirst()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(activity + " interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /** Cancels the jobs still pending and stops the threads. */
+    void close() {
+        for (Iterator iterator = pending.iterator(); iterator.hasNext();) {
+            ((Future) iterator.next()).cancel(true);
+        }
+        pending.clear();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,298 @@
+/*
+  PuzzleArchiveReader.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+
+
+/**
+ * A <code>PuzzleArchiveReader</code> reads sudokus from an archive written by a
+ * <code>PuzzleArchiveWriter</code>. Any sudoku can be read directly by its number, and reading
+ * the sudokus in order reads the file in large blocks, so the reader serves both to look up one
+ * sudoku and to stream a whole archive. A reader is not safe for use by several threads at once,
+ * but several readers may share a file.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class PuzzleArchiveReader {
+
+    /** The number of bytes of records read from the file at once. */
+    private static final int RECORD_BUFFER_SIZE = 1 << 16;
+
+    /** The number of bytes of the index read from the file at once. */
+    private static final int INDEX_BUFFER_SIZE = 1 << 12;
+
+    /** The file. */
+    private final FileChannel channel;
+
+    /** The size of the file. */
+    private final long fileSize;
+
+    /** The size of each sudoku. */
+    private final int gridSize;
+
+    /** The height of each block, or 0 for jigsaw blocks. */
+    private final int blockHeight;
+
+    /** The width of each block, or 0 for jigsaw blocks. */
+    private final int blockWidth;
+
+    /** Tells whether the sudokus have jigsaw blocks. */
+    private final boolean jigsaw;
+
+    /** Tells whether the sudokus have diagonals. */
+    private final boolean usingDiagonals;
+
+    /** The number of bits in each value or block index. */
+    private final int bitsPerValue;
+
+    /** The longest a record can be. */
+    private final int maxRecordLength;
+
+    /** The position of the index, which is also the position just past the last record. */
+    private final long indexPosition;
+
+    /** The number of sudokus in the archive. */
+    private final int numberOfPuzzles;
+
+    /** Part of the file holding records. */
+    private final Block records;
+
+    /** Part of the file holding the index. */
+    private final Block index;
+
+    /**
+     * Constructs a <code>PuzzleArchiveReader</code> and reads the header and trailer.
+     *
+     * @param channel  The file. The caller remains responsible for closing it.
+     * @throws IOException  If the file cannot be read or is not a puzzle archive.
+     */
+    public PuzzleArchiveReader(final FileChannel channel) throws IOException {
+        this.channel = channel;
+        fileSize = channel.size();
+        if (fileSize < PuzzleArchiveWriter.HEADER_SIZE + PuzzleArchiveWriter.TRAILER_SIZE) {
+            throw new IOException("Not a puzzle archive");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(PuzzleArchiveWriter.HEADER_SIZE);
+        readFully(header, 0);
+        for (int i = 0; i < PuzzleArchiveWriter.MAGIC.length; i++) {
+            if (header.get(i) != PuzzleArchiveWriter.MAGIC[i]) {
+                throw new IOException("Not a puzzle archive");
+            }
+        }
+        int i = PuzzleArchiveWriter.MAGIC.length;
+        if (header.get(i++) != PuzzleArchiveWriter.VERSION) {
+            throw new IOException("Unsupported puzzle archive version: " + header.get(i - 1));
+        }
+        gridSize = header.get(i++) & 0xFF;
+        blockHeight = header.get(i++) & 0xFF;
+        blockWidth = header.get(i++) & 0xFF;
+        int flags = header.get(i++);
+        jigsaw = (flags & PuzzleArchiveWriter.JIGSAW) != 0;
+        usingDiagonals = (flags & PuzzleArchiveWriter.DIAGONALS) != 0;
+        bitsPerValue = PuzzleArchiveWriter.getBitsPerValue(gridSize);
+        int numberOfCells = gridSize * gridSize;
+        maxRecordLength = (numberOfCells * (1 + 2 * bitsPerValue) + 7) / 8;
+
+        ByteBuffer trailer = ByteBuffer.allocate(PuzzleArchiveWriter.TRAILER_SIZE);
+        readFully(trailer, fileSize - PuzzleArchiveWriter.TRAILER_SIZE);
+        indexPosition = trailer.getLong(0);
+        numberOfPuzzles = trailer.getInt(8);
+        if (indexPosition + 8L * numberOfPuzzles + PuzzleArchiveWriter.TRAILER_SIZE != fileSize) {
+            throw new IOException("Damaged puzzle archive");
+        }
+
+        records = new Block(Math.max(RECORD_BUFFER_SIZE, maxRecordLength));
+        index = new Block(INDEX_BUFFER_SIZE);
+    }
+
+    /**
+     * Gets the number of sudokus in the archive.
+     *
+     * @return  The number of sudokus.
+     */
+    public int getNumberOfPuzzles() {
+        return numberOfPuzzles;
+    }
+
+    /**
+     * Gets the size of the sudokus in the archive.
+     *
+     * @return  The size of the sudokus.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Tells whether the sudokus in the archive have jigsaw blocks.
+     *
+     * @return  <code>true</code> if the sudokus have jigsaw blocks.
+     */
+    public boolean isJigsaw() {
+        return jigsaw;
+    }
+
+    /**
+     * Gets the layout of the sudokus in the archive as an options line, which can be given to
+     * <code>Options.load</code> or put at the head of a sudoku in text form.
+     *
+     * @return  The options line, or an empty <code>String</code> for the default options.
+     */
+    public String getOptionsLine() {
+        return Options.toString(gridSize,
+                jigsaw ? Options.BlockType.JIGSAW : Options.BlockType.RECTANGULAR,
+                blockHeight, blockWidth, usingDiagonals);
+    }
+
+    /**
+     * Reads the givens of a sudoku.
+     *
+     * @param puzzleNumber  The number of the sudoku, counting from 0.
+     * @param givens        The array that receives the value of each cell, row by row, or 0 for
+     *                      an empty cell.
+     * @throws IOException  If the sudoku cannot be read.
+     */
+    public void read(final int puzzleNumber, final int[] givens) throws IOException {
+        read(puzzleNumber, givens, null);
+    }
+
+    /**
+     * Reads the givens of a sudoku and, if it has jigsaw blocks, the block of each cell.
+     *
+     * @param puzzleNumber  The number of the sudoku, counting from 0.
+     * @param givens        The array that receives the value of each cell, row by row, or 0 for
+     *                      an empty cell.
+     * @param blocks        The array that receives the index of the block of each cell, row by
+     *                      row, or <code>null</code> if the blocks are not wanted.
+     * @throws IOException  If the sudoku cannot be read.
+     */
+    public void read(final int puzzleNumber, final int[] givens, final int[] blocks)
+            throws IOException {
+        if (puzzleNumber < 0 || puzzleNumber >= numberOfPuzzles) {
+            throw new IndexOutOfBoundsException("Puzzle " + puzzleNumber);
+        }
+        int numberOfCells = gridSize * gridSize;
+
+        long indexEntry = indexPosition + 8L * puzzleNumber;
+        long offset = index.load(indexEntry, 8).getLong((int) (indexEntry - index.start));
+        ByteBuffer buffer =
+                records.load(offset, (int) Math.min(maxRecordLength, indexPosition - offset));
+        int base = (int) (offset - records.start) << 3;
+
+        int bitIndex = base + numberOfCells;
+        for (int i = 0; i < numberOfCells; i++) {
+            int presence = base + i;
+            if ((buffer.get(presence >> 3) & 0x80 >>> (presence & 7)) != 0) {
+                givens[i] = unpack(buffer, bitIndex) + 1;
+                bitIndex += bitsPerValue;
+            } else {
+                givens[i] = 0;
+            }
+        }
+        if (jigsaw && blocks != null) {
+            for (int i = 0; i < numberOfCells; i++) {
+                blocks[i] = unpack(buffer, bitIndex);
+                bitIndex += bitsPerValue;
+            }
+        }
+    }
+
+    /**
+     * Takes a number from a record.
+     *
+     * @param buffer    The buffer holding the record.
+     * @param bitIndex  The index in the buffer of the bit at which the number starts.
+     * @return          The number.
+     */
+    private int unpack(final ByteBuffer buffer, final int bitIndex) {
+        int number = 0;
+        for (int index = bitIndex; index < bitIndex + bitsPerValue; index++) {
+            number = number << 1 | (buffer.get(index >> 3) >>> (7 - (index & 7)) & 1);
+        }
+        return number;
+    }
+
+    /**
+     * Fills the rest of a buffer from the file.
+     *
+     * @param buffer    The buffer.
+     * @param position  The position in the file of the first byte of the buffer.
+     * @throws IOException  If the end of the file is reached first.
+     */
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Damaged puzzle archive");
+            }
+        }
+    }
+
+    /** A <code>Block</code> holds a part of the file, so that nearby reads need not go to it. */
+    private final class Block {
+
+        /** The bytes held. */
+        private final ByteBuffer buffer;
+
+        /** The position in the file of the first byte held. */
+        private long start;
+
+        /** The number of bytes held. */
+        private int length;
+
+        /**
+         * Constructs a <code>Block</code>.
+         *
+         * @param capacity  The most bytes the block can hold.
+         */
+        Block(final int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * Makes sure that the block holds part of the file, reading from the file if it does
+         * not.
+         *
+         * @param position  The position of the part in the file.
+         * @param count     The number of bytes in the part.
+         * @return          The buffer holding the part, starting at <code>start</code>.
+         * @throws IOException  If the file cannot be read.
+         */
+        ByteBuffer load(final long position, final int count) throws IOException {
+            if (position < start || position + count > start + length) {
+                start = position;
+                length = (int) Math.min(buffer.capacity(), fileSize - position);
+                buffer.clear();
+                buffer.limit(length);
+                readFully(buffer, start);
+            }
+            return buffer;
+        }
+    }
+}
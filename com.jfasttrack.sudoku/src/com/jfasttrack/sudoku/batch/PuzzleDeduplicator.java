@@ -0,0 +1,400 @@
+/*
+  PuzzleDeduplicator.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+/**
+ * A <code>PuzzleDeduplicator</code> recognizes sudokus that have been seen before. Each sudoku
+ * is identified by a key: for sudokus that a <code>Canonicalizer</code> can handle, the key is the
+ * canonical form, so a sudoku that differs from one already seen only by a symmetry is a
+ * duplicate. Other sudokus (jigsaw sudokus, sudokus with diagonals, and sudokus whose blocks are
+ * not square or are too large) are duplicates only if they are exactly the same. Every key starts
+ * with the options line, so sudokus with different layouts are never duplicates.
+ * <p>
+ * The keys seen are kept from one batch to the next, so that several files can be deduplicated
+ * against each other, and a <code>BatchGenerator</code> can skip sudokus already in a file. A key
+ * takes about as much memory as a line of the file.
+ * <p>
+ * A batch is read in the format read by <code>BatchSolver</code>: one sudoku per line, options
+ * lines that start with <code>:</code>, and two lines for each jigsaw sudoku. The first occurrence
+ * of each sudoku is written, in the order of the input and in the format of
+ * <code>BatchGenerator</code>, and an options line is written wherever the options change.
+ * Sudokus that cannot be read, or that follow an options line that cannot be read, are dropped.
+ * The keys are found on a fixed number of threads, and are checked and the sudokus written on the
+ * calling thread, so the keys must not be used by any other thread while a batch is being
+ * deduplicated.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class PuzzleDeduplicator {
+
+    /** The number of threads that find keys. */
+    private final int numberOfThreads;
+
+    /** The keys of the sudokus seen. */
+    private final Set keys = new HashSet();
+
+    /** The options in effect at the end of the sudokus written so far, as an options line. */
+    private String writtenOptionsLine = "";
+
+    /** The number of sudokus read in the most recent batch, whether or not they were valid. */
+    private int numberOfPuzzles;
+
+    /** The number of sudokus in the most recent batch that had been seen before. */
+    private int numberOfDuplicates;
+
+    /** Constructs a <code>PuzzleDeduplicator</code> that uses one thread for each processor. */
+    public PuzzleDeduplicator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a <code>PuzzleDeduplicator</code>.
+     *
+     * @param numberOfThreads  The number of threads that find keys.
+     * @throws IllegalArgumentException  If the number of threads is less than 1.
+     */
+    public PuzzleDeduplicator(final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Gets the key of a sudoku.
+     *
+     * @param optionsLine    The options line of the sudoku, or an empty <code>String</code> for
+     *                       the defaults.
+     * @param canonicalizer  The <code>Canonicalizer</code> for the layout of the sudoku, or
+     *                       <code>null</code> if there is none.
+     * @param blocksLine     The line giving the block of each cell of a jigsaw sudoku, or
+     *                       <code>null</code> for a rectangular sudoku.
+     * @param givens         The value of each cell, row by row, or 0 for an empty cell.
+     * @return               The key.
+     */
+    public static String getKey(final String optionsLine, final Canonicalizer canonicalizer,
+            final String blocksLine, final int[] givens) {
+        StringBuffer key = new StringBuffer(optionsLine);
+        key.append('\n');
+        if (canonicalizer != null) {
+            key.append(canonicalizer.getKey(givens));
+        } else {
+            if (blocksLine != null) {
+                key.append(blocksLine).append('\n');
+            }
+            for (int i = 0; i < givens.length; i++) {
+                key.append(PuzzleDelegate.CHARACTERS.charAt(givens[i]));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Adds the key of a sudoku to the keys seen.
+     *
+     * @param key  The key of the sudoku.
+     * @return     <code>true</code> if the key had not been seen before.
+     */
+    public boolean add(final String key) {
+        return keys.add(key);
+    }
+
+    /**
+     * Gets the number of different keys seen.
+     *
+     * @return  The number of keys.
+     */
+    public int getNumberOfKeys() {
+        return keys.size();
+    }
+
+    /**
+     * Copies a batch of sudokus, leaving out every sudoku that has been seen before. The writer
+     * is flushed but not closed.
+     *
+     * @param in   The source of the sudokus.
+     * @param out  The destination of the sudokus not seen before.
+     * @throws IOException  If the sudokus cannot be read or written, or if this thread is
+     *                      interrupted.
+     */
+    public void dedupe(final Reader in, final Writer out) throws IOException {
+        numberOfPuzzles = 0;
+        numberOfDuplicates = 0;
+
+        BufferedReader reader = new BufferedReader(in);
+        Options options = Options.getInstance();
+        options.setDefaults();
+        String optionsLine = "";
+        boolean optionsValid = true;
+        Canonicalizer canonicalizer = Canonicalizer.getInstance(options);
+
+        OrderedPipeline pipeline = new OrderedPipeline(numberOfThreads, "Deduplication");
+        try {
+            String line = reader.readLine();
+            while (line != null || pipeline.hasPending()) {
+                while (line != null && !pipeline.isFull()) {
+                    line = line.trim();
+                    if (line.startsWith(":")) {
+                        optionsValid = OptionsLineParser.load(line);
+                        optionsLine = options.toString();
+                        canonicalizer = Canonicalizer.getInstance(options);
+                    } else if (line.length() > 0) {
+                        String blocksLine = null;
+                        if (options.getBlockType() == Options.BlockType.JIGSAW) {
+                            blocksLine = line;
+                            line = reader.readLine();
+                        }
+                        int[] givens = optionsValid ? readGivens(blocksLine, line) : null;
+                        pipeline.submit(new Job(optionsLine, canonicalizer, blocksLine, givens));
+                        numberOfPuzzles++;
+                    }
+                    line = reader.readLine();
+                }
+                if (pipeline.hasPending()) {
+                    write((Job) pipeline.take(), out);
+                }
+            }
+            out.flush();
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Reads the givens of a sudoku with the layout of the current options.
+     *
+     * @param blocksLine  The line giving the block of each cell of a jigsaw sudoku, or
+     *                    <code>null</code> for a rectangular sudoku.
+     * @param givensLine  The givens of the sudoku, or <code>null</code> if the input ended.
+     * @return            The value of each cell, row by row, or 0 for an empty cell; or
+     *                    <code>null</code> if the sudoku cannot be read.
+     */
+    private static int[] readGivens(final String blocksLine, final String givensLine) {
+        int size = Options.getInstance().getGridSize();
+        if (blocksLine != null && blocksLine.length() != size * size) {
+            return null;
+        }
+        return GivensParser.parse(givensLine, size);
+    }
+
+    /**
+     * Counts a sudoku and writes it if it has not been seen before, preceded by its options line
+     * if the options have changed. A sudoku that could not be read is not written.
+     *
+     * @param job  The job that found the key of the sudoku.
+     * @param out  The destination of the sudokus.
+     * @throws IOException  If the sudoku cannot be written.
+     */
+    private void write(final Job job, final Writer out) throws IOException {
+        if (job.lines == null) {
+            return;
+        }
+        if (!add(job.key)) {
+            numberOfDuplicates++;
+            return;
+        }
+        if (!job.optionsLine.equals(writtenOptionsLine)) {
+            writtenOptionsLine = job.optionsLine;
+            out.write(writtenOptionsLine.length() > 0 ? writtenOptionsLine : ":");
+            out.write('\n');
+        }
+        out.write(job.lines);
+    }
+
+    /**
+     * Gets the number of sudokus read in the most recent batch, including any that could not be
+     * read correctly.
+     *
+     * @return  The number of sudokus read.
+     */
+    public int getNumberOfPuzzles() {
+        return numberOfPuzzles;
+    }
+
+    /**
+     * Gets the number of sudokus in the most recent batch that had been seen before.
+     *
+     * @return  The number of duplicates left out.
+     */
+    public int getNumberOfDuplicates() {
+        return numberOfDuplicates;
+    }
+
+    /**
+     * Deduplicates a file of sudokus from the command line. The arguments are any of
+     * <code>-threads</code> followed by the number of threads (one for each processor by
+     * default), <code>-o</code> followed by the name of the output file (standard output by
+     * default), and the names of the input files (standard input by default). The files are
+     * written one after another, each without the sudokus seen in it or in the files before it.
+     * A summary is written to standard error.
+     *
+     * @param args  Command-line parameters.
+     * @throws IOException  If the sudokus cannot be read or written.
+     */
+    public static void main(final String[] args) throws IOException {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        String outputFile = null;
+        LinkedList inputFiles = new LinkedList();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                numberOfThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if (!args[i].startsWith("-")) {
+                inputFiles.add(args[i]);
+            } else {
+                System.err.println("Usage: PuzzleDeduplicator [-threads n] [-o file] [file...]");
+                System.exit(1);
+            }
+        }
+        if (inputFiles.isEmpty()) {
+            inputFiles.add(null);
+        }
+
+        Writer out = new BufferedWriter(outputFile == null
+                ? (Writer) new OutputStreamWriter(System.out)
+                : new FileWriter(outputFile));
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(numberOfThreads);
+        int numberOfPuzzles = 0;
+        int numberOfDuplicates = 0;
+        long start = System.currentTimeMillis();
+        try {
+            for (Iterator iterator = inputFiles.iterator(); iterator.hasNext();) {
+                String inputFile = (String) iterator.next();
+                Reader in = inputFile == null
+                        ? (Reader) new InputStreamReader(System.in)
+                        : new FileReader(inputFile);
+                try {
+                    deduplicator.dedupe(in, out);
+                } finally {
+                    in.close();
+                }
+                numberOfPuzzles += deduplicator.getNumberOfPuzzles();
+                numberOfDuplicates += deduplicator.getNumberOfDuplicates();
+            }
+        } finally {
+            if (outputFile != null) {
+                out.close();
+            }
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+
+        System.err.println("Read " + numberOfPuzzles + " sudokus (" + deduplicator.getNumberOfKeys()
+                + " distinct, " + numberOfDuplicates + " duplicates) on " + numberOfThreads
+                + " threads in " + elapsed + " ms (" + numberOfPuzzles * 1000L / elapsed
+                + " per second)");
+    }
+
+    /** A <code>Job</code> finds the key of one sudoku. */
+    private static final class Job implements Callable {
+
+        /** The lines to write if the sudoku has not been seen, or <code>null</code> if none. */
+        private final String lines;
+
+        /** The options line of the sudoku. */
+        private final String optionsLine;
+
+        /** The <code>Canonicalizer</code> for its layout, or <code>null</code> if there is none. */
+        private final Canonicalizer canonicalizer;
+
+        /** The line giving the block of each cell of a jigsaw sudoku. */
+        private final String blocksLine;
+
+        /** The givens of the sudoku, or <code>null</code> if it could not be read. */
+        private final int[] givens;
+
+        /** The key of the sudoku. */
+        private String key;
+
+        /**
+         * Constructs a <code>Job</code>.
+         *
+         * @param optionsLine    The options line of the sudoku.
+         * @param canonicalizer  The <code>Canonicalizer</code> for its layout, or
+         *                       <code>null</code> if there is none.
+         * @param blocksLine     The line giving the block of each cell of a jigsaw sudoku, or
+         *                       <code>null</code> for a rectangular sudoku.
+         * @param givens         The value of each cell, row by row, or 0 for an empty cell; or
+         *                       <code>null</code> if the sudoku could not be read.
+         */
+        Job(final String optionsLine, final Canonicalizer canonicalizer, final String blocksLine,
+                final int[] givens) {
+            this.optionsLine = optionsLine;
+            this.canonicalizer = canonicalizer;
+            this.blocksLine = blocksLine;
+            this.givens = givens;
+            lines = givens == null ? null : toLines(blocksLine, givens);
+        }
+
+        /**
+         * Formats a sudoku for output, in the format of <code>BatchGenerator</code>.
+         *
+         * @param blocksLine  The line giving the block of each cell of a jigsaw sudoku, or
+         *                    <code>null</code> for a rectangular sudoku.
+         * @param givens      The value of each cell, row by row, or 0 for an empty cell.
+         * @return            The lines describing the sudoku, each ending with a newline.
+         */
+        private static String toLines(final String blocksLine, final int[] givens) {
+            StringBuffer lines = new StringBuffer();
+            if (blocksLine != null) {
+                lines.append(blocksLine).append('\n');
+            }
+            for (int i = 0; i < givens.length; i++) {
+                lines.append(PuzzleDelegate.CHARACTERS.charAt(givens[i]));
+            }
+            lines.append('\n');
+            return lines.toString();
+        }
+
+        /**
+         * Finds the key of the sudoku.
+         *
+         * @return  This job.
+         */
+        public Object call() {
+            if (givens != null) {
+                key = getKey(optionsLine, canonicalizer, blocksLine, givens);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+  TargetedGenerator.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Callable;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+import com.jfasttrack.sudoku.solver.DifficultyRater;
+import com.jfasttrack.sudoku.solver.Rating;
+import com.jfasttrack.sudoku.solver.Solver;
+
+
+/**
+ * A <code>TargetedGenerator</code> generates sudokus of one difficulty tier: those whose hardest
+ * solver needed belongs to a given group of <code>Solver.GROUP_NAME</code>, or (for the tier past
+ * the last group) those that the logical solvers cannot finish. Since the difficulty of a sudoku
+ * is known only once it has been generated and rated, every thread runs its own pipeline of
+ * generating and rating, speculatively, and the sudokus that miss the target are thrown away. As
+ * soon as enough sudokus hit the target, the work still pending is cancelled.
+ * <p>
+ * As in a <code>BatchGenerator</code>, attempt <code>i</code> generates its sudoku from the seed
+ * <code>BatchGenerator.getSeed(seed, i)</code>, and the attempts are accepted in order, so a
+ * given seed always yields the same sudokus however many threads are used. The output is in the
+ * format written by <code>BatchGenerator</code>.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class TargetedGenerator {
+
+    /** The most attempts made from the command line for each sudoku asked for. */
+    private static final int MAX_ATTEMPTS_PER_SUDOKU = 1000;
+
+    /** The rater used by each thread. */
+    private static final ThreadLocal RATER = new ThreadLocal() {
+        protected Object initialValue() {
+            return new DifficultyRater();
+        }
+    };
+
+    /** The number of threads that generate and rate sudokus. */
+    private final int numberOfThreads;
+
+    /** The number of attempts whose results were examined in the most recent batch. */
+    private int numberOfAttempts;
+
+    /** Constructs a <code>TargetedGenerator</code> that uses one thread for each processor. */
+    public TargetedGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a <code>TargetedGenerator</code>.
+     *
+     * @param numberOfThreads  The number of threads that generate and rate sudokus.
+     * @throws IllegalArgumentException  If the number of threads is less than 1.
+     */
+    public TargetedGenerator(final int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads: " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Generates sudokus of a difficulty tier and writes them. The writer is flushed but not
+     * closed. The create action of the options is <code>GENERATE</code> while the sudokus are
+     * generated, and is restored afterwards.
+     *
+     * @param tier         The difficulty tier, as returned by <code>Rating.getTier</code>.
+     * @param count        The number of sudokus wanted.
+     * @param seed         The seed of the batch.
+     * @param maxAttempts  The most sudokus to generate in search of the wanted ones. Some tiers
+     *                     are rare, or even out of reach for some layouts.
+     * @param out          The destination of the sudokus.
+     * @return             The number of sudokus written, which is less than <code>count</code>
+     *                     only if <code>maxAttempts</code> was reached.
+     * @throws IOException  If the sudokus cannot be written, or if this thread is interrupted.
+     */
+    public int generate(
+            final int tier, final int count, final long seed, final int maxAttempts,
+            final Writer out) throws IOException {
+        if (tier < 0 || tier > Solver.GROUP_NAME.length) {
+            throw new IllegalArgumentException("Tier: " + tier);
+        }
+        Options options = Options.getInstance();
+        String optionsString = options.toString();
+        if (optionsString.length() > 0) {
+            out.write(optionsString);
+            out.write('\n');
+        }
+
+        numberOfAttempts = 0;
+        int numberAccepted = 0;
+        Options.CreateAction createAction = options.getCreateAction();
+        options.setCreateAction(Options.CreateAction.GENERATE);
+        OrderedPipeline pipeline = new OrderedPipeline(numberOfThreads, "Generation");
+        try {
+            int nextAttempt = 0;
+            while (numberAccepted < count && numberOfAttempts < maxAttempts) {
+                while (nextAttempt < maxAttempts && !pipeline.isFull()) {
+                    pipeline.submit(new Job(BatchGenerator.getSeed(seed, nextAttempt), tier));
+                    nextAttempt++;
+                }
+                String lines = (String) pipeline.take();
+                numberOfAttempts++;
+                if (lines != null) {
+                    out.write(lines);
+                    numberAccepted++;
+                }
+            }
+            out.flush();
+        } finally {
+            pipeline.close();
+            options.setCreateAction(createAction);
+        }
+
+        return numberAccepted;
+    }
+
+    /**
+     * Gets the number of sudokus generated and rated in the most recent batch, not counting the
+     * speculative attempts that were cancelled or whose results were not needed.
+     *
+     * @return  The number of attempts.
+     */
+    public int getNumberOfAttempts() {
+        return numberOfAttempts;
+    }
+
+    /**
+     * Generates sudokus of a difficulty tier from the command line. The arguments are the name
+     * of the tier (for example, <code>subset</code>, or <code>dlx</code> for sudokus that the
+     * logical solvers cannot finish), the number of sudokus, the name of the output file, and
+     * optionally the seed of the batch, the number of threads, and options in the format of an
+     * options line. At most <code>MAX_ATTEMPTS_PER_SUDOKU</code> attempts are made for each
+     * sudoku wanted.
+     *
+     * @param args  Command-line parameters.
+     * @throws IOException  If the output file cannot be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        int tier = args.length < 3 ? -1 : Rating.getTier(args[0]);
+        if (tier < 0) {
+            StringBuffer tiers = new StringBuffer();
+            for (int i = 0; i <= Solver.GROUP_NAME.length; i++) {
+                tiers.append(i == 0 ? "" : "|").append(Rating.getTierName(i));
+            }
+            System.err.println("Usage: TargetedGenerator " + tiers
+                    + " count file [seed [threads [option...]]]");
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[1]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.currentTimeMillis();
+        int numberOfThreads = args.length > 4
+                ? Integer.parseInt(args[4])
+                : Runtime.getRuntime().availableProcessors();
+        StringBuffer optionsLine = new StringBuffer();
+        for (int i = 5; i < args.length; i++) {
+            optionsLine.append(args[i]).append(' ');
+        }
+        Options.getInstance().load(optionsLine.toString());
+
+        TargetedGenerator generator = new TargetedGenerator(numberOfThreads);
+        long start = System.currentTimeMillis();
+        Writer out = new BufferedWriter(new FileWriter(args[2]));
+        int numberAccepted;
+        try {
+            int maxAttempts =
+                    (int) Math.min((long) count * MAX_ATTEMPTS_PER_SUDOKU, Integer.MAX_VALUE);
+            numberAccepted = generator.generate(tier, count, seed, maxAttempts, out);
+        } finally {
+            out.close();
+        }
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        System.out.println("Generated " + numberAccepted + " " + args[0] + " sudokus in "
+                + generator.getNumberOfAttempts() + " attempts from seed " + seed + " on "
+                + numberOfThreads + " threads in " + elapsed + " ms ("
+                + numberAccepted * 1000L / elapsed + " per second)");
+    }
+
+    /** A <code>Job</code> generates one sudoku and rates it. */
+    private static final class Job implements Callable {
+
+        /** The seed from which the sudoku is generated. */
+        private final long seed;
+
+        /** The difficulty tier wanted. */
+        private final int tier;
+
+        /**
+         * Constructs a <code>Job</code>.
+         *
+         * @param seed  The seed from which the sudoku is generated.
+         * @param tier  The difficulty tier wanted.
+         */
+        Job(final long seed, final int tier) {
+            this.seed = seed;
+            this.tier = tier;
+        }
+
+        /**
+         * Generates the sudoku and rates it.
+         *
+         * @return  The lines describing the sudoku, or <code>null</code> if it is not in the
+         *          tier wanted or the job was cancelled.
+         */
+        public Object call() {
+            StandardSudoku sudoku = new StandardSudoku(seed);
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+
+            // Rating solves the working grid, but leaves the givens and blocks as they were.
+            Rating rating = ((DifficultyRater) RATER.get()).rate(sudoku);
+            if (rating.getTier() != tier) {
+                return null;
+            }
+            return BatchGenerator.toLines(sudoku);
+        }
+    }
+}
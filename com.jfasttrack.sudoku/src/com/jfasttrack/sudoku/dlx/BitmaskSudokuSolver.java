@@ -0,0 +1,599 @@
+/*
+  BitmaskSudokuSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.dlx;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.dlx.SearchOutcome;
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+import com.jfasttrack.sudoku.puzzle.Cell;
+import com.jfasttrack.sudoku.puzzle.House;
+
+
+/**
+ * This class solves a sudoku by keeping the values of each house in a bit mask. It handles any
+ * layout with up to 64 values: rectangular or jigsaw blocks, with or without diagonals.
+ * <p>
+ * Bit <code>v - 1</code> of a house's mask is set when value <code>v</code> has been placed in
+ * the house, so the candidates of a cell are the values missing from the masks of all of its
+ * houses. At each node of the search tree, the solver finds the candidates of every empty cell
+ * and then makes the most constrained move it can find:
+ * <ul>
+ * <li>
+ * If some empty cell has no candidates, or some house has no place left for one of its missing
+ * values, the node is a dead end.
+ * </li>
+ * <li>
+ * If some cell has only one candidate, that value is placed.
+ * </li>
+ * <li>
+ * If some value can go in only one cell of a house, it is placed there.
+ * </li>
+ * <li>
+ * Otherwise, each candidate of the cell with the fewest candidates is tried in turn.
+ * </li>
+ * </ul>
+ * These are the same choices the dancing links search makes when it covers the shortest column,
+ * so the solutions are the same, but each move updates a few words instead of hundreds of nodes.
+ * Solutions are found in a different order, though.
+ * <p>
+ * The search respects a <code>SearchBudget</code> in the same way as the exact cover engines. Each
+ * move counts as one node.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class BitmaskSudokuSolver implements ISudokuSolver {
+
+    /** The largest grid this solver can handle: one bit for each value in a <code>long</code>. */
+    public static final int MAX_GRID_SIZE = 64;
+
+    /** The number of nodes visited between checks of the search budget. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** The number of <code>Cell</code>s in each row and each column of the sudoku. */
+    private final int gridSize;
+
+    /** The number of <code>Cell</code>s in the sudoku. */
+    private final int numberOfCells;
+
+    /** A mask with one bit set for each value. */
+    private final long allValues;
+
+    /** The indexes of the cells of each house. */
+    private final int[][] houseCells;
+
+    /** The indexes of the houses of each cell. */
+    private final int[][] cellHouses;
+
+    /** The values placed in each house, one bit for each value. */
+    private final long[] placed;
+
+    /** The value in each cell, or 0 if the cell is empty. */
+    private final int[] grid;
+
+    /** The empty cells, in no particular order. */
+    private final int[] emptyCells;
+
+    /** The position of each empty cell in <code>emptyCells</code>. */
+    private final int[] positions;
+
+    /** The number of empty cells. */
+    private int numberOfEmptyCells;
+
+    /** The values that may not be placed in each cell, one bit for each value. */
+    private final long[] excludedValues;
+
+    /** A solution whose value is tried first in each cell, or <code>null</code>. */
+    private int[] knownSolution;
+
+    /** The candidates of each empty cell at the current node of the search tree. */
+    private final long[] candidates;
+
+    /** The cell where the move at each level of the search tree was made. */
+    private final int[] moveCells;
+
+    /** The values that remain to be tried in that cell at each level of the search tree. */
+    private final long[] moveValues;
+
+    /** The rows reported to the listeners. The same array is refilled for each solution. */
+    private final int[] solutionRows;
+
+    /** Tells whether two of the givens are in the same house and have the same value. */
+    private boolean contradiction;
+
+    /** The listeners to be notified with an array of row indexes whenever a solution is found. */
+    private final List rowSolutionListeners = new ArrayList();
+
+    /** Tells whether the solver is finished generating solutions. */
+    private boolean done;
+
+    /** The number of solutions reported since counting started. */
+    private int numberOfSolutions;
+
+    /** The number of solutions after which the search stops, or 0 if there is no limit. */
+    private int solutionLimit;
+
+    /** The limits on each search. */
+    private SearchBudget searchBudget = SearchBudget.UNLIMITED;
+
+    /** How the most recent search ended, or <code>null</code> while a search is running. */
+    private SearchOutcome outcome;
+
+    /** The time, from <code>System.currentTimeMillis</code>, when the search must stop, or 0. */
+    private long deadline;
+
+    /** The thread whose interrupt stops the search. */
+    private Thread searchThread;
+
+    /** The number of nodes visited, up to the most recent check of the budget. */
+    private long numberOfNodes;
+
+    /** The number of nodes between the most recent check of the budget and the next one. */
+    private int checkInterval;
+
+    /** The number of nodes that remain to be visited before the budget is checked again. */
+    private int nodesUntilCheck;
+
+    /**
+     * Constructs a <code>BitmaskSudokuSolver</code>.
+     *
+     * @param puzzle  The sudoku to be solved.
+     * @throws IllegalArgumentException  If the sudoku has more than 64 values.
+     */
+    public BitmaskSudokuSolver(final AbstractPuzzleModel puzzle) {
+        gridSize = puzzle.getGridSize();
+        if (gridSize > MAX_GRID_SIZE) {
+            throw new IllegalArgumentException(
+                    "A bitmask solver handles at most " + MAX_GRID_SIZE + " values.");
+        }
+        numberOfCells = gridSize * gridSize;
+        allValues = gridSize == MAX_GRID_SIZE ? -1L : (1L << gridSize) - 1;
+
+        // Number the houses, and list the cells of each of them.
+        List houses = new ArrayList();
+        int[] housesPerCell = new int[numberOfCells];
+        Iterator iterator = puzzle.getAllHouses();
+        while (iterator.hasNext()) {
+            House house = (House) iterator.next();
+            List cells = new ArrayList();
+            Iterator houseCellIterator = house.getAllCells();
+            while (houseCellIterator.hasNext()) {
+                Cell cell = (Cell) houseCellIterator.next();
+                cells.add(cell);
+                housesPerCell[cell.getRow() * gridSize + cell.getColumn()]++;
+            }
+            houses.add(cells);
+        }
+
+        houseCells = new int[houses.size()][];
+        cellHouses = new int[numberOfCells][];
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            cellHouses[cellIndex] = new int[housesPerCell[cellIndex]];
+            housesPerCell[cellIndex] = 0;
+        }
+        for (int houseIndex = 0; houseIndex < houseCells.length; houseIndex++) {
+            List cells = (List) houses.get(houseIndex);
+            houseCells[houseIndex] = new int[cells.size()];
+            for (int i = 0; i < cells.size(); i++) {
+                Cell cell = (Cell) cells.get(i);
+                int cellIndex = cell.getRow() * gridSize + cell.getColumn();
+                houseCells[houseIndex][i] = cellIndex;
+                cellHouses[cellIndex][housesPerCell[cellIndex]++] = houseIndex;
+            }
+        }
+
+        placed = new long[houseCells.length];
+        grid = new int[numberOfCells];
+        emptyCells = new int[numberOfCells];
+        positions = new int[numberOfCells];
+        excludedValues = new long[numberOfCells];
+        candidates = new long[numberOfCells];
+        moveCells = new int[numberOfCells];
+        moveValues = new long[numberOfCells];
+        solutionRows = new int[numberOfCells];
+        removeAllGivens();
+    }
+
+    /**
+     * Places the givens of a puzzle. If two givens have the same value in the same house, the
+     * puzzle has no solution.
+     *
+     * @param puzzleGrid  An array of integers containing an unsolved sudoku.
+     */
+    public void placeGivens(final int[] puzzleGrid) {
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            int value = puzzleGrid[cellIndex];
+            if (value > 0) {
+                long bit = 1L << (value - 1);
+                if (grid[cellIndex] != 0 || (getPlacedValues(cellIndex) & bit) != 0) {
+                    contradiction = true;
+                } else {
+                    place(cellIndex, bit);
+                }
+            }
+        }
+    }
+
+    /** Removes all of the givens, so that the solver can take another puzzle. */
+    public void removeAllGivens() {
+        for (int houseIndex = 0; houseIndex < placed.length; houseIndex++) {
+            placed[houseIndex] = 0;
+        }
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            grid[cellIndex] = 0;
+            emptyCells[cellIndex] = cellIndex;
+            positions[cellIndex] = cellIndex;
+        }
+        numberOfEmptyCells = numberOfCells;
+        contradiction = false;
+    }
+
+    /**
+     * Adds a listener to be notified with the rows of each solution found. Each solution has one
+     * row for each cell, in order of cell index.
+     *
+     * @param listener  The listener to be added.
+     */
+    public void addRowSolutionListener(final RowSolutionListener listener) {
+        rowSolutionListeners.add(listener);
+    }
+
+    /**
+     * Solves the sudoku, reporting each solution to the registered listeners. Afterward, only the
+     * givens remain in the grid, however the search ended.
+     *
+     * @return  How the search ended.
+     */
+    public SearchOutcome solve() {
+        done = false;
+        outcome = null;
+        long timeLimit = searchBudget.getTimeLimit();
+        deadline = timeLimit == 0 ? 0 : System.currentTimeMillis() + timeLimit;
+        searchThread = Thread.currentThread();
+        numberOfNodes = 0;
+        checkInterval = getCheckInterval();
+        nodesUntilCheck = checkInterval;
+
+        if (!contradiction) {
+            search();
+        }
+
+        if (outcome == null) {
+            outcome = done ? SearchOutcome.STOPPED : SearchOutcome.COMPLETED;
+        }
+        return outcome;
+    }
+
+    /**
+     * Sets the limits on each search of this sudoku.
+     *
+     * @param searchBudget  The limits on each search.
+     */
+    public void setSearchBudget(final SearchBudget searchBudget) {
+        this.searchBudget = searchBudget;
+    }
+
+    /**
+     * Gets how the most recent search ended.
+     *
+     * @return  How the most recent search ended, or <code>null</code> if no search has finished.
+     */
+    public SearchOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Counts the solutions of the sudoku, stopping as soon as a given number of them have been
+     * found.
+     *
+     * @param limit  The number of solutions after which the search stops.
+     * @return       The number of solutions found. This is never more than <code>limit</code>.
+     */
+    public int countSolutions(final int limit) {
+        numberOfSolutions = 0;
+        solutionLimit = limit;
+        try {
+            solve();
+        } finally {
+            solutionLimit = 0;
+        }
+        return numberOfSolutions;
+    }
+
+    /**
+     * Tells whether the sudoku has no solution, exactly one solution, or more. The search stops as
+     * soon as a second solution is found.
+     *
+     * @return  The uniqueness of the solution.
+     */
+    public Uniqueness checkUniqueness() {
+        return Uniqueness.valueOf(countSolutions(2));
+    }
+
+    /**
+     * Tells whether the sudoku has a solution other than a known one, when any other solution
+     * must differ from the known one in at least one of some cells. The cells are taken in turn.
+     * For each, the search looks for a solution in which the cell does not hold its known value;
+     * if there is none, every other solution must agree with the known one there, so the known
+     * value is placed in the cell before the next one is taken. Elsewhere, each search tries the
+     * known value of a cell first. Another solution usually differs from the known one in only a
+     * few cells, so when there is one, it tends to be found in a handful of nodes. When there is
+     * none, the searches together still cover the whole tree, less the path to the known solution.
+     * <p>
+     * If one of the searches is cut short by the search budget, the answer is <code>true</code>,
+     * since another solution could not be ruled out, and <code>getOutcome</code> tells why.
+     *
+     * @param solution     A solution of the sudoku: the value of every cell, row by row.
+     * @param cellIndexes  The cells in at least one of which any other solution must differ.
+     * @return             <code>true</code> if some solution differs from the known one.
+     */
+    public boolean hasOtherSolution(final int[] solution, final int[] cellIndexes) {
+        if (contradiction) {
+            return false;
+        }
+
+        int[] placedCells = new int[cellIndexes.length];
+        int numberPlaced = 0;
+        boolean found = false;
+        knownSolution = solution;
+        try {
+            for (int i = 0; i < cellIndexes.length && !found; i++) {
+                int cellIndex = cellIndexes[i];
+                if (grid[cellIndex] != 0) {
+                    continue;
+                }
+
+                long bit = 1L << (solution[cellIndex] - 1);
+                excludedValues[cellIndex] = bit;
+                try {
+                    found = countSolutions(1) > 0;
+                } finally {
+                    excludedValues[cellIndex] = 0;
+                }
+                if (!found) {
+                    if (outcome.isCutOff()) {
+                        found = true;
+                        break;
+                    }
+                    place(cellIndex, bit);
+                    placedCells[numberPlaced++] = cellIndex;
+                }
+            }
+        } finally {
+            knownSolution = null;
+            while (numberPlaced > 0) {
+                unplace(placedCells[--numberPlaced]);
+            }
+        }
+        return found;
+    }
+
+    /** Searches for every way to fill the empty cells, one move at a time. */
+    private void search() {
+        int level = 0;
+        while (true) {
+            countNode();
+            int cellIndex = -1;
+            long values = 0;
+            if (numberOfEmptyCells == 0) {
+                reportSolution();
+            } else {
+                cellIndex = chooseCell();
+                if (cellIndex >= 0) {
+                    values = candidates[cellIndex];
+                }
+            }
+
+            // Back up to the most recent level that still has a value to try.
+            while (values == 0 || done) {
+                if (level == 0) {
+                    return;
+                }
+                cellIndex = moveCells[--level];
+                unplace(cellIndex);
+                values = moveValues[level];
+            }
+
+            long bit = values & -values;
+            if (knownSolution != null && (values & 1L << (knownSolution[cellIndex] - 1)) != 0) {
+                bit = 1L << (knownSolution[cellIndex] - 1);
+            }
+            moveCells[level] = cellIndex;
+            moveValues[level++] = values & ~bit;
+            place(cellIndex, bit);
+        }
+    }
+
+    /**
+     * Chooses the cell where the next move is made. On return, the candidates of that cell are
+     * the values to be tried there.
+     *
+     * @return  The index of the chosen cell, or -1 if the current node is a dead end.
+     */
+    private int chooseCell() {
+        int bestCell = -1;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < numberOfEmptyCells; i++) {
+            int cellIndex = emptyCells[i];
+            long values = allValues & ~getPlacedValues(cellIndex) & ~excludedValues[cellIndex];
+            candidates[cellIndex] = values;
+            if (values == 0) {
+                return -1;
+            }
+            int count = Long.bitCount(values);
+            if (count < fewest) {
+                fewest = count;
+                bestCell = cellIndex;
+                if (count == 1) {
+                    return bestCell;
+                }
+            }
+        }
+
+        // Look for a value that has only one place left in a house.
+        for (int houseIndex = 0; houseIndex < houseCells.length; houseIndex++) {
+            int[] cells = houseCells[houseIndex];
+            long once = 0;
+            long twice = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (grid[cells[i]] == 0) {
+                    long values = candidates[cells[i]];
+                    twice |= once & values;
+                    once |= values;
+                }
+            }
+            if ((allValues & ~placed[houseIndex] & ~once) != 0) {
+                return -1;
+            }
+            long singles = once & ~twice;
+            if (singles != 0) {
+                long bit = singles & -singles;
+                for (int i = 0; i < cells.length; i++) {
+                    if (grid[cells[i]] == 0 && (candidates[cells[i]] & bit) != 0) {
+                        candidates[cells[i]] = bit;
+                        return cells[i];
+                    }
+                }
+            }
+        }
+
+        return bestCell;
+    }
+
+    /**
+     * Gets the values that have been placed in any of the houses of a cell.
+     *
+     * @param cellIndex  The index of a cell.
+     * @return           A mask with one bit set for each value placed in the cell's houses.
+     */
+    private long getPlacedValues(final int cellIndex) {
+        int[] houses = cellHouses[cellIndex];
+        long values = 0;
+        for (int i = 0; i < houses.length; i++) {
+            values |= placed[houses[i]];
+        }
+        return values;
+    }
+
+    /**
+     * Places a value in an empty cell.
+     *
+     * @param cellIndex  The index of the cell.
+     * @param bit        The bit of the value to be placed.
+     */
+    private void place(final int cellIndex, final long bit) {
+        grid[cellIndex] = Long.numberOfTrailingZeros(bit) + 1;
+        int[] houses = cellHouses[cellIndex];
+        for (int i = 0; i < houses.length; i++) {
+            placed[houses[i]] |= bit;
+        }
+
+        // Swap the cell to the end of the list of empty cells, so it can be put back in place.
+        int position = positions[cellIndex];
+        int last = emptyCells[--numberOfEmptyCells];
+        emptyCells[position] = last;
+        positions[last] = position;
+        emptyCells[numberOfEmptyCells] = cellIndex;
+        positions[cellIndex] = numberOfEmptyCells;
+    }
+
+    /**
+     * Removes the value from a cell. Cells must be emptied in the reverse of the order in which
+     * they were filled.
+     *
+     * @param cellIndex  The index of the cell.
+     */
+    private void unplace(final int cellIndex) {
+        long bit = 1L << (grid[cellIndex] - 1);
+        grid[cellIndex] = 0;
+        int[] houses = cellHouses[cellIndex];
+        for (int i = 0; i < houses.length; i++) {
+            placed[houses[i]] &= ~bit;
+        }
+        numberOfEmptyCells++;
+    }
+
+    /** Reports the current grid to the registered listeners. */
+    private void reportSolution() {
+        for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++) {
+            solutionRows[cellIndex] = cellIndex * gridSize + grid[cellIndex] - 1;
+        }
+        for (int i = 0; i < rowSolutionListeners.size(); i++) {
+            RowSolutionListener listener = (RowSolutionListener) rowSolutionListeners.get(i);
+            done |= listener.solutionFound(solutionRows, numberOfCells);
+        }
+        numberOfSolutions++;
+        if (solutionLimit > 0 && numberOfSolutions >= solutionLimit) {
+            done = true;
+        }
+    }
+
+    /** Counts a node of the search tree, stopping the search when the budget runs out. */
+    private void countNode() {
+        if (--nodesUntilCheck > 0) {
+            return;
+        }
+
+        numberOfNodes += checkInterval;
+        long maxNodes = searchBudget.getMaxNodes();
+        if (maxNodes > 0 && numberOfNodes >= maxNodes) {
+            stopSearch(SearchOutcome.NODE_LIMIT);
+        } else if (deadline > 0 && System.currentTimeMillis() >= deadline) {
+            stopSearch(SearchOutcome.TIME_LIMIT);
+        } else if (searchBudget.isInterruptible() && searchThread.isInterrupted()) {
+            stopSearch(SearchOutcome.INTERRUPTED);
+        }
+        checkInterval = getCheckInterval();
+        nodesUntilCheck = checkInterval;
+    }
+
+    /**
+     * Gets the number of nodes to be visited before the budget is checked again.
+     *
+     * @return  The number of nodes until the next check.
+     */
+    private int getCheckInterval() {
+        long maxNodes = searchBudget.getMaxNodes();
+        if (maxNodes > 0 && maxNodes - numberOfNodes < CHECK_INTERVAL) {
+            return (int) Math.max(1, maxNodes - numberOfNodes);
+        }
+        return CHECK_INTERVAL;
+    }
+
+    /**
+     * Stops the search.
+     *
+     * @param reason  The reason the search is stopping.
+     */
+    private void stopSearch(final SearchOutcome reason) {
+        done = true;
+        if (outcome == null) {
+            outcome = reason;
+        }
+    }
+}
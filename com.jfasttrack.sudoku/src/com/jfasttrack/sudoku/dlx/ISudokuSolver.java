@@ -0,0 +1,118 @@
+/*
+  ISudokuSolver.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.dlx;
+
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.dlx.SearchOutcome;
+import com.jfasttrack.dlx.Uniqueness;
+
+
+/**
+ * The <code>ISudokuSolver</code> interface is implemented by classes that solve a sudoku by
+ * exhaustive search: place the givens, then count or find the solutions. A
+ * <code>SudokuBackend</code> creates the solver for a puzzle, so callers need not know which
+ * search is doing the work.
+ * <p>
+ * Solutions are reported as rows, just as the dancing links matrix numbers them: the row that
+ * places <code>value</code> in cell <code>cellIndex</code> is
+ * <code>cellIndex * gridSize + (value - 1)</code>. The rows of a solution may be reported in any
+ * order.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public interface ISudokuSolver {
+
+    /**
+     * Places the givens of a puzzle. A solver can take the givens of one puzzle at a time; they
+     * must be removed before the givens of another puzzle are placed.
+     *
+     * @param puzzleGrid  An array of integers containing an unsolved sudoku.
+     */
+    void placeGivens(int[] puzzleGrid);
+
+    /** Removes all of the givens, so that the solver can take another puzzle. */
+    void removeAllGivens();
+
+    /**
+     * Adds a listener to be notified with the rows of each solution found.
+     *
+     * @param listener  The listener to be added.
+     */
+    void addRowSolutionListener(RowSolutionListener listener);
+
+    /**
+     * Solves the sudoku, reporting each solution to the registered listeners.
+     *
+     * @return  How the search ended.
+     */
+    SearchOutcome solve();
+
+    /**
+     * Sets the limits on each search of this sudoku.
+     *
+     * @param searchBudget  The limits on each search.
+     */
+    void setSearchBudget(SearchBudget searchBudget);
+
+    /**
+     * Gets how the most recent search ended.
+     *
+     * @return  How the most recent search ended, or <code>null</code> if no search has finished.
+     */
+    SearchOutcome getOutcome();
+
+    /**
+     * Counts the solutions of the sudoku, stopping as soon as a given number of them have been
+     * found.
+     *
+     * @param limit  The number of solutions after which the search stops.
+     * @return       The number of solutions found. This is never more than <code>limit</code>.
+     */
+    int countSolutions(int limit);
+
+    /**
+     * Tells whether the sudoku has no solution, exactly one solution, or more.
+     *
+     * @return  The uniqueness of the solution.
+     */
+    Uniqueness checkUniqueness();
+
+    /**
+     * Tells whether the sudoku has a solution other than a known one, when any other solution
+     * must differ from the known one in at least one of some cells. This is the case when givens
+     * have just been removed from a sudoku whose only solution was the known one: another
+     * solution of the new sudoku must differ from it in one of the cells that were cleared.
+     * Knowing this, a solver need not search the whole tree of the sudoku again.
+     * <p>
+     * If the search is cut short by the search budget, the answer is <code>true</code>: another
+     * solution has not been ruled out, so a caller that is removing givens keeps them.
+     * <code>getOutcome</code> tells whether the answer was cut short.
+     *
+     * @param solution     A solution of the sudoku: the value of every cell, row by row.
+     * @param cellIndexes  The cells in at least one of which any other solution must differ.
+     * @return             <code>true</code> if some solution differs from the known one, or if
+     *                     the search was cut short.
+     */
+    boolean hasOtherSolution(int[] solution, int[] cellIndexes);
+}
@@ -0,0 +1,108 @@
+/*
+  SudokuBackend.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.dlx;
+
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+
+
+/**
+ * A <code>SudokuBackend</code> is a way of solving a sudoku by exhaustive search. Each backend
+ * creates <code>ISudokuSolver</code>s, and any of them gives the same answers.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public abstract class SudokuBackend {
+
+    /** Solves a sudoku with a <code>SudokuSolver</code>, using Knuth's dancing links. */
+    public static final SudokuBackend DANCING_LINKS = new SudokuBackend("DANCING_LINKS") {
+        public boolean supports(final AbstractPuzzleModel puzzle) {
+            return true;
+        }
+
+        public ISudokuSolver createSolver(final AbstractPuzzleModel puzzle) {
+            return new SudokuSolver(puzzle);
+        }
+    };
+
+    /**
+     * Solves a sudoku with a <code>BitmaskSudokuSolver</code>. This is much faster, but it only
+     * handles grids of up to 64 values.
+     */
+    public static final SudokuBackend BITMASK = new SudokuBackend("BITMASK") {
+        public boolean supports(final AbstractPuzzleModel puzzle) {
+            return puzzle.getGridSize() <= BitmaskSudokuSolver.MAX_GRID_SIZE;
+        }
+
+        public ISudokuSolver createSolver(final AbstractPuzzleModel puzzle) {
+            return new BitmaskSudokuSolver(puzzle);
+        }
+    };
+
+    /** The name of this backend. */
+    private final String name;
+
+    /**
+     * Constructs a <code>SudokuBackend</code>.
+     *
+     * @param name  The name of this backend.
+     */
+    private SudokuBackend(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the fastest backend that can solve a sudoku.
+     *
+     * @param puzzle  A sudoku.
+     * @return        <code>BITMASK</code> if it supports the sudoku, <code>DANCING_LINKS</code>
+     *                otherwise.
+     */
+    public static SudokuBackend getDefault(final AbstractPuzzleModel puzzle) {
+        return BITMASK.supports(puzzle) ? BITMASK : DANCING_LINKS;
+    }
+
+    /**
+     * Tells whether this backend can solve a sudoku.
+     *
+     * @param puzzle  A sudoku.
+     * @return        <code>true</code> if this backend can solve the sudoku.
+     */
+    public abstract boolean supports(AbstractPuzzleModel puzzle);
+
+    /**
+     * Creates a solver for a sudoku.
+     *
+     * @param puzzle  The sudoku to be solved.
+     * @return        A new solver, with no givens placed.
+     */
+    public abstract ISudokuSolver createSolver(AbstractPuzzleModel puzzle);
+
+    /**
+     * Gets the name of this backend.
+     *
+     * @return  The name of this backend.
+     */
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+  SudokuMatrixTemplate.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.dlx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+import com.jfasttrack.sudoku.puzzle.Cell;
+import com.jfasttrack.sudoku.puzzle.House;
+
+
+/**
+ * A <code>SudokuMatrixTemplate</code> holds the dancing links matrix for one grid layout, built
+ * once and copied for each <code>SudokuSolver</code> that needs it.
+ * <p>
+ * The matrix of a sudoku depends only on its layout: the size of the grid and the cells that make
+ * up each house (rows, columns, rectangular or jigsaw blocks, and diagonals). Building it means
+ * creating every row and node, which costs far more than solving an easy puzzle. A template builds
+ * the matrix into an <code>ArrayDLXSolver</code> once; every solver made from it gets a copy of the
+ * packed arrays, and can be returned to the empty matrix by copying the arrays again.
+ * <p>
+ * Templates are kept in a small cache, most recently used first, so that a program that solves
+ * many puzzles with the same layout builds the matrix only once. Jigsaw layouts can be endlessly
+ * varied, so the cache is limited in size.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SudokuMatrixTemplate {
+
+    /** The maximum number of templates kept in the cache. */
+    private static final int CACHE_SIZE = 16;
+
+    /** The cached templates, keyed by layout, in order from least to most recently used. */
+    private static final Map CACHE = new LinkedHashMap(CACHE_SIZE, 0.75f, true) {
+
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Tells the map to discard the least recently used template when the cache is full.
+         *
+         * @param eldest  The least recently used entry.
+         * @return        <code>true</code> if the cache has grown too large.
+         */
+        protected boolean removeEldestEntry(final Map.Entry eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** The layout of the grid. */
+    private final Layout layout;
+
+    /** The empty matrix. It is copied, but never searched. */
+    private final ArrayDLXSolver matrix;
+
+    /**
+     * Constructs a <code>SudokuMatrixTemplate</code>, building the matrix for a puzzle's layout.
+     *
+     * @param puzzle  A puzzle with the layout to be built.
+     * @param layout  The layout of the puzzle.
+     */
+    private SudokuMatrixTemplate(final AbstractPuzzleModel puzzle, final Layout layout) {
+        this.layout = layout;
+        matrix = new ArrayDLXSolver();
+        new SudokuSolver(puzzle, matrix);
+        matrix.compile();
+    }
+
+    /**
+     * Gets the template for a puzzle's layout, building it if it is not in the cache. The
+     * template is built without holding the lock on the cache, so that building a large layout
+     * does not hold up the threads looking up other layouts. If two threads build the same layout
+     * at once, the first to finish is cached, and both use it.
+     *
+     * @param puzzle  A puzzle.
+     * @return        The template for the puzzle's layout.
+     */
+    public static SudokuMatrixTemplate getInstance(final AbstractPuzzleModel puzzle) {
+        Layout layout = new Layout(puzzle);
+        synchronized (CACHE) {
+            SudokuMatrixTemplate template = (SudokuMatrixTemplate) CACHE.get(layout);
+            if (template != null) {
+                return template;
+            }
+        }
+
+        SudokuMatrixTemplate built = new SudokuMatrixTemplate(puzzle, layout);
+        synchronized (CACHE) {
+            SudokuMatrixTemplate template = (SudokuMatrixTemplate) CACHE.get(layout);
+            if (template == null) {
+                template = built;
+                CACHE.put(layout, template);
+            }
+            return template;
+        }
+    }
+
+    /**
+     * Tells whether a puzzle has the layout of this template.
+     *
+     * @param puzzle  A puzzle.
+     * @return        <code>true</code> if a solver made from this template can solve the puzzle.
+     */
+    public boolean matches(final AbstractPuzzleModel puzzle) {
+        return layout.equals(new Layout(puzzle));
+    }
+
+    /**
+     * Makes a new engine that holds a copy of the empty matrix.
+     *
+     * @return  A new engine, ready to have givens placed.
+     */
+    public ArrayDLXSolver newEngine() {
+        return matrix.copy();
+    }
+
+    /**
+     * Returns an engine made by this template to the empty matrix, removing every given.
+     *
+     * @param engine  An engine returned by <code>newEngine</code>.
+     */
+    public void reset(final ArrayDLXSolver engine) {
+        engine.copyFrom(matrix);
+    }
+
+    /**
+     * Gets the layout of this template. Equal layouts have interchangeable solvers.
+     *
+     * @return  The layout of this template.
+     */
+    Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * The layout of a grid: its size, and the cells of each of its houses, in the order in which
+     * the houses add their columns to the matrix. A house keeps its cells in no particular order,
+     * so the cells of each house are sorted. Two puzzles with equal layouts have the same matrix,
+     * apart from the order of the rows within its columns.
+     */
+    static final class Layout {
+
+        /** The grid size, followed by the number of cells and the sorted cells of each house. */
+        private final int[] cells;
+
+        /** The hash code of the layout. */
+        private final int hashCode;
+
+        /**
+         * Constructs the <code>Layout</code> of a puzzle.
+         *
+         * @param puzzle  A puzzle.
+         */
+        Layout(final AbstractPuzzleModel puzzle) {
+            int gridSize = puzzle.getGridSize();
+            List list = new ArrayList();
+            list.add(Integer.valueOf(gridSize));
+            Iterator houses = puzzle.getAllHouses();
+            while (houses.hasNext()) {
+                House house = (House) houses.next();
+                int start = list.size();
+                list.add(null);
+                Iterator houseCells = house.getAllCells();
+                while (houseCells.hasNext()) {
+                    Cell cell = (Cell) houseCells.next();
+                    list.add(Integer.valueOf(cell.getRow() * gridSize + cell.getColumn()));
+                }
+                list.set(start, Integer.valueOf(list.size() - start - 1));
+            }
+
+            cells = new int[list.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = ((Integer) list.get(i)).intValue();
+            }
+            for (int start = 1; start < cells.length; start += cells[start] + 1) {
+                Arrays.sort(cells, start + 1, start + 1 + cells[start]);
+            }
+            hashCode = Arrays.hashCode(cells);
+        }
+
+        /**
+         * Tells whether another object is an equal layout.
+         *
+         * @param other  The object to be compared.
+         * @return       <code>true</code> if the other object is an equal layout.
+         */
+        public boolean equals(final Object other) {
+            return other instanceof Layout && Arrays.equals(cells, ((Layout) other).cells);
+        }
+
+        /**
+         * Gets the hash code of this layout.
+         *
+         * @return  The hash code of this layout.
+         */
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -21,11 +21,18 @@
 
 package com.jfasttrack.sudoku.dlx;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Random;
 
-import com.jfasttrack.dlx.AbstractDLXSolver;
-import com.jfasttrack.dlx.ColumnHeader;
-import com.jfasttrack.dlx.Node;
+import com.jfasttrack.dlx.AbstractExactCoverSolver;
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.dlx.SearchOutcome;
+import com.jfasttrack.dlx.SearchStats;
+import com.jfasttrack.dlx.SolutionListener;
+import com.jfasttrack.dlx.Uniqueness;
 import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
 import com.jfasttrack.sudoku.puzzle.House;
 
@@ -62,26 +69,76 @@ import com.jfasttrack.sudoku.puzzle.House;
  * An "exact cover" will have (a) 1 value in each cell, (b) each value appearing exactly once in
  * each row, (c) each value appearing exactly once in each column, and (d) each value appearing
  * exactly once in each block.
+ * <p>
+ * The matrix is built on an exact cover engine. By default the engine is an
+ * <code>ArrayDLXSolver</code> copied from the <code>SudokuMatrixTemplate</code> for the puzzle's
+ * layout, so the matrix is built only once for each layout. Any other
+ * <code>AbstractExactCoverSolver</code> (such as <code>LinkedDLXSolver</code> or
+ * <code>DancingCellsSolver</code>) can be supplied instead, in which case the matrix is built into
+ * it. A program that solves many puzzles can lease solvers from a <code>SudokuSolverPool</code>
+ * instead of making a new one for each puzzle.
+ * <p>
+ * For plain solving and counting, <code>BitmaskSudokuSolver</code> is much faster. Both implement
+ * <code>ISudokuSolver</code>; <code>SudokuBackend</code> chooses between them.
  *
  * @author   Pete Boton
  * @version  2009/05
  */
-public class SudokuSolver extends AbstractDLXSolver {
+public class SudokuSolver implements ISudokuSolver {
 
     /** The sudoku puzzle to be solved. */
     private final AbstractPuzzleModel puzzle;
 
+    /** The exact cover engine that holds the matrix and searches it. */
+    private final AbstractExactCoverSolver engine;
+
+    /** The template the matrix was copied from, or <code>null</code> if it was built here. */
+    private final SudokuMatrixTemplate template;
+
     /** The number of <code>Cell</code>s in each row and each column of the sudoku to be solved. */
     private final int gridSize;
 
+    /** Tells, for each cell, whether a given has been placed in it. */
+    private final boolean[] given;
+
+    /** Tells whether this solver is leased from a <code>SudokuSolverPool</code>. */
+    private boolean leased;
+
     /**
      * Constructs a <code>SudokuSolver</code>.
      *
      * @param puzzle  The sudoku to be solved.
      */
     public SudokuSolver(final AbstractPuzzleModel puzzle) {
+        this(puzzle, SudokuMatrixTemplate.getInstance(puzzle));
+    }
+
+    /**
+     * Constructs a <code>SudokuSolver</code> whose matrix is copied from a template.
+     *
+     * @param puzzle    The sudoku to be solved.
+     * @param template  A template with the same layout as the sudoku.
+     */
+    public SudokuSolver(final AbstractPuzzleModel puzzle, final SudokuMatrixTemplate template) {
+        this.puzzle = puzzle;
+        this.template = template;
+        engine = template.newEngine();
+        gridSize = puzzle.getGridSize();
+        given = new boolean[gridSize * gridSize];
+    }
+
+    /**
+     * Constructs a <code>SudokuSolver</code> that runs on the specified engine.
+     *
+     * @param puzzle  The sudoku to be solved.
+     * @param engine  An empty exact cover engine.
+     */
+    public SudokuSolver(final AbstractPuzzleModel puzzle, final AbstractExactCoverSolver engine) {
         this.puzzle = puzzle;
+        this.engine = engine;
+        template = null;
         gridSize = puzzle.getGridSize();
+        given = new boolean[gridSize * gridSize];
         createNodes();
     }
 
@@ -107,38 +164,36 @@ public class SudokuSolver extends AbstractDLXSolver {
     private void createHeaders(final int size) {
 
         // Create the column headers.
-        for (int cellIndex = 0; cellIndex < size * size; cellIndex++) {
-            createColumnHeader();
-        }
+        engine.createColumnHeaders(size * size);
 
         // Create the row headers.
         int matrixRowIndex = 0;
         for (int cellIndex = 0; cellIndex < size * size; cellIndex++) {
             for (int value = 0; value < size; value++) {
-                Node rowHeader = new Node();
-                rowHeader.applicationData = matrixRowIndex;
-                addRowHeader(rowHeader);
-                rowHeader.columnHeader = getColumnHeader(cellIndex);
-                rowHeader.columnHeader.append(rowHeader);
+                engine.addRow(matrixRowIndex, cellIndex);
                 matrixRowIndex++;
             }
         }
     }
 
     /**
-     * Creates a new <code>ColumnHeader</code> and adds it to the dancing links matrix.
+     * Creates a new column and adds it to the dancing links matrix.
      *
-     * @return  The new <code>ColumnHeader</code>.
+     * @return  The index of the new column.
      */
-    public final ColumnHeader createColumnHeader() {
-        ColumnHeader root = getRoot();
-        ColumnHeader columnHeader = new ColumnHeader();
-        columnHeader.left = root.left;
-        columnHeader.right = root;
-        root.left.right = columnHeader;
-        root.left = columnHeader;
-        addColumnHeader(columnHeader);
-        return columnHeader;
+    public final int createColumnHeader() {
+        engine.createColumnHeaders(1);
+        return engine.getNumberOfColumns() - 1;
+    }
+
+    /**
+     * Adds a node to a row of the dancing links matrix.
+     *
+     * @param rowIndex     The index of a row (i. e., a move) in the dancing links matrix.
+     * @param columnIndex  The index of the column that will contain the new node.
+     */
+    public final void addNode(final int rowIndex, final int columnIndex) {
+        engine.addNodeToRow(rowIndex, columnIndex);
     }
 
     /**
@@ -153,7 +208,8 @@ public class SudokuSolver extends AbstractDLXSolver {
             for (int column = 0; column < gridSize; column++) {
                 int cellIndex = row * gridSize + column;
                 if (puzzleGrid[cellIndex] > 0) {
-                    addRowToSolution(cellIndex * gridSize + (puzzleGrid[cellIndex] - 1));
+                    engine.addRowToSolution(cellIndex * gridSize + (puzzleGrid[cellIndex] - 1));
+                    given[cellIndex] = true;
                 }
             }
         }
@@ -161,6 +217,205 @@ public class SudokuSolver extends AbstractDLXSolver {
 
     /** Resets the dancing links matrix by removing all of the givens. */
     public void removeAllGivens() {
-        removeAllRowsFromSolution();
+        if (template != null) {
+            template.reset((ArrayDLXSolver) engine);
+        } else {
+            engine.removeAllRowsFromSolution();
+        }
+        Arrays.fill(given, false);
+    }
+
+    /**
+     * Returns this solver to the state in which it was created: no givens, no listeners, no search
+     * budget, no row shuffler, no propagation, and no statistics. This is done before a pooled
+     * solver is leased again.
+     */
+    void clear() {
+        removeAllGivens();
+        engine.removeAllListeners();
+        engine.setSearchBudget(SearchBudget.UNLIMITED);
+        engine.setRowShuffler(null);
+        engine.setPropagatingForcedMoves(false);
+        engine.setCollectingStats(false);
+    }
+
+    /**
+     * Gets the template the matrix was copied from.
+     *
+     * @return  The template, or <code>null</code> if the matrix was built into this solver.
+     */
+    SudokuMatrixTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Tells whether this solver is leased from a <code>SudokuSolverPool</code>.
+     *
+     * @return  <code>true</code> if this solver is leased.
+     */
+    boolean isLeased() {
+        return leased;
+    }
+
+    /**
+     * Records whether this solver is leased from a <code>SudokuSolverPool</code>.
+     *
+     * @param leased  <code>true</code> if this solver is being leased.
+     */
+    void setLeased(final boolean leased) {
+        this.leased = leased;
+    }
+
+    /**
+     * Adds a listener to be notified whenever a solution is found.
+     *
+     * @param listener  The listener to be added.
+     */
+    public void addSolutionListener(final SolutionListener listener) {
+        engine.addSolutionListener(listener);
+    }
+
+    /**
+     * Adds a listener to be notified with the rows of each solution found. The row that places
+     * <code>value</code> in cell <code>cellIndex</code> is
+     * <code>cellIndex * gridSize + (value - 1)</code>, so each row index tells a listener directly
+     * which value goes in which cell.
+     *
+     * @param listener  The listener to be added.
+     */
+    public void addRowSolutionListener(final RowSolutionListener listener) {
+        engine.addRowSolutionListener(listener);
+    }
+
+    /**
+     * Solves the sudoku, reporting each solution to the registered listeners.
+     *
+     * @return  How the search ended.
+     */
+    public SearchOutcome solve() {
+        return engine.solve();
+    }
+
+    /**
+     * Sets the limits on each search of this sudoku.
+     *
+     * @param searchBudget  The limits on each search.
+     */
+    public void setSearchBudget(final SearchBudget searchBudget) {
+        engine.setSearchBudget(searchBudget);
+    }
+
+    /**
+     * Gets how the most recent search ended. After <code>countSolutions</code> or
+     * <code>checkUniqueness</code>, this tells whether the count can be trusted.
+     *
+     * @return  How the most recent search ended, or <code>null</code> if no search has finished.
+     */
+    public SearchOutcome getOutcome() {
+        return engine.getOutcome();
+    }
+
+    /**
+     * Sets the source of random numbers used to shuffle the candidate moves tried at each step of
+     * the search. With a seeded source, the first solution of an empty grid is a random solution
+     * grid that can be generated again from the same seed.
+     *
+     * @param rowShuffler  The source of random numbers, or <code>null</code> to try the moves in
+     *                     order.
+     */
+    public void setRowShuffler(final Random rowShuffler) {
+        engine.setRowShuffler(rowShuffler);
+    }
+
+    /**
+     * Sets whether forced moves are propagated in a batch at each step of the search. On large
+     * grids, most moves are forced, and this saves choosing a column for each of them.
+     *
+     * @param propagatingForcedMoves  <code>true</code> if forced moves are to be propagated.
+     */
+    public void setPropagatingForcedMoves(final boolean propagatingForcedMoves) {
+        engine.setPropagatingForcedMoves(propagatingForcedMoves);
+    }
+
+    /**
+     * Sets whether statistics are kept for each search of this sudoku.
+     *
+     * @param collectingStats  <code>true</code> if statistics are to be kept.
+     */
+    public void setCollectingStats(final boolean collectingStats) {
+        engine.setCollectingStats(collectingStats);
+    }
+
+    /**
+     * Gets the statistics of the most recent search of this sudoku.
+     *
+     * @return  The statistics of the most recent search, or <code>null</code> if statistics are
+     *          not being kept.
+     */
+    public SearchStats getSearchStats() {
+        return engine.getSearchStats();
+    }
+
+    /**
+     * Counts the solutions of the sudoku, stopping as soon as a given number of them have been
+     * found.
+     *
+     * @param limit  The number of solutions after which the search stops.
+     * @return       The number of solutions found. This is never more than <code>limit</code>.
+     */
+    public int countSolutions(final int limit) {
+        return engine.countSolutions(limit);
+    }
+
+    /**
+     * Tells whether the sudoku has no solution, exactly one solution, or more. The search stops as
+     * soon as a second solution is found.
+     *
+     * @return  The uniqueness of the solution.
+     */
+    public Uniqueness checkUniqueness() {
+        return engine.checkUniqueness();
+    }
+
+    /**
+     * Tells whether the sudoku has a solution other than a known one, when any other solution
+     * must differ from the known one in at least one of some cells. The cells are taken in turn.
+     * For each, the row of the matrix that places the cell's known value is hidden, and the
+     * search looks for any solution at all; one that is found cannot hold the known value in
+     * that cell. Empty cells are taken; cells that hold givens cannot differ.
+     * <p>
+     * Unlike <code>BitmaskSudokuSolver</code>, this does not place the known value of a cell
+     * before the next one is taken, since that would add a row to the solution that could not be
+     * removed without removing the givens too. The searches may therefore cover some of the same
+     * subtrees.
+     * <p>
+     * If one of the searches is cut short by the search budget, the answer is <code>true</code>,
+     * since another solution could not be ruled out, and <code>getOutcome</code> tells why.
+     *
+     * @param solution     A solution of the sudoku: the value of every cell, row by row.
+     * @param cellIndexes  The cells in at least one of which any other solution must differ.
+     * @return             <code>true</code> if some solution differs from the known one, or if
+     *                     the search was cut short.
+     */
+    public boolean hasOtherSolution(final int[] solution, final int[] cellIndexes) {
+        for (int i = 0; i < cellIndexes.length; i++) {
+            int cellIndex = cellIndexes[i];
+            if (given[cellIndex]) {
+                continue;
+            }
+
+            int rowIndex = cellIndex * gridSize + (solution[cellIndex] - 1);
+            int numberOfSolutions;
+            engine.hideRow(rowIndex);
+            try {
+                numberOfSolutions = engine.countSolutions(1);
+            } finally {
+                engine.unhideRow(rowIndex);
+            }
+            if (numberOfSolutions > 0 || engine.getOutcome().isCutOff()) {
+                return true;
+            }
+        }
+        return false;
     }
 }
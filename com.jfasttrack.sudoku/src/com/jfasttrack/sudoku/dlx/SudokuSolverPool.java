@@ -0,0 +1,246 @@
+/*
+  SudokuSolverPool.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.dlx;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+
+
+/**
+ * A <code>SudokuSolverPool</code> keeps ready <code>SudokuSolver</code>s, grouped by layout, so
+ * that a program that solves puzzle after puzzle need not build a solver for each one. It may be
+ * used by any number of threads at once.
+ * <p>
+ * A solver is leased with <code>lease</code>, used by one thread, and given back with
+ * <code>release</code>. Releasing it removes its givens, its listeners, and any search budget,
+ * row shuffler, or statistics that were set, so the next lease always gets a solver as clean as a
+ * new one. A solver must not be used after it has been released.
+ * <p>
+ * The pool is bounded in two ways. Each layout keeps at most a given number of idle solvers; any
+ * more are dropped when they are released. At most a given number of layouts are kept; when
+ * another one is needed, the idle solvers of the least recently used layout are dropped. Dropped
+ * solvers are counted as evictions. Once the pool is warm, a lease finds an idle solver (a hit),
+ * and neither a lease nor a release allocates anything. A lease that finds none (a miss) builds a
+ * new solver from the layout's <code>SudokuMatrixTemplate</code>.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class SudokuSolverPool {
+
+    /** The number of layouts kept by a pool made with the default bounds. */
+    private static final int DEFAULT_MAX_LAYOUTS = 16;
+
+    /** The maximum number of idle solvers kept for each layout. */
+    private final int maxIdlePerLayout;
+
+    /** The maximum number of layouts kept. */
+    private final int maxLayouts;
+
+    /**
+     * The idle solvers of each layout, in order from least to most recently used layout. Each
+     * value is a list used as a stack.
+     */
+    private final Map idleSolvers;
+
+    /** The number of leases that found an idle solver. */
+    private long hits;
+
+    /** The number of leases that had to build a new solver. */
+    private long misses;
+
+    /** The number of idle solvers dropped because the pool was full. */
+    private long evictions;
+
+    /**
+     * Constructs a <code>SudokuSolverPool</code> that keeps, for each of up to 16 layouts, as many
+     * idle solvers as there are processors.
+     */
+    public SudokuSolverPool() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_LAYOUTS);
+    }
+
+    /**
+     * Constructs a <code>SudokuSolverPool</code> with the given bounds.
+     *
+     * @param maxIdlePerLayout  The maximum number of idle solvers kept for each layout.
+     * @param maxLayouts        The maximum number of layouts kept.
+     * @throws IllegalArgumentException  If either bound is less than 1.
+     */
+    public SudokuSolverPool(final int maxIdlePerLayout, final int maxLayouts) {
+        if (maxIdlePerLayout < 1 || maxLayouts < 1) {
+            throw new IllegalArgumentException(
+                    "Bounds must be positive: " + maxIdlePerLayout + ", " + maxLayouts);
+        }
+        this.maxIdlePerLayout = maxIdlePerLayout;
+        this.maxLayouts = maxLayouts;
+        idleSolvers = new LinkedHashMap(maxLayouts, 0.75f, true) {
+
+            /** The serial version UID. */
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Tells the map to discard the least recently used layout when there are too many,
+             * counting its idle solvers as evictions.
+             *
+             * @param eldest  The least recently used entry.
+             * @return        <code>true</code> if there are too many layouts.
+             */
+            protected boolean removeEldestEntry(final Map.Entry eldest) {
+                if (size() > SudokuSolverPool.this.maxLayouts) {
+                    evictions += ((List) eldest.getValue()).size();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Leases a solver for a puzzle's layout. The givens of the puzzle are not placed.
+     *
+     * @param puzzle  A puzzle.
+     * @return        An empty solver for the puzzle's layout.
+     */
+    public SudokuSolver lease(final AbstractPuzzleModel puzzle) {
+        return lease(puzzle, SudokuMatrixTemplate.getInstance(puzzle));
+    }
+
+    /**
+     * Leases a solver for a puzzle's layout, given the template for that layout. A caller that
+     * leases many solvers for the same layout can look the template up once, and save the work of
+     * finding the layout of each puzzle.
+     *
+     * @param puzzle    A puzzle.
+     * @param template  The template for the puzzle's layout.
+     * @return          An empty solver for the puzzle's layout.
+     */
+    public SudokuSolver lease(
+            final AbstractPuzzleModel puzzle, final SudokuMatrixTemplate template) {
+        synchronized (this) {
+            List idle = (List) idleSolvers.get(template.getLayout());
+            if (idle != null && !idle.isEmpty()) {
+                hits++;
+                SudokuSolver solver = (SudokuSolver) idle.remove(idle.size() - 1);
+                solver.setLeased(true);
+                return solver;
+            }
+            misses++;
+        }
+
+        SudokuSolver solver = new SudokuSolver(puzzle, template);
+        solver.setLeased(true);
+        return solver;
+    }
+
+    /**
+     * Gives back a leased solver. The solver is cleared, then kept for the next lease of its
+     * layout unless the pool already holds as many idle solvers of that layout as it may.
+     *
+     * @param solver  A solver returned by <code>lease</code>.
+     * @throws IllegalArgumentException  If the solver was not made from a template.
+     * @throws IllegalStateException     If the solver is not leased.
+     */
+    public void release(final SudokuSolver solver) {
+        SudokuMatrixTemplate template = solver.getTemplate();
+        if (template == null) {
+            throw new IllegalArgumentException("Only solvers made from a template can be pooled");
+        }
+        synchronized (this) {
+            if (!solver.isLeased()) {
+                throw new IllegalStateException("The solver is not leased");
+            }
+            solver.setLeased(false);
+        }
+
+        solver.clear();
+
+        synchronized (this) {
+            List idle = (List) idleSolvers.get(template.getLayout());
+            if (idle == null) {
+                idle = new ArrayList(maxIdlePerLayout);
+                idleSolvers.put(template.getLayout(), idle);
+            }
+            if (idle.size() < maxIdlePerLayout) {
+                idle.add(solver);
+            } else {
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of leases that found an idle solver.
+     *
+     * @return  The number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of leases that had to build a new solver.
+     *
+     * @return  The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of idle solvers dropped because the pool was full.
+     *
+     * @return  The number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of idle solvers in the pool, over all layouts.
+     *
+     * @return  The number of idle solvers.
+     */
+    public synchronized int getIdleCount() {
+        int count = 0;
+        Iterator lists = idleSolvers.values().iterator();
+        while (lists.hasNext()) {
+            count += ((List) lists.next()).size();
+        }
+        return count;
+    }
+
+    /**
+     * Describes the pool's metrics, for logging.
+     *
+     * @return  The hits, misses, evictions, and idle solvers of the pool.
+     */
+    public synchronized String toString() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " idle=" + getIdleCount();
+    }
+}
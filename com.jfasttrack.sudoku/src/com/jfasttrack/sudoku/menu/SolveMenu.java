@@ -26,15 +26,16 @@ import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.util.Iterator;
-import java.util.List;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.KeyStroke;
 
-import com.jfasttrack.dlx.Node;
-import com.jfasttrack.dlx.SolutionListener;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.Uniqueness;
 import com.jfasttrack.sudoku.DancingLinksSudoku;
-import com.jfasttrack.sudoku.dlx.SudokuSolver;
+import com.jfasttrack.sudoku.dlx.ISudokuSolver;
+import com.jfasttrack.sudoku.dlx.SudokuBackend;
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
 import com.jfasttrack.sudoku.puzzle.Cell;
 import com.jfasttrack.sudoku.puzzle.CellState;
 import com.jfasttrack.sudoku.solver.ISolver;
@@ -62,9 +63,6 @@ public class SolveMenu extends JMenu {
     /** The program that owns this menu. */
     private final DancingLinksSudoku owner;
 
-    /** The number of solutions found while checking a sudoku. */
-    private int numberOfSolutions;
-
     /** A solution found while checking a sudoku. */
     private int[] solution;
 
@@ -135,17 +133,15 @@ public class SolveMenu extends JMenu {
     void checkSudoku() {
         final int size = owner.getPuzzleDelegate().getPuzzleModel().getGridSize();
         solution = new int[size * size];
-        numberOfSolutions = 0;
-        SudokuSolver solver1 = new SudokuSolver(owner.getPuzzleDelegate().getPuzzleModel());
-        solver1.placeGivens(owner.getPuzzleDelegate().getPuzzleModel().getOriginalPuzzle());
-
-        solver1.addSolutionListener(new CheckerSolutionListener());
-        solver1.solve();
-        switch (numberOfSolutions) {
-        case 0 :
+        AbstractPuzzleModel puzzle = owner.getPuzzleDelegate().getPuzzleModel();
+        ISudokuSolver solver1 = SudokuBackend.getDefault(puzzle).createSolver(puzzle);
+        solver1.placeGivens(puzzle.getOriginalPuzzle());
+
+        solver1.addRowSolutionListener(new CheckerSolutionListener());
+        Uniqueness uniqueness = solver1.checkUniqueness();
+        if (uniqueness == Uniqueness.NONE) {
             owner.getMessagePanel().setText(MESSAGE_BUNDLE.getString("checker.0.solutions"));
-            break;
-        case 1 :
+        } else if (uniqueness == Uniqueness.UNIQUE) {
             boolean valid = true;
             for (int cellIndex = 0; cellIndex < size * size; cellIndex++) {
                 Cell cell = owner.getPuzzleDelegate().getPuzzleModel()
@@ -166,10 +162,8 @@ public class SolveMenu extends JMenu {
             } else {
                 owner.getMessagePanel().setText(MESSAGE_BUNDLE.getString("checker.invalid"));
             }
-            break;
-        default :
+        } else {
             owner.getMessagePanel().setText(MESSAGE_BUNDLE.getString("checker.2.solutions"));
-            break;
         }
     }
 
@@ -307,29 +301,26 @@ public class SolveMenu extends JMenu {
      * This is the listener that will be notified of a solution while
      * checking the validity of a sudoku.
      */
-    class CheckerSolutionListener implements SolutionListener {
+    class CheckerSolutionListener implements RowSolutionListener {
 
         /**
-         * Records the solution found by the solver.
+         * Records the solution found by the solver. The solver itself stops after the second
+         * solution.
          *
-         * @param solutionNodes  The <code>Node</code>s that make up
-         *                       the generated solution.
-         * @return               <code>true</code> if more than one
-         *                       solution has been found.
+         * @param rows   The rows that make up the generated solution.
+         * @param depth  The number of rows in the solution.
+         * @return       <code>false</code> to let the solver decide when to stop.
          */
-        public boolean solutionFound(final List solutionNodes) {
+        public boolean solutionFound(final int[] rows, final int depth) {
             int size = owner.getPuzzleDelegate().getPuzzleModel().getGridSize();
-            numberOfSolutions++;
 
-            Iterator iterator = solutionNodes.iterator();
-            while (iterator.hasNext()) {
-                Node node = (Node) iterator.next();
-                int index = node.applicationData / size;
-                int value = node.applicationData % size + 1;
+            for (int i = 0; i < depth; i++) {
+                int index = rows[i] / size;
+                int value = rows[i] % size + 1;
                 solution[index] = value;
             }
 
-            return numberOfSolutions > 1;
+            return false;
         }
     }
 }
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.StringTokenizer;
 
@@ -70,24 +71,48 @@ public abstract class AbstractPuzzleModel {
     /** A collection containing every <code>House</code> (row, column, block, etc.). */
     private final List houses = new ArrayList();
 
-    /** Constructs an <code>AbstractPuzzleModel</code>. */
-    AbstractPuzzleModel() {
-        Options options = Options.getInstance();
+    /**
+     * Constructs an <code>AbstractPuzzleModel</code>.
+     *
+     * @param random  The random number generator used to generate jigsaw blocks.
+     */
+    AbstractPuzzleModel(final Random random) {
+        this(Options.getInstance(), random);
+    }
+
+    /**
+     * Constructs an <code>AbstractPuzzleModel</code> from a <code>String</code>.
+     *
+     * @param puzzleString  A <code>String</code> containing a sudoku.
+     */
+    AbstractPuzzleModel(final String puzzleString) {
+        this(loadOptions(puzzleString), null);
+    }
+
+    /**
+     * Constructs an <code>AbstractPuzzleModel</code> with the layout given by a set of options.
+     *
+     * @param options  The options that give the layout and the action taken to create it.
+     * @param random   The random number generator used to generate jigsaw blocks.
+     */
+    AbstractPuzzleModel(final Options options, final Random random) {
         gridSize = options.getGridSize();
         workGrid = new ArrayList();
         originalPuzzle = new int[gridSize * gridSize];
 
-        int[][] blockIndexes = createBlockIndexes();
-        createHouses();
-        createCells(blockIndexes);
+        int[][] blockIndexes = createBlockIndexes(options, random);
+        createHouses(options);
+        createCells(options, blockIndexes);
     }
 
     /**
-     * Constructs an <code>AbstractPuzzleModel</code> from a <code>String</code>.
+     * Sets the options from the options line, if any, at the head of a <code>String</code>
+     * containing a sudoku, so that the sudoku can be loaded from it.
      *
      * @param puzzleString  A <code>String</code> containing a sudoku.
+     * @return              The options.
      */
-    AbstractPuzzleModel(final String puzzleString) {
+    private static Options loadOptions(final String puzzleString) {
         Options options = Options.getInstance();
         options.setDefaults();
         options.setCreateAction(Options.CreateAction.LOAD);
@@ -99,22 +124,17 @@ public abstract class AbstractPuzzleModel {
             options.load(line);
         }
 
-        gridSize = options.getGridSize();
-        workGrid = new ArrayList();
-
-        originalPuzzle = new int[gridSize * gridSize];
-        int[][] blockIndexes = createBlockIndexes();
-        createHouses();
-        createCells(blockIndexes);
+        return options;
     }
 
     /**
      * Creates an array containing the block index for each cell.
      *
-     * @return  An array containing the block index for each cell.
+     * @param options  The options that give the layout.
+     * @param random   The random number generator used to generate jigsaw blocks.
+     * @return         An array containing the block index for each cell.
      */
-    private int[][] createBlockIndexes() {
-        Options options = Options.getInstance();
+    private int[][] createBlockIndexes(final Options options, final Random random) {
         Options.CreateAction createAction = options.getCreateAction();
 
         int[][] blockIndexes = null;
@@ -131,7 +151,7 @@ public abstract class AbstractPuzzleModel {
 
             // JIGSAW
             if (createAction == Options.CreateAction.GENERATE) {
-                blockIndexes = JigsawGenerator.getInstance().run(gridSize);
+                blockIndexes = new JigsawGenerator(random).run(gridSize);
             } else {
 
                 // (CREATE_EMPTY or LOAD) + JIGSAW. Set all of the indexes to -1.
@@ -147,10 +167,13 @@ public abstract class AbstractPuzzleModel {
         return blockIndexes;
     }
 
-    /** Creates this sudoku's row, column, and -- if appropriate -- diagonal houses. */
-    private void createHouses() {
+    /**
+     * Creates this sudoku's row, column, and -- if appropriate -- diagonal houses.
+     *
+     * @param options  The options that give the layout.
+     */
+    private void createHouses(final Options options) {
         MessageBundle messageBundle = MessageBundle.getInstance();
-        Options options = Options.getInstance();
         Options.CreateAction createAction = options.getCreateAction();
 
         // Create the houses.
@@ -186,10 +209,10 @@ public abstract class AbstractPuzzleModel {
     /**
      * Creates the cells and add them to their respective houses.
      *
+     * @param options       The options that give the layout.
      * @param blockIndexes  Array containing the block index for each <code>Cell</code>.
      */
-    private void createCells(final int[][] blockIndexes) {
-        Options options = Options.getInstance();
+    private void createCells(final Options options, final int[][] blockIndexes) {
         Options.CreateAction createAction = options.getCreateAction();
 
         for (int row = 0; row < gridSize; row++) {
@@ -23,10 +23,9 @@ package com.jfasttrack.sudoku.puzzle;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
-import com.jfasttrack.dlx.ColumnHeader;
-import com.jfasttrack.dlx.Node;
 import com.jfasttrack.sudoku.dlx.SudokuSolver;
 import com.jfasttrack.sudoku.step.ValuePlacementStep;
 
@@ -41,8 +40,11 @@ import com.jfasttrack.sudoku.step.ValuePlacementStep;
  */
 public class House implements Cell.ValueListener {
 
-    /** The collection of <code>Cell</code>s in this <code>House</code>. */
-    private final Set allCells = new HashSet();
+    /**
+     * The collection of <code>Cell</code>s in this <code>House</code>, in the order they were
+     * added. This keeps the dancing links matrix the same from one run to the next.
+     */
+    private final Set allCells = new LinkedHashSet();
 
     /** The <code>Cell</code>s in this <code>House</code> that do not yet contain a value. */
     private final Set unsolvedCells = new HashSet();
@@ -161,9 +163,9 @@ public class House implements Cell.ValueListener {
          */
 
         // Construct the column headers.
-        ColumnHeader[] columnHeader = new ColumnHeader[gridSize + 1];
+        int[] columnIndex = new int[gridSize + 1];
         for (int value = 1; value <= gridSize; value++) {
-            columnHeader[value] = solver.createColumnHeader();
+            columnIndex[value] = solver.createColumnHeader();
         }
 
         // Construct the nodes.
@@ -176,39 +178,11 @@ public class House implements Cell.ValueListener {
                 int row = cell.getRow();
                 int column = cell.getColumn();
                 int rowIndex = (row * gridSize + column) * gridSize + value - 1;
-                createAndLinkOneNode(solver, rowIndex, columnHeader[value]);
+                solver.addNode(rowIndex, columnIndex[value]);
             }
         }
     }
 
-    /**
-     * Creates a <code>Node</code> and adds it to the dancing links matrix.
-     *
-     * @param solver        The <code>SudokuSolver</code> that will solve the sudoku that contains
-     *                      this <code>House</code>.
-     * @param rowIndex      The index of a row in the puzzle grid.
-     * @param columnHeader  The header of the column that will contain the new <code>Node</code>.
-     */
-    private static void createAndLinkOneNode(
-            final SudokuSolver solver,
-            final int rowIndex,
-            final ColumnHeader columnHeader) {
-
-        // Create the new node.
-        Node node = new Node();
-        node.applicationData = rowIndex;
-
-        // Connect it to its row.
-        Node rowHeader = solver.getRowHeader(rowIndex);
-        node.left = rowHeader.left;
-        node.right = rowHeader;
-        rowHeader.left.right = node;
-        rowHeader.left = node;
-
-        // Connect it to its column.
-        columnHeader.append(node);
-    }
-
     /**
      * Called whenever the value of a <code>Cell</code> in this <code>House</code> is placed or
      * removed. Updates cells as needed.
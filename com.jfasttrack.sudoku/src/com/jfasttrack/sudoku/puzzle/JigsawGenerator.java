@@ -21,11 +21,13 @@
 
 package com.jfasttrack.sudoku.puzzle;
 
+import java.util.Random;
 import java.util.Stack;
 
 
 /**
- * This class generates jigsaw blocks for a sudoku.
+ * This class generates jigsaw blocks for a sudoku. A generator holds the state of the blocks under
+ * construction, so each thread that generates sudokus needs its own.
  *
  * @author   Pete Boton
  * @version  2009/05
@@ -42,8 +44,8 @@ public final class JigsawGenerator {
         -1, 0, 0, 1,
     };
 
-    /** The singleton instance of this class. */
-    private static final JigsawGenerator INSTANCE = new JigsawGenerator();
+    /** Random number generator. */
+    private final Random random;
 
     /** The size of the sudoku grid. */
     private int gridSize;
@@ -63,18 +65,14 @@ public final class JigsawGenerator {
     /** The number of cells in the region currently under construction. */
     private int regionSize;
 
-    /** Private constructor to keep anyone from instantiating this class. */
-    private JigsawGenerator() {
-        // Nothing to do here.
-    }
-
     /**
-     * Gets the singleton instance of this class.
+     * Constructs a <code>JigsawGenerator</code>. The same sequence of random numbers always
+     * generates the same blocks.
      *
-     * @return  The singleton instance of this class.
+     * @param random  The random number generator used to shape the blocks.
      */
-    public static JigsawGenerator getInstance() {
-        return INSTANCE;
+    JigsawGenerator(final Random random) {
+        this.random = random;
     }
 
     /**
@@ -150,9 +148,9 @@ public final class JigsawGenerator {
         int newR = 0;
         int newC = 0;
         do {
-            int cellIndex = (int) (Math.random() * assignments[index].size());
+            int cellIndex = random.nextInt(assignments[index].size());
             Assignment p = (Assignment) assignments[index].get(cellIndex);
-            direction = (int) (Math.random() * X_INC.length);
+            direction = random.nextInt(X_INC.length);
             newR = p.row + Y_INC[direction];
             newC = p.column + X_INC[direction];
         } while (newR < 0 || newC < 0 || newR >= gridSize || newC >= gridSize
@@ -186,9 +184,9 @@ public final class JigsawGenerator {
         int newR = 0;
         int newC = 0;
         do {
-            cellIndex = (int) (Math.random() * assignments[index].size());
+            cellIndex = random.nextInt(assignments[index].size());
             Assignment p = (Assignment) assignments[index].get(cellIndex);
-            direction = (int) (Math.random() * X_INC.length);
+            direction = random.nextInt(X_INC.length);
             newR = p.row + Y_INC[direction];
             newC = p.column + X_INC[direction];
         } while (newR < 0 || newC < 0 || newR >= gridSize || newC >= gridSize
@@ -99,6 +99,23 @@ public final class Options {
         return INSTANCE;
     }
 
+    /**
+     * Creates a copy of these options. A copy is not changed when the singleton instance is, so it
+     * can describe the layout of sudokus that are built while the options are changing.
+     *
+     * @return  A copy of these options.
+     */
+    public Options copy() {
+        Options copy = new Options();
+        copy.createAction   = createAction;
+        copy.gridSize       = gridSize;
+        copy.blockType      = blockType;
+        copy.blockWidth     = blockWidth;
+        copy.blockHeight    = blockHeight;
+        copy.usingDiagonals = usingDiagonals;
+        return copy;
+    }
+
     /**
      * Sets the action taken when a sudoku is created.
      *
@@ -239,6 +256,23 @@ public final class Options {
      * @return  A <code>String</code> representation of the <code>Options</code>.
      */
     public String toString() {
+        return toString(gridSize, blockType, blockHeight, blockWidth, usingDiagonals);
+    }
+
+    /**
+     * Creates a <code>String</code> representation of a set of options, in the form read by
+     * <code>load</code>.
+     *
+     * @param gridSize        The size of the sudoku grid.
+     * @param blockType       The type of blocks.
+     * @param blockHeight     The height of each rectangular block.
+     * @param blockWidth      The width of each rectangular block.
+     * @param usingDiagonals  Whether the sudoku has diagonal houses.
+     * @return                A <code>String</code> representation of the options, or an empty
+     *                        <code>String</code> for the default options.
+     */
+    public static String toString(final int gridSize, final BlockType blockType,
+            final int blockHeight, final int blockWidth, final boolean usingDiagonals) {
         StringBuffer buffer = new StringBuffer(64);
 
         if (gridSize != 9) {
@@ -197,7 +197,7 @@ public class PuzzleDelegate extends JPanel {
                 History history = History.getInstance();
                 cells.add(cell);
                 CandidateRemovalStep step = new CandidateRemovalStep(cells, valueToBeRemoved);
-                cell.removeCandidate(valueToBeRemoved);
+                step.redo();
                 editMenu.setUndoEnabled(true);
                 editMenu.setRedoEnabled(false);
                 history.pushUndoStack(step);
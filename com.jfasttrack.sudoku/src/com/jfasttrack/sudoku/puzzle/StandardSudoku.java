@@ -21,13 +21,13 @@
 
 package com.jfasttrack.sudoku.puzzle;
 
-import java.util.Iterator;
-import java.util.List;
 import java.util.Random;
 import java.util.StringTokenizer;
 
-import com.jfasttrack.dlx.Node;
-import com.jfasttrack.dlx.SolutionListener;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.sudoku.dlx.ISudokuSolver;
+import com.jfasttrack.sudoku.dlx.SudokuBackend;
 import com.jfasttrack.sudoku.dlx.SudokuSolver;
 import com.jfasttrack.sudoku.ui.MessageBundle;
 
@@ -44,17 +44,37 @@ public class StandardSudoku extends AbstractPuzzleModel {
     /** Message bundle that holds all messages for this program. */
     private static final MessageBundle MESSAGE_BUNDLE = MessageBundle.getInstance();
 
-    /** The number of solutions generated during puzzle creation. */
-    private int numberOfSolutions;
-
     /** Random number generator. */
-    private final Random random = new Random();
+    private final Random random;
 
     /** A line of text containing part of a sudoku. */
     private String line;
 
     /** Constructs a <code>StandardSudoku</code>. */
     public StandardSudoku() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs a <code>StandardSudoku</code>. If a sudoku is to be generated, the same seed
+     * always generates the same sudoku (and the same blocks, for a jigsaw sudoku) for the given
+     * options. Only the options are shared, so sudokus can be generated on several threads at
+     * once as long as the options do not change.
+     *
+     * @param seed  The seed of the random number generator.
+     */
+    public StandardSudoku(final long seed) {
+        this(new Random(seed));
+    }
+
+    /**
+     * Constructs a <code>StandardSudoku</code>.
+     *
+     * @param random  The random number generator used to generate the sudoku.
+     */
+    private StandardSudoku(final Random random) {
+        super(random);
+        this.random = random;
         if (Options.getInstance().getCreateAction() == Options.CreateAction.GENERATE) {
             generateRandomSudoku();
         }
@@ -67,9 +87,34 @@ public class StandardSudoku extends AbstractPuzzleModel {
      */
     public StandardSudoku(final String puzzleString) {
         super(puzzleString);
+        random = new Random();
+        load(Options.getInstance(), puzzleString);
+    }
 
-        Options options = Options.getInstance();
+    /**
+     * Constructs a <code>StandardSudoku</code> from a <code>String</code>, with the layout given
+     * by a set of options instead of by an options line. The shared options are neither read nor
+     * changed, so sudokus can be loaded on several threads at once, each with a copy of the
+     * options made by <code>Options.copy</code>.
+     *
+     * @param options       The options that give the layout. The create action must be
+     *                      <code>LOAD</code>.
+     * @param puzzleString  A <code>String</code> containing the blocks, for a jigsaw sudoku, and
+     *                      the givens of a sudoku. An options line at its head is ignored.
+     */
+    public StandardSudoku(final Options options, final String puzzleString) {
+        super(options, null);
+        random = new Random();
+        load(options, puzzleString);
+    }
 
+    /**
+     * Loads the blocks, for a jigsaw sudoku, and the givens of a sudoku.
+     *
+     * @param options       The options that give the layout.
+     * @param puzzleString  A <code>String</code> containing a sudoku.
+     */
+    private void load(final Options options, final String puzzleString) {
         StringTokenizer st = new StringTokenizer(puzzleString.replaceAll("0", "."), "\n");
 
         line = st.nextToken();
@@ -157,12 +202,13 @@ public class StandardSudoku extends AbstractPuzzleModel {
 
         // Step 1: Generate a solution grid.
         generateSolutionGrid();
+        int[] solution = (int[]) originalPuzzle.clone();
 
         // Step 2: Randomly remove pairs of values as long as the puzzle has a unique solution.
-        randomlyRemoveValues();
+        randomlyRemoveValues(solution);
 
         // Step 3: Minimize the puzzle. Go through the grid, trying to remove values 2 at a time.
-        minimize();
+        minimize(solution);
 
         // originalPuzzle contains a valid, minimized sudoku. Copy the values into the workGrid.
         for (int row = 0; row < getGridSize(); row++) {
@@ -176,57 +222,46 @@ public class StandardSudoku extends AbstractPuzzleModel {
         }
     }
 
-    /** Generates a random solution grid. */
+    /**
+     * Generates a random solution grid. The dancing links search tries the moves at each step in
+     * a random order, so the first solution it finds of the empty grid is a random one.
+     */
     private void generateSolutionGrid() {
         int size = getGridSize();
         SudokuSolver solver1 = new SudokuSolver(this);
-        solver1.addSolutionListener(new SolutionListener() {
-            public boolean solutionFound(final List solutionNodes) {
-                numberOfSolutions++;
-
-                Iterator iterator = solutionNodes.iterator();
-                while (iterator.hasNext()) {
-                    Node node = (Node) iterator.next();
-                    int index = node.applicationData / getGridSize();
-                    int value = node.applicationData % getGridSize() + 1;
+        solver1.addRowSolutionListener(new RowSolutionListener() {
+            public boolean solutionFound(final int[] rows, final int depth) {
+                for (int i = 0; i < depth; i++) {
+                    int index = rows[i] / getGridSize();
+                    int value = rows[i] % getGridSize() + 1;
                     originalPuzzle[index] = value;
                 }
 
-                return true;
+                return false;
             }
         });
+        solver1.setRowShuffler(random);
 
-        int limit = size;
+        /*
+         * Now and then, an early move leads the search into a large part of the tree with no
+         * solution. Rather than search all of it, give up after a while and start over with a new
+         * shuffle. The limit doubles each time, so the search always finishes.
+         */
+        long maxNodes = (long) size * size * size;
+        int numberOfSolutions;
         do {
-            // Clear the grid.
-            for (int cellIndex = 0; cellIndex < size * size; cellIndex++) {
-                originalPuzzle[cellIndex] = 0;
-            }
-
-            // Seed the grid with a few random numbers.
-            for (int value = 1; value <= limit; value++) {
-
-                // Generate the index of an empty cell.
-                int cellIndex = 0;
-                do {
-                    cellIndex = random.nextInt(size * size);
-                } while (originalPuzzle[cellIndex] != 0);
-
-                // And put the value into the grid.
-                originalPuzzle[cellIndex] = value;
-            }
-
-            // Solve the grid.
-            solver1.placeGivens(getOriginalPuzzle());
-            numberOfSolutions = 0;
-            solver1.solve();
-            solver1.removeAllGivens();
-            limit--;
-        } while (numberOfSolutions == 0);
+            solver1.setSearchBudget(new SearchBudget(maxNodes, 0, false));
+            numberOfSolutions = solver1.countSolutions(1);
+            maxNodes *= 2;
+        } while (numberOfSolutions == 0 && solver1.getOutcome().isCutOff());
     }
 
-    /** Randomly removes values from a sudoku grid. */
-    private void randomlyRemoveValues() {
+    /**
+     * Randomly removes values from a sudoku grid.
+     *
+     * @param solution  The solution grid from which the values are removed.
+     */
+    private void randomlyRemoveValues(final int[] solution) {
 
         /*
          * Start with a completed (solved) sudoku grid.
@@ -234,8 +269,10 @@ public class StandardSudoku extends AbstractPuzzleModel {
          * Each pass through the loop:
          *  1) Select the indexes of 4 non-empty cells. Make the selections to preserve symmetry.
          *  2) Remove the values from those cells.
-         *  3) Try to solve the resulting puzzle.
-         *  4) If the result puzzle has more than 1 solution, put those values back into the grid.
+         *  3) Look for a solution of the resulting puzzle other than the solution grid. Until
+         *     now, the puzzle had only that solution, so any other must differ from it in one of
+         *     the cells just cleared.
+         *  4) If there is one, put those values back into the grid.
          * Keep looping until the test in step 4 fails 3 times.
          */
 
@@ -244,13 +281,7 @@ public class StandardSudoku extends AbstractPuzzleModel {
         int size = getGridSize();
         int numberOfCells = size * size;
 
-        SudokuSolver solver2 = new SudokuSolver(this);
-        solver2.addSolutionListener(new SolutionListener() {
-            public boolean solutionFound(final List solutionNodes) {
-                numberOfSolutions++;
-                return false;
-            }
-        });
+        ISudokuSolver solver2 = SudokuBackend.getDefault(this).createSolver(this);
 
         int failureCount = 0;
         do {
@@ -273,14 +304,13 @@ public class StandardSudoku extends AbstractPuzzleModel {
                 originalPuzzle[cellIndex[i]] = 0;
             }
 
-            // Solve the resulting sudoku.
-            numberOfSolutions = 0;
+            // Another solution of the resulting sudoku would differ in one of the cleared cells.
             solver2.placeGivens(getOriginalPuzzle());
-            solver2.solve();
+            boolean ambiguous = solver2.hasOtherSolution(solution, cellIndex);
             solver2.removeAllGivens();
 
-            // If the solution is no longer unique, put the values back and record a failure.
-            if (numberOfSolutions > 1) {
+            // If the solution may no longer be unique, put the values back and record a failure.
+            if (ambiguous) {
                 for (int i = value.length - 1; i >= 0; i--) {
                     originalPuzzle[cellIndex[i]] = value[i];
                 }
@@ -291,31 +321,22 @@ public class StandardSudoku extends AbstractPuzzleModel {
         } while (failureCount < 3);
     }
 
-    /** Minimizes a sudoku grid. */
-    private void minimize() {
+    /**
+     * Minimizes a sudoku grid.
+     *
+     * @param solution  The solution grid of the sudoku.
+     */
+    private void minimize(final int[] solution) {
         int size = getGridSize();
         int numberOfCells = size * size;
-        SudokuSolver solver = new SudokuSolver(this);
-        solver.addSolutionListener(new SolutionListener() {
-
-            /**
-             * This is called when a solution is found. It merely
-             * increments the number of solutions.
-             *
-             * @param solutionNodes  The <code>Node</code>s that make up
-             *                       the generated solution.
-             * @return               <code>false</code> to tell the solver
-             *                       to continue generating solutions.
-             */
-            public boolean solutionFound(final List solutionNodes) {
-                numberOfSolutions++;
-                return false;
-            }
-        });
+        ISudokuSolver solver = SudokuBackend.getDefault(this).createSolver(this);
+        int[] clearedCells = new int[2];
 
         for (int cellIndex1 = 0; cellIndex1 < (numberOfCells + 1) / 2; cellIndex1++) {
             if (originalPuzzle[cellIndex1] != 0) {
                 int cellIndex2 = numberOfCells - cellIndex1 - 1;
+                clearedCells[0] = cellIndex1;
+                clearedCells[1] = cellIndex2;
 
                 // Save the values, then clear those cells.
                 int value1 = originalPuzzle[cellIndex1];
@@ -323,14 +344,13 @@ public class StandardSudoku extends AbstractPuzzleModel {
                 originalPuzzle[cellIndex1] = 0;
                 originalPuzzle[cellIndex2] = 0;
 
-                // Solve the resulting sudoku.
-                numberOfSolutions = 0;
+                // Another solution would differ from the solution grid in one of these cells.
                 solver.placeGivens(getOriginalPuzzle());
-                solver.solve();
+                boolean ambiguous = solver.hasOtherSolution(solution, clearedCells);
                 solver.removeAllGivens();
 
-                // If the solution is no longer unique, put the values back.
-                if (numberOfSolutions > 1) {
+                // If the solution may no longer be unique, put the values back.
+                if (ambiguous) {
                     originalPuzzle[cellIndex1] = value1;
                     originalPuzzle[cellIndex2] = value2;
                 }
@@ -0,0 +1,75 @@
+/*
+  DifficultyRater.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.solver;
+
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+import com.jfasttrack.sudoku.step.AbstractStep;
+
+
+/**
+ * A <code>DifficultyRater</code> rates a sudoku by solving it with the logical solvers alone, the
+ * way a person would: at each step, it applies the simplest solver (in the order of
+ * <code>Solver.SOLVERS</code>) that can make progress. It stops when the sudoku is solved or no
+ * solver can make progress, and reports how many steps each solver took.
+ * <p>
+ * A rater has its own solvers, so that raters on different threads do not interfere. A rater is
+ * not safe for use by several threads at once.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class DifficultyRater {
+
+    /** This rater's instance of each solver. */
+    private final ISolver[] solvers = Solver.createSolvers();
+
+    /**
+     * Rates a sudoku. The sudoku is solved as far as the solvers can take it, so the caller
+     * should pass a copy if the original is still wanted.
+     *
+     * @param puzzle  The sudoku to be rated.
+     * @return        The rating of the sudoku.
+     */
+    public Rating rate(final AbstractPuzzleModel puzzle) {
+        int[] stepsPerSolver = new int[solvers.length];
+
+        // Every step places a value or removes at least one candidate, so this is never reached
+        // unless a solver reports a step that changes nothing.
+        int numberOfCells = puzzle.getGridSize() * puzzle.getGridSize();
+        int maxSteps = numberOfCells * (puzzle.getGridSize() + 1);
+
+        for (int stepCount = 0; stepCount < maxSteps && !puzzle.isSolved(); stepCount++) {
+            AbstractStep step = null;
+            int i = 0;
+            while (step == null && i < solvers.length) {
+                step = solvers[i++].getNextStep(puzzle);
+            }
+            if (step == null) {
+                break;
+            }
+            step.redo();
+            stepsPerSolver[i - 1]++;
+        }
+
+        return new Rating(stepsPerSolver, !puzzle.isSolved());
+    }
+}
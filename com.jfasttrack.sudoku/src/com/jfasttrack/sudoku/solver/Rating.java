@@ -0,0 +1,160 @@
+/*
+  Rating.java
+
+  Copyright (C) 2008-2009 by Pete Boton, www.jfasttrack.com
+
+  This file is part of Dancing Links Sudoku.
+
+  Dancing Links Sudoku is free for non-commercial use. Contact the author for commercial use.
+
+  You can redistribute and/or modify this software only under the terms of the GNU General Public
+  License as published by the Free Software Foundation. Version 2 of the License or (at your option)
+  any later version may be used.
+
+  This program is distributed in the hope that it will be useful and enjoyable, but WITH NO
+  WARRANTY; not even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this program; if not,
+  write to the Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307.
+*/
+
+package com.jfasttrack.sudoku.solver;
+
+
+/**
+ * A <code>Rating</code> tells how difficult a sudoku is to solve by logic alone: how many steps
+ * each solver in <code>Solver.SOLVERS</code> took, and whether the solvers got stuck before the
+ * sudoku was solved, so that a search (such as dancing links) would be needed to finish it.
+ *
+ * @author   Pete Boton
+ * @version  2009/05
+ */
+public final class Rating {
+
+    /** The number of steps taken by each solver, in the order of <code>Solver.SOLVERS</code>. */
+    private final int[] stepsPerSolver;
+
+    /** Tells whether the solvers got stuck before the sudoku was solved. */
+    private final boolean fallbackRequired;
+
+    /**
+     * Constructs a <code>Rating</code>.
+     *
+     * @param stepsPerSolver    The number of steps taken by each solver. The array is copied.
+     * @param fallbackRequired  <code>true</code> if the solvers got stuck before the sudoku was
+     *                          solved.
+     */
+    public Rating(final int[] stepsPerSolver, final boolean fallbackRequired) {
+        this.stepsPerSolver = (int[]) stepsPerSolver.clone();
+        this.fallbackRequired = fallbackRequired;
+    }
+
+    /**
+     * Gets the index of the hardest solver needed: the last solver in <code>Solver.SOLVERS</code>
+     * that took at least one step.
+     *
+     * @return  The index of the hardest solver, or -1 if no step was taken.
+     */
+    public int getHardestSolverIndex() {
+        for (int i = stepsPerSolver.length - 1; i >= 0; i--) {
+            if (stepsPerSolver[i] > 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of steps taken by one solver.
+     *
+     * @param solverIndex  The index of the solver in <code>Solver.SOLVERS</code>.
+     * @return             The number of steps taken by the solver.
+     */
+    public int getNumberOfSteps(final int solverIndex) {
+        return stepsPerSolver[solverIndex];
+    }
+
+    /**
+     * Gets the total number of steps taken by all solvers.
+     *
+     * @return  The number of steps taken.
+     */
+    public int getNumberOfSteps() {
+        int total = 0;
+        for (int i = 0; i < stepsPerSolver.length; i++) {
+            total += stepsPerSolver[i];
+        }
+        return total;
+    }
+
+    /**
+     * Tells whether the solvers got stuck before the sudoku was solved.
+     *
+     * @return  <code>true</code> if a search is needed to finish the sudoku.
+     */
+    public boolean isFallbackRequired() {
+        return fallbackRequired;
+    }
+
+    /**
+     * Gets the difficulty tier of the sudoku: the group (in <code>Solver.GROUP_NAME</code>) of the
+     * hardest solver needed. A sudoku that the solvers cannot finish is in a tier of its own,
+     * just past the last group.
+     *
+     * @return  The index of the group of the hardest solver needed, 0 if no step was needed, or
+     *          <code>Solver.GROUP_NAME.length</code> if a search is needed.
+     */
+    public int getTier() {
+        if (fallbackRequired) {
+            return Solver.GROUP_NAME.length;
+        }
+        int hardest = getHardestSolverIndex();
+        return hardest < 0 ? 0 : Solver.GROUP_INDEX[hardest];
+    }
+
+    /**
+     * Gets the name of a difficulty tier, for example <code>subset</code>.
+     *
+     * @param tier  A difficulty tier, as returned by <code>getTier</code>.
+     * @return      The name of the group of solvers, without its <code>solver.</code> prefix, or
+     *              <code>dlx</code> for the tier of sudokus that need a search.
+     */
+    public static String getTierName(final int tier) {
+        if (tier == Solver.GROUP_NAME.length) {
+            return "dlx";
+        }
+        String name = Solver.GROUP_NAME[tier];
+        return name.substring(name.indexOf('.') + 1);
+    }
+
+    /**
+     * Finds a difficulty tier by its name.
+     *
+     * @param name  The name of a tier, as returned by <code>getTierName</code>.
+     * @return      The tier, or -1 if there is no tier with that name.
+     */
+    public static int getTier(final String name) {
+        for (int tier = 0; tier <= Solver.GROUP_NAME.length; tier++) {
+            if (getTierName(tier).equals(name)) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a one-line description of this rating: the name of the tier, then the number of steps
+     * taken by each solver, separated by commas. For example,
+     * <code>subset 40,12,0,1,0,0,0,0,0,0,0,0,0,0</code>.
+     *
+     * @return  A description of this rating.
+     */
+    public String toString() {
+        StringBuffer buffer = new StringBuffer(getTierName(getTier()));
+        for (int i = 0; i < stepsPerSolver.length; i++) {
+            buffer.append(i == 0 ? ' ' : ',').append(stepsPerSolver[i]);
+        }
+        return buffer.toString();
+    }
+}
@@ -54,23 +54,11 @@ public class Solver {
      * If the order of solvers is changed, the group indexes should be changed to match.
      */
 
-    /** An instance of each available solver. */
-    public static final ISolver[] SOLVERS = {
-        new NakedSingleSolver(),
-        new HiddenSingleSolver(),
-        new IntersectionSolver(),
-        new NakedPairSolver(),
-        new NakedTripletSolver(),
-        new NakedQuadSolver(),
-        new HiddenPairSolver(),
-        new HiddenTripletSolver(),
-        new HiddenQuadSolver(),
-        new LeftoversSolver(),
-        new XWingSolver(),                      // X-wing
-        new FishFinder(3),                      // Swordfish
-        new FishFinder(4),                      // Jellyfish
-        new FishFinder(5),                      // Squirmbag
-    };
+    /**
+     * An instance of each available solver. Some solvers keep state while they search, so these
+     * instances are for the user interface thread; other threads use <code>createSolvers</code>.
+     */
+    public static final ISolver[] SOLVERS = createSolvers();
 
     /**
      * The index of the group to which each solver belongs. These groups are used in the solve menu.
@@ -92,6 +80,31 @@ public class Solver {
         "solver.fish",
     };
 
+    /**
+     * Creates a new instance of each available solver, in the same order as
+     * <code>SOLVERS</code>.
+     *
+     * @return  An instance of each available solver.
+     */
+    public static ISolver[] createSolvers() {
+        return new ISolver[] {
+            new NakedSingleSolver(),
+            new HiddenSingleSolver(),
+            new IntersectionSolver(),
+            new NakedPairSolver(),
+            new NakedTripletSolver(),
+            new NakedQuadSolver(),
+            new HiddenPairSolver(),
+            new HiddenTripletSolver(),
+            new HiddenQuadSolver(),
+            new LeftoversSolver(),
+            new XWingSolver(),                      // X-wing
+            new FishFinder(3),                      // Swordfish
+            new FishFinder(4),                      // Jellyfish
+            new FishFinder(5),                      // Squirmbag
+        };
+    }
+
     /**
      * Gets the next <code>Step</code> in the solution of a sudoku.
      *
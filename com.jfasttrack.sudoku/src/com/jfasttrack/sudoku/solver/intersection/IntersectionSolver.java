@@ -64,30 +64,41 @@ public class IntersectionSolver implements ISolver {
             houses.add(allHouses.next());
         }
 
+        Set[] cellsWithCandidate = new Set[houses.size()];
+
     outerLoop:
-        for (int value = 1; value < puzzle.getGridSize(); value++) {
+        for (int value = 1; value <= puzzle.getGridSize(); value++) {
+
+            // Find the cells of each house that have the value as a candidate, once per value.
+            for (int i = 0; i < houses.size(); i++) {
+                cellsWithCandidate[i] = ((House) houses.get(i)).getCellsWithCandidate(value);
+            }
 
             // Consider each pair of houses that have cells in common.
             for (int i1 = 0; i1 < houses.size() - 1; i1++) {
-                House house1 = (House) houses.get(i1);
-                Set house1Cells = house1.getCellsWithCandidate(value);
+                Set house1Cells = cellsWithCandidate[i1];
+                if (house1Cells.size() <= 1) {
+                    continue;
+                }
 
                 for (int i2 = i1 + 1; i2 < houses.size(); i2++) {
-                    House house2 = (House) houses.get(i2);
-                    Set house2Cells = house2.getCellsWithCandidate(value);
-
-                    // See which cells the houses have in common.
-                    Set intersection = new HashSet(house1Cells);
-                    intersection.retainAll(house2Cells);
+                    Set house2Cells = cellsWithCandidate[i2];
 
                     /*
-                     * If size is 1, this is technically an intersection. However, it is also a
-                     * single, so I prefer not to identify it as an intersection here.
+                     * If the houses have only 1 cell in common, this is technically an
+                     * intersection. However, it is also a single, so I prefer not to identify it
+                     * as an intersection here. Most pairs of houses have no cells in common, so
+                     * count them before building the intersection.
                      */
-                    if (intersection.size() <= 1) {
+                    if (house2Cells.size() <= 1
+                            || countCommonCells(house1Cells, house2Cells) <= 1) {
                         continue;
                     }
 
+                    // See which cells the houses have in common.
+                    Set intersection = new HashSet(house1Cells);
+                    intersection.retainAll(house2Cells);
+
                     step = compareHouses(house1Cells, house2Cells, intersection, value);
                     if (step != null) {
                         break outerLoop;
@@ -103,6 +114,24 @@ public class IntersectionSolver implements ISolver {
         return step;
     }
 
+    /**
+     * Counts the <code>Cell</code>s that two sets have in common.
+     *
+     * @param cells1  A set of <code>Cell</code>s.
+     * @param cells2  Another set of <code>Cell</code>s.
+     * @return        The number of <code>Cell</code>s in both sets.
+     */
+    private static int countCommonCells(final Set cells1, final Set cells2) {
+        int count = 0;
+        Iterator iterator = cells1.iterator();
+        while (iterator.hasNext()) {
+            if (cells2.contains(iterator.next())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Compares the cells of two houses to see if there is an intersection.
      *
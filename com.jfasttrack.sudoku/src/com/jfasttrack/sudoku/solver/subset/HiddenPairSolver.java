@@ -152,18 +152,15 @@ public class HiddenPairSolver implements ISolver {
 
         // Is the pair useful? Does it have candidates not in the pair?
         Iterator cellsInPair = cellsToBeChanged.iterator();
-        boolean useful = false;
+        BitSet otherCandidates = new BitSet();
         while (cellsInPair.hasNext()) {
             Cell cell = (Cell) cellsInPair.next();
             BitSet candidates = cell.getCandidates();
             candidates.set(candidate1, false);
             candidates.set(candidate2, false);
-            if (candidates.cardinality() > 0) {
-                useful = true;
-                break;
-            }
+            otherCandidates.or(candidates);
         }
-        if (!useful) {
+        if (otherCandidates.isEmpty()) {
             return step;
         }
 
@@ -178,7 +175,10 @@ public class HiddenPairSolver implements ISolver {
                 }
         );
 
-        step = new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        CandidateRemovalStep removalStep =
+                new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        removalStep.addRemovedCandidates(otherCandidates);
+        step = removalStep;
 
         cellsInHouse = house.getUnsolvedCells();
         while (cellsInHouse.hasNext()) {
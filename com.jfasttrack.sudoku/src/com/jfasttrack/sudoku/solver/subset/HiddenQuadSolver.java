@@ -176,7 +176,7 @@ public class HiddenQuadSolver implements ISolver {
 
         // Is the quad useful? Does it have candidates not in the quad?
         Iterator cellsInQuad = cellsToBeChanged.iterator();
-        boolean useful = false;
+        BitSet otherCandidates = new BitSet();
         while (cellsInQuad.hasNext()) {
             Cell cell = (Cell) cellsInQuad.next();
             BitSet candidates = cell.getCandidates();
@@ -184,12 +184,9 @@ public class HiddenQuadSolver implements ISolver {
             candidates.set(candidate2, false);
             candidates.set(candidate3, false);
             candidates.set(candidate4, false);
-            if (candidates.cardinality() > 0) {
-                useful = true;
-                break;
-            }
+            otherCandidates.or(candidates);
         }
-        if (!useful) {
+        if (otherCandidates.isEmpty()) {
             return null;
         }
 
@@ -206,7 +203,10 @@ public class HiddenQuadSolver implements ISolver {
                 }
         );
 
-        step = new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        CandidateRemovalStep removalStep =
+                new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        removalStep.addRemovedCandidates(otherCandidates);
+        step = removalStep;
 
         cellsInHouse = house.getUnsolvedCells();
         while (cellsInHouse.hasNext()) {
@@ -161,19 +161,16 @@ public class HiddenTripletSolver implements ISolver {
 
         // Is the triplet useful? Does it have candidates not in the triplet?
         Iterator cellsInTriplet = cellsToBeChanged.iterator();
-        boolean useful = false;
+        BitSet otherCandidates = new BitSet();
         while (cellsInTriplet.hasNext()) {
             Cell cell = (Cell) cellsInTriplet.next();
             BitSet candidates = cell.getCandidates();
             candidates.set(candidate1, false);
             candidates.set(candidate2, false);
             candidates.set(candidate3, false);
-            if (candidates.cardinality() > 0) {
-                useful = true;
-                break;
-            }
+            otherCandidates.or(candidates);
         }
-        if (!useful) {
+        if (otherCandidates.isEmpty()) {
             return null;
         }
 
@@ -189,7 +186,10 @@ public class HiddenTripletSolver implements ISolver {
                 }
         );
 
-        step = new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        CandidateRemovalStep removalStep =
+                new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        removalStep.addRemovedCandidates(otherCandidates);
+        step = removalStep;
 
         cellsInHouse = house.getUnsolvedCells();
         while (cellsInHouse.hasNext()) {
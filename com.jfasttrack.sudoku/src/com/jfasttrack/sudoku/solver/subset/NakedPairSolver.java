@@ -122,6 +122,7 @@ public class NakedPairSolver implements ISolver {
 
         CandidateRemovalStep step = new CandidateRemovalStep(
                 smallHint, bigHint, cellsToBeChanged, 0);
+        step.addRemovedCandidates(candidates);
         step.addExplainingCell(cell1);
         step.addExplainingCell(cell2);
         iterator = cellsToBeChanged.iterator();
@@ -213,6 +213,7 @@ public class NakedQuadSolver implements ISolver {
 
         CandidateRemovalStep step =
                 new CandidateRemovalStep(smallHint, bigHint, cellsToBeChanged, 0);
+        step.addRemovedCandidates(candidates);
         step.addExplainingCell(cell1);
         step.addExplainingCell(cell2);
         step.addExplainingCell(cell3);
@@ -21,7 +21,10 @@
 
 package com.jfasttrack.sudoku.step;
 
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import com.jfasttrack.sudoku.puzzle.Cell;
@@ -29,15 +32,24 @@ import com.jfasttrack.sudoku.puzzle.Cell;
 
 /**
  * A <code>CandidateRemovalStep</code> is a <code>Step</code> that removes
- * a candidate value from one or more <code>Cell</code>s.
+ * a candidate value from one or more <code>Cell</code>s. A step found by a subset solver may
+ * remove several candidate values; each of them is removed from each <code>Cell</code> that has
+ * it. The step remembers which candidates it actually removed from each <code>Cell</code>, so that
+ * undoing it restores exactly those.
  *
  * @author   Pete Boton
  * @version  2009/05
  */
 public class CandidateRemovalStep extends AbstractStep {
 
-    /** The candidate value removed. */
-    private final int value;
+    /** Every candidate value removed. */
+    private final BitSet removedCandidates = new BitSet();
+
+    /**
+     * The candidate values that were removed from each <code>Cell</code> when this step was last
+     * done, keyed by <code>Cell</code>.
+     */
+    private final Map removedFromCells = new HashMap();
 
     /**
      * Constructs a <code>CandidateRemovalStep</code>.
@@ -46,7 +58,8 @@ public class CandidateRemovalStep extends AbstractStep {
      * @param bigHint    A detailed description, telling where candidate(s) can be removed and
      *                   which solving technique is used.
      * @param cells      The <code>Cell</code>s from which the candidate value is removed.
-     * @param value      The candidate value removed from the <code>Cell</code>s.
+     * @param value      The candidate value removed from the <code>Cell</code>s, or 0 if the
+     *                   values are added with <code>addRemovedCandidates</code>.
      */
     public CandidateRemovalStep(
             final String smallHint,
@@ -60,7 +73,9 @@ public class CandidateRemovalStep extends AbstractStep {
             addChangedCell((Cell) iterator.next());
         }
 
-        this.value = value;
+        if (value > 0) {
+            removedCandidates.set(value);
+        }
     }
 
     /**
@@ -74,19 +89,64 @@ public class CandidateRemovalStep extends AbstractStep {
     }
 
     /**
-     * Undoes this <code>CandidateRemovalStep</code>. Restores the value as a candidate to the
-     * <code>Cell</code> from which it was removed.
+     * Adds candidate values to those removed by this step.
+     *
+     * @param candidates  The candidate values to be removed from the <code>Cell</code>s.
+     */
+    public void addRemovedCandidates(final BitSet candidates) {
+        removedCandidates.or(candidates);
+    }
+
+    /**
+     * Gets the candidate values removed by this step.
+     *
+     * @return  The candidate values removed from the <code>Cell</code>s.
+     */
+    public BitSet getRemovedCandidates() {
+        return (BitSet) removedCandidates.clone();
+    }
+
+    /**
+     * Undoes this <code>CandidateRemovalStep</code>. Restores to each <code>Cell</code> the
+     * candidate values that <code>redo</code> removed from it, and no others.
      */
     public void undo() {
-        if (getNumberOfChangedCells() == 1) {
-            Cell changedCell = (Cell) getChangedCells().next();
-            changedCell.addCandidate(value);
+        Iterator iterator = removedFromCells.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            Cell cell = (Cell) entry.getKey();
+            BitSet removed = (BitSet) entry.getValue();
+            int candidate = removed.nextSetBit(0);
+            while (candidate > 0) {
+                cell.addCandidate(candidate);
+                candidate = removed.nextSetBit(candidate + 1);
+            }
         }
+        removedFromCells.clear();
     }
 
-    /** Redoes this <code>CandidateRemovalStep</code> by removing the candidate value. */
+    /**
+     * Redoes this <code>CandidateRemovalStep</code> by removing the candidate values. Only the
+     * candidates that a <code>Cell</code> still has are removed from it, and they are recorded
+     * for <code>undo</code>.
+     */
     public void redo() {
-        Cell cell = (Cell) getChangedCells().next();
-        cell.removeCandidate(value);
+        removedFromCells.clear();
+        Iterator iterator = getChangedCells();
+        while (iterator.hasNext()) {
+            Cell cell = (Cell) iterator.next();
+            BitSet removed = new BitSet();
+            int candidate = removedCandidates.nextSetBit(0);
+            while (candidate > 0) {
+                if (cell.hasCandidate(candidate)) {
+                    cell.removeCandidate(candidate);
+                    removed.set(candidate);
+                }
+                candidate = removedCandidates.nextSetBit(candidate + 1);
+            }
+            if (!removed.isEmpty()) {
+                removedFromCells.put(cell, removed);
+            }
+        }
     }
 }
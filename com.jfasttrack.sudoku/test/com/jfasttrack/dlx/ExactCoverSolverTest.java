@@ -0,0 +1,411 @@
+package com.jfasttrack.dlx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+
+public class ExactCoverSolverTest {
+
+    /** The number of columns in the deep matrix. Each level of the search covers one of them. */
+    private static final int DEPTH = 20000;
+
+    @Test
+    public void deepSearchRunsOnASmallStack() throws InterruptedException {
+        assertEquals("[1, " + DEPTH + "]", solveDeepMatrixOnSmallStack(new LinkedDLXSolver()));
+        assertEquals("[1, " + DEPTH + "]", solveDeepMatrixOnSmallStack(new ArrayDLXSolver()));
+        assertEquals(
+                "[1, " + DEPTH + "]", solveDeepMatrixOnSmallStack(new DancingCellsSolver()));
+    }
+
+    @Test
+    public void nodeLimitCutsOffTheSearchExactly() {
+        AbstractExactCoverSolver solver = createBinaryMatrix(new ArrayDLXSolver(), 40);
+        solver.setSearchBudget(new SearchBudget(1000, 0, false));
+        assertEquals(SearchOutcome.NODE_LIMIT, solver.solve());
+        assertEquals(1000, solver.getNumberOfNodes());
+        assertTrue(solver.getOutcome().isCutOff());
+    }
+
+    @Test
+    public void statsDescribeTheSearchTree() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 3),
+            new DancingCellsSolver(),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            AbstractExactCoverSolver solver = createBinaryMatrix(engines[i], 10);
+            solver.solve();
+            assertNull(solver.getSearchStats());
+
+            solver.setCollectingStats(true);
+            solver.solve();
+            SearchStats stats = solver.getSearchStats();
+            assertEquals(2047, stats.getNodes());
+            assertEquals(1024, stats.getSolutions());
+            assertEquals(11, stats.getNumberOfDepths());
+            for (int depth = 0; depth < 10; depth++) {
+                assertEquals(1 << depth, stats.getNodes(depth));
+                assertEquals(2.0, stats.getBranchingFactor(depth), 0.0);
+            }
+            assertEquals(0.0, stats.getBranchingFactor(10), 0.0);
+            assertEquals(0, stats.getUpdates());
+        }
+    }
+
+    @Test
+    public void secondaryColumnsMayBeLeftUncovered() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 2),
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new DancingCellsSolver(),
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+        };
+        engines[3].setColumnHeuristic(ColumnHeuristic.SHORTEST_BUCKETED);
+        engines[4].setColumnHeuristic(ColumnHeuristic.SHORTEST_BUCKETED);
+        engines[6].setPropagatingForcedMoves(true);
+        engines[7].setPropagatingForcedMoves(true);
+        for (int i = 0; i < engines.length; i++) {
+            assertEquals(92, createQueensMatrix(engines[i], 8).countSolutions(100));
+        }
+    }
+
+    @Test
+    public void forcedMovesThatEmptyAColumnBackUpAtOnce() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            // Forcing the only row of column 1 takes the only row of column 2 with it. Column 0,
+            // which the FIRST heuristic would choose, has rows that lead nowhere.
+            AbstractExactCoverSolver solver = engines[i];
+            solver.createColumnHeaders(4, 0);
+            for (int j = 0; j < 3; j++) {
+                solver.addRow(j, 0);
+            }
+            int row = solver.addRow(3, 1);
+            solver.addNodeToRow(row, 3);
+            row = solver.addRow(4, 2);
+            solver.addNodeToRow(row, 3);
+            solver.setColumnHeuristic(ColumnHeuristic.FIRST);
+            solver.setPropagatingForcedMoves(true);
+            assertEquals(0, solver.countSolutions(10));
+            assertEquals(1, solver.getNumberOfNodes());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void oneNodeRowsAreRemovedFromTheSolutionOnce() {
+        // Row 0 has a single node, so its header is also its left node. Uncovering column 0 twice
+        // would count the other nodes of rows 1 and 2 twice, and the next search would choose
+        // columns that are really empty as forced moves, forever.
+        AbstractExactCoverSolver solver = new LinkedDLXSolver();
+        solver.createColumnHeaders(5);
+        solver.addRow(0, 0);
+        int row = solver.addRow(1, 0);
+        solver.addNodeToRow(row, 3);
+        solver.addNodeToRow(row, 4);
+        row = solver.addRow(2, 0);
+        solver.addNodeToRow(row, 1);
+        solver.addNodeToRow(row, 2);
+        solver.addRowToSolution(0);
+        assertEquals(0, solver.countSolutions(10));
+        solver.removeAllRowsFromSolution();
+
+        solver.setColumnHeuristic(ColumnHeuristic.FIRST);
+        solver.setPropagatingForcedMoves(true);
+        assertEquals(0, solver.countSolutions(10));
+    }
+
+    @Test
+    public void colorsLetRowsShareSecondaryColumns() {
+        // Knuth's example of color controls: items p, q, r; secondary items x and y.
+        DancingCellsSolver solver = new DancingCellsSolver();
+        solver.createColumnHeaders(3, 2);
+        int row = solver.addRow(0, 0);
+        solver.addNodeToRow(row, 1);
+        solver.addNodeToRow(row, 3);
+        solver.addNodeToRow(row, 4, 1);
+        row = solver.addRow(1, 0);
+        solver.addNodeToRow(row, 2);
+        solver.addNodeToRow(row, 3, 1);
+        solver.addNodeToRow(row, 4);
+        row = solver.addRow(2, 0);
+        solver.addNodeToRow(row, 3, 2);
+        row = solver.addRow(3, 1);
+        solver.addNodeToRow(row, 3, 1);
+        row = solver.addRow(4, 2);
+        solver.addNodeToRow(row, 4, 2);
+
+        final List solutions = new ArrayList();
+        solver.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                List rows = new ArrayList();
+                for (int i = 0; i < solutionNodes.size(); i++) {
+                    rows.add(Integer.valueOf(((Node) solutionNodes.get(i)).applicationData));
+                }
+                Collections.sort(rows);
+                solutions.add(rows.toString());
+                return false;
+            }
+        });
+        assertEquals(SearchOutcome.COMPLETED, solver.solve());
+        assertEquals("[[1, 3]]", solutions.toString());
+
+        // The chosen rows give x color 1, so the row that gives it color 2 conflicts with them.
+        solver.addRowToSolution(3);
+        solver.addRowToSolution(2);
+        assertEquals(0, solver.countSolutions(10));
+        solver.removeAllRowsFromSolution();
+        solver.addRowToSolution(3);
+        assertEquals(1, solver.countSolutions(10));
+    }
+
+    @Test
+    public void solverIsReusableAfterEveryKindOfStop() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 3),
+            new DancingCellsSolver(),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            AbstractExactCoverSolver solver = createBinaryMatrix(engines[i], 40);
+
+            solver.setSearchBudget(new SearchBudget(5000, 0, false));
+            assertEquals(SearchOutcome.NODE_LIMIT, solver.solve());
+
+            solver.setSearchBudget(new SearchBudget(0, 50, false));
+            assertEquals(SearchOutcome.TIME_LIMIT, solver.solve());
+
+            solver.setSearchBudget(new SearchBudget(0, 0, true));
+            Thread.currentThread().interrupt();
+            assertEquals(SearchOutcome.INTERRUPTED, solver.solve());
+            assertTrue(Thread.interrupted());
+
+            solver.setSearchBudget(SearchBudget.UNLIMITED);
+            assertEquals(3, solver.countSolutions(3));
+            assertEquals(SearchOutcome.STOPPED, solver.getOutcome());
+            assertEquals(3, solver.countSolutions(3));
+        }
+    }
+
+    @Test
+    public void hiddenRowsAreLeftOutOfTheSolutions() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 3),
+            new DancingCellsSolver(),
+            new ArrayDLXSolver(),
+        };
+        engines[4].setColumnHeuristic(ColumnHeuristic.SHORTEST_BUCKETED);
+        for (int i = 0; i < engines.length; i++) {
+            AbstractExactCoverSolver solver = createQueensMatrix(engines[i], 6);
+            assertEquals(4, solver.countSolutions(0));
+
+            // Each of the 4 solutions puts the first queen on another file.
+            solver.hideRow(1);
+            solver.hideRow(2);
+            assertEquals(2, solver.countSolutions(0));
+            solver.unhideRow(2);
+            assertEquals(3, solver.countSolutions(0));
+            solver.addRowToSolution(2);
+            assertEquals(1, solver.countSolutions(0));
+            solver.removeAllRowsFromSolution();
+            solver.unhideRow(1);
+            assertEquals(4, solver.countSolutions(0));
+        }
+    }
+
+    @Test
+    public void searchThatFinishesIsCompleted() {
+        AbstractExactCoverSolver solver = createBinaryMatrix(new LinkedDLXSolver(), 10);
+        solver.setSearchBudget(new SearchBudget(1000000, 60000, true));
+        assertEquals(1024, solver.countSolutions(Integer.MAX_VALUE));
+        assertEquals(SearchOutcome.COMPLETED, solver.getOutcome());
+        assertEquals(2047, solver.getNumberOfNodes());
+    }
+
+    @Test
+    public void iteratorFindsTheSameSolutionsAsTheListeners() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new DancingCellsSolver(),
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new LinkedDLXSolver(),
+        };
+        engines[3].setColumnHeuristic(ColumnHeuristic.SHORTEST_BUCKETED);
+        engines[4].setRowShuffler(new Random(7));
+        engines[5].setCollectingStats(true);
+        for (int i = 0; i < engines.length; i++) {
+            AbstractExactCoverSolver solver = createQueensMatrix(engines[i], 8);
+            final List pushed = new ArrayList();
+            solver.addRowSolutionListener(new RowSolutionListener() {
+                public boolean solutionFound(final int[] rows, final int depth) {
+                    pushed.add(Arrays.toString(Arrays.copyOf(rows, depth)));
+                    return false;
+                }
+            });
+            solver.setRowShuffler(i == 4 ? new Random(7) : null);
+            solver.solve();
+            long nodes = solver.getNumberOfNodes();
+
+            solver.setRowShuffler(i == 4 ? new Random(7) : null);
+            List pulled = new ArrayList();
+            SolutionIterator solutions = solver.solutions();
+            while (solutions.hasNext()) {
+                pulled.add(Arrays.toString((int[]) solutions.next()));
+            }
+            if (engines[i] instanceof DancingCellsSolver) {
+                // Dancing cells leaves the nodes of each column in another order after a search.
+                Collections.sort(pushed);
+                Collections.sort(pulled);
+            }
+            assertEquals(92, pulled.size());
+            assertEquals(pushed, pulled);
+            assertEquals(SearchOutcome.COMPLETED, solver.getOutcome());
+            assertEquals(nodes, solver.getNumberOfNodes());
+            if (i == 5) {
+                assertEquals(92, solver.getSearchStats().getSolutions());
+            }
+        }
+    }
+
+    @Test
+    public void iteratorSearchesOnlyAsFarAsItIsAsked() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new DancingCellsSolver(),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            // 2^40 solutions: the iterator would never run out.
+            AbstractExactCoverSolver solver = createBinaryMatrix(engines[i], 40);
+            solver.addRowToSolution(1);
+            SolutionIterator solutions = solver.solutions();
+            for (int n = 0; n < 5; n++) {
+                int[] rows = (int[]) solutions.next();
+                assertEquals(40, rows.length);
+                assertEquals(1, rows[0]);
+            }
+            assertNull(solver.getOutcome());
+            assertTrue(solver.getNumberOfNodes() < 100);
+
+            solutions.close();
+            assertFalse(solutions.hasNext());
+            assertEquals(SearchOutcome.STOPPED, solver.getOutcome());
+            assertEquals(3, solver.countSolutions(3));
+
+            // Starting another search closes the iterator.
+            solutions = solver.solutions();
+            solutions.next();
+            assertEquals(3, solver.countSolutions(3));
+            assertFalse(solutions.hasNext());
+
+            solver.removeAllRowsFromSolution();
+            assertEquals(3, solver.countSolutions(3));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parallelEngineCannotPause() {
+        createBinaryMatrix(new ParallelDLXSolver(new ForkJoinPool(2), 2), 10).solutions();
+    }
+
+    /**
+     * Builds a matrix in which each column can be covered by either of two rows, so that it has
+     * 2<sup>n</sup> solutions.
+     *
+     * @param engine           The engine to build the matrix in.
+     * @param numberOfColumns  The number of columns.
+     * @return                 The engine.
+     */
+    private static AbstractExactCoverSolver createBinaryMatrix(
+            final AbstractExactCoverSolver engine, final int numberOfColumns) {
+        engine.createColumnHeaders(numberOfColumns);
+        for (int column = 0; column < numberOfColumns; column++) {
+            engine.addRow(2 * column, column);
+            engine.addRow(2 * column + 1, column);
+        }
+        return engine;
+    }
+
+    /**
+     * Builds the matrix of the n queens problem. Each rank and each file must hold exactly one
+     * queen, so they are primary columns. Each diagonal may hold at most one queen, so the
+     * diagonals are secondary columns.
+     *
+     * @param engine  An empty engine.
+     * @param n       The size of the board.
+     * @return        The engine, holding the matrix.
+     */
+    private static AbstractExactCoverSolver createQueensMatrix(
+            final AbstractExactCoverSolver engine, final int n) {
+        engine.createColumnHeaders(2 * n, 2 * (2 * n - 1));
+        for (int rank = 0; rank < n; rank++) {
+            for (int file = 0; file < n; file++) {
+                int row = engine.addRow(rank * n + file, rank);
+                engine.addNodeToRow(row, n + file);
+                engine.addNodeToRow(row, 2 * n + rank + file);
+                engine.addNodeToRow(row, 2 * n + (2 * n - 1) + rank - file + n - 1);
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Builds a matrix whose columns can be covered either one at a time or all at once, solves it
+     * on a thread with a small stack, and gets the size of each solution.
+     *
+     * @param engine  The engine to run on.
+     * @return        The number of rows in each solution, in the order the solutions were found.
+     */
+    private static String solveDeepMatrixOnSmallStack(final AbstractExactCoverSolver engine)
+            throws InterruptedException {
+        engine.createColumnHeaders(DEPTH);
+        int all = engine.addRow(-1, 0);
+        for (int column = 1; column < DEPTH; column++) {
+            engine.addNodeToRow(all, column);
+        }
+        for (int column = 0; column < DEPTH; column++) {
+            engine.addRow(column, column);
+        }
+
+        final List sizes = new ArrayList();
+        engine.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                sizes.add(Integer.valueOf(solutionNodes.size()));
+                return false;
+            }
+        });
+
+        Thread thread = new Thread(null, new Runnable() {
+            public void run() {
+                engine.solve();
+            }
+        }, "small stack", 64 * 1024);
+        thread.start();
+        thread.join();
+        return sizes.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.jfasttrack.pentomino;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.AbstractExactCoverSolver;
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.dlx.DancingCellsSolver;
+import com.jfasttrack.dlx.LinkedDLXSolver;
+import com.jfasttrack.dlx.ParallelDLXSolver;
+import com.jfasttrack.dlx.SolutionIterator;
+import com.jfasttrack.dlx.SolutionListener;
+
+
+public class PentominoSolverTest {
+
+    @Test
+    public void everyEngineFindsTheSameNumberOfTilings() {
+        assertEquals(2, countSolutions(20, 3, new LinkedDLXSolver()));
+        assertEquals(2, countSolutions(20, 3, new ArrayDLXSolver()));
+        assertEquals(2, countSolutions(20, 3, new DancingCellsSolver()));
+        int tilings = countSolutions(15, 4, new LinkedDLXSolver());
+        assertEquals(tilings, countSolutions(15, 4, new ArrayDLXSolver()));
+        assertEquals(tilings, countSolutions(15, 4, new DancingCellsSolver()));
+    }
+
+    @Test
+    public void parallelSearchFindsEveryTiling() {
+        assertEquals(
+                countSolutions(15, 4, new LinkedDLXSolver()),
+                countSolutions(15, 4, new ParallelDLXSolver(new ForkJoinPool(4), 2)));
+    }
+
+    @Test
+    public void expandedTilingsAreEveryTiling() {
+        PentominoSolver reduced = new PentominoSolver(20, 3, new ArrayDLXSolver(), true);
+        Set expanded = new HashSet();
+        SolutionIterator solutions = reduced.solutions();
+        while (solutions.hasNext()) {
+            int[][][] grids = reduced.expand(reduced.toGrid((int[]) solutions.next()));
+            assertEquals(4, grids.length);
+            for (int i = 0; i < grids.length; i++) {
+                expanded.add(Arrays.deepToString(grids[i]));
+            }
+        }
+        assertEquals(8, expanded.size());
+
+        PentominoSolver full = new PentominoSolver(20, 3, new ArrayDLXSolver(), false);
+        Set all = new HashSet();
+        solutions = full.solutions();
+        while (solutions.hasNext()) {
+            int[][] grid = full.toGrid((int[]) solutions.next());
+            assertEquals(1, full.expand(grid).length);
+            all.add(Arrays.deepToString(grid));
+        }
+        assertEquals(expanded, all);
+    }
+
+    @Test
+    public void squareGridHasEightSymmetries() {
+        PentominoSolver solver = new PentominoSolver(3, 3, new ArrayDLXSolver());
+        int[][] grid = {
+            {0, 0, 1},
+            {2, 3, 4},
+            {5, 6, 7},
+        };
+        int[][][] grids = solver.expand(grid);
+        Set distinct = new HashSet();
+        for (int i = 0; i < grids.length; i++) {
+            distinct.add(Arrays.deepToString(grids[i]));
+        }
+        assertEquals(8, distinct.size());
+        assertEquals(Arrays.deepToString(grid), Arrays.deepToString(grids[0]));
+    }
+
+    /**
+     * Counts the tilings of a grid.
+     *
+     * @param width   The width of the grid.
+     * @param height  The height of the grid.
+     * @param engine  The engine to run on.
+     * @return        The number of tilings found.
+     */
+    static int countSolutions(
+            final int width, final int height, final AbstractExactCoverSolver engine) {
+        final int[] count = new int[1];
+        PentominoSolver solver = new PentominoSolver(width, height, engine);
+        solver.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                count[0]++;
+                return false;
+            }
+        });
+        solver.solve();
+        return count[0];
+    }
+}
@@ -0,0 +1,68 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.dlx.SudokuSolver;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class BatchGeneratorTest extends OptionsFixture {
+
+    @Test
+    public void batchDoesNotDependOnTheNumberOfThreads() throws IOException {
+        Options.getInstance().setCreateAction(Options.CreateAction.CREATE_EMPTY);
+        String[] lines = generate(1, 12, 42L);
+        assertEquals(12, lines.length);
+        String[] threaded = generate(3, 12, 42L);
+        assertEquals(Options.CreateAction.CREATE_EMPTY, Options.getInstance().getCreateAction());
+        Options.getInstance().setCreateAction(Options.CreateAction.GENERATE);
+        Set distinct = new HashSet();
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(lines[i], threaded[i]);
+            assertEquals(new StandardSudoku(BatchGenerator.getSeed(42L, i)).toOriginalString(),
+                    lines[i]);
+            distinct.add(lines[i]);
+        }
+        assertEquals(lines.length, distinct.size());
+    }
+
+    @Test
+    public void jigsawSudokusAreWrittenWithTheirBlocks() throws IOException {
+        Options.getInstance().setBlockType(Options.BlockType.JIGSAW);
+        String[] lines = generate(2, 3, 7L);
+        assertEquals(1 + 2 * 3, lines.length);
+        assertEquals(": jigsaw ", lines[0]);
+        String[] again = generate(1, 3, 7L);
+        for (int i = 1; i < lines.length; i += 2) {
+            assertEquals(lines[i], again[i]);
+            assertEquals(lines[i + 1], again[i + 1]);
+
+            StandardSudoku sudoku =
+                    new StandardSudoku(lines[0] + "\n" + lines[i] + "\n" + lines[i + 1]);
+            SudokuSolver solver = new SudokuSolver(sudoku);
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            assertEquals(Uniqueness.UNIQUE, solver.checkUniqueness());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneThreadIsNeeded() {
+        new BatchGenerator(0);
+    }
+
+    private static String[] generate(final int numberOfThreads, final int count, final long seed)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        new BatchGenerator(numberOfThreads).generate(count, seed, out);
+        return out.toString().split("\n");
+    }
+}
@@ -0,0 +1,110 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+import com.jfasttrack.sudoku.solver.DifficultyRater;
+import com.jfasttrack.sudoku.solver.Rating;
+import com.jfasttrack.sudoku.solver.Solver;
+
+
+public class BatchRaterTest extends OptionsFixture {
+
+    private static final String SINGLES =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static final String INTERSECTIONS =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private static final String AMBIGUOUS =
+            "53..7....6...95....9.....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.";
+
+    @Test
+    public void ratingsAreWrittenInInputOrder() throws IOException {
+        String input = SINGLES + "\n" + INTERSECTIONS + "\n\n" + AMBIGUOUS + "\n" + "53..7" + "\n"
+                + SINGLES.replace('.', '0') + "\n";
+        BatchRater batchRater = new BatchRater(3);
+        String[] lines = rate(batchRater, input);
+        assertEquals(5, lines.length);
+        assertEquals(rate(SINGLES), lines[0]);
+        assertEquals(rate(INTERSECTIONS), lines[1]);
+        assertEquals(rate(AMBIGUOUS), lines[2]);
+        assertEquals("INVALID", lines[3]);
+        assertEquals(lines[0], lines[4]);
+
+        assertEquals(5, batchRater.getNumberOfPuzzles());
+        assertEquals(2, batchRater.getNumberOfPuzzles(0));
+        assertEquals(1, batchRater.getNumberOfPuzzles(Rating.getTier("intersection")));
+        assertEquals(1, batchRater.getNumberOfPuzzles(Solver.GROUP_NAME.length));
+    }
+
+    @Test
+    public void generatedSudokusAreRatedWithTheirLayout() throws IOException {
+        StringWriter generated = new StringWriter();
+        Options.getInstance().load(": size=6 rectangular:2:3");
+        new BatchGenerator(2).generate(3, 5L, generated);
+        Options.getInstance().setBlockType(Options.BlockType.JIGSAW);
+        new BatchGenerator(2).generate(2, 5L, generated);
+
+        String[] lines = rate(new BatchRater(2), generated.toString());
+        assertEquals(5, lines.length);
+        String[] puzzles = generated.toString().split("\n");
+        assertEquals(rate(puzzles[0] + "\n" + puzzles[1]), lines[0]);
+        assertEquals(rate(puzzles[4] + "\n" + puzzles[5] + "\n" + puzzles[6]), lines[3]);
+    }
+
+    @Test
+    public void sudokusUnderAnUnreadableOptionsLineAreInvalid() throws IOException {
+        String input = ": size=x\n" + SINGLES + "\n" + SINGLES + "\n"
+                + ": size=x jigsaw\n" + SINGLES + "\n" + SINGLES + "\n"
+                + ": rectangular:3\n" + SINGLES + "\n"
+                + ":\n" + INTERSECTIONS + "\n";
+        BatchRater batchRater = new BatchRater(2);
+        String[] lines = rate(batchRater, input);
+        assertEquals(5, lines.length);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("INVALID", lines[i]);
+        }
+        assertEquals(rate(INTERSECTIONS), lines[4]);
+        assertEquals(5, batchRater.getNumberOfPuzzles());
+    }
+
+    @Test
+    public void sudokusAreLoadedWithoutTheSharedOptions() {
+        Options options = Options.getInstance();
+        options.load(": jigsaw");
+        Options layout = options.copy();
+        layout.setCreateAction(Options.CreateAction.LOAD);
+        options.load(": size=6 rectangular:2:3");
+
+        String blocks = "000111222" + "000111222" + "000111222" + "333444555" + "333444555"
+                + "333444555" + "666777888" + "666777888" + "666777888";
+        StandardSudoku sudoku = new StandardSudoku(layout, blocks + "\n" + SINGLES);
+        assertEquals(": size=6 rectangular:2:3 ", options.toString());
+        assertEquals(9, sudoku.getGridSize());
+        assertEquals(rate(SINGLES), new DifficultyRater().rate(sudoku).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneThreadIsNeeded() {
+        new BatchRater(0);
+    }
+
+    private static String[] rate(final BatchRater batchRater, final String input)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        batchRater.rate(new StringReader(input), out);
+        return out.toString().split("\n");
+    }
+
+    private static String rate(final String puzzle) {
+        return new DifficultyRater().rate(new StandardSudoku(puzzle)).toString();
+    }
+}
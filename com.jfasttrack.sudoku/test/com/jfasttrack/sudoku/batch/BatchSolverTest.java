@@ -0,0 +1,112 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.dlx.SudokuSolver;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class BatchSolverTest extends OptionsFixture {
+
+    private static final String UNIQUE =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static final String AMBIGUOUS =
+            "53..7....6...95....9.....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.";
+
+    @Test
+    public void resultsAreWrittenInInputOrder() throws IOException {
+        String input = UNIQUE + "\n" + AMBIGUOUS + "\n\n"
+                + "55" + UNIQUE.substring(2) + "\n" + "53..7" + "\n"
+                + UNIQUE.replace('.', '0') + "\n";
+        BatchSolver batchSolver = new BatchSolver(3, true);
+        String[] lines = solve(batchSolver, input);
+        assertEquals(5, lines.length);
+        assertSolves(UNIQUE, lines[0]);
+        assertEquals("MULTIPLE", lines[1]);
+        assertEquals("NONE", lines[2]);
+        assertEquals("INVALID", lines[3]);
+        assertEquals(lines[0], lines[4]);
+
+        assertEquals(5, batchSolver.getNumberOfPuzzles());
+        assertEquals(2, batchSolver.getNumberOfPuzzles(Uniqueness.UNIQUE));
+        assertEquals(1, batchSolver.getNumberOfPuzzles(Uniqueness.MULTIPLE));
+        assertEquals(1, batchSolver.getNumberOfPuzzles(Uniqueness.NONE));
+    }
+
+    @Test
+    public void optionsLinesChangeTheLayout() throws IOException {
+        StringWriter generated = new StringWriter();
+        Options.getInstance().load(": size=6 rectangular:2:3");
+        new BatchGenerator(2).generate(3, 11L, generated);
+        Options.getInstance().setBlockType(Options.BlockType.JIGSAW);
+        new BatchGenerator(2).generate(2, 11L, generated);
+
+        String input = generated + ":\n" + AMBIGUOUS + "\n";
+        String[] lines = solve(new BatchSolver(2, false), input);
+        assertEquals(6, lines.length);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("UNIQUE", lines[i]);
+        }
+        assertEquals("MULTIPLE", lines[5]);
+
+        lines = solve(new BatchSolver(1, true), input);
+        String[] puzzles = generated.toString().split("\n");
+        assertSolves(puzzles[0] + "\n" + puzzles[1], lines[0]);
+        assertEquals(36, lines[2].length());
+        assertEquals(36, lines[4].length());
+        assertEquals("MULTIPLE", lines[5]);
+    }
+
+    @Test
+    public void sudokusUnderAnUnreadableOptionsLineAreInvalid() throws IOException {
+        String input = ": size=x\n" + UNIQUE + "\n" + UNIQUE + "\n"
+                + ": size=x jigsaw\n" + UNIQUE + "\n" + UNIQUE + "\n"
+                + ": rectangular:3\n" + UNIQUE + "\n"
+                + ":\n" + AMBIGUOUS + "\n";
+        BatchSolver batchSolver = new BatchSolver(2, false);
+        String[] lines = solve(batchSolver, input);
+        assertEquals(5, lines.length);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("INVALID", lines[i]);
+        }
+        assertEquals("MULTIPLE", lines[4]);
+        assertEquals(5, batchSolver.getNumberOfPuzzles());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneThreadIsNeeded() {
+        new BatchSolver(0, true);
+    }
+
+    private static String[] solve(final BatchSolver batchSolver, final String input)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        batchSolver.solve(new StringReader(input), out);
+        return out.toString().split("\n");
+    }
+
+    private static void assertSolves(final String puzzle, final String solution) {
+        String givens = puzzle.substring(puzzle.lastIndexOf('\n') + 1);
+        assertEquals(givens.length(), solution.length());
+        for (int i = 0; i < givens.length(); i++) {
+            if (givens.charAt(i) != '.') {
+                assertEquals(givens.charAt(i), solution.charAt(i));
+            }
+        }
+        StandardSudoku sudoku = new StandardSudoku(
+                puzzle.substring(0, puzzle.lastIndexOf('\n') + 1) + solution);
+        SudokuSolver solver = new SudokuSolver(sudoku);
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        assertEquals(Uniqueness.UNIQUE, solver.checkUniqueness());
+        assertEquals(-1, solution.indexOf('.'));
+    }
+}
@@ -0,0 +1,129 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+
+
+public class CanonicalizerTest {
+
+    private static final String SINGLES =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static final String INTERSECTIONS =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private final Canonicalizer canonicalizer = new Canonicalizer(3);
+
+    @After
+    public void restoreOptions() {
+        Options.getInstance().setDefaults();
+    }
+
+    @Test
+    public void symmetricSudokusHaveTheSameKey() {
+        int[] grid = toGrid(SINGLES);
+        String key = canonicalizer.getKey(grid);
+        assertEquals(key, canonicalizer.getKey(swapRows(grid, 0, 2)));
+        assertEquals(key, canonicalizer.getKey(swapBands(grid, 0, 2)));
+        assertEquals(key, canonicalizer.getKey(transpose(swapRows(grid, 4, 5))));
+        assertEquals(key, canonicalizer.getKey(transpose(swapBands(transpose(grid), 1, 2))));
+        assertEquals(key, canonicalizer.getKey(relabel(grid)));
+        assertEquals(key, canonicalizer.getKey(relabel(transpose(swapBands(grid, 0, 1)))));
+    }
+
+    @Test
+    public void canonicalFormIsItsOwnCanonicalForm() {
+        int[] canonical = canonicalizer.canonicalize(toGrid(INTERSECTIONS));
+        assertArrayEquals(canonical, canonicalizer.canonicalize(canonical));
+        assertEquals(countGivens(toGrid(INTERSECTIONS)), countGivens(canonical));
+    }
+
+    @Test
+    public void differentSudokusHaveDifferentKeys() {
+        int[] grid = toGrid(SINGLES);
+        String key = canonicalizer.getKey(grid);
+        assertFalse(key.equals(canonicalizer.getKey(toGrid(INTERSECTIONS))));
+        grid[0] = 0;
+        assertFalse(key.equals(canonicalizer.getKey(grid)));
+        assertFalse(key.equals(canonicalizer.getKey(swapRows(toGrid(SINGLES), 0, 3))));
+    }
+
+    @Test
+    public void onlySquareRectangularBlocksAreSupported() {
+        Options options = Options.getInstance();
+        assertNotNull(Canonicalizer.getInstance(options));
+        options.load(": size=4 rectangular:2:2");
+        assertNotNull(Canonicalizer.getInstance(options));
+        options.load(": size=6 rectangular:2:3");
+        assertNull(Canonicalizer.getInstance(options));
+        options.load(": size=16 rectangular:4:4");
+        assertNull(Canonicalizer.getInstance(options));
+        options.load(": jigsaw");
+        assertNull(Canonicalizer.getInstance(options));
+        options.load(": diagonals");
+        assertNull(Canonicalizer.getInstance(options));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void largeBlocksAreRejected() {
+        new Canonicalizer(Canonicalizer.MAX_BLOCK_SIZE + 1);
+    }
+
+    private static int[] toGrid(final String puzzle) {
+        int[] grid = new int[puzzle.length()];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = Math.max(PuzzleDelegate.CHARACTERS.indexOf(puzzle.charAt(i)), 0);
+        }
+        return grid;
+    }
+
+    private static int[] swapRows(final int[] grid, final int row1, final int row2) {
+        int[] swapped = (int[]) grid.clone();
+        System.arraycopy(grid, row1 * 9, swapped, row2 * 9, 9);
+        System.arraycopy(grid, row2 * 9, swapped, row1 * 9, 9);
+        return swapped;
+    }
+
+    private static int[] swapBands(final int[] grid, final int band1, final int band2) {
+        int[] swapped = grid;
+        for (int i = 0; i < 3; i++) {
+            swapped = swapRows(swapped, band1 * 3 + i, band2 * 3 + i);
+        }
+        return swapped;
+    }
+
+    private static int[] transpose(final int[] grid) {
+        int[] transposed = new int[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            transposed[i % 9 * 9 + i / 9] = grid[i];
+        }
+        return transposed;
+    }
+
+    private static int[] relabel(final int[] grid) {
+        int[] relabeled = new int[grid.length];
+        for (int i = 0; i < grid.length; i++) {
+            relabeled[i] = grid[i] == 0 ? 0 : grid[i] * 4 % 9 + 1;
+        }
+        return relabeled;
+    }
+
+    private static int countGivens(final int[] grid) {
+        int count = 0;
+        for (int i = 0; i < grid.length; i++) {
+            if (grid[i] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
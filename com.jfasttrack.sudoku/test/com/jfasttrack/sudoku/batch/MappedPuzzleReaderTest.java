@@ -0,0 +1,154 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.dlx.SudokuSolver;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class MappedPuzzleReaderTest {
+
+    private static final String UNIQUE =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static final String AMBIGUOUS =
+            "53..7....6...95....9.....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.";
+
+    private File file;
+
+    private RandomAccessFile randomAccessFile;
+
+    @Before
+    public void writeFile() throws IOException {
+        file = File.createTempFile("puzzles", ".txt");
+        StringBuffer contents = new StringBuffer(": \n");
+        for (int i = 0; i < 30; i++) {
+            contents.append(i % 2 == 0 ? UNIQUE : AMBIGUOUS.replace('.', '0'));
+            contents.append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 10 == 5) {
+                contents.append("\n53..7\n");
+            }
+        }
+        contents.append(UNIQUE);
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(contents.toString().getBytes("US-ASCII"));
+        out.close();
+        randomAccessFile = new RandomAccessFile(file, "r");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        randomAccessFile.close();
+        file.delete();
+    }
+
+    @Test
+    public void wholeFileIsRead() throws IOException {
+        MappedPuzzleReader reader = new MappedPuzzleReader(randomAccessFile.getChannel(), 9);
+        List grids = readAll(reader);
+        assertEquals(31, grids.size());
+        assertEquals(3, reader.getNumberOfInvalidLines());
+
+        StandardSudoku layout = new StandardSudoku(UNIQUE);
+        SudokuSolver solver = new SudokuSolver(layout);
+        for (int i = 0; i < grids.size(); i++) {
+            solver.placeGivens((int[]) grids.get(i));
+            assertEquals(i % 2 == 0 ? Uniqueness.UNIQUE : Uniqueness.MULTIPLE,
+                    solver.checkUniqueness());
+            solver.removeAllGivens();
+        }
+        assertEquals(toString(layout.getOriginalPuzzle()), toString((int[]) grids.get(0)));
+    }
+
+    @Test
+    public void rangesReadEveryLineOnce() throws IOException {
+        FileChannel channel = randomAccessFile.getChannel();
+        List expected = readAll(new MappedPuzzleReader(channel, 9));
+        for (int numberOfRanges = 1; numberOfRanges <= 40; numberOfRanges += 3) {
+            long[] boundaries = MappedPuzzleReader.split(channel.size(), numberOfRanges);
+            assertEquals(0, boundaries[0]);
+            assertEquals(channel.size(), boundaries[numberOfRanges]);
+            List actual = new ArrayList();
+            int invalid = 0;
+            for (int i = 0; i < numberOfRanges; i++) {
+                MappedPuzzleReader reader = new MappedPuzzleReader(
+                        channel, 9, boundaries[i], boundaries[i + 1], 100);
+                actual.addAll(readAll(reader));
+                invalid += reader.getNumberOfInvalidLines();
+            }
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(toString((int[]) expected.get(i)), toString((int[]) actual.get(i)));
+            }
+            assertEquals(3, invalid);
+        }
+    }
+
+    @Test
+    public void jigsawSudokusAreSkipped() throws IOException {
+        Options options = Options.getInstance();
+        Options.CreateAction createAction = options.getCreateAction();
+        StringWriter generated = new StringWriter();
+        try {
+            options.load(": jigsaw");
+            new BatchGenerator(2).generate(3, 5L, generated);
+        } finally {
+            options.setDefaults();
+            options.setCreateAction(createAction);
+        }
+        String jigsaw = generated.toString();
+        assertEquals(7, jigsaw.split("\n").length);
+        assertEquals(81, jigsaw.split("\n")[1].length());
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write((UNIQUE + "\n" + jigsaw + ": size=x\n" + UNIQUE + "\n:\n" + AMBIGUOUS + "\n")
+                .getBytes("US-ASCII"));
+        out.close();
+        MappedPuzzleReader reader = new MappedPuzzleReader(randomAccessFile.getChannel(), 9);
+        int[] grid = new int[81];
+        assertEquals(true, reader.next(grid));
+        assertEquals(UNIQUE.replace('.', '0'), toString(grid));
+        assertNull(reader.getOptionsLine());
+        assertEquals(true, reader.next(grid));
+        assertEquals(AMBIGUOUS.replace('.', '0'), toString(grid));
+        assertEquals(":", reader.getOptionsLine());
+        assertEquals(false, reader.next(grid));
+        assertEquals(7, reader.getNumberOfInvalidLines());
+    }
+
+    private static List readAll(final MappedPuzzleReader reader) throws IOException {
+        List grids = new ArrayList();
+        int[] grid = new int[81];
+        long lineStart = -1;
+        while (reader.next(grid)) {
+            assertEquals(true, reader.getLineStart() > lineStart);
+            lineStart = reader.getLineStart();
+            grids.add(grid.clone());
+        }
+        return grids;
+    }
+
+    private static String toString(final int[] grid) {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < grid.length; i++) {
+            buffer.append(grid[i]);
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.jfasttrack.sudoku.batch;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+
+
+/**
+ * Puts the shared <code>Options</code> back as they were after each test, since the batch tools
+ * load options lines into them and tests set layouts of their own.
+ */
+public abstract class OptionsFixture {
+
+    private Options.CreateAction createAction;
+
+    @Before
+    public void saveOptions() {
+        createAction = Options.getInstance().getCreateAction();
+    }
+
+    @After
+    public void restoreOptions() {
+        Options.getInstance().setDefaults();
+        Options.getInstance().setCreateAction(createAction);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class PuzzleArchiveTest extends OptionsFixture {
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("puzzles", ".dlsa");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void everyPuzzleReadsBackInAnyOrder() throws IOException {
+        Options.getInstance().load(": size=16 rectangular:4:4 diagonals");
+        Random random = new Random(5);
+        int[][] puzzles = new int[3000][256];
+        PuzzleArchiveWriter writer = new PuzzleArchiveWriter(new FileOutputStream(file));
+        for (int i = 0; i < puzzles.length; i++) {
+            for (int cell = 0; cell < 256; cell++) {
+                puzzles[i][cell] = random.nextInt(3) == 0 ? random.nextInt(16) + 1 : 0;
+            }
+            writer.write(puzzles[i]);
+        }
+        assertEquals(puzzles.length, writer.getNumberOfPuzzles());
+        writer.close();
+        Options.getInstance().setDefaults();
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            PuzzleArchiveReader reader = new PuzzleArchiveReader(randomAccessFile.getChannel());
+            assertEquals(puzzles.length, reader.getNumberOfPuzzles());
+            assertEquals(16, reader.getGridSize());
+            assertEquals(": size=16 rectangular:4:4 diagonals ", reader.getOptionsLine());
+            int[] givens = new int[256];
+            for (int i = 0; i < puzzles.length; i++) {
+                reader.read(i, givens);
+                assertEquals(toString(puzzles[i]), toString(givens));
+            }
+            for (int n = 0; n < 200; n++) {
+                int i = random.nextInt(puzzles.length);
+                reader.read(i, givens);
+                assertEquals(toString(puzzles[i]), toString(givens));
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+        assertEquals(true, file.length() < puzzles.length * (256 + 1) / 3);
+    }
+
+    @Test
+    public void jigsawBlocksAreKept() throws IOException {
+        Options options = Options.getInstance();
+        options.setBlockType(Options.BlockType.JIGSAW);
+        options.setCreateAction(Options.CreateAction.GENERATE);
+        StandardSudoku[] sudokus = {
+            new StandardSudoku(1L), new StandardSudoku(2L),
+        };
+        PuzzleArchiveWriter writer = new PuzzleArchiveWriter(new FileOutputStream(file));
+        for (int i = 0; i < sudokus.length; i++) {
+            writer.write(sudokus[i]);
+        }
+        writer.close();
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            PuzzleArchiveReader reader = new PuzzleArchiveReader(randomAccessFile.getChannel());
+            assertEquals(true, reader.isJigsaw());
+            assertEquals(": jigsaw ", reader.getOptionsLine());
+            int[] givens = new int[81];
+            int[] blocks = new int[81];
+            for (int i = sudokus.length - 1; i >= 0; i--) {
+                reader.read(i, givens, blocks);
+                assertEquals(toString(sudokus[i].getOriginalPuzzle()), toString(givens));
+                for (int cell = 0; cell < 81; cell++) {
+                    assertEquals(sudokus[i].getCellAt(cell / 9, cell % 9).getBlockIndex(),
+                            blocks[cell]);
+                }
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28\n".getBytes());
+        out.close();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            new PuzzleArchiveReader(randomAccessFile.getChannel());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static String toString(final int[] grid) {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < grid.length; i++) {
+            buffer.append(grid[i]).append(',');
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+
+
+public class PuzzleDeduplicatorTest extends OptionsFixture {
+
+    private static final String SINGLES =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    /** <code>SINGLES</code> with its first two bands swapped and its values relabeled. */
+    private static final String SINGLES_SWAPPED =
+            "6...7...48..6.4..52...9...734..2....7..513....16....7..7....96....851..3....6..21";
+
+    private static final String INTERSECTIONS =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    @Test
+    public void firstOccurrencesAreWrittenInInputOrder() throws IOException {
+        String input = SINGLES + "\n" + SINGLES_SWAPPED + "\n\n" + INTERSECTIONS + "\n" + "53..7"
+                + "\n" + SINGLES.replace('.', '0') + "\n";
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(3);
+        assertEquals(SINGLES + "\n" + INTERSECTIONS + "\n", dedupe(deduplicator, input));
+        assertEquals(5, deduplicator.getNumberOfPuzzles());
+        assertEquals(2, deduplicator.getNumberOfDuplicates());
+        assertEquals(2, deduplicator.getNumberOfKeys());
+
+        assertEquals("", dedupe(deduplicator, INTERSECTIONS + "\n"));
+        assertEquals(1, deduplicator.getNumberOfDuplicates());
+    }
+
+    @Test
+    public void optionsLinesAreWrittenWhereTheLayoutChanges() throws IOException {
+        String small = ": size=4 rectangular:2:2";
+        String input = small + "\n" + "1..2.3..........\n" + "..2...1.3.......\n"
+                + ":\n" + SINGLES + "\n" + small + "\n" + "2..3.1..........\n";
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(2);
+        assertEquals(small + " \n" + "1..2.3..........\n" + "..2...1.3.......\n"
+                + ":\n" + SINGLES + "\n", dedupe(deduplicator, input));
+        assertEquals(1, deduplicator.getNumberOfDuplicates());
+    }
+
+    @Test
+    public void sudokusUnderAnUnreadableOptionsLineAreDropped() throws IOException {
+        String input = ": size=x\n" + SINGLES + "\n"
+                + ": size=x jigsaw\n" + SINGLES + "\n" + SINGLES + "\n"
+                + ": rectangular:3\n" + SINGLES + "\n"
+                + ":\n" + INTERSECTIONS + "\n";
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(2);
+        assertEquals(INTERSECTIONS + "\n", dedupe(deduplicator, input));
+        assertEquals(4, deduplicator.getNumberOfPuzzles());
+        assertEquals(1, deduplicator.getNumberOfKeys());
+    }
+
+    @Test
+    public void generatedBatchesSkipDuplicates() throws IOException {
+        Options.getInstance().load(": size=4 rectangular:2:2");
+        StringWriter out = new StringWriter();
+        new BatchGenerator(2).generate(20, 3L, out);
+        PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(2);
+        dedupe(deduplicator, out.toString());
+        assertTrue(deduplicator.getNumberOfDuplicates() > 0);
+
+        BatchGenerator batchGenerator = new BatchGenerator(2);
+        batchGenerator.setDeduplicator(new PuzzleDeduplicator(1));
+        out = new StringWriter();
+        assertEquals(5, batchGenerator.generate(5, 3L, out));
+        String[] lines = out.toString().split("\n");
+        assertEquals(1 + 5, lines.length);
+        Set keys = new HashSet();
+        Canonicalizer canonicalizer = Canonicalizer.getInstance(Options.getInstance());
+        for (int i = 1; i < lines.length; i++) {
+            int[] grid = new int[lines[i].length()];
+            for (int j = 0; j < grid.length; j++) {
+                grid[j] = "123456789".indexOf(lines[i].charAt(j)) + 1;
+            }
+            keys.add(canonicalizer.getKey(grid));
+        }
+        assertEquals(5, keys.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneThreadIsNeeded() {
+        new PuzzleDeduplicator(0);
+    }
+
+    private static String dedupe(final PuzzleDeduplicator deduplicator, final String input)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        deduplicator.dedupe(new StringReader(input), out);
+        return out.toString();
+    }
+}
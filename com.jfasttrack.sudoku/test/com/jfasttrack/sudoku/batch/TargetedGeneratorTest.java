@@ -0,0 +1,58 @@
+package com.jfasttrack.sudoku.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+import com.jfasttrack.sudoku.solver.DifficultyRater;
+import com.jfasttrack.sudoku.solver.Rating;
+
+
+public class TargetedGeneratorTest extends OptionsFixture {
+
+    @Test
+    public void everySudokuIsInTheTargetTier() throws IOException {
+        int tier = Rating.getTier("intersection");
+        StringWriter out = new StringWriter();
+        TargetedGenerator generator = new TargetedGenerator(3);
+        assertEquals(3, generator.generate(tier, 3, 17L, 1000, out));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            Rating rating = new DifficultyRater().rate(new StandardSudoku(lines[i]));
+            assertEquals(tier, rating.getTier());
+        }
+    }
+
+    @Test
+    public void theOutputDoesNotDependOnTheNumberOfThreads() throws IOException {
+        int tier = Rating.getTier("dlx");
+        StringWriter out1 = new StringWriter();
+        TargetedGenerator generator = new TargetedGenerator(1);
+        generator.generate(tier, 2, 23L, 1000, out1);
+        int numberOfAttempts = generator.getNumberOfAttempts();
+
+        Options.getInstance().setDefaults();
+        StringWriter out4 = new StringWriter();
+        generator = new TargetedGenerator(4);
+        generator.generate(tier, 2, 23L, 1000, out4);
+        assertEquals(out1.toString(), out4.toString());
+        assertEquals(numberOfAttempts, generator.getNumberOfAttempts());
+    }
+
+    @Test
+    public void generationStopsAfterTheMaximumNumberOfAttempts() throws IOException {
+        Options.getInstance().load(": size=4 rectangular:2:2");
+        StringWriter out = new StringWriter();
+        TargetedGenerator generator = new TargetedGenerator(2);
+        assertEquals(0, generator.generate(Rating.getTier("fish"), 1, 5L, 10, out));
+        assertEquals(10, generator.getNumberOfAttempts());
+        assertEquals(Options.getInstance().toString() + "\n", out.toString());
+    }
+}
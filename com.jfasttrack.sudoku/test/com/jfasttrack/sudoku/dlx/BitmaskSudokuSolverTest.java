@@ -0,0 +1,243 @@
+package com.jfasttrack.sudoku.dlx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.DancingCellsSolver;
+import com.jfasttrack.dlx.LinkedDLXSolver;
+import com.jfasttrack.dlx.ParallelDLXSolver;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.dlx.SearchOutcome;
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.puzzle.PuzzleDelegate;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class BitmaskSudokuSolverTest {
+
+    @Test
+    public void solverFindsTheUniqueSolution() {
+        StandardSudoku sudoku = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        Set solutions = solveAll(sudoku, new BitmaskSudokuSolver(sudoku));
+        assertEquals(1, solutions.size());
+        assertEquals(SudokuSolverTest.UNIQUE_SOLUTION, solutions.iterator().next());
+    }
+
+    @Test
+    public void solverFindsTheSameSolutionsAsDancingLinks() {
+        assertSameSolutions(new StandardSudoku(SudokuSolverTest.AMBIGUOUS));
+    }
+
+    @Test
+    public void solverHandlesDiagonals() {
+        assertSameSolutions(withHoles(": diagonals\n", 81, 60, 1));
+    }
+
+    @Test
+    public void solverHandlesJigsawBlocks() {
+        StringBuffer blocks = new StringBuffer(": jigsaw\n");
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                blocks.append(row / 3 * 3 + (column + row % 3) % 9 / 3);
+            }
+            blocks.append('\n');
+        }
+        assertSameSolutions(withHoles(blocks.toString(), 81, 60, 2));
+    }
+
+    @Test
+    public void solverHandlesLargerGrids() {
+        assertSameSolutions(withHoles(": size=16 rectangular:4:4\n", 256, 120, 3));
+    }
+
+    @Test
+    public void conflictingGivensHaveNoSolution() {
+        StandardSudoku sudoku = new StandardSudoku("55" + SudokuSolverTest.UNIQUE.substring(2));
+        ISudokuSolver solver = new BitmaskSudokuSolver(sudoku);
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        assertEquals(Uniqueness.NONE, solver.checkUniqueness());
+        assertEquals(SearchOutcome.COMPLETED, solver.getOutcome());
+    }
+
+    @Test
+    public void solverIsReusableAfterRemovingTheGivens() {
+        StandardSudoku ambiguous = new StandardSudoku(SudokuSolverTest.AMBIGUOUS);
+        ISudokuSolver solver = new BitmaskSudokuSolver(ambiguous);
+        solver.placeGivens(ambiguous.getOriginalPuzzle());
+        assertEquals(Uniqueness.MULTIPLE, solver.checkUniqueness());
+        assertEquals(Uniqueness.MULTIPLE, solver.checkUniqueness());
+        solver.removeAllGivens();
+
+        solver.placeGivens(new StandardSudoku(SudokuSolverTest.UNIQUE).getOriginalPuzzle());
+        assertEquals(Uniqueness.UNIQUE, solver.checkUniqueness());
+    }
+
+    @Test
+    public void nodeLimitCutsTheSearchOff() {
+        StandardSudoku sudoku = new StandardSudoku(SudokuSolverTest.AMBIGUOUS.replace('5', '.'));
+        ISudokuSolver solver = new BitmaskSudokuSolver(sudoku);
+        solver.setSearchBudget(new SearchBudget(100, 0, false));
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        solver.countSolutions(0);
+        assertEquals(SearchOutcome.NODE_LIMIT, solver.getOutcome());
+    }
+
+    @Test
+    public void otherSolutionsAreFoundAfterClearingGivens() {
+        StandardSudoku sudoku = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        int[] solution = new int[81];
+        for (int i = 0; i < solution.length; i++) {
+            solution[i] =
+                    PuzzleDelegate.CHARACTERS.indexOf(SudokuSolverTest.UNIQUE_SOLUTION.charAt(i));
+        }
+        ISudokuSolver bitmask = new BitmaskSudokuSolver(sudoku);
+        ISudokuSolver[] dancingLinks = {
+            new SudokuSolver(sudoku),
+            new SudokuSolver(sudoku, new LinkedDLXSolver()),
+            new SudokuSolver(sudoku, new DancingCellsSolver()),
+            new SudokuSolver(sudoku, new ParallelDLXSolver()),
+        };
+
+        int numberAmbiguous = 0;
+        for (int cellIndex = 0; cellIndex < 41; cellIndex++) {
+            int[] puzzle = (int[]) sudoku.getOriginalPuzzle().clone();
+            int[] clearedCells = {cellIndex, 80 - cellIndex};
+            puzzle[cellIndex] = 0;
+            puzzle[80 - cellIndex] = 0;
+
+            bitmask.placeGivens(puzzle);
+            boolean ambiguous = bitmask.checkUniqueness() == Uniqueness.MULTIPLE;
+            assertEquals(ambiguous, bitmask.hasOtherSolution(solution, clearedCells));
+            assertEquals(ambiguous, bitmask.checkUniqueness() == Uniqueness.MULTIPLE);
+            bitmask.removeAllGivens();
+
+            for (int i = 0; i < dancingLinks.length; i++) {
+                dancingLinks[i].placeGivens(puzzle);
+                assertEquals(ambiguous, dancingLinks[i].hasOtherSolution(solution, clearedCells));
+                assertEquals(ambiguous,
+                        dancingLinks[i].checkUniqueness() == Uniqueness.MULTIPLE);
+                dancingLinks[i].removeAllGivens();
+            }
+            if (ambiguous) {
+                numberAmbiguous++;
+            }
+        }
+        assertEquals(true, numberAmbiguous > 0 && numberAmbiguous < 41);
+    }
+
+    @Test
+    public void aCutOffSearchKeepsTheGivens() {
+        StandardSudoku sudoku = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        int[] solution = new int[81];
+        for (int i = 0; i < solution.length; i++) {
+            solution[i] =
+                    PuzzleDelegate.CHARACTERS.indexOf(SudokuSolverTest.UNIQUE_SOLUTION.charAt(i));
+        }
+        int[] puzzle = (int[]) sudoku.getOriginalPuzzle().clone();
+        int[] clearedCells = {0, 80};
+        puzzle[0] = 0;
+        puzzle[80] = 0;
+
+        ISudokuSolver[] solvers = {new BitmaskSudokuSolver(sudoku), new SudokuSolver(sudoku)};
+        for (int i = 0; i < solvers.length; i++) {
+            solvers[i].placeGivens(puzzle);
+            assertEquals(false, solvers[i].hasOtherSolution(solution, clearedCells));
+            solvers[i].setSearchBudget(new SearchBudget(2, 0, false));
+            assertEquals(true, solvers[i].hasOtherSolution(solution, clearedCells));
+            assertEquals(SearchOutcome.NODE_LIMIT, solvers[i].getOutcome());
+        }
+    }
+
+    @Test
+    public void defaultBackendIsTheBitmaskSolver() {
+        StandardSudoku sudoku = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        assertSame(SudokuBackend.BITMASK, SudokuBackend.getDefault(sudoku));
+        assertEquals(true,
+                SudokuBackend.BITMASK.createSolver(sudoku) instanceof BitmaskSudokuSolver);
+        assertEquals(true,
+                SudokuBackend.DANCING_LINKS.createSolver(sudoku) instanceof SudokuSolver);
+    }
+
+    /**
+     * Checks that both backends find the same solutions of a puzzle.
+     *
+     * @param sudoku  The puzzle to be solved.
+     */
+    private static void assertSameSolutions(final StandardSudoku sudoku) {
+        Set expected = solveAll(sudoku, SudokuBackend.DANCING_LINKS.createSolver(sudoku));
+        assertEquals(true, expected.size() > 1);
+        assertEquals(expected, solveAll(sudoku, SudokuBackend.BITMASK.createSolver(sudoku)));
+    }
+
+    /**
+     * Creates a puzzle by solving an empty grid, then emptying some of its cells.
+     *
+     * @param header         The options and, for a jigsaw sudoku, its blocks.
+     * @param numberOfCells  The number of cells in the grid.
+     * @param holes          The number of cells to be emptied.
+     * @param seed           Chooses the cells to be emptied.
+     * @return               A puzzle with several solutions.
+     */
+    private static StandardSudoku withHoles(
+            final String header, final int numberOfCells, final int holes, final long seed) {
+        char[] empty = new char[numberOfCells];
+        Arrays.fill(empty, '.');
+        StandardSudoku sudoku = new StandardSudoku(header + new String(empty));
+        ISudokuSolver solver = SudokuBackend.DANCING_LINKS.createSolver(sudoku);
+        final char[] grid = new char[numberOfCells];
+        final int size = sudoku.getGridSize();
+        solver.addRowSolutionListener(new RowSolutionListener() {
+            public boolean solutionFound(final int[] rows, final int depth) {
+                for (int i = 0; i < depth; i++) {
+                    grid[rows[i] / size] = PuzzleDelegate.CHARACTERS.charAt(rows[i] % size + 1);
+                }
+                return true;
+            }
+        });
+        solver.solve();
+
+        Random random = new Random(seed);
+        for (int i = 0; i < holes; i++) {
+            int cellIndex;
+            do {
+                cellIndex = random.nextInt(numberOfCells);
+            } while (grid[cellIndex] == '.');
+            grid[cellIndex] = '.';
+        }
+        return new StandardSudoku(header + new String(grid));
+    }
+
+    /**
+     * Finds every solution of a puzzle.
+     *
+     * @param sudoku  The puzzle to be solved.
+     * @param solver  A solver for the puzzle.
+     * @return        Each solution, as a string with one character per cell.
+     */
+    private static Set solveAll(final StandardSudoku sudoku, final ISudokuSolver solver) {
+        final Set solutions = new HashSet();
+        final int size = sudoku.getGridSize();
+        solver.addRowSolutionListener(new RowSolutionListener() {
+            public boolean solutionFound(final int[] rows, final int depth) {
+                char[] grid = new char[size * size];
+                for (int i = 0; i < depth; i++) {
+                    grid[rows[i] / size] = PuzzleDelegate.CHARACTERS.charAt(rows[i] % size + 1);
+                }
+                solutions.add(new String(grid));
+                return false;
+            }
+        });
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        solver.solve();
+        solver.removeAllGivens();
+        return solutions;
+    }
+}
@@ -0,0 +1,125 @@
+package com.jfasttrack.sudoku.dlx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchBudget;
+import com.jfasttrack.dlx.SearchOutcome;
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class SudokuSolverPoolTest {
+
+    @Test
+    public void releasedSolverIsLeasedAgainClean() {
+        SudokuSolverPool pool = new SudokuSolverPool(2, 4);
+        StandardSudoku ambiguous = new StandardSudoku(SudokuSolverTest.AMBIGUOUS);
+        SudokuSolver solver = pool.lease(ambiguous);
+        final int[] reported = new int[1];
+        solver.addRowSolutionListener(new RowSolutionListener() {
+            public boolean solutionFound(final int[] rows, final int depth) {
+                reported[0]++;
+                return false;
+            }
+        });
+        solver.setSearchBudget(new SearchBudget(10, 0, false));
+        solver.placeGivens(ambiguous.getOriginalPuzzle());
+        solver.solve();
+        assertEquals(SearchOutcome.NODE_LIMIT, solver.getOutcome());
+        pool.release(solver);
+
+        StandardSudoku unique = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        SudokuSolver again = pool.lease(unique);
+        assertSame(solver, again);
+        again.placeGivens(unique.getOriginalPuzzle());
+        assertEquals(Uniqueness.UNIQUE, again.checkUniqueness());
+        assertEquals(SearchOutcome.COMPLETED, again.getOutcome());
+        assertEquals(0, reported[0]);
+        pool.release(again);
+
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(0, pool.getEvictions());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void layoutsGetTheirOwnSolvers() {
+        SudokuSolverPool pool = new SudokuSolverPool(2, 4);
+        StandardSudoku standard = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        StandardSudoku diagonal = new StandardSudoku(": diagonals\n" + SudokuSolverTest.UNIQUE);
+        SudokuSolver solver = pool.lease(standard);
+        pool.release(solver);
+        assertNotSame(solver, pool.lease(diagonal));
+        assertSame(solver, pool.lease(standard));
+        assertEquals(2, pool.getMisses());
+    }
+
+    @Test
+    public void poolIsBounded() {
+        SudokuSolverPool pool = new SudokuSolverPool(2, 1);
+        StandardSudoku standard = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        List solvers = new ArrayList();
+        for (int i = 0; i < 3; i++) {
+            solvers.add(pool.lease(standard));
+        }
+        for (int i = 0; i < 3; i++) {
+            pool.release((SudokuSolver) solvers.get(i));
+        }
+        assertEquals(1, pool.getEvictions());
+        assertEquals(2, pool.getIdleCount());
+
+        // A second layout pushes the first one out.
+        pool.release(pool.lease(new StandardSudoku(": diagonals\n" + SudokuSolverTest.UNIQUE)));
+        assertEquals(3, pool.getEvictions());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void solverCannotBeReleasedTwice() {
+        SudokuSolverPool pool = new SudokuSolverPool();
+        SudokuSolver solver = pool.lease(new StandardSudoku(SudokuSolverTest.UNIQUE));
+        pool.release(solver);
+        pool.release(solver);
+    }
+
+    @Test
+    public void threadsShareThePool() throws InterruptedException {
+        final SudokuSolverPool pool = new SudokuSolverPool(4, 4);
+        final StandardSudoku unique = new StandardSudoku(SudokuSolverTest.UNIQUE);
+        final int[] failures = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 50; i++) {
+                        SudokuSolver solver = pool.lease(unique);
+                        solver.placeGivens(unique.getOriginalPuzzle());
+                        if (solver.checkUniqueness() != Uniqueness.UNIQUE) {
+                            synchronized (failures) {
+                                failures[0]++;
+                            }
+                        }
+                        pool.release(solver);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        assertEquals(0, failures[0]);
+        assertEquals(200, pool.getHits() + pool.getMisses());
+        assertEquals(true, pool.getMisses() <= threads.length);
+        assertEquals(0, pool.getEvictions());
+    }
+}
@@ -0,0 +1,376 @@
+package com.jfasttrack.sudoku.dlx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.jfasttrack.dlx.AbstractExactCoverSolver;
+import com.jfasttrack.dlx.ArrayDLXSolver;
+import com.jfasttrack.dlx.ColumnHeuristic;
+import com.jfasttrack.dlx.DancingCellsSolver;
+import com.jfasttrack.dlx.LinkedDLXSolver;
+import com.jfasttrack.dlx.Node;
+import com.jfasttrack.dlx.ParallelDLXSolver;
+import com.jfasttrack.dlx.RowSolutionListener;
+import com.jfasttrack.dlx.SearchStats;
+import com.jfasttrack.dlx.SolutionListener;
+import com.jfasttrack.dlx.Uniqueness;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+
+
+public class SudokuSolverTest {
+
+    /** A puzzle with a unique solution. */
+    static final String UNIQUE =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    /** The solution of <code>UNIQUE</code>. */
+    static final String UNIQUE_SOLUTION =
+            "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    /** The same puzzle with several givens removed, so that it has many solutions. */
+    static final String AMBIGUOUS =
+            "53..7....6...95....9.....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.";
+
+    @Test
+    public void engineFindsTheUniqueSolution() {
+        List solutions = solveAll(UNIQUE, new ArrayDLXSolver());
+        assertEquals(1, solutions.size());
+        assertEquals(UNIQUE_SOLUTION, solutions.get(0));
+    }
+
+    @Test
+    public void enginesReportTheSameSolutionsInTheSameOrder() {
+        List linked = solveAll(AMBIGUOUS, new LinkedDLXSolver());
+        List array = solveAll(AMBIGUOUS, new ArrayDLXSolver());
+        assertEquals(linked, array);
+        assertEquals(true, linked.size() > 1);
+    }
+
+    @Test
+    public void parallelSearchFindsTheSameSolutions() {
+        List serial = solveAll(AMBIGUOUS, new LinkedDLXSolver());
+        List parallel = solveAll(AMBIGUOUS, new ParallelDLXSolver(new ForkJoinPool(4), 3));
+        assertEquals(serial.size(), parallel.size());
+        assertEquals(new HashSet(serial), new HashSet(parallel));
+    }
+
+    @Test
+    public void dancingCellsFindTheSameSolutions() {
+        Set expected = new HashSet(solveAll(AMBIGUOUS, new LinkedDLXSolver()));
+        assertEquals(expected, new HashSet(solveAll(AMBIGUOUS, new DancingCellsSolver())));
+        assertEquals(UNIQUE_SOLUTION, solveAll(UNIQUE, new DancingCellsSolver()).get(0));
+    }
+
+    @Test
+    public void parallelSearchStopsWhenAListenerAsksIt() {
+        final StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        final int[] count = new int[1];
+        SudokuSolver solver =
+                new SudokuSolver(sudoku, new ParallelDLXSolver(new ForkJoinPool(4), 3));
+        solver.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                count[0]++;
+                return true;
+            }
+        });
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        solver.solve();
+        assertEquals(1, count[0]);
+    }
+
+    @Test
+    public void countingStopsAtTheLimit() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(4), 3),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+            SudokuSolver solver = new SudokuSolver(sudoku, engines[i]);
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            assertEquals(1, solver.countSolutions(1));
+            assertEquals(5, solver.countSolutions(5));
+            assertEquals(Uniqueness.MULTIPLE, solver.checkUniqueness());
+            solver.removeAllGivens();
+
+            sudoku = new StandardSudoku(UNIQUE);
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            assertEquals(Uniqueness.UNIQUE, solver.checkUniqueness());
+            solver.removeAllGivens();
+        }
+    }
+
+    @Test
+    public void overconstrainedPuzzleHasNoSolution() {
+        // 2 does not conflict with any given, but the only solution has 4 in that cell.
+        StandardSudoku sudoku = new StandardSudoku("532" + UNIQUE.substring(3));
+        SudokuSolver solver = new SudokuSolver(sudoku, new ArrayDLXSolver());
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        assertEquals(Uniqueness.NONE, solver.checkUniqueness());
+    }
+
+    @Test
+    public void rowListenersSeeTheSameSolutions() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 2),
+        };
+        List expected = solveAll(AMBIGUOUS, new LinkedDLXSolver());
+        for (int i = 0; i < engines.length; i++) {
+            final StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+            final List solutions = new ArrayList();
+            SudokuSolver solver = new SudokuSolver(sudoku, engines[i]);
+            solver.addRowSolutionListener(new RowSolutionListener() {
+                public boolean solutionFound(final int[] rows, final int depth) {
+                    char[] grid = new char[81];
+                    for (int j = 0; j < depth; j++) {
+                        grid[rows[j] / 9] = (char) ('1' + rows[j] % 9);
+                    }
+                    solutions.add(new String(grid));
+                    return false;
+                }
+            });
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            solver.solve();
+            assertEquals(new HashSet(expected), new HashSet(solutions));
+        }
+    }
+
+    @Test
+    public void enginesCountTheSameNodesAndUpdates() {
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 2),
+            new DancingCellsSolver(),
+        };
+        SearchStats[] stats = new SearchStats[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+            SudokuSolver solver = new SudokuSolver(sudoku, engines[i]);
+            solver.setCollectingStats(true);
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            solver.solve();
+            stats[i] = solver.getSearchStats();
+        }
+        assertEquals(engines[0].getNumberOfNodes(), stats[0].getNodes());
+        assertEquals(stats[0].getNodes(), stats[1].getNodes());
+        assertEquals(stats[0].getUpdates(), stats[1].getUpdates());
+        assertEquals(stats[0].getNodes(), stats[2].getNodes());
+        assertEquals(stats[0].getSolutions(), stats[2].getSolutions());
+        for (int depth = 0; depth < stats[0].getNumberOfDepths(); depth++) {
+            assertEquals(stats[0].getNodes(depth), stats[2].getNodes(depth));
+            assertEquals(stats[0].getNodes(depth), stats[3].getNodes(depth));
+            assertEquals(stats[0].getUpdates(depth), stats[3].getUpdates(depth));
+        }
+    }
+
+    @Test
+    public void bucketedHeuristicBuildsTheSameSearchTree() {
+        StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        List expected = solveAll(sudoku, new LinkedDLXSolver());
+        AbstractExactCoverSolver[] engines = {new LinkedDLXSolver(), new ArrayDLXSolver()};
+        for (int i = 0; i < engines.length; i++) {
+            engines[i].setColumnHeuristic(ColumnHeuristic.SHORTEST_BUCKETED);
+            assertEquals(expected, solveAll(sudoku, engines[i]));
+
+            // The givens are gone now. The lists are rebuilt for the empty grid.
+            assertEquals(100, engines[i].countSolutions(100));
+        }
+    }
+
+    @Test
+    public void everyHeuristicFindsTheSameSolutions() {
+        Set expected = new HashSet(solveAll(AMBIGUOUS, new LinkedDLXSolver()));
+        ColumnHeuristic[] heuristics = {
+            ColumnHeuristic.SHORTEST, ColumnHeuristic.SHORTEST_BUCKETED, ColumnHeuristic.FIRST,
+        };
+        for (int h = 0; h < heuristics.length; h++) {
+            AbstractExactCoverSolver[] engines = {
+                new LinkedDLXSolver(),
+                new ArrayDLXSolver(),
+                new ParallelDLXSolver(new ForkJoinPool(2), 2),
+                new DancingCellsSolver(),
+            };
+            for (int i = 0; i < engines.length; i++) {
+                engines[i].setColumnHeuristic(heuristics[h]);
+                engines[i].setTieBreaker(new Random(h * 10 + i));
+                assertEquals(expected, new HashSet(solveAll(AMBIGUOUS, engines[i])));
+            }
+        }
+    }
+
+    @Test
+    public void propagationFindsTheSameSolutionsInFewerNodes() {
+        StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        AbstractExactCoverSolver plain = new ArrayDLXSolver();
+        Set expected = new HashSet(solveAll(sudoku, plain));
+        long nodes = plain.getNumberOfNodes();
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 2),
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+        };
+        engines[3].setRowShuffler(new Random(3));
+        engines[4].setColumnHeuristic(ColumnHeuristic.FIRST);
+        for (int i = 0; i < engines.length; i++) {
+            engines[i].setPropagatingForcedMoves(true);
+            assertEquals(expected, new HashSet(solveAll(sudoku, engines[i])));
+            if (i < 2) {
+                assertEquals(true, engines[i].getNumberOfNodes() < nodes);
+            }
+            assertEquals(100, engines[i].countSolutions(100));
+        }
+    }
+
+    @Test
+    public void seededTieBreakerRepeatsTheSearch() {
+        StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        AbstractExactCoverSolver first = new ArrayDLXSolver();
+        first.setTieBreaker(new Random(42));
+        AbstractExactCoverSolver second = new ArrayDLXSolver();
+        second.setTieBreaker(new Random(42));
+        assertEquals(solveAll(sudoku, first), solveAll(sudoku, second));
+    }
+
+    @Test
+    public void shuffledSearchFindsTheSameSolutions() {
+        Set expected = new HashSet(solveAll(AMBIGUOUS, new LinkedDLXSolver()));
+        AbstractExactCoverSolver[] engines = {
+            new LinkedDLXSolver(),
+            new ArrayDLXSolver(),
+            new ParallelDLXSolver(new ForkJoinPool(2), 2),
+        };
+        for (int i = 0; i < engines.length; i++) {
+            engines[i].setRowShuffler(new Random(i));
+            assertEquals(expected, new HashSet(solveAll(AMBIGUOUS, engines[i])));
+        }
+    }
+
+    @Test
+    public void seededRowShufflerRepeatsTheSearch() {
+        StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        AbstractExactCoverSolver linked = new LinkedDLXSolver();
+        linked.setRowShuffler(new Random(42));
+        AbstractExactCoverSolver array = new ArrayDLXSolver();
+        array.setRowShuffler(new Random(42));
+        List solutions = solveAll(sudoku, linked);
+        assertEquals(solutions, solveAll(sudoku, array));
+        assertEquals(false, solutions.equals(solveAll(sudoku, new ArrayDLXSolver())));
+    }
+
+    @Test
+    public void seededGeneratorRepeatsTheSudoku() {
+        Options options = Options.getInstance();
+        Options.CreateAction createAction = options.getCreateAction();
+        options.setCreateAction(Options.CreateAction.GENERATE);
+        try {
+            StandardSudoku sudoku = new StandardSudoku(2009L);
+            assertEquals(sudoku.toOriginalString(), new StandardSudoku(2009L).toOriginalString());
+
+            SudokuSolver solver = new SudokuSolver(sudoku);
+            solver.placeGivens(sudoku.getOriginalPuzzle());
+            assertEquals(Uniqueness.UNIQUE, solver.checkUniqueness());
+        } finally {
+            options.setCreateAction(createAction);
+        }
+    }
+
+    @Test
+    public void templateIsSharedByPuzzlesWithTheSameLayout() {
+        SudokuMatrixTemplate template =
+                SudokuMatrixTemplate.getInstance(new StandardSudoku(UNIQUE));
+        assertSame(template, SudokuMatrixTemplate.getInstance(new StandardSudoku(AMBIGUOUS)));
+        assertEquals(true, template.matches(new StandardSudoku(AMBIGUOUS)));
+    }
+
+    @Test
+    public void solverFromATemplateIsReusableAfterRemovingTheGivens() {
+        final StandardSudoku sudoku = new StandardSudoku(AMBIGUOUS);
+        final List solutions = new ArrayList();
+        SudokuSolver solver = new SudokuSolver(sudoku);
+        solver.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                solutions.add(gridString(solutionNodes, 9));
+                return false;
+            }
+        });
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        solver.solve();
+        Set expected = new HashSet(solveAll(AMBIGUOUS, new LinkedDLXSolver()));
+        assertEquals(expected, new HashSet(solutions));
+        solver.removeAllGivens();
+
+        solutions.clear();
+        solver.placeGivens(new StandardSudoku(UNIQUE).getOriginalPuzzle());
+        solver.solve();
+        assertEquals(1, solutions.size());
+        assertEquals(UNIQUE_SOLUTION, solutions.get(0));
+    }
+
+    /**
+     * Finds every solution of a puzzle.
+     *
+     * @param puzzleString  An 81-character sudoku.
+     * @param engine        The engine to run on.
+     * @return              Each solution, as an 81-character string.
+     */
+    static List solveAll(final String puzzleString, final AbstractExactCoverSolver engine) {
+        return solveAll(new StandardSudoku(puzzleString), engine);
+    }
+
+    /**
+     * Finds every solution of a puzzle.
+     *
+     * @param sudoku  The puzzle to be solved.
+     * @param engine  The engine to run on.
+     * @return        Each solution, as a string with one character per cell.
+     */
+    static List solveAll(final StandardSudoku sudoku, final AbstractExactCoverSolver engine) {
+        final List solutions = new ArrayList();
+        SudokuSolver solver = new SudokuSolver(sudoku, engine);
+        solver.addSolutionListener(new SolutionListener() {
+            public boolean solutionFound(final List solutionNodes) {
+                solutions.add(gridString(solutionNodes, sudoku.getGridSize()));
+                return false;
+            }
+        });
+        solver.placeGivens(sudoku.getOriginalPuzzle());
+        solver.solve();
+        solver.removeAllGivens();
+        return solutions;
+    }
+
+    /**
+     * Converts a solution into a string of digits.
+     *
+     * @param solutionNodes  The nodes that make up a solution.
+     * @param size           The size of the grid.
+     * @return               The solution, one character per cell.
+     */
+    static String gridString(final List solutionNodes, final int size) {
+        char[] grid = new char[size * size];
+        Iterator iterator = solutionNodes.iterator();
+        while (iterator.hasNext()) {
+            Node node = (Node) iterator.next();
+            grid[node.applicationData / size] =
+                    Character.forDigit(node.applicationData % size + 1, Character.MAX_RADIX);
+        }
+        return new String(grid).toUpperCase();
+    }
+}
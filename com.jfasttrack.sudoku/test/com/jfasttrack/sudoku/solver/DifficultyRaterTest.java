@@ -0,0 +1,131 @@
+package com.jfasttrack.sudoku.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.jfasttrack.sudoku.puzzle.AbstractPuzzleModel;
+import com.jfasttrack.sudoku.puzzle.Cell;
+import com.jfasttrack.sudoku.puzzle.Options;
+import com.jfasttrack.sudoku.puzzle.StandardSudoku;
+import com.jfasttrack.sudoku.step.AbstractStep;
+
+
+public class DifficultyRaterTest {
+
+    private static final String SINGLES =
+            "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+
+    private static final String INTERSECTIONS =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private static final String NAKED_PAIR =
+            ".............124.59....512..3...7.8..753.869..9.6...4..192....77.856.............";
+
+    private static final String HIDDEN_PAIR =
+            "..1....64.....2.5..4....7.8....87..52..9.1..71..56....5.7....3..9.7.....31....4..";
+
+    private static final String AMBIGUOUS =
+            "53..7....6...95....9.....6.8...6...34..8.3..17...2...6.6....28....419..5....8..7.";
+
+    @After
+    public void restoreOptions() {
+        Options.getInstance().setDefaults();
+    }
+
+    @Test
+    public void singlesSolveAnEasySudoku() {
+        StandardSudoku sudoku = new StandardSudoku(SINGLES);
+        Rating rating = new DifficultyRater().rate(sudoku);
+        assertTrue(sudoku.isSolved());
+        assertFalse(rating.isFallbackRequired());
+        assertEquals(0, rating.getTier());
+        assertEquals(0, rating.getHardestSolverIndex());
+        assertEquals(51, rating.getNumberOfSteps());
+        assertEquals("single 51,0,0,0,0,0,0,0,0,0,0,0,0,0", rating.toString());
+    }
+
+    @Test
+    public void theHardestSolverSetsTheTier() {
+        StandardSudoku sudoku = new StandardSudoku(INTERSECTIONS);
+        Rating rating = new DifficultyRater().rate(sudoku);
+        assertTrue(sudoku.isSolved());
+        assertEquals(2, rating.getHardestSolverIndex());
+        assertEquals(Solver.GROUP_INDEX[2], rating.getTier());
+        assertEquals("intersection", Rating.getTierName(rating.getTier()));
+        assertEquals(sudoku.getGridSize() * sudoku.getGridSize() - 17,
+                rating.getNumberOfSteps(0) + rating.getNumberOfSteps(1));
+    }
+
+    @Test
+    public void anAmbiguousSudokuNeedsASearch() {
+        Rating rating = new DifficultyRater().rate(new StandardSudoku(AMBIGUOUS));
+        assertTrue(rating.isFallbackRequired());
+        assertEquals(Solver.GROUP_NAME.length, rating.getTier());
+        assertEquals("dlx", Rating.getTierName(rating.getTier()));
+        assertEquals(rating.getTier(), Rating.getTier("dlx"));
+        assertEquals(-1, Rating.getTier("guessing"));
+    }
+
+    @Test
+    public void subsetStepsAreRatedAndCanBeUndone() {
+        StandardSudoku nakedPair = new StandardSudoku(NAKED_PAIR);
+        assertEquals(1, undoSubsetSteps(nakedPair, 3, 5));
+        Rating rating = new DifficultyRater().rate(new StandardSudoku(NAKED_PAIR));
+        assertEquals("subset", Rating.getTierName(rating.getTier()));
+        assertEquals(1, rating.getNumberOfSteps(3));
+
+        StandardSudoku hiddenPair = new StandardSudoku(HIDDEN_PAIR);
+        assertEquals(1, undoSubsetSteps(hiddenPair, 6, 8));
+        rating = new DifficultyRater().rate(new StandardSudoku(HIDDEN_PAIR));
+        assertEquals("subset", Rating.getTierName(rating.getTier()));
+        assertEquals(1, rating.getNumberOfSteps(6));
+        assertFalse(rating.isFallbackRequired());
+    }
+
+    /**
+     * Solves a sudoku the way the rater does. Each step taken by one of a range of solvers is
+     * done, undone, and done again, checking that undoing it restores every candidate.
+     */
+    private static int undoSubsetSteps(
+            final AbstractPuzzleModel puzzle, final int firstSolver, final int lastSolver) {
+        ISolver[] solvers = Solver.createSolvers();
+        int numberOfUndoneSteps = 0;
+        while (!puzzle.isSolved()) {
+            AbstractStep step = null;
+            int i = 0;
+            while (step == null && i < solvers.length) {
+                step = solvers[i++].getNextStep(puzzle);
+            }
+            assertTrue(step != null);
+            if (i - 1 >= firstSolver && i - 1 <= lastSolver) {
+                String before = getCandidates(puzzle);
+                step.redo();
+                String after = getCandidates(puzzle);
+                assertFalse(before.equals(after));
+                step.undo();
+                assertEquals(before, getCandidates(puzzle));
+                step.redo();
+                assertEquals(after, getCandidates(puzzle));
+                numberOfUndoneSteps++;
+            } else {
+                step.redo();
+            }
+        }
+        return numberOfUndoneSteps;
+    }
+
+    private static String getCandidates(final AbstractPuzzleModel puzzle) {
+        StringBuffer buffer = new StringBuffer();
+        Iterator iterator = puzzle.getAllCells();
+        while (iterator.hasNext()) {
+            buffer.append(((Cell) iterator.next()).getCandidates()).append(' ');
+        }
+        return buffer.toString();
+    }
+}